@@ -0,0 +1,102 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.actions;
+
+import io.github.jeddict.ai.scanner.ProjectClassScanner;
+import java.awt.event.ActionEvent;
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import org.netbeans.api.project.Project;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionReferences;
+import org.openide.awt.ActionRegistration;
+import org.openide.util.ContextAwareAction;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * An action that resumes the class scan of a project after it was cancelled
+ * from its progress bar. This action is available in the context menu of a
+ * project in the Projects view, and shown only while the scan of the project
+ * is cancelled.
+ */
+@ActionID(
+    category = "Edit",
+    id = "io.github.jeddict.ai.actions.ResumeIndexingAction"
+)
+@ActionRegistration(
+    displayName = "#CTL_ResumeIndexingAction",
+    lazy = false,
+    asynchronous = true,
+    iconBase = "icons/logo16.png"
+)
+@ActionReferences({
+    @ActionReference(path = "Projects/Actions", position = 101),
+})
+@Messages({"CTL_ResumeIndexingAction=Resume AI Indexing"})
+public final class ResumeIndexingAction extends AbstractAction implements ContextAwareAction {
+
+    /**
+     * This method is never called directly. The action is handled by the
+     * context-aware instance.
+     *
+     * @param ev the action event.
+     */
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+    }
+
+    /**
+     * Creates a context-aware instance of this action.
+     *
+     * @param actionContext the lookup context.
+     * @return a new instance of the context-aware action.
+     */
+    @Override
+    public Action createContextAwareInstance(Lookup actionContext) {
+        Project project = actionContext != null ? actionContext.lookup(Project.class) : null;
+        return new ResumeIndexingAction.ContextAction(project);
+    }
+
+    /**
+     * The context-aware action that resumes the class scan of the selected
+     * project.
+     */
+    private static final class ContextAction extends BaseProjectContextAction {
+
+        /**
+         * Constructs a new ContextAction.
+         *
+         * @param project the project.
+         */
+        private ContextAction(Project project) {
+            super(Bundle.CTL_ResumeIndexingAction(), project,
+                    project != null && ProjectClassScanner.isIndexingCancelled(project));
+        }
+
+        /**
+         * Resumes the class scan of the selected project.
+         *
+         * @param evt the action event.
+         */
+        @Override
+        public void actionPerformed(ActionEvent evt) {
+            ProjectClassScanner.resumeIndexing(project);
+        }
+
+    }
+}
@@ -0,0 +1,321 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import io.github.jeddict.ai.response.TokenHandler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cuts the source sent with a completion request down to the code around
+ * the caret.
+ *
+ * <p>
+ * A file that fits the token budget is sent whole. Otherwise the window
+ * keeps the package, the imports and a skeleton of the classes enclosing the
+ * caret: their headers and fields, and the signatures of their methods.
+ * Only the member holding the caret and a number of members on either side
+ * keep their full source. If even that exceeds the budget, the neighbours
+ * are dropped one by one, and at last the text around the caret is clipped.
+ * A text the tree was not parsed from is sent whole rather than sliced by
+ * the wrong positions.
+ *
+ * @author Gaurav Gupta
+ */
+final class CaretWindow {
+
+    /**
+     * Above this length a field initializer is left out of the skeleton.
+     */
+    private static final int MAX_FIELD_LENGTH = 120;
+
+    private final String source;
+    private final CompilationUnitTree unit;
+    private final SourcePositions positions;
+    private final int caretOffset;
+    private final String placeholder;
+    private final List<Tree> chain = new ArrayList<>();
+
+    private StringBuilder out;
+    private boolean placed;
+
+    private CaretWindow(String source, CompilationUnitTree unit, SourcePositions positions, TreePath path, int caretOffset, String placeholder) {
+        this.source = source;
+        this.unit = unit;
+        this.positions = positions;
+        this.caretOffset = caretOffset;
+        this.placeholder = placeholder;
+        for (TreePath p = path; p != null; p = p.getParentPath()) {
+            chain.add(p.getLeaf());
+        }
+        Collections.reverse(chain);
+    }
+
+    /**
+     * @param parsed the parse of the document
+     * @param caretOffset the caret offset
+     * @param placeholder the marker inserted at the caret
+     * @param members the members on either side of the caret kept whole; a
+     * negative value sends the whole file
+     * @param budget the tokens the text may use
+     * @return the windowed source with the placeholder at the caret
+     */
+    static String of(DocumentParser.Result parsed, int caretOffset, String placeholder, int members, int budget) {
+        return of(parsed.getSource(), parsed.getCompilationUnit(), parsed.getSourcePositions(), parsed.getPath(),
+                caretOffset, placeholder, members, budget, TokenHandler::countTokens);
+    }
+
+    static String of(String source, CompilationUnitTree unit, SourcePositions positions, TreePath path,
+            int caretOffset, String placeholder, int members, int budget, ToIntFunction<String> counter) {
+        caretOffset = Math.max(0, Math.min(caretOffset, source.length()));
+        String full = source.substring(0, caretOffset) + placeholder + source.substring(caretOffset);
+        if (members < 0 || counter.applyAsInt(full) <= budget) {
+            return full;
+        }
+        CaretWindow window = new CaretWindow(source, unit, positions, path, caretOffset, placeholder);
+        if (!window.matchesSource()) {
+            return full;
+        }
+        String text = full;
+        for (int radius = members; radius >= 0; radius--) {
+            String windowed = window.render(radius);
+            if (windowed == null) {
+                // the caret is outside of any class
+                break;
+            }
+            text = windowed;
+            if (counter.applyAsInt(text) <= budget) {
+                return text;
+            }
+        }
+        return clip(text, placeholder, budget, counter.applyAsInt(text));
+    }
+
+    /**
+     * @return whether the positions of the trees enclosing the caret fall
+     * within the text, each class declaring its name
+     */
+    private boolean matchesSource() {
+        if (end(unit) > source.length()) {
+            return false;
+        }
+        for (Tree tree : chain) {
+            long from = start(tree);
+            long to = end(tree);
+            if (from < 0) {
+                continue;
+            }
+            if (to < from || to > source.length()) {
+                return false;
+            }
+            if (tree instanceof ClassTree classTree && !classTree.getSimpleName().isEmpty()
+                    && !source.substring((int) from, (int) to).contains(classTree.getSimpleName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the window, {@code null} if the caret is not inside a
+     * top-level class
+     */
+    private String render(int radius) {
+        if (chain.size() < 2 || !(chain.get(1) instanceof ClassTree topLevel)) {
+            return null;
+        }
+        out = new StringBuilder();
+        placed = false;
+        if (unit.getPackage() != null) {
+            out.append(slice(unit.getPackage())).append('\n');
+        }
+        for (ImportTree importTree : unit.getImports()) {
+            out.append(slice(importTree)).append('\n');
+        }
+        out.append('\n');
+        renderClass(topLevel, radius);
+        return placed ? out.toString() : null;
+    }
+
+    private void renderClass(ClassTree classTree, int radius) {
+        out.append(indent(classTree)).append(header(classTree)).append(" {\n");
+        List<? extends Tree> members = classTree.getMembers();
+        int index = -1;
+        for (int i = 0; i < members.size(); i++) {
+            if (chain.contains(members.get(i))) {
+                index = i;
+                break;
+            }
+        }
+        int insertAt = -1;
+        if (index < 0 && !placed && start(classTree) <= caretOffset && caretOffset <= end(classTree)) {
+            // the caret is between members; it takes the place of a member
+            insertAt = 0;
+            while (insertAt < members.size() && (start(members.get(insertAt)) < 0
+                    || end(members.get(insertAt)) <= caretOffset)) {
+                insertAt++;
+            }
+            index = insertAt;
+        }
+        for (int i = 0; i < members.size(); i++) {
+            Tree member = members.get(i);
+            if (i == insertAt) {
+                out.append(placeholder).append('\n');
+                placed = true;
+            }
+            if (start(member) < 0) {
+                // generated, e.g. a default constructor
+                continue;
+            }
+            if (member instanceof ClassTree nested && chain.contains(member)) {
+                renderClass(nested, radius);
+            } else if (index >= 0 && Math.abs(i - index) <= radius) {
+                out.append(indent(member)).append(slice(member)).append('\n');
+            } else {
+                String skeleton = skeleton(member);
+                if (!skeleton.isEmpty()) {
+                    out.append(indent(member)).append(skeleton);
+                }
+            }
+        }
+        if (insertAt == members.size()) {
+            out.append(placeholder).append('\n');
+            placed = true;
+        }
+        out.append(indent(classTree)).append("}\n");
+    }
+
+    private String skeleton(Tree member) {
+        if (member instanceof VariableTree variable) {
+            String text = slice(variable);
+            if (text.length() > MAX_FIELD_LENGTH && variable.getInitializer() != null) {
+                return source.substring((int) start(variable), (int) start(variable.getInitializer())).trim()
+                        .replaceAll("\\s*=$", "") + ";\n";
+            }
+            return text + '\n';
+        } else if (member instanceof MethodTree method) {
+            if (method.getBody() == null || start(method.getBody()) < 0) {
+                return slice(method) + '\n';
+            }
+            return source.substring((int) start(method), (int) start(method.getBody())).trim() + ";\n";
+        } else if (member instanceof ClassTree nested) {
+            return header(nested) + " { ... }\n";
+        }
+        // initializer blocks are left out
+        return "";
+    }
+
+    /**
+     * @return the class declaration up to its opening brace
+     */
+    private String header(ClassTree classTree) {
+        int from = (int) start(classTree);
+        int bodyStart = source.indexOf('{', (int) Math.max(from, headerEnd(classTree)));
+        if (bodyStart < 0) {
+            return slice(classTree);
+        }
+        if (!placed && chain.contains(classTree) && from <= caretOffset && caretOffset <= bodyStart) {
+            placed = true;
+            return (source.substring(from, caretOffset) + placeholder + source.substring(caretOffset, bodyStart)).trim();
+        }
+        return source.substring(from, bodyStart).trim();
+    }
+
+    /**
+     * The end of the last clause of the class declaration, after which the
+     * first brace opens the body; braces inside annotations come before it.
+     */
+    private long headerEnd(ClassTree classTree) {
+        long end = end(classTree.getModifiers());
+        for (Tree tree : classTree.getTypeParameters()) {
+            end = Math.max(end, end(tree));
+        }
+        if (classTree.getExtendsClause() != null) {
+            end = Math.max(end, end(classTree.getExtendsClause()));
+        }
+        for (Tree tree : classTree.getImplementsClause()) {
+            end = Math.max(end, end(tree));
+        }
+        return end;
+    }
+
+    /**
+     * @return the source of the tree, with the placeholder at the caret if
+     * the caret is inside
+     */
+    private String slice(Tree tree) {
+        int from = (int) start(tree);
+        int to = (int) end(tree);
+        if (from < 0 || to < from) {
+            return "";
+        }
+        if (!placed && from <= caretOffset && caretOffset <= to) {
+            placed = true;
+            return source.substring(from, caretOffset) + placeholder + source.substring(caretOffset, to);
+        }
+        return source.substring(from, to);
+    }
+
+    /**
+     * @return the whitespace the line of the tree starts with, if the tree
+     * starts the line
+     */
+    private String indent(Tree tree) {
+        int from = (int) start(tree);
+        int i = from;
+        while (i > 0 && (source.charAt(i - 1) == ' ' || source.charAt(i - 1) == '\t')) {
+            i--;
+        }
+        return i == 0 || source.charAt(i - 1) == '\n' ? source.substring(i, from) : "";
+    }
+
+    private long start(Tree tree) {
+        return positions.getStartPosition(unit, tree);
+    }
+
+    private long end(Tree tree) {
+        return positions.getEndPosition(unit, tree);
+    }
+
+    /**
+     * Keeps whole lines around the placeholder, three quarters of them
+     * before it.
+     */
+    private static String clip(String text, String placeholder, int budget, int tokens) {
+        if (tokens <= budget) {
+            return text;
+        }
+        int at = text.indexOf(placeholder);
+        int keep = (int) ((long) text.length() * budget / tokens);
+        int from = Math.max(0, at - keep * 3 / 4);
+        int to = Math.min(text.length(), at + placeholder.length() + keep / 4);
+        int lineStart = text.lastIndexOf('\n', from);
+        int lineEnd = text.indexOf('\n', to);
+        from = lineStart < 0 || lineStart + 1 > at ? from : lineStart + 1;
+        to = lineEnd < 0 ? text.length() : lineEnd;
+        return text.substring(from, Math.max(to, at + placeholder.length()));
+    }
+}
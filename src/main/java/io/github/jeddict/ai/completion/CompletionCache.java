@@ -0,0 +1,103 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache of completion suggestions, keyed by the caret
+ * context rather than the whole document.
+ *
+ * <p>
+ * The key covers the source of the class member enclosing the caret, the
+ * caret position within it, the current line and the settings that shape the
+ * prompt. Re-triggering completion at the same spot is thus answered at once,
+ * while an edit to the member gives it a new key, so a stale suggestion is
+ * never returned; entries of earlier versions are evicted least recently
+ * used first.
+ *
+ * @author Gaurav Gupta
+ */
+final class CompletionCache {
+
+    private final Map<String, List<?>> entries;
+
+    CompletionCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<?>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param parts the values identifying the caret context; {@code null}
+     * values are allowed
+     * @return a hex encoded SHA-256 digest of the parts
+     */
+    static String key(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+                // length prefix, so that ("ab", "c") and ("a", "bc") differ
+                digest.update(new byte[]{
+                    (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                    (byte) (bytes.length >>> 8), (byte) bytes.length});
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param key the caret context key
+     * @return the cached suggestions, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<T> get(String key) {
+        synchronized (entries) {
+            return (List<T>) entries.get(key);
+        }
+    }
+
+    /**
+     * Stores suggestions; empty lists are not kept, as they usually stem from
+     * a cancelled or failed request.
+     *
+     * @param key the caret context key
+     * @param suggestions the suggestions
+     */
+    void put(String key, List<?> suggestions) {
+        if (suggestions == null || suggestions.isEmpty()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, Collections.unmodifiableList(new ArrayList<>(suggestions)));
+        }
+    }
+}
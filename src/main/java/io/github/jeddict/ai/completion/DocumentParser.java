@@ -0,0 +1,205 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+import io.github.jeddict.ai.scanner.CaretTreeLocator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.netbeans.api.java.source.JavaSource;
+
+/**
+ * Provides the syntax tree of an editor document and the path at the caret
+ * for completion queries.
+ *
+ * <p>
+ * The IDE already keeps the open document parsed; its tree is reused at the
+ * {@link JavaSource.Phase#PARSED} phase, which is incremental and skips
+ * attribution, as the completion prompts only need the tree shape. Documents
+ * the IDE does not parse are parsed with javac, again without attribution,
+ * and the tree is kept on the document until its text changes.
+ *
+ * <p>
+ * The trees of the IDE are only valid inside its parser task, as an
+ * incremental reparse reuses them, so the caller's work on the tree runs
+ * inside the task and takes out plain values only.
+ *
+ * @author Gaurav Gupta
+ */
+final class DocumentParser {
+
+    private static final Logger LOG = Logger.getLogger(DocumentParser.class.getName());
+
+    private DocumentParser() {
+    }
+
+    /**
+     * @param doc the document
+     * @param caretOffset the caret offset
+     * @param task the work on the tree and caret path; the {@link Result}
+     * must not be kept beyond it
+     * @return what the task returned
+     */
+    static <T> T parse(Document doc, int caretOffset, Function<Result, T> task) throws IOException {
+        JavaSource javaSource = JavaSource.forDocument(doc);
+        if (javaSource != null) {
+            List<T> result = new ArrayList<>(1);
+            javaSource.runUserActionTask(info -> {
+                if (info.toPhase(JavaSource.Phase.PARSED).compareTo(JavaSource.Phase.PARSED) >= 0) {
+                    CompilationUnitTree unit = info.getCompilationUnit();
+                    // the text the tree was parsed from, not the document, which may have changed since
+                    result.add(task.apply(new Result(info.getText(), unit, info.getTrees().getSourcePositions(),
+                            findPath(info.getTrees(), unit, caretOffset))));
+                }
+            }, true);
+            if (!result.isEmpty()) {
+                return result.get(0);
+            }
+            LOG.log(Level.FINE, "IDE parser not available for {0}, parsing with javac", doc);
+        }
+        return task.apply(parseWithJavac(doc, caretOffset));
+    }
+
+    private static Result parseWithJavac(Document doc, int caretOffset) throws IOException {
+        String source;
+        try {
+            source = doc.getText(0, doc.getLength());
+        } catch (BadLocationException ex) {
+            throw new IOException(ex);
+        }
+        Parsed parsed = (Parsed) doc.getProperty(Parsed.class);
+        if (parsed == null || !parsed.source.equals(source)) {
+            parsed = new Parsed(source);
+            doc.putProperty(Parsed.class, parsed);
+        }
+        return new Result(source, parsed.unit, parsed.trees.getSourcePositions(), findPath(parsed.trees, parsed.unit, caretOffset));
+    }
+
+    private static TreePath findPath(Trees trees, CompilationUnitTree unit, int caretOffset) {
+        return CaretTreeLocator.locate(unit, trees.getSourcePositions(), caretOffset);
+    }
+
+    /**
+     * The syntax tree of a document and the path at the caret.
+     */
+    static final class Result {
+
+        private final String source;
+        private final CompilationUnitTree compilationUnit;
+        private final SourcePositions positions;
+        private final TreePath path;
+
+        private Result(String source, CompilationUnitTree compilationUnit, SourcePositions positions, TreePath path) {
+            this.source = source;
+            this.compilationUnit = compilationUnit;
+            this.positions = positions;
+            this.path = path;
+        }
+
+        /**
+         * @return the text the tree was parsed from
+         */
+        String getSource() {
+            return source;
+        }
+
+        CompilationUnitTree getCompilationUnit() {
+            return compilationUnit;
+        }
+
+        /**
+         * @return the innermost path enclosing the caret, {@code null} if
+         * none does
+         */
+        TreePath getPath() {
+            return path;
+        }
+
+        /**
+         * @return the class member (method, field, initializer or nested
+         * class) enclosing the caret, else the class itself, {@code null} if
+         * the caret is outside of any class
+         */
+        Tree getEnclosingMember() {
+            for (TreePath p = path; p != null; p = p.getParentPath()) {
+                TreePath parent = p.getParentPath();
+                if (p.getLeaf() instanceof ClassTree
+                        || parent != null && parent.getLeaf() instanceof ClassTree) {
+                    return p.getLeaf();
+                }
+            }
+            return null;
+        }
+
+        SourcePositions getSourcePositions() {
+            return positions;
+        }
+
+        long getStartPosition(Tree tree) {
+            return positions.getStartPosition(compilationUnit, tree);
+        }
+
+        long getEndPosition(Tree tree) {
+            return positions.getEndPosition(compilationUnit, tree);
+        }
+    }
+
+    /**
+     * A javac parse of one version of the document text.
+     */
+    private static final class Parsed {
+
+        private final String source;
+        private final CompilationUnitTree unit;
+        private final Trees trees;
+
+        Parsed(String source) throws IOException {
+            this.source = source;
+            JavaFileObject fileObject = new SimpleJavaFileObject(URI.create("string:///Test.java"), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            // Redirecting output and error streams to suppress logs
+            PrintWriter nullWriter = new PrintWriter(OutputStream.nullOutputStream());
+            JavacTask task = (JavacTask) compiler.getTask(nullWriter, null, nullWriter::print, null, null, Collections.singletonList(fileObject));
+            this.unit = task.parse().iterator().next();
+            this.trees = Trees.instance(task);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.text.Document;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Runs the inline hint requests of one document, at most one at a time.
+ *
+ * <p>
+ * Each submitted request gets the next generation number and replaces the
+ * previous one: a request still waiting for its delay is dropped, a running
+ * one is interrupted, which aborts its model call. A request only renders its
+ * result while it is the latest generation, so a hint that arrives after the
+ * user moved on is discarded. Typing through a file thus leaves a single
+ * request in flight instead of one per line.
+ *
+ * @author Gaurav Gupta
+ */
+final class InlineHintPipeline {
+
+    private static final Logger LOG = Logger.getLogger(InlineHintPipeline.class.getName());
+
+    /**
+     * Shared by all documents; each document has its own task on it.
+     */
+    private static final RequestProcessor RP = new RequestProcessor("Jeddict Inline Hints", 4, true);
+
+    private final AtomicLong generation = new AtomicLong();
+    private final RequestProcessor.Task task = RP.create(this::run);
+    private volatile Request pending;
+
+    InlineHintPipeline() {
+    }
+
+    /**
+     * Only called from the event dispatch thread, like
+     * {@code getAutoQueryTypes}, so no two pipelines are created for a
+     * document.
+     *
+     * @param doc the editor document
+     * @return the pipeline of the document
+     */
+    static InlineHintPipeline forDocument(Document doc) {
+        InlineHintPipeline pipeline = (InlineHintPipeline) doc.getProperty(InlineHintPipeline.class);
+        if (pipeline == null) {
+            pipeline = new InlineHintPipeline();
+            doc.putProperty(InlineHintPipeline.class, pipeline);
+        }
+        return pipeline;
+    }
+
+    /**
+     * Replaces any earlier request of the document.
+     *
+     * @param job computes and renders the hint; it should check
+     * {@link Request#isCurrent()} before rendering
+     * @param delay the milliseconds to wait before running the job
+     * @return the request
+     */
+    Request submit(Consumer<Request> job, int delay) {
+        Request request = new Request(generation.incrementAndGet(), job);
+        pending = request;
+        // drops the waiting job or interrupts the running one, which then
+        // runs again with the pending request once it has returned
+        task.cancel();
+        task.schedule(Math.max(0, delay));
+        return request;
+    }
+
+    /**
+     * Drops the pending request and aborts the running one.
+     */
+    void cancel() {
+        generation.incrementAndGet();
+        pending = null;
+        task.cancel();
+    }
+
+    private void run() {
+        Request request = pending;
+        if (request == null || !request.isCurrent()) {
+            return;
+        }
+        // clears an interrupt meant for the previous request
+        Thread.interrupted();
+        try {
+            request.job.accept(request);
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Inline hint failed", ex);
+        } finally {
+            if (pending == request) {
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * One inline hint request.
+     */
+    final class Request {
+
+        private final long generation;
+        private final Consumer<Request> job;
+
+        private Request(long generation, Consumer<Request> job) {
+            this.generation = generation;
+            this.job = job;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * @return {@code false} once a newer request was submitted or the
+         * pipeline was cancelled; the result is then stale
+         */
+        boolean isCurrent() {
+            return InlineHintPipeline.this.generation.get() == generation;
+        }
+    }
+}
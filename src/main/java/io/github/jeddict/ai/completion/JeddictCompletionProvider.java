@@ -15,18 +15,20 @@
  */
 package io.github.jeddict.ai.completion;
 
-import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
-import com.sun.source.util.DocTrees;
-import com.sun.source.util.JavacTask;
+import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
-import com.sun.source.util.Trees;
+import io.github.jeddict.ai.lang.JeddictChatModel;
 import io.github.jeddict.ai.lang.Snippet;
-import io.github.jeddict.ai.scanner.MyTreePathScanner;
 import static io.github.jeddict.ai.scanner.ProjectClassScanner.getClassDataContent;
 import static io.github.jeddict.ai.scanner.ProjectClassScanner.getFileObjectFromEditor;
+import static io.github.jeddict.ai.scanner.ProjectClassScanner.getIndexedClassData;
 import static io.github.jeddict.ai.scanner.ProjectClassScanner.getJeddictChatModel;
+import static io.github.jeddict.ai.scanner.ProjectClassScanner.isContextComplete;
+import io.github.jeddict.ai.scanner.ProjectVocabulary;
 import io.github.jeddict.ai.settings.AIClassContext;
+import io.github.jeddict.ai.settings.LocalSuggestionMode;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import static io.github.jeddict.ai.util.MimeUtil.JAVA_MIME;
 import io.github.jeddict.ai.util.SourceUtil;
@@ -35,23 +37,20 @@ import static io.github.jeddict.ai.util.StringUtil.trimLeadingSpaces;
 import static io.github.jeddict.ai.util.StringUtil.trimTrailingSpaces;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.net.URI;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import javax.swing.text.AbstractDocument;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
-import javax.tools.JavaCompiler;
-import javax.tools.JavaFileObject;
-import javax.tools.SimpleJavaFileObject;
-import javax.tools.ToolProvider;
 import org.netbeans.api.editor.completion.Completion;
 import org.netbeans.api.editor.mimelookup.MimeLookup;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
@@ -78,6 +77,7 @@ import org.netbeans.api.lexer.LanguagePath;
 import org.netbeans.api.lexer.TokenHierarchy;
 import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
 import org.netbeans.editor.Utilities;
 import org.netbeans.modules.db.sql.loader.SQLEditorSupport;
 import org.netbeans.modules.editor.indent.api.Reformat;
@@ -95,8 +95,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
 
     private static final PreferencesManager prefsManager = PreferencesManager.getInstance();
 
-    private static final String HIGHLIGHTED_TEXT_KEY = "HIGHLIGHTED_TEXT_KEY";
-    private static final String HIGHLIGHTED_TEXT_LOC_KEY = "HIGHLIGHTED_TEXT_LOC_KEY";
+    static final String HIGHLIGHTED_TEXT_KEY = "HIGHLIGHTED_TEXT_KEY";
+    static final String HIGHLIGHTED_TEXT_LOC_KEY = "HIGHLIGHTED_TEXT_LOC_KEY";
     private static final Object KEY_PRE_TEXT = new Object();
 
     public static OffsetsBag getPreTextBag(Document doc, JTextComponent component) {
@@ -114,6 +114,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
             component.addKeyListener(new KeyAdapter() {
                 @Override
                 public void keyPressed(KeyEvent e) {
+                    // typing makes a hint still being streamed obsolete
+                    StreamingInlineHint.cancel(doc);
                     if (e.getKeyCode() == KeyEvent.VK_ENTER
                             && (prefsManager.isInlineHintEnabled() || prefsManager.isInlinePromptHintEnabled())) {
                         try {
@@ -182,29 +184,28 @@ public class JeddictCompletionProvider implements CompletionProvider {
         return null;
     }
 
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private Future<?> currentTask;
-
     @Override
     public int getAutoQueryTypes(JTextComponent component, String typedText) {
         if (typedText.length() == 1
                 && typedText.charAt(0) == '\n') {
-            if (currentTask != null && !currentTask.isDone()) {
-                currentTask.cancel(true);
-            }
+            InlineHintPipeline pipeline = InlineHintPipeline.forDocument(component.getDocument());
             boolean inlineHintEnabled = prefsManager.isInlineHintEnabled();
             boolean inlinePromptHintEnabled = prefsManager.isInlinePromptHintEnabled();
             LineScanResult result = inlinePromptHintEnabled ? getPreviousLineUntilSlash(component) : null;
             boolean shouldExecuteQuery = (result == null && inlineHintEnabled) || (result != null && inlinePromptHintEnabled);
             if (shouldExecuteQuery) {
-                currentTask = executorService.submit(() -> {
+                String hintContext = result != null ? prefsManager.getPrompts().get(result.getFirstWord()) + " - " + result.getSecondWord() : null;
+                // an explicit prompt is asked at once, plain new lines wait for typing to pause
+                int delay = result != null ? 0 : prefsManager.getInlineHintDelay();
+                pipeline.submit(request -> {
                     JeddictCompletionQuery query = new JeddictCompletionQuery(-1, component.getSelectionStart());
-                    if (result != null) {
-                        query.setHintContext(prefsManager.getPrompts().get(result.getFirstWord()) + " - " + result.getSecondWord());
-                    }
+                    query.setHintContext(hintContext);
+                    query.setHintRequest(request);
                     query.prepareQuery(component);
                     query.query(null, component.getDocument(), component.getSelectionStart());
-                });
+                }, delay);
+            } else {
+                pipeline.cancel();
             }
 
         }
@@ -299,10 +300,40 @@ public class JeddictCompletionProvider implements CompletionProvider {
     }
     static final class JeddictCompletionQuery extends AsyncCompletionQuery {
 
+        private static final Logger LOG = Logger.getLogger(JeddictCompletionQuery.class.getName());
+
+        /**
+         * How long the completion popup waits for suggestions.
+         */
+        private static final Duration COMPLETION_TIMEOUT = Duration.ofSeconds(60);
+        /**
+         * How long an inline hint may take; it is usually stale well before.
+         */
+        private static final Duration INLINE_HINT_TIMEOUT = Duration.ofSeconds(20);
+
+        private static final CompletionCache CACHE = new CompletionCache(256);
+        /**
+         * Shown over the suggestions while the project is being indexed.
+         */
+        private static final String INDEXING_TITLE = "Indexing the project, suggestions may miss some of its classes";
+        /**
+         * The most names or literals suggested from the project vocabulary.
+         */
+        private static final int LOCAL_SUGGESTIONS = 8;
+
         private JTextComponent component;
         private final int queryType;
         private int caretOffset;
         private String hintContext;
+        private boolean inlineHint;
+        private InlineHintPipeline.Request hintRequest;
+        private String cacheKey;
+        /**
+         * The answer found under the cache key before the class content was
+         * gathered, so an eviction in between cannot leave the query without
+         * either.
+         */
+        private List<?> cachedAnswer;
 
         private JeddictCompletionQuery(int queryType, int caretOffset) {
             this.queryType = queryType;
@@ -317,6 +348,18 @@ public class JeddictCompletionProvider implements CompletionProvider {
             this.hintContext = context;
         }
 
+        void setHintRequest(InlineHintPipeline.Request request) {
+            this.hintRequest = request;
+        }
+
+        /**
+         * @return {@code true} if this is an inline hint superseded by a newer
+         * one, whose result must not be shown
+         */
+        private boolean isStaleHint() {
+            return hintRequest != null && !hintRequest.isCurrent();
+        }
+
         @Override
         protected void preQueryUpdate(JTextComponent component) {
             int newCaretOffset = component.getSelectionStart();
@@ -380,6 +423,60 @@ public class JeddictCompletionProvider implements CompletionProvider {
             }
         }
 
+        /**
+         * Takes what the completion needs from the tree while the parser
+         * task runs: the tree kinds, the declared type, the source window,
+         * the member text keying the cache and, unless the answer is cached,
+         * the referenced classes.
+         */
+        private CaretContext caretContext(FileObject fileObject, DocumentParser.Result parsed, boolean streaming,
+                String line, String lineTextBeforeCaret) {
+            CaretContext context = new CaretContext();
+            context.window = CaretWindow.of(parsed, caretOffset, CaretContext.CARET,
+                    prefsManager.getCompletionWindowMembers(), prefsManager.getCompletionTokenBudget());
+            if (streaming) {
+                return context;
+            }
+            TreePath path = parsed.getPath();
+            if (path != null) {
+                Tree leaf = path.getLeaf();
+                context.kind = leaf.getKind();
+                context.parentKind = path.getParentPath() != null ? path.getParentPath().getLeaf().getKind() : null;
+                context.leaf = leaf.toString();
+                if (leaf instanceof VariableTree variable && variable.getType() != null) {
+                    context.declaredType = variable.getType().toString();
+                } else if (leaf instanceof MethodTree method && method.getReturnType() != null) {
+                    context.declaredType = method.getReturnType().toString();
+                }
+            }
+            String source = parsed.getSource();
+            Tree member = parsed.getEnclosingMember();
+            int start = member == null ? 0 : (int) parsed.getStartPosition(member);
+            int end = member == null ? source.length() : (int) parsed.getEndPosition(member);
+            if (start >= 0 && start <= end && end <= source.length()) {
+                context.member = source.substring(start, end);
+                context.memberStart = start;
+            }
+            context.classContext = -1 == queryType ? prefsManager.getClassContextInlineHint() : prefsManager.getClassContext();
+            if (context.kind == Tree.Kind.VARIABLE || context.kind == Tree.Kind.METHOD || context.kind == Tree.Kind.STRING_LITERAL) {
+                context.classContext = prefsManager.getVarContext();
+                Project project = FileOwnerQuery.getOwner(fileObject);
+                if (prefsManager.getLocalSuggestionMode() != LocalSuggestionMode.OFF && project != null) {
+                    ProjectVocabulary.forProject(project).updateDocument(fileObject, parsed.getSource(), parsed.getCompilationUnit());
+                }
+            }
+            // answers from a partial context are not kept once the project is indexed
+            context.contextComplete = isContextComplete(fileObject);
+            if (context.contextComplete) {
+                cacheKey = cacheKey(fileObject, context, line, lineTextBeforeCaret);
+                cachedAnswer = cacheKey == null ? null : CACHE.get(cacheKey);
+            }
+            if (cachedAnswer == null) {
+                context.classDataContent = getClassDataContent(fileObject, parsed.getCompilationUnit(), context.classContext);
+            }
+            return context;
+        }
+
         public String getVariableNameAtCaret(Document doc, int caretOffset) {
             try {
                 int lineStart = doc.getDefaultRootElement().getElement(doc.getDefaultRootElement().getElementIndex(caretOffset)).getStartOffset();
@@ -398,41 +495,6 @@ public class JeddictCompletionProvider implements CompletionProvider {
             return null;
         }
 
-        private JavacTask getJavacTask(Document doc) {
-            try {
-                String sourceCode = doc.getText(0, doc.getLength());
-                JavaFileObject fileObject = new SimpleJavaFileObject(URI.create("string:///Test.java"), JavaFileObject.Kind.SOURCE) {
-                    @Override
-                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
-                        return sourceCode;
-                    }
-                };
-                JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-                // Redirecting output and error streams to suppress logs
-                OutputStream nullOutputStream = new OutputStream() {
-                    @Override
-                    public void write(int b) {
-                        // No-op, discard output
-                    }
-                };
-                PrintWriter nullWriter = new PrintWriter(nullOutputStream);
-                JavacTask task = (JavacTask) compiler.getTask(nullWriter, null, nullWriter::print, null, null, Collections.singletonList(fileObject));
-                return task;
-            } catch (BadLocationException ex) {
-                Exceptions.printStackTrace(ex);
-            }
-            return null;
-        }
-
-        public TreePath findTreePathAtCaret(CompilationUnitTree compilationUnit, JavacTask task) throws IOException {
-            Trees trees = Trees.instance(task);
-            DocTrees docTrees = DocTrees.instance(task);  // Get the instance of DocTrees
-            MyTreePathScanner treePathScanner = new MyTreePathScanner(trees, docTrees, caretOffset, compilationUnit);
-            treePathScanner.scan(compilationUnit, null);
-            TreePath resultPath = treePathScanner.getTargetPath();
-            return resultPath;
-        }
-
         private JeddictItem createItem(Snippet snippet, String line, String lineTextBeforeCaret, JavaToken javaToken, Tree.Kind kind, Document doc) throws BadLocationException {
             int newcaretOffset = caretOffset;
             if (javaToken.getId() == STRING_LITERAL && kind == Tree.Kind.STRING_LITERAL) {
@@ -508,31 +570,32 @@ public class JeddictCompletionProvider implements CompletionProvider {
                 }
                 done = true;
                 this.caretOffset = caretOffset;
+                this.inlineHint = resultSet == null;
                 String mimeType = (String) doc.getProperty("mimeType");
                 JavaToken javaToken = isJavaContext(component.getDocument(), caretOffset, true);
                 if ((COMPLETION_QUERY_TYPE == queryType || -1 == queryType || COMPLETION_ALL_QUERY_TYPE == queryType)
                         && JAVA_MIME.equals(mimeType)
                         && javaToken.isJavaContext()) {
-                    JavacTask task = getJavacTask(doc);
-                    Iterable<? extends CompilationUnitTree> ast = task.parse();
-                    task.analyze();
-                    CompilationUnitTree compilationUnit = ast.iterator().next();
-
+                    // the caret path and referenced types only need the tree, not attribution
+                    boolean streaming = inlineHint && prefsManager.isInlineHintStreamingEnabled();
                     String line = getLineText(doc, caretOffset);
                     String lineTextBeforeCaret = getLineTextBeforeCaret(doc, caretOffset);
-                    TreePath path = findTreePathAtCaret(compilationUnit, task);
+                    CaretContext context = DocumentParser.parse(doc, caretOffset,
+                            parsed -> caretContext(fileObject, parsed, streaming, line, lineTextBeforeCaret));
+                    if (streaming) {
+                        streamHint(fileObject, context.window("${SUGGEST_CODE}"));
+                        return;
+                    }
 
-                    Tree.Kind kind = path == null ? null : path.getLeaf().getKind();
-                    Tree.Kind parentKind = path != null && path.getParentPath() != null ? path.getParentPath().getLeaf().getKind() : null;
-                    AIClassContext activeClassContext = -1 == queryType ? prefsManager.getClassContextInlineHint() : prefsManager.getClassContext();
-                    if (kind == Tree.Kind.VARIABLE || kind == Tree.Kind.METHOD || kind == Tree.Kind.STRING_LITERAL) {
-                        activeClassContext = prefsManager.getVarContext();
+                    Tree.Kind kind = context.kind;
+                    Tree.Kind parentKind = context.parentKind;
+                    String classDataContent = context.classDataContent;
+                    if (!context.contextComplete && resultSet != null) {
+                        resultSet.setTitle(INDEXING_TITLE);
                     }
-                    String classDataContent = getClassDataContent(fileObject, compilationUnit, activeClassContext);
-                    if (path == null || kind == Tree.Kind.ERRONEOUS) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                    if (kind == null || kind == Tree.Kind.ERRONEOUS) {
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -542,9 +605,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                             }
                         }
                     } else if (kind == Tree.Kind.COMPILATION_UNIT) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -556,17 +618,15 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     } else if (resultSet != null &&
                             ((trimLeadingSpaces(line).length() > 0
                             && trimLeadingSpaces(line).charAt(0) == '@') || kind == Tree.Kind.ANNOTATION)) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> annotationSuggestions = getJeddictChatModel(fileObject)
-                                .suggestAnnotations(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> annotationSuggestions = ask(fileObject, model -> model.suggestAnnotations(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, hintContext, queryType == -1));
                         for (Snippet annotationSuggestion : annotationSuggestions) {
                             resultSet.addItem(createItem(annotationSuggestion, line, lineTextBeforeCaret, javaToken, kind, doc));
                         }
                     } else if (kind == Tree.Kind.MODIFIERS
                             || kind == Tree.Kind.IDENTIFIER) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -576,9 +636,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                             }
                         }
                     } else if (kind == Tree.Kind.CLASS) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -589,9 +648,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                             }
                         }
                     } else if (kind == Tree.Kind.BLOCK) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -602,9 +660,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                             }
                         }
                     } else if (kind == Tree.Kind.EXPRESSION_STATEMENT) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -615,45 +672,49 @@ public class JeddictCompletionProvider implements CompletionProvider {
                             }
                         }
                     } else if (kind == Tree.Kind.VARIABLE && resultSet != null) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_VAR_NAMES_LIST}");
+                        String updateddoc = context.window("${SUGGEST_VAR_NAMES_LIST}");
                         String currentVarName = getVariableNameAtCaret(doc, caretOffset);
-                        List<String> sugs = getJeddictChatModel(fileObject)
-                                .suggestVariableNames(classDataContent, updateddoc, line);
+                        List<String> sugs = askWithVocabulary(fileObject,
+                                vocabulary -> vocabulary.suggestVariableNames(context.declaredType, currentVarName, LOCAL_SUGGESTIONS),
+                                model -> model.suggestVariableNames(classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             JeddictItem var = new JeddictItem(null, null, snippet, "", Collections.emptyList(), caretOffset - currentVarName.length(), true, false, -1);
                             resultSet.addItem(var);
                         }
                     } else if (kind == Tree.Kind.METHOD && resultSet != null) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_METHOD_NAMES_LIST}");
+                        String updateddoc = context.window("${SUGGEST_METHOD_NAMES_LIST}");
                         String currentVarName = getVariableNameAtCaret(doc, caretOffset);
-                        List<String> sugs = getJeddictChatModel(fileObject)
-                                .suggestMethodNames(classDataContent, updateddoc, line);
+                        List<String> sugs = askWithVocabulary(fileObject,
+                                vocabulary -> vocabulary.suggestMethodNames(context.declaredType, currentVarName, LOCAL_SUGGESTIONS),
+                                model -> model.suggestMethodNames(classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             JeddictItem var = new JeddictItem(null, null, snippet, "", Collections.emptyList(), caretOffset - currentVarName.length(), true, false, -1);
                             resultSet.addItem(var);
                         }
                     } else if (kind == Tree.Kind.METHOD_INVOCATION && resultSet != null) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_METHOD_INVOCATION}");
+                        String updateddoc = context.window("${SUGGEST_METHOD_INVOCATION}");
                         String currentVarName = getVariableNameAtCaret(doc, caretOffset);
-                        List<String> sugs = getJeddictChatModel(fileObject)
-                                .suggestMethodInvocations(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line);
+                        List<String> sugs = ask(fileObject, model -> model.suggestMethodInvocations(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             snippet = snippet.replace("<", "&lt;").replace(">", "&gt;");
                             JeddictItem var = new JeddictItem(null, null, snippet, "", Collections.emptyList(), caretOffset - currentVarName.length(), true, false, -1);
                             resultSet.addItem(var);
                         }
                     } else if (kind == Tree.Kind.STRING_LITERAL && resultSet != null) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_STRING_LITERAL_LIST}");
-                        List<String> sugs = getJeddictChatModel(fileObject).suggestStringLiterals(classDataContent, updateddoc, line);
+                        String updateddoc = context.window("${SUGGEST_STRING_LITERAL_LIST}");
+                        String literalPrefix = javaToken.getId() == STRING_LITERAL && javaToken.getOffset() < caretOffset
+                                ? doc.getText(javaToken.getOffset() + 1, caretOffset - javaToken.getOffset() - 1) : "";
+                        List<String> sugs = askWithVocabulary(fileObject,
+                                vocabulary -> vocabulary.suggestStringLiterals(literalPrefix, LOCAL_SUGGESTIONS),
+                                model -> model.suggestStringLiterals(classDataContent, updateddoc, line));
                         for (String snippet : sugs) {
                             resultSet.addItem(createItem(new Snippet(snippet), line, lineTextBeforeCaret, javaToken, kind, doc));
                         }
                     } else if (kind == Tree.Kind.PARENTHESIZED
                             && parentKind != null
                             && parentKind == Tree.Kind.IF) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_IF_CONDITIONS}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_IF_CONDITIONS}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -666,9 +727,8 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     } else if (kind == Tree.Kind.MEMBER_SELECT
                             && parentKind != null
                             && parentKind == Tree.Kind.METHOD_INVOCATION) {
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -679,10 +739,9 @@ public class JeddictCompletionProvider implements CompletionProvider {
                             }
                         }
                     } else {
-                        System.out.println("Skipped : " + kind + " " + path.getLeaf().toString());
-                        String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, path, hintContext, queryType == -1);
+                        System.out.println("Skipped : " + kind + " " + context.leaf);
+                        String updateddoc = context.window("${SUGGEST_CODE}");
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), classDataContent, updateddoc, line, kind, parentKind, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -695,17 +754,10 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     }
                 } else if ((COMPLETION_QUERY_TYPE == queryType || COMPLETION_ALL_QUERY_TYPE == queryType) && JAVA_MIME.equals(mimeType)) {
                     String line = getLineText(doc, caretOffset);
-                    JavacTask task = getJavacTask(doc);
-                    Iterable<? extends CompilationUnitTree> ast = task.parse();
-                    task.analyze();
-                    CompilationUnitTree compilationUnit = ast.iterator().next();
-
-                    TreePath path = findTreePathAtCaret(compilationUnit, task);
                     List<String> sugs;
                     if (line.trim().startsWith("//")) {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_JAVA_COMMENT}");
-                        sugs = getJeddictChatModel(fileObject)
-                                .suggestJavaComment(FileOwnerQuery.getOwner(fileObject), "", updateddoc, line);
+                        sugs = ask(fileObject, model -> model.suggestJavaComment(FileOwnerQuery.getOwner(fileObject), "", updateddoc, line));
                         for (String varName : sugs) {
                             int newcaretOffset = caretOffset;
                             if (varName.startsWith(line.trim())) {
@@ -719,8 +771,7 @@ public class JeddictCompletionProvider implements CompletionProvider {
                         }
                     } else {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_JAVADOC}");
-                        sugs = getJeddictChatModel(fileObject)
-                                .suggestJavadocOrComment(FileOwnerQuery.getOwner(fileObject), "", updateddoc, line);
+                        sugs = ask(fileObject, model -> model.suggestJavadocOrComment(FileOwnerQuery.getOwner(fileObject), "", updateddoc, line));
                         for (String snippet : sugs) {
                             int newcaretOffset = caretOffset;
                             if (snippet.trim().startsWith(line.trim())) {
@@ -744,8 +795,7 @@ public class JeddictCompletionProvider implements CompletionProvider {
                     if (sQLEditorSupport != null) {
                         SQLCompletion sqlCompletion = new SQLCompletion(sQLEditorSupport);
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_SQL_QUERY_LIST}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestSQLQuery(sqlCompletion.getMetaData(), updateddoc);
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestSQLQuery(sqlCompletion.getMetaData(), updateddoc));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -757,8 +807,7 @@ public class JeddictCompletionProvider implements CompletionProvider {
                         }
                     } else {
                         String updateddoc = insertPlaceholderAtCaret(doc, caretOffset, "${SUGGEST_CODE}");
-                        List<Snippet> sugs = getJeddictChatModel(fileObject)
-                                .suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), updateddoc, line, mimeType, hintContext, queryType == -1);
+                        List<Snippet> sugs = ask(fileObject, model -> model.suggestNextLineCode(FileOwnerQuery.getOwner(fileObject), updateddoc, line, mimeType, hintContext, queryType == -1));
                         for (Snippet snippet : sugs) {
                             if (resultSet == null) {
                                 highlightMultiline(component, caretOffset, snippet);
@@ -787,11 +836,124 @@ public class JeddictCompletionProvider implements CompletionProvider {
             } catch (Exception e) {
                 Exceptions.printStackTrace(e);
             } finally {
-                resultSet.finish();
+                if (resultSet != null) {
+                    resultSet.finish();
+                }
+            }
+        }
+
+        /**
+         * Answers a name or literal completion from the vocabulary of the
+         * project, and from the model unless the vocabulary answers it alone.
+         * The vocabulary is read from the classes indexed so far and the
+         * parsed document; it never waits for a scan of the project.
+         */
+        private List<String> askWithVocabulary(FileObject fileObject,
+                Function<ProjectVocabulary, List<String>> local,
+                Function<JeddictChatModel, List<String>> operation) throws ExecutionException {
+            LocalSuggestionMode mode = prefsManager.getLocalSuggestionMode();
+            Project project = FileOwnerQuery.getOwner(fileObject);
+            if (mode == LocalSuggestionMode.OFF || project == null) {
+                return ask(fileObject, operation);
+            }
+            ProjectVocabulary vocabulary = ProjectVocabulary.forProject(project);
+            // the document was read into the vocabulary while it was parsed
+            vocabulary.update(getIndexedClassData(project));
+            List<String> suggestions = local.apply(vocabulary);
+            if (mode == LocalSuggestionMode.REPLACE && !suggestions.isEmpty()) {
+                return suggestions;
+            }
+            Set<String> merged = new LinkedHashSet<>(suggestions);
+            merged.addAll(ask(fileObject, operation));
+            return new ArrayList<>(merged);
+        }
+
+        /**
+         * Asks the model off the query thread. The request is abandoned, and
+         * its HTTP exchange aborted, as soon as the completion task is
+         * cancelled, the query thread is interrupted (a newer inline hint
+         * replaced it) or the call site's timeout elapses.
+         */
+        private <T> List<T> ask(FileObject fileObject, Function<JeddictChatModel, List<T>> operation) throws ExecutionException {
+            if (isStaleHint()) {
+                return Collections.emptyList();
+            }
+            if (cachedAnswer != null) {
+                @SuppressWarnings("unchecked")
+                List<T> cached = (List<T>) cachedAnswer;
+                return cached;
+            }
+            CompletableFuture<List<T>> future = getJeddictChatModel(fileObject)
+                    .async(operation, inlineHint ? INLINE_HINT_TIMEOUT : COMPLETION_TIMEOUT);
+            try {
+                // inline hints have no completion task, they are cancelled by interruption
+                while (inlineHint || !isTaskCancelled()) {
+                    try {
+                        List<T> result = future.get(100, TimeUnit.MILLISECONDS);
+                        if (result == null) {
+                            return Collections.emptyList();
+                        }
+                        if (cacheKey != null) {
+                            CACHE.put(cacheKey, result);
+                        }
+                        return result;
+                    } catch (TimeoutException ex) {
+                        // still waiting, check for cancellation again
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                if (!(ex.getCause() instanceof TimeoutException)) {
+                    throw ex;
+                }
+                LOG.log(Level.FINE, "Suggestions timed out at offset {0}", caretOffset);
+            } finally {
+                future.cancel(true);
+            }
+            return Collections.emptyList();
+        }
+
+        /**
+         * Shows the inline hint while it is generated and returns once it is
+         * complete or cancelled, so the pipeline keeps a single hint in flight
+         * per document.
+         */
+        private void streamHint(FileObject fileObject, String updateddoc) {
+            if (isStaleHint()) {
+                return;
+            }
+            StreamingInlineHint hint = new StreamingInlineHint(component, caretOffset, hintRequest);
+            getJeddictChatModel(fileObject)
+                    .streamNextLineCode(FileOwnerQuery.getOwner(fileObject), updateddoc, hintContext)
+                    .subscribe(hint);
+            try {
+                hint.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
         }
 
+        /**
+         * Identifies the caret context by the enclosing class member rather
+         * than the whole document, so edits elsewhere in the file keep repeat
+         * completions cached.
+         *
+         * @return the key, or {@code null} if the member text is unavailable
+         */
+        private String cacheKey(FileObject fileObject, CaretContext context, String line, String lineTextBeforeCaret) {
+            if (context.member == null) {
+                return null;
+            }
+            return CompletionCache.key(fileObject.getPath(), queryType, context.member, caretOffset - context.memberStart,
+                    line, lineTextBeforeCaret, context.kind, context.parentKind, hintContext, context.classContext);
+        }
+
         public void highlightMultiline(JTextComponent component, int caretOffset, Snippet snippet) {
+            if (isStaleHint()) {
+                LOG.log(Level.FINE, "Discarded stale inline hint {0}", hintRequest.getGeneration());
+                return;
+            }
             try {
                 Document doc = component.getDocument();
                 int startOffset = component.getCaretPosition();
@@ -816,6 +978,39 @@ public class JeddictCompletionProvider implements CompletionProvider {
             }
             return true;
         }
+
+        /**
+         * What a completion query reads from the tree, copied out of the
+         * parser task.
+         */
+        private static final class CaretContext {
+
+            /**
+             * Marks the caret in the window until the placeholder of the
+             * query is known; a private use character never found in source.
+             */
+            static final String CARET = "\uE000";
+
+            private String window;
+            private Tree.Kind kind;
+            private Tree.Kind parentKind;
+            private String leaf;
+            private String declaredType;
+            private String member;
+            private int memberStart;
+            private AIClassContext classContext;
+            private boolean contextComplete;
+            private String classDataContent;
+
+            /**
+             * @return the source around the caret with the placeholder at
+             * the caret, within the completion token budget
+             */
+            String window(String placeholder) {
+                int at = window.indexOf(CARET);
+                return window.substring(0, at) + placeholder + window.substring(at + CARET.length());
+            }
+        }
     }
 
     public static JavaToken isJavaContext(final Document doc, final int offset, final boolean allowInStrings) {
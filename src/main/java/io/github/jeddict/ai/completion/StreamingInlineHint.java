@@ -0,0 +1,201 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import static io.github.jeddict.ai.completion.JeddictCompletionProvider.HIGHLIGHTED_TEXT_KEY;
+import static io.github.jeddict.ai.completion.JeddictCompletionProvider.HIGHLIGHTED_TEXT_LOC_KEY;
+import static io.github.jeddict.ai.completion.JeddictCompletionProvider.getPreTextBag;
+import io.github.jeddict.ai.lang.Snippet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.netbeans.api.editor.settings.AttributesUtilities;
+import org.netbeans.spi.editor.highlighting.support.OffsetsBag;
+
+/**
+ * Shows an inline hint as ghost text while the model streams it.
+ *
+ * <p>
+ * The text received so far is rendered at the caret, replacing the previous
+ * rendering in the same highlights bag; renderings are coalesced so that a
+ * fast stream does not flood the event queue. The hint is cancelled, and its
+ * request aborted, as soon as a key is pressed in the editor, the caret
+ * leaves the hint position or a newer hint is requested; cancelling frees
+ * the slot of the stream with the provider at once, so the next hint does
+ * not wait behind it. Accepting the hint with Enter inserts what has been
+ * received up to then.
+ *
+ * @author Gaurav Gupta
+ */
+final class StreamingInlineHint implements Flow.Subscriber<String> {
+
+    private static final Logger LOG = Logger.getLogger(StreamingInlineHint.class.getName());
+
+    private final JTextComponent component;
+    private final Document doc;
+    private final int offset;
+    private final InlineHintPipeline.Request request;
+
+    private final StringBuilder received = new StringBuilder();
+    private final AtomicBoolean renderPending = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile String text = "";
+    private volatile boolean cancelled;
+    private volatile Flow.Subscription subscription;
+
+    /**
+     * @param component the editor
+     * @param offset the caret offset the hint belongs to
+     * @param request the pipeline request, {@code null} if not run by one
+     */
+    StreamingInlineHint(JTextComponent component, int offset, InlineHintPipeline.Request request) {
+        this.component = component;
+        this.doc = component.getDocument();
+        this.offset = offset;
+        this.request = request;
+    }
+
+    /**
+     * Cancels the hint streaming into the document, if any.
+     *
+     * @param doc the editor document
+     */
+    static void cancel(Document doc) {
+        Object hint = doc.getProperty(StreamingInlineHint.class);
+        if (hint instanceof StreamingInlineHint streamingHint) {
+            streamingHint.cancel();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        cancel(doc);
+        doc.putProperty(StreamingInlineHint.class, this);
+        if (cancelled) {
+            subscription.cancel();
+        } else {
+            subscription.request(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public void onNext(String partial) {
+        if (cancelled) {
+            return;
+        }
+        if (request != null && !request.isCurrent()) {
+            cancel();
+            return;
+        }
+        received.append(partial);
+        text = stripFences(received.toString());
+        if (renderPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::render);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        LOG.log(Level.FINE, "Inline hint stream failed", error);
+        finish();
+    }
+
+    @Override
+    public void onComplete() {
+        finish();
+    }
+
+    /**
+     * Waits until the stream ends or the hint is cancelled; an interrupt
+     * cancels the hint.
+     */
+    void await() throws InterruptedException {
+        try {
+            done.await();
+        } catch (InterruptedException ex) {
+            cancel();
+            throw ex;
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        Flow.Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (doc.getProperty(StreamingInlineHint.class) == this) {
+            doc.putProperty(StreamingInlineHint.class, null);
+        }
+        done.countDown();
+    }
+
+    /**
+     * Runs on the event dispatch thread.
+     */
+    private void render() {
+        renderPending.set(false);
+        if (cancelled) {
+            return;
+        }
+        if (component.getCaretPosition() != offset) {
+            cancel();
+            return;
+        }
+        String current = text;
+        if (current.isBlank()) {
+            return;
+        }
+        OffsetsBag preTextBag = new OffsetsBag(doc);
+        preTextBag.addHighlight(offset, offset + 1,
+                AttributesUtilities.createImmutable("virtual-text-prepend", current));
+        doc.putProperty(HIGHLIGHTED_TEXT_KEY, new Snippet(current));
+        doc.putProperty(HIGHLIGHTED_TEXT_LOC_KEY, offset);
+        getPreTextBag(doc, component).setHighlights(preTextBag);
+    }
+
+    /**
+     * Removes the markdown code fence some models add despite the prompt,
+     * including a partially received one.
+     */
+    static String stripFences(String text) {
+        String stripped = text;
+        if ("```".startsWith(stripped)) {
+            return "";
+        }
+        if (stripped.startsWith("```")) {
+            int lineEnd = stripped.indexOf('\n');
+            stripped = lineEnd < 0 ? "" : stripped.substring(lineEnd + 1);
+        }
+        int fence = stripped.lastIndexOf("\n```");
+        if (fence >= 0) {
+            stripped = stripped.substring(0, fence);
+        } else if (stripped.endsWith("\n`") || stripped.endsWith("\n``")) {
+            stripped = stripped.substring(0, stripped.lastIndexOf('\n'));
+        }
+        return stripped;
+    }
+}
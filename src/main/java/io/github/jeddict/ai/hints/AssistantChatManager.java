@@ -41,9 +41,11 @@ import io.github.jeddict.ai.components.MessageContextComponentAdapter;
 import static io.github.jeddict.ai.components.QueryPane.createIconButton;
 import static io.github.jeddict.ai.components.QueryPane.createStyledComboBox;
 import io.github.jeddict.ai.components.TokenUsageChartDialog;
+import io.github.jeddict.ai.lang.ContextPacker;
 import io.github.jeddict.ai.lang.JeddictChatModel;
 import io.github.jeddict.ai.lang.JeddictStreamHandler;
 import io.github.jeddict.ai.response.Block;
+import io.github.jeddict.ai.response.ConversationCompactor;
 import io.github.jeddict.ai.response.Response;
 import io.github.jeddict.ai.review.Review;
 import static io.github.jeddict.ai.review.ReviewUtil.convertReviewsToHtml;
@@ -93,7 +95,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -135,6 +136,7 @@ import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 import org.openide.windows.WindowManager;
 
 /**
@@ -145,7 +147,8 @@ public class AssistantChatManager extends JavaFix {
 
     private static final Logger LOG = Logger.getLogger(AssistantChatManager.class.getCanonicalName());
 
-    private static final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    // one queue per chat window, a long turn in one window must not hold up the others
+    private final ExecutorService executorService = new RequestProcessor(AssistantChatManager.class.getName(), 1, true);
     public static final String ASSISTANT_CHAT_MANAGER_KEY = "ASSISTANT_CHAT_MANAGER_KEY";
 
     private TreePath treePath;
@@ -169,6 +172,7 @@ public class AssistantChatManager extends JavaFix {
     private FileObject fileObject;
     private String commitChanges;
     private final PreferencesManager pm = PreferencesManager.getInstance();
+    private final ConversationCompactor compactor = new ConversationCompactor(pm.getConversationTokenBudget());
     private Tree leaf;
 
     private Project getProject() {
@@ -694,6 +698,7 @@ public class AssistantChatManager extends JavaFix {
             assistantChat.repaint();
             initialMessage();
             responseHistory.clear();
+            compactor.reset();
             questionPane.setText("");
             clearFileTab();
             currentResponseIndex = -1;
@@ -727,8 +732,11 @@ public class AssistantChatManager extends JavaFix {
                     Object answer = DialogDisplayer.getDefault().notify(confirmDialog);
                     if (NotifyDescriptor.YES_OPTION.equals(answer)) {
                         result.cancel(true);
-                        if (handler != null && handler.getProgressHandle() != null) {
-                            handler.getProgressHandle().finish();
+                        if (handler != null) {
+                            handler.cancel();
+                            if (handler.getProgressHandle() != null) {
+                                handler.getProgressHandle().finish();
+                            }
                         }
                         result = null;
                         stopLoading();
@@ -932,6 +940,8 @@ public class AssistantChatManager extends JavaFix {
                     int startIndex = Math.max(0, responseHistory.size() - historyCount);
                     prevChatResponses = responseHistory.subList(startIndex, responseHistory.size());
                 }
+                // older turns are summarized and superseded code elided to stay within budget
+                prevChatResponses = compactor.compact(prevChatResponses);
                 Set<FileObject> messageContextCopy = new HashSet<>(messageContext);
                 handler = new JeddictStreamHandler(assistantChat) {
                     @Override
@@ -993,10 +1003,10 @@ public class AssistantChatManager extends JavaFix {
                     String threadScopeContent;
                     if (projectContext != null) {
                         mainThreadContext = getProjectContextList();
-                        threadScopeContent = getProjectContext(mainThreadContext);
+                        threadScopeContent = getProjectContext(projectContext, mainThreadContext, question);
                     } else {
                         mainThreadContext = this.threadContext;
-                        threadScopeContent = getTextFilesContext(mainThreadContext);
+                        threadScopeContent = getTextFilesContext(getProject(), mainThreadContext, question);
                     }
                     List<String> threadScopeImgages = getImageFilesContext(mainThreadContext);
 
@@ -1007,10 +1017,14 @@ public class AssistantChatManager extends JavaFix {
                     List<String> images = new ArrayList<>();
                     images.addAll(threadScopeImgages);
                     images.addAll(messageScopeImgages);
+                    // files attached to the message come first, the thread scope fills what is left
+                    JeddictChatModel chatModel = new JeddictChatModel(handler, getModelName());
+                    chatModel.addContext(ContextPacker.Kind.REFERENCED_CLASSES, "Files", messageScopeContent);
+                    chatModel.addContext(ContextPacker.Kind.PACKAGE, projectContext != null ? "Project files" : "Files", threadScopeContent);
                     if (actionComboBox.getSelectedItem() == AssistantAction.BUILD) {
-                        response = new JeddictChatModel(handler, getModelName()).agent(getProject(), threadScopeContent + '\n' + messageScopeContent, null, images, prevChatResponses, question);
+                        response = chatModel.agent(getProject(), null, null, images, prevChatResponses, question);
                     } else {
-                        response = new JeddictChatModel(handler, getModelName()).generateDescription(getProject(), threadScopeContent + '\n' + messageScopeContent, null, images, prevChatResponses, question);
+                        response = chatModel.generateDescription(getProject(), null, null, images, prevChatResponses, question);
                     }
                 } else if (treePath == null) {
                     response = new JeddictChatModel(handler, getModelName()).generateDescription(getProject(), null, null, null, prevChatResponses, question);
@@ -127,6 +127,10 @@ public class JavaDocFixImpl extends JavaFix {
             default:
                 return;
         }
+        if (javadocContent == null) {
+            // the request failed or was cancelled, the source is left as is
+            return;
+        }
         javadocContent = removeCodeBlockMarkers(javadocContent);
 
         int startOffset = (int) copy.getTrees().getSourcePositions()
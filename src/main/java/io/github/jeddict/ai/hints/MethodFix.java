@@ -102,7 +102,8 @@ public class MethodFix extends JavaFix {
                 String classDataContent = getClassDataContent(
                         copy.getFileObject(),
                         copy.getCompilationUnit(),
-                        prefsManager.getClassContext()
+                        prefsManager.getClassContext(),
+                        compliationError
                 );
                     
                 content = new JeddictChatModel().fixMethodCompilationError(
@@ -88,7 +88,8 @@ public class VariableFix extends JavaFix {
             String classDataContent = getClassDataContent(
                         copy.getFileObject(),
                         copy.getCompilationUnit(),
-                        prefsManager.getClassContext()
+                        prefsManager.getClassContext(),
+                        compliationError
                 );
             content = new JeddictChatModel().fixVariableError(
                 FileOwnerQuery.getOwner(copy.getFileObject()), 
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.openide.util.RequestProcessor;
+
+/**
+ * A {@link CompletableFuture} running a blocking model call on its own
+ * thread, where cancelling the future, or letting it time out, interrupts
+ * that thread.
+ *
+ * <p>
+ * The interrupt travels down the request pipeline: the caller leaves the
+ * shared request in {@link RequestCoalescer}, and once no caller is left the
+ * upstream call is interrupted, which aborts the HTTP exchange and frees its
+ * {@link RequestScheduler} slot.
+ *
+ * @param <T> the result type
+ * @author Gaurav Gupta
+ */
+public final class CancellableFuture<T> extends CompletableFuture<T> {
+
+    private static final RequestProcessor RP = new RequestProcessor(CancellableFuture.class.getName(), 8, true);
+
+    private RequestProcessor.Task task;
+
+    private CancellableFuture() {
+    }
+
+    /**
+     * Starts {@code call} on a background thread.
+     *
+     * @param <T> the result type
+     * @param call the blocking call
+     * @param timeout how long the call may take, {@code null} or zero for no
+     * limit
+     * @return the future, completed with the result, with the call's
+     * exception or with a {@link TimeoutException}
+     */
+    public static <T> CancellableFuture<T> submit(Callable<T> call, Duration timeout) {
+        CancellableFuture<T> future = new CancellableFuture<>();
+        synchronized (future) {
+            future.task = RP.post(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        }
+        if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+            future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        future.whenComplete((result, error) -> {
+            if (error instanceof TimeoutException) {
+                future.interrupt();
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            interrupt();
+        }
+        return cancelled;
+    }
+
+    private synchronized void interrupt() {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+}
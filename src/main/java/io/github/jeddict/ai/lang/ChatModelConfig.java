@@ -0,0 +1,268 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import io.github.jeddict.ai.settings.GenAIProvider;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Immutable snapshot of every setting that influences how a chat model
+ * client is built. Two snapshots are equal when they would produce an
+ * equivalent client, which makes this class suitable as a cache key for
+ * {@link ChatModelRegistry}.
+ *
+ * <p>
+ * Preferences use sentinel values ({@code Double.MIN_VALUE},
+ * {@code Integer.MIN_VALUE}, empty strings) for "not configured"; they are
+ * normalized to {@code null} here so that {@link #apply} only forwards the
+ * values the user actually set.
+ *
+ * @author Gaurav Gupta
+ */
+public final class ChatModelConfig {
+
+    private final GenAIProvider provider;
+    private final String modelName;
+    private final boolean streaming;
+    private final String baseUrl;
+    private final Map<String, String> customHeaders;
+    private final String apiKey;
+    private final Double temperature;
+    private final Integer timeout;
+    private final Integer maxRetries;
+    private final Integer maxOutputTokens;
+    private final Double repeatPenalty;
+    private final Integer seed;
+    private final Integer maxTokens;
+    private final Integer maxCompletionTokens;
+    private final Integer topK;
+    private final Double presencePenalty;
+    private final Double frequencyPenalty;
+    private final String organizationId;
+    private final boolean logRequests;
+    private final boolean logResponses;
+    private final boolean includeCodeExecutionOutput;
+    private final boolean allowCodeExecution;
+
+    private ChatModelConfig(PreferencesManager pm, GenAIProvider provider, String modelName, boolean streaming) {
+        this.provider = provider;
+        this.modelName = modelName;
+        this.streaming = streaming;
+        String location = pm.getProviderLocation(provider);
+        this.baseUrl = location == null || location.isEmpty() ? null : location;
+        Map<String, String> headers = pm.getCustomHeaders();
+        this.customHeaders = headers == null || headers.isEmpty()
+                ? null : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        // only the selected provider may prompt for a missing key, others are
+        // used by routing and simply read what was stored for them
+        this.apiKey = provider == pm.getProvider() ? pm.getApiKey(location != null) : pm.getApiKey(provider);
+        this.temperature = valid(pm.getTemperature(), Double.MIN_VALUE);
+        this.timeout = valid(pm.getTimeout(), Integer.MIN_VALUE);
+        this.maxRetries = valid(pm.getMaxRetries(), Integer.MIN_VALUE);
+        this.maxOutputTokens = valid(pm.getMaxOutputTokens(), Integer.MIN_VALUE);
+        this.repeatPenalty = valid(pm.getRepeatPenalty(), Double.MIN_VALUE);
+        this.seed = valid(pm.getSeed(), Integer.MIN_VALUE);
+        this.maxTokens = valid(pm.getMaxTokens(), Integer.MIN_VALUE);
+        this.maxCompletionTokens = valid(pm.getMaxCompletionTokens(), Integer.MIN_VALUE);
+        this.topK = valid(pm.getTopK(), Integer.MIN_VALUE);
+        this.presencePenalty = valid(pm.getPresencePenalty(), Double.MIN_VALUE);
+        this.frequencyPenalty = valid(pm.getFrequencyPenalty(), Double.MIN_VALUE);
+        String organization = pm.getOrganizationId();
+        this.organizationId = organization == null || organization.isEmpty() ? null : organization;
+        this.logRequests = pm.isLogRequestsEnabled();
+        this.logResponses = pm.isLogResponsesEnabled();
+        this.includeCodeExecutionOutput = pm.isIncludeCodeExecutionOutput();
+        this.allowCodeExecution = pm.isAllowCodeExecution();
+    }
+
+    /**
+     * Reads the current preferences into a new snapshot.
+     *
+     * @param pm the preferences to read from
+     * @param provider the provider the client is built for
+     * @param modelName the model to use
+     * @param streaming whether a streaming client is requested
+     * @return the snapshot
+     */
+    public static ChatModelConfig from(PreferencesManager pm, GenAIProvider provider, String modelName, boolean streaming) {
+        return new ChatModelConfig(pm, provider, modelName, streaming);
+    }
+
+    private static <T> T valid(T value, T invalidValue) {
+        return value == null || value.equals(invalidValue) ? null : value;
+    }
+
+    private static <T> void setIfPresent(Consumer<T> setter, T value) {
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+
+    /**
+     * Copies this snapshot into the given provider specific builder.
+     *
+     * @param <T> the type of chat model being built
+     * @param builder the builder to configure
+     * @return the same builder
+     */
+    public <T> ChatModelBaseBuilder<T> apply(ChatModelBaseBuilder<T> builder) {
+        setIfPresent(builder::baseUrl, baseUrl);
+        setIfPresent(builder::customHeaders, customHeaders);
+        builder.apiKey(apiKey)
+                .modelName(modelName);
+
+        setIfPresent(builder::temperature, temperature);
+        setIfPresent(value -> builder.timeout(Duration.ofSeconds(value)), timeout);
+        if (builder instanceof ChatModelBuilder chatModelBuilder) {
+            setIfPresent(chatModelBuilder::maxRetries, maxRetries);
+        }
+        setIfPresent(builder::maxOutputTokens, maxOutputTokens);
+        setIfPresent(builder::repeatPenalty, repeatPenalty);
+        setIfPresent(builder::seed, seed);
+        setIfPresent(builder::maxTokens, maxTokens);
+        setIfPresent(builder::maxCompletionTokens, maxCompletionTokens);
+        setIfPresent(builder::topK, topK);
+        setIfPresent(builder::presencePenalty, presencePenalty);
+        setIfPresent(builder::frequencyPenalty, frequencyPenalty);
+        setIfPresent(builder::organizationId, organizationId);
+
+        builder.logRequestsResponses(logRequests, logResponses)
+                .includeCodeExecutionOutput(includeCodeExecutionOutput)
+                .allowCodeExecution(allowCodeExecution);
+        return builder;
+    }
+
+    public GenAIProvider getProvider() {
+        return provider;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public Double getTemperature() {
+        return temperature;
+    }
+
+    /**
+     * @return the request timeout in seconds, {@code null} for the client
+     * default
+     */
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the configured limit on the answer length in tokens, or
+     * {@code null} if the provider default applies
+     */
+    public Integer getMaxOutputTokens() {
+        if (maxOutputTokens != null) {
+            return maxOutputTokens;
+        }
+        return maxCompletionTokens != null ? maxCompletionTokens : maxTokens;
+    }
+
+    /**
+     * Whether the same messages are expected to produce the same answer,
+     * i.e. the temperature is set to zero. The provider default, when no
+     * temperature is set, usually samples.
+     *
+     * @return {@code true} only if sampling was explicitly turned off
+     */
+    public boolean isDeterministic() {
+        return temperature != null && temperature <= 0;
+    }
+
+    /**
+     * Describes every setting that influences the generated text, so that
+     * two snapshots with the same fingerprint answer the same messages the
+     * same way. Transport settings (timeouts, retries, logging, credentials)
+     * are not part of it.
+     *
+     * @return the fingerprint
+     */
+    public String fingerprint() {
+        return provider + "|" + modelName + "|" + baseUrl
+                + "|t=" + temperature + "|k=" + topK + "|seed=" + seed
+                + "|max=" + maxTokens + "/" + maxCompletionTokens + "/" + maxOutputTokens
+                + "|p=" + presencePenalty + "/" + frequencyPenalty + "/" + repeatPenalty
+                + "|exec=" + allowCodeExecution + "/" + includeCodeExecutionOutput;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ChatModelConfig)) {
+            return false;
+        }
+        ChatModelConfig other = (ChatModelConfig) obj;
+        return provider == other.provider
+                && streaming == other.streaming
+                && logRequests == other.logRequests
+                && logResponses == other.logResponses
+                && includeCodeExecutionOutput == other.includeCodeExecutionOutput
+                && allowCodeExecution == other.allowCodeExecution
+                && Objects.equals(modelName, other.modelName)
+                && Objects.equals(baseUrl, other.baseUrl)
+                && Objects.equals(customHeaders, other.customHeaders)
+                && Objects.equals(apiKey, other.apiKey)
+                && Objects.equals(temperature, other.temperature)
+                && Objects.equals(timeout, other.timeout)
+                && Objects.equals(maxRetries, other.maxRetries)
+                && Objects.equals(maxOutputTokens, other.maxOutputTokens)
+                && Objects.equals(repeatPenalty, other.repeatPenalty)
+                && Objects.equals(seed, other.seed)
+                && Objects.equals(maxTokens, other.maxTokens)
+                && Objects.equals(maxCompletionTokens, other.maxCompletionTokens)
+                && Objects.equals(topK, other.topK)
+                && Objects.equals(presencePenalty, other.presencePenalty)
+                && Objects.equals(frequencyPenalty, other.frequencyPenalty)
+                && Objects.equals(organizationId, other.organizationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(provider, modelName, streaming, baseUrl, customHeaders, apiKey,
+                temperature, timeout, maxRetries, maxOutputTokens, repeatPenalty, seed,
+                maxTokens, maxCompletionTokens, topK, presencePenalty, frequencyPenalty,
+                organizationId, logRequests, logResponses, includeCodeExecutionOutput, allowCodeExecution);
+    }
+
+    @Override
+    public String toString() {
+        // the api key is deliberately left out
+        return "ChatModelConfig{" + provider + ", " + modelName
+                + (streaming ? ", streaming" : "")
+                + (baseUrl != null ? ", " + baseUrl : "") + '}';
+    }
+}
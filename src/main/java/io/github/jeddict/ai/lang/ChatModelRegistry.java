@@ -0,0 +1,187 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.github.jeddict.ai.lang.impl.AnthropicBuilder;
+import io.github.jeddict.ai.lang.impl.AnthropicStreamingBuilder;
+import io.github.jeddict.ai.lang.impl.GoogleBuilder;
+import io.github.jeddict.ai.lang.impl.GoogleStreamingBuilder;
+import io.github.jeddict.ai.lang.impl.LMStudioBuilder;
+import io.github.jeddict.ai.lang.impl.LocalAiBuilder;
+import io.github.jeddict.ai.lang.impl.LocalAiStreamingBuilder;
+import io.github.jeddict.ai.lang.impl.MistralBuilder;
+import io.github.jeddict.ai.lang.impl.MistralStreamingBuilder;
+import io.github.jeddict.ai.lang.impl.OllamaBuilder;
+import io.github.jeddict.ai.lang.impl.OllamaStreamingBuilder;
+import io.github.jeddict.ai.lang.impl.OpenAiBuilder;
+import io.github.jeddict.ai.lang.impl.OpenAiStreamingBuilder;
+import io.github.jeddict.ai.settings.GenAIProvider;
+import static io.github.jeddict.ai.settings.GenAIProvider.LM_STUDIO;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps one {@link ChatModel} / {@link StreamingChatModel} per
+ * {@link ChatModelConfig}, so that the underlying HTTP client, its connection
+ * pool and TLS sessions are reused across completions, hints and chat turns.
+ *
+ * <p>
+ * The configuration snapshots themselves are cached as well, keyed by
+ * provider, model and streaming flag. Every change written to the
+ * {@link PreferencesManager} drops the cached snapshots; the next request
+ * then reads the settings again and builds a fresh client only if the
+ * snapshot differs, evicting the clients of the older one.
+ *
+ * @author Gaurav Gupta
+ */
+public class ChatModelRegistry {
+
+    private static final Logger LOG = Logger.getLogger(ChatModelRegistry.class.getName());
+
+    private static ChatModelRegistry instance;
+
+    private final PreferencesManager pm;
+    private final Map<String, ChatModelConfig> configs = new ConcurrentHashMap<>();
+    private final Map<ChatModelConfig, ChatModel> chatModels = new ConcurrentHashMap<>();
+    private final Map<ChatModelConfig, StreamingChatModel> streamingModels = new ConcurrentHashMap<>();
+
+    private ChatModelRegistry(PreferencesManager pm) {
+        this.pm = pm;
+        pm.addChangeListener(e -> configs.clear());
+    }
+
+    public static ChatModelRegistry getInstance() {
+        if (instance == null) {
+            synchronized (ChatModelRegistry.class) {
+                if (instance == null) {
+                    instance = new ChatModelRegistry(PreferencesManager.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the configuration snapshot for the given provider and model,
+     * reading the preferences only when no snapshot is cached since the last
+     * settings change.
+     *
+     * @param provider the provider
+     * @param modelName the model name
+     * @param streaming whether a streaming client is requested
+     * @return the current snapshot
+     */
+    public ChatModelConfig getConfig(GenAIProvider provider, String modelName, boolean streaming) {
+        String key = provider.name() + '/' + modelName + '/' + streaming;
+        ChatModelConfig cached = configs.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // read outside the map: asking for a missing API key writes the
+        // preferences, and the change listener clears the map
+        ChatModelConfig config = ChatModelConfig.from(pm, provider, modelName, streaming);
+        cached = configs.putIfAbsent(key, config);
+        if (cached != null) {
+            return cached;
+        }
+        evictStale(config);
+        return config;
+    }
+
+    /**
+     * Whether the provider has a streaming client implementation.
+     *
+     * @param provider the provider
+     * @return {@code false} for providers that are always called blocking
+     */
+    public boolean isStreamingSupported(GenAIProvider provider) {
+        return provider != LM_STUDIO;
+    }
+
+    public ChatModel getChatModel(ChatModelConfig config) {
+        return chatModels.computeIfAbsent(config, this::createChatModel);
+    }
+
+    public StreamingChatModel getStreamingChatModel(ChatModelConfig config) {
+        return streamingModels.computeIfAbsent(config, this::createStreamingChatModel);
+    }
+
+    /**
+     * Drops every cached snapshot and client.
+     */
+    public void clear() {
+        configs.clear();
+        chatModels.clear();
+        streamingModels.clear();
+    }
+
+    /**
+     * A new snapshot for the same provider, model and streaming flag makes
+     * the clients built for older snapshots unreachable, so they are removed
+     * instead of being kept until the IDE shuts down.
+     */
+    private void evictStale(ChatModelConfig config) {
+        Map<ChatModelConfig, ?> models = config.isStreaming() ? streamingModels : chatModels;
+        models.keySet().removeIf(existing -> existing.getProvider() == config.getProvider()
+                && existing.getModelName().equals(config.getModelName())
+                && !existing.equals(config));
+    }
+
+    private ChatModel createChatModel(ChatModelConfig config) {
+        LOG.log(Level.FINE, "Building chat model for {0}", config);
+        return switch (config.getProvider()) {
+            case GOOGLE ->
+                config.apply(new GoogleBuilder()).build();
+            case OPEN_AI, DEEPINFRA, DEEPSEEK, GROQ, CUSTOM_OPEN_AI, COPILOT_PROXY, PERPLEXITY ->
+                config.apply(new OpenAiBuilder()).build();
+            case MISTRAL ->
+                config.apply(new MistralBuilder()).build();
+            case ANTHROPIC ->
+                config.apply(new AnthropicBuilder()).build();
+            case OLLAMA ->
+                config.apply(new OllamaBuilder()).build();
+            case LM_STUDIO ->
+                config.apply(new LMStudioBuilder()).build();
+            case GPT4ALL ->
+                config.apply(new LocalAiBuilder()).build();
+        };
+    }
+
+    private StreamingChatModel createStreamingChatModel(ChatModelConfig config) {
+        LOG.log(Level.FINE, "Building streaming chat model for {0}", config);
+        return switch (config.getProvider()) {
+            case GOOGLE ->
+                config.apply(new GoogleStreamingBuilder()).build();
+            case OPEN_AI, DEEPINFRA, DEEPSEEK, GROQ, CUSTOM_OPEN_AI, COPILOT_PROXY, PERPLEXITY ->
+                config.apply(new OpenAiStreamingBuilder()).build();
+            case MISTRAL ->
+                config.apply(new MistralStreamingBuilder()).build();
+            case ANTHROPIC ->
+                config.apply(new AnthropicStreamingBuilder()).build();
+            case OLLAMA ->
+                config.apply(new OllamaStreamingBuilder()).build();
+            case GPT4ALL ->
+                config.apply(new LocalAiStreamingBuilder()).build();
+            case LM_STUDIO ->
+                throw new IllegalArgumentException("Streaming is not supported for " + config.getProvider());
+        };
+    }
+}
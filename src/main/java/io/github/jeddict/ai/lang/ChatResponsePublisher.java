@@ -0,0 +1,238 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Single-subscriber {@link Flow.Publisher} of the partial responses of one
+ * model request. The request is started when the subscriber arrives and
+ * partial responses are buffered until the subscriber requests them.
+ *
+ * <p>
+ * Cancelling the subscription cancels, with interruption, the future of the
+ * started request, which aborts it while it waits for a slot or blocks on a
+ * non-streaming answer. A stream already being received cannot be aborted
+ * through the langchain4j streaming API; the request registers
+ * {@link #onCancel cancel actions} instead, which free its slot with the
+ * provider at once, and its remaining output is dropped.
+ *
+ * @author Gaurav Gupta
+ */
+public class ChatResponsePublisher implements Flow.Publisher<String>, StreamingChatResponseHandler {
+
+    private final Function<ChatResponsePublisher, Future<?>> start;
+    private Future<?> request;
+    private final List<Runnable> cancelActions = new ArrayList<>();
+    private final Deque<String> buffer = new ArrayDeque<>();
+    private Flow.Subscriber<? super String> subscriber;
+    private long demand;
+    private boolean completed;
+    private Throwable error;
+    private boolean cancelled;
+    private boolean terminated;
+    private boolean draining;
+
+    /**
+     * @param start starts the request, delivering to the given handler, and
+     * returns the future used to cancel it
+     */
+    public ChatResponsePublisher(Function<ChatResponsePublisher, Future<?>> start) {
+        this.start = start;
+    }
+
+    /**
+     * Runs {@code action} when the subscription is cancelled, or at once if
+     * it already was.
+     *
+     * @param action e.g. closing the slot held by the stream
+     */
+    public void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                cancelActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        synchronized (this) {
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+                return;
+            }
+            this.subscriber = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    onError(new IllegalArgumentException("Non-positive request " + n));
+                    return;
+                }
+                synchronized (ChatResponsePublisher.this) {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                Future<?> started;
+                List<Runnable> actions;
+                synchronized (ChatResponsePublisher.this) {
+                    if (cancelled || terminated) {
+                        return;
+                    }
+                    cancelled = true;
+                    buffer.clear();
+                    started = request;
+                    actions = new ArrayList<>(cancelActions);
+                    cancelActions.clear();
+                }
+                if (started != null) {
+                    started.cancel(true);
+                }
+                actions.forEach(Runnable::run);
+            }
+        });
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+        }
+        Future<?> started = start.apply(this);
+        synchronized (this) {
+            request = started;
+            if (!cancelled) {
+                return;
+            }
+        }
+        // cancelled while starting
+        started.cancel(true);
+    }
+
+    @Override
+    public void onPartialResponse(String partialResponse) {
+        synchronized (this) {
+            if (cancelled || terminated || partialResponse == null) {
+                return;
+            }
+            buffer.add(partialResponse);
+        }
+        drain();
+    }
+
+    @Override
+    public void onCompleteResponse(ChatResponse completeResponse) {
+        synchronized (this) {
+            completed = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            if (error == null) {
+                error = throwable;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Delivers buffered items within the requested demand, then the terminal
+     * signal once the buffer is empty. Only one thread delivers at a time;
+     * it gives up that role in the same lock in which it finds nothing left
+     * to deliver, so a signal arriving meanwhile is delivered by its own
+     * thread rather than lost.
+     */
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        boolean released = false;
+        try {
+            while (true) {
+                String next;
+                boolean complete = false;
+                Throwable failure = null;
+                synchronized (this) {
+                    if (cancelled || terminated || subscriber == null) {
+                        draining = false;
+                        released = true;
+                        return;
+                    }
+                    if (error != null) {
+                        failure = error;
+                        terminated = true;
+                        next = null;
+                    } else if (!buffer.isEmpty() && demand > 0) {
+                        next = buffer.poll();
+                        demand--;
+                    } else if (buffer.isEmpty() && completed) {
+                        complete = true;
+                        terminated = true;
+                        next = null;
+                    } else {
+                        draining = false;
+                        released = true;
+                        return;
+                    }
+                }
+                if (failure != null) {
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (complete) {
+                    subscriber.onComplete();
+                    return;
+                }
+                subscriber.onNext(next);
+            }
+        } finally {
+            if (!released) {
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import io.github.jeddict.ai.response.TokenHandler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Fills a token budget with context fragments by priority.
+ *
+ * <p>
+ * Every fragment is counted once when added. Packing takes fragments in
+ * {@link Kind} order, and in the order they were added within a kind; a
+ * fragment that no longer fits is truncated if its kind allows it and enough
+ * room is left for it to be useful, otherwise dropped. The {@link Result}
+ * tells exactly what was included.
+ *
+ * @author Gaurav Gupta
+ */
+public class ContextPacker {
+
+    /**
+     * Below this many tokens of room a fragment is dropped rather than
+     * truncated.
+     */
+    static final int MIN_TRUNCATED_TOKENS = 64;
+
+    private static final String TRUNCATED_MARKER = "\n... [truncated]";
+
+    /**
+     * The kinds of context, most valuable first.
+     */
+    public enum Kind {
+        CURRENT_FILE(true),
+        REFERENCED_CLASSES(true),
+        PACKAGE(true),
+        /**
+         * A conversation turn, kept whole or dropped.
+         */
+        HISTORY(false),
+        PROJECT_MAP(false);
+
+        private final boolean truncatable;
+
+        Kind(boolean truncatable) {
+            this.truncatable = truncatable;
+        }
+
+        public boolean isTruncatable() {
+            return truncatable;
+        }
+    }
+
+    private final int budget;
+    private final ToIntFunction<String> counter;
+    private final List<Fragment> fragments = new ArrayList<>();
+
+    /**
+     * @param budget the number of tokens the fragments may use together
+     */
+    public ContextPacker(int budget) {
+        this(budget, TokenHandler::countTokens);
+    }
+
+    ContextPacker(int budget, ToIntFunction<String> counter) {
+        this.budget = Math.max(0, budget);
+        this.counter = counter;
+    }
+
+    /**
+     * Adds a fragment; empty texts are ignored.
+     *
+     * @param kind the kind of context
+     * @param label a short description, used in the report and as heading
+     * @param text the content
+     * @return the fragment, to find it in the result, or {@code null} if the
+     * text was empty
+     */
+    public Fragment add(Kind kind, String label, String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        return add(kind, label, text, counter.applyAsInt(text));
+    }
+
+    /**
+     * Adds a fragment whose tokens are already counted; empty texts are
+     * ignored.
+     *
+     * @param kind the kind of context
+     * @param label a short description, used in the report and as heading
+     * @param text the content
+     * @param tokens the number of tokens of the text
+     * @return the fragment, to find it in the result, or {@code null} if the
+     * text was empty
+     */
+    public Fragment add(Kind kind, String label, String text, int tokens) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        Fragment fragment = new Fragment(kind, label, text, tokens);
+        fragments.add(fragment);
+        return fragment;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public Result pack() {
+        List<Fragment> ordered = new ArrayList<>(fragments);
+        // stable sort, insertion order is kept within a kind
+        ordered.sort(Comparator.comparing(Fragment::getKind));
+        List<Fragment> included = new ArrayList<>();
+        List<Fragment> dropped = new ArrayList<>();
+        int remaining = budget;
+        for (Fragment fragment : ordered) {
+            if (fragment.getTokens() <= remaining) {
+                included.add(fragment);
+                remaining -= fragment.getTokens();
+            } else if (fragment.getKind().isTruncatable() && remaining >= MIN_TRUNCATED_TOKENS) {
+                Fragment truncated = truncate(fragment, remaining);
+                included.add(truncated);
+                remaining -= truncated.getTokens();
+            } else {
+                dropped.add(fragment);
+            }
+        }
+        return new Result(budget, budget - remaining, included, dropped);
+    }
+
+    /**
+     * Keeps the head of the text, estimated from its average token length and
+     * shortened until the count fits.
+     */
+    private Fragment truncate(Fragment fragment, int room) {
+        String text = fragment.getText();
+        int markerTokens = counter.applyAsInt(TRUNCATED_MARKER);
+        int target = room - markerTokens;
+        int length = (int) ((long) text.length() * target / fragment.getTokens());
+        while (length > 0) {
+            String head = text.substring(0, length);
+            int tokens = counter.applyAsInt(head) + markerTokens;
+            if (tokens <= room) {
+                return new Fragment(fragment, head + TRUNCATED_MARKER, tokens);
+            }
+            length = length * 9 / 10;
+        }
+        return new Fragment(fragment, TRUNCATED_MARKER, markerTokens);
+    }
+
+    /**
+     * A piece of context and its token count.
+     */
+    public static final class Fragment {
+
+        private final Kind kind;
+        private final String label;
+        private final String text;
+        private final int tokens;
+        private final Fragment original;
+
+        private Fragment(Kind kind, String label, String text, int tokens) {
+            this.kind = kind;
+            this.label = label;
+            this.text = text;
+            this.tokens = tokens;
+            this.original = this;
+        }
+
+        private Fragment(Fragment original, String text, int tokens) {
+            this.kind = original.kind;
+            this.label = original.label;
+            this.text = text;
+            this.tokens = tokens;
+            this.original = original;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getTokens() {
+            return tokens;
+        }
+
+        /**
+         * @return the fragment as added, differs from this one if it was
+         * truncated
+         */
+        public Fragment getOriginal() {
+            return original;
+        }
+
+        public boolean isTruncated() {
+            return original != this;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + label + " (" + tokens + " tokens"
+                    + (isTruncated() ? ", truncated from " + original.tokens : "") + ")";
+        }
+    }
+
+    /**
+     * The outcome of packing.
+     */
+    public static final class Result {
+
+        private final int budget;
+        private final int tokens;
+        private final List<Fragment> included;
+        private final List<Fragment> dropped;
+
+        private Result(int budget, int tokens, List<Fragment> included, List<Fragment> dropped) {
+            this.budget = budget;
+            this.tokens = tokens;
+            this.included = Collections.unmodifiableList(included);
+            this.dropped = Collections.unmodifiableList(dropped);
+        }
+
+        /**
+         * @return the tokens used by the included fragments
+         */
+        public int getTokens() {
+            return tokens;
+        }
+
+        /**
+         * @return the included fragments by priority, possibly truncated
+         */
+        public List<Fragment> getIncluded() {
+            return included;
+        }
+
+        /**
+         * @param kind the kind of context
+         * @return the included fragments of that kind, in the order they were
+         * added
+         */
+        public List<Fragment> getIncluded(Kind kind) {
+            return included.stream().filter(f -> f.getKind() == kind).toList();
+        }
+
+        /**
+         * @param fragment a fragment as added
+         * @return the included, possibly truncated, version of it, or
+         * {@code null} if it was dropped
+         */
+        public Fragment find(Fragment fragment) {
+            for (Fragment f : included) {
+                if (f.getOriginal() == fragment) {
+                    return f;
+                }
+            }
+            return null;
+        }
+
+        public List<Fragment> getDropped() {
+            return dropped;
+        }
+
+        public boolean isComplete() {
+            return dropped.isEmpty() && included.stream().noneMatch(Fragment::isTruncated);
+        }
+
+        /**
+         * @return a line per fragment saying whether and how it was included
+         */
+        public String report() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Context ").append(tokens).append('/').append(budget).append(" tokens");
+            for (Fragment f : included) {
+                sb.append("\n  + ").append(f);
+            }
+            for (Fragment f : dropped) {
+                sb.append("\n  - ").append(f);
+            }
+            return sb.toString();
+        }
+    }
+}
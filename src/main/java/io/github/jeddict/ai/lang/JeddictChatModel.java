@@ -20,18 +20,22 @@ package io.github.jeddict.ai.lang;
  * @author Shiwani Gupta
  */
 import com.sun.source.tree.Tree;
-import com.sun.source.util.TreePath;
 import io.github.jeddict.ai.response.Response;
+import io.github.jeddict.ai.scanner.ProjectContextService;
+import io.github.jeddict.ai.settings.AIActionType;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import static io.github.jeddict.ai.util.MimeUtil.MIME_TYPE_DESCRIPTIONS;
-import static io.github.jeddict.ai.util.ProjectUtil.getSourceFilesRelativePath;
 import static io.github.jeddict.ai.util.StringUtil.removeCodeBlockMarkers;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.netbeans.api.project.Project;
@@ -74,12 +78,30 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
         super(handler, modelName);
     }
 
+    /**
+     * Runs any operation of this model off the calling thread, e.g.
+     * {@code model.async(m -> m.suggestMethodNames(...), timeout)}.
+     * Cancelling the returned future, or exceeding the timeout, interrupts
+     * the operation and aborts its HTTP request once no other caller shares
+     * it.
+     *
+     * @param <T> the result type
+     * @param operation the blocking operation
+     * @param timeout how long the operation may take, {@code null} for no
+     * limit
+     * @return the future result, {@code null} if the request failed or was
+     * cancelled upstream
+     */
+    public <T> CompletableFuture<T> async(Function<JeddictChatModel, T> operation, Duration timeout) {
+        return CancellableFuture.submit(() -> operation.apply(this), timeout);
+    }
+
     public String generateJavadocForClass(Project project, String classContent) {
         String prompt
                 = "You are an API server that responds only with Javadoc comments for class not the member of class. "
                 + "Generate only the Javadoc wrapped with in /** ${javadoc} **/ for the following Java class not the member of class. Do not include any additional text or explanation.\n\n"
                 + classContent;
-        String answer = generate(project, prompt);
+        String answer = generate(project, prompt, null, null, AIActionType.JAVADOC, RequestPriority.CHAT);
         System.out.println(answer);
         return answer;
     }
@@ -89,7 +111,7 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
                 = "You are an API server that responds only with Javadoc comments for method. "
                 + "Generate only the Javadoc wrapped with in /** ${javadoc} **/ for the following Java method. Do not include any additional text or explanation.\n\n"
                 + methodContent;
-        String answer = generate(project, prompt);
+        String answer = generate(project, prompt, null, null, AIActionType.JAVADOC, RequestPriority.CHAT);
         System.out.println(answer);
         return answer;
     }
@@ -99,7 +121,7 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
                 = "You are an API server that responds only with Javadoc comments for field. "
                 + "Generate only the Javadoc wrapped with in /** ${javadoc} **/ for the following Java variable. Do not include any additional text or explanation.\n\n"
                 + fieldContent;
-        String answer = generate(project, prompt);
+        String answer = generate(project, prompt, null, null, AIActionType.JAVADOC, RequestPriority.CHAT);
         System.out.println(answer);
         return answer;
     }
@@ -111,7 +133,7 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
                 + "Do not include any additional text or explanation, just the enhanced Javadoc wrapped with /** ${javadoc} **/.\n\n"
                 + "Existing Javadoc:\n" + existingJavadoc + "\n\n"
                 + "Java Class Content:\n" + classContent;
-        String answer = generate(project, prompt);
+        String answer = generate(project, prompt, null, null, AIActionType.JAVADOC, RequestPriority.CHAT);
         System.out.println(answer);
         return answer;
     }
@@ -123,7 +145,7 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
                 + "Do not include any additional text or explanation, just the enhanced Javadoc wrapped with /** ${javadoc} **/.\n\n"
                 + "Existing Javadoc:\n" + existingJavadoc + "\n\n"
                 + "Java Method Content:\n" + methodContent;
-        String answer = generate(project, prompt);
+        String answer = generate(project, prompt, null, null, AIActionType.JAVADOC, RequestPriority.CHAT);
         System.out.println(answer);
         return answer;
     }
@@ -135,7 +157,7 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
                 + "Do not include any additional text or explanation, just the enhanced Javadoc wrapped with /** ${javadoc} **/.\n\n"
                 + "Existing Javadoc:\n" + existingJavadoc + "\n\n"
                 + "Java Field Content:\n" + fieldContent;
-        String answer = generate(project, prompt);
+        String answer = generate(project, prompt, null, null, AIActionType.JAVADOC, RequestPriority.CHAT);
         System.out.println(answer);
         return answer;
     }
@@ -385,7 +407,34 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
         return methodInvocations;
     }
 
-    public List<Snippet> suggestNextLineCode(Project project, String classDatas, String classContent, String lineText, TreePath path, String hintContext, boolean hint) {
+    /**
+     * Streams an inline hint as plain code, so it can be shown while it is
+     * generated, unlike the JSON answer of
+     * {@link #suggestNextLineCode(Project, String, String, String, Tree.Kind, Tree.Kind, String, boolean)}.
+     *
+     * @param project the project of the file, may be {@code null}
+     * @param classContent the source with the placeholder at the caret
+     * @param hintContext the prompt typed by the user, may be {@code null}
+     * @return the code as it is generated
+     */
+    public Flow.Publisher<String> streamNextLineCode(Project project, String classContent, String hintContext) {
+        String prompt = "You are a code completion engine that continues Java code at the placeholder ${SUGGEST_CODE}.\n"
+                + "Reply with only the code to insert at the placeholder, without markdown fences, explanation or the surrounding code.\n"
+                + "Complete the current statement or add the next few lines that naturally follow; "
+                + "do not repeat code that already follows the placeholder.\n"
+                + "Java Class Content:\n" + classContent;
+        if (hintContext != null && !hintContext.isEmpty()) {
+            prompt = prompt + "\n" + hintContext;
+        }
+        return generateStream(project, prompt, null, null);
+    }
+
+    /**
+     * @param kind the kind of the innermost tree at the caret, {@code null}
+     * if the caret is outside of any tree
+     * @param parentKind the kind of its parent, may be {@code null}
+     */
+    public List<Snippet> suggestNextLineCode(Project project, String classDatas, String classContent, String lineText, Tree.Kind kind, Tree.Kind parentKind, String hintContext, boolean hint) {
         String prompt;
         if (hint) {
             prompt = "You are an API server that suggests relevant Java code to be inserted at the placeholder ${SUGGEST_CODE}.\n"
@@ -399,56 +448,46 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
                 prompt = prompt + "\n" + hintContext;
             }
         } else {
-            if (path == null) {
+            if (kind == null) {
                 prompt = "You are an API server that suggests Java code for the outermost context of a Java source file, outside of any existing class. "
                         + "Based on the provided Java source file content, suggest relevant code to be added at the placeholder location ${SUGGEST_CODE}. "
                         + "Suggest additional classes, interfaces, enums, or other top-level constructs. "
                         + "Ensure that the suggestions fit the context of the entire file. "
                         + (pm.isDescriptionEnabled() ? jsonRequestWithDescription : jsonRequest)
                         + "Java Source File Content:\n" + classContent;
-            } else if (path.getLeaf().getKind() == Tree.Kind.COMPILATION_UNIT) {
+            } else if (kind == Tree.Kind.COMPILATION_UNIT) {
                 prompt = "You are an API server that suggests Java code for the outermost context of a Java source file, outside of any existing class. "
                         + "Based on the provided Java source file content, suggest relevant code to be added at the placeholder location ${SUGGEST_CODE}. "
                         + "Suggest package declarations, import statements, comments, or annotations for public class. "
                         + "Ensure that the suggestions fit the context of the entire file. "
                         + (pm.isDescriptionEnabled() ? jsonRequestWithDescription : jsonRequest)
                         + "Java Source File Content:\n" + classContent;
-            } else if (path.getLeaf().getKind() == Tree.Kind.MODIFIERS
-                    && path.getParentPath() != null
-                    && path.getParentPath().getLeaf().getKind() == Tree.Kind.CLASS) {
+            } else if (kind == Tree.Kind.MODIFIERS && parentKind == Tree.Kind.CLASS) {
                 prompt = "You are an API server that suggests Java code modifications for a class. "
                         + "At the placeholder location ${SUGGEST_CODE}, suggest either a class-level modifier such as 'public', 'protected', 'private', 'abstract', 'final', or a relevant class-level annotation. "
                         + "Ensure that the suggestions are appropriate for the class context provided. "
                         + (pm.isDescriptionEnabled() ? jsonRequestWithDescription : jsonRequest)
                         + "Java Class Content:\n" + classContent;
-            } else if (path.getLeaf().getKind() == Tree.Kind.MODIFIERS
-                    && path.getParentPath() != null
-                    && path.getParentPath().getLeaf().getKind() == Tree.Kind.METHOD) {
+            } else if (kind == Tree.Kind.MODIFIERS && parentKind == Tree.Kind.METHOD) {
                 prompt = "You are an API server that suggests Java code modifications for a method. "
                         + "At the placeholder location ${SUGGEST_CODE}, suggest method-level modifiers such as 'public', 'protected', 'private', 'abstract', 'static', 'final', 'synchronized', or relevant method-level annotations. "
                         + "Additionally, you may suggest method-specific annotations. "
                         + "Ensure that the suggestions are appropriate for the method context provided. "
                         + (pm.isDescriptionEnabled() ? jsonRequestWithDescription : jsonRequest)
                         + "Java Method Content:\n" + classContent;
-            } else if (path.getLeaf().getKind() == Tree.Kind.CLASS
-                    && path.getParentPath() != null
-                    && path.getParentPath().getLeaf().getKind() == Tree.Kind.CLASS) {
+            } else if (kind == Tree.Kind.CLASS && parentKind == Tree.Kind.CLASS) {
                 prompt = "You are an API server that suggests Java code for an inner class at the placeholder location ${SUGGEST_CODE}. "
                         + "Based on the provided Java class content, suggest either relevant inner class modifiers such as 'public', 'private', 'protected', 'static', 'abstract', 'final', or a full inner class definition. "
                         + "Additionally, you may suggest class-level annotations for the inner class. Ensure that the suggestions are contextually appropriate for an inner class. "
                         + (pm.isDescriptionEnabled() ? jsonRequestWithDescription : jsonRequest)
                         + "Java Class Content:\n" + classContent;
-            } else if (path.getLeaf().getKind() == Tree.Kind.CLASS
-                    && path.getParentPath() != null
-                    && path.getParentPath().getLeaf().getKind() == Tree.Kind.COMPILATION_UNIT) {
+            } else if (kind == Tree.Kind.CLASS && parentKind == Tree.Kind.COMPILATION_UNIT) {
                 prompt = "You are an API server that suggests Java code for an class at the placeholder location ${SUGGEST_CODE}. "
                         + "Based on the provided Java class content, suggest either relevant class level members, attributes, constants, methods or blocks. "
                         + "Ensure that the suggestions are contextually appropriate for an class. "
                         + (pm.isDescriptionEnabled() ? jsonRequestWithDescription : jsonRequest)
                         + "Java Class Content:\n" + classContent;
-            } else if (path.getLeaf().getKind() == Tree.Kind.PARENTHESIZED
-                    && path.getParentPath() != null
-                    && path.getParentPath().getLeaf().getKind() == Tree.Kind.IF) {
+            } else if (kind == Tree.Kind.PARENTHESIZED && parentKind == Tree.Kind.IF) {
                 prompt = "You are an API server that suggests Java code to enhance an if-statement. "
                         + "At the placeholder location ${SUGGEST_IF_CONDITIONS}, suggest additional conditional checks or actions within the if-statement. "
                         + "Ensure that the suggestions are contextually appropriate for the condition. "
@@ -472,7 +511,7 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
         return nextLines;
     }
 
-    public List<Snippet> hintNextLineCode(Project project, String classDatas, String classContent, String lineText, TreePath path, String hintContext, boolean singleCodeSnippet) {
+    public List<Snippet> hintNextLineCode(Project project, String classDatas, String classContent, String lineText, Tree.Kind kind, Tree.Kind parentKind, String hintContext, boolean singleCodeSnippet) {
         StringBuilder promptBuilder = new StringBuilder();
 
         promptBuilder.append("You are an API server that suggests relevant Java code at the placeholder ${SUGGEST_CODE}.\n")
@@ -747,14 +786,14 @@ public class JeddictChatModel extends JeddictChatModelBuilder {
         }
 
         // Generate the commit message suggestions
-        String answer = generate(null, prompt.toString(), images, previousChatResponse);
+        String answer = generate(null, prompt.toString(), images, previousChatResponse,
+                AIActionType.COMMIT_MESSAGE, RequestPriority.BACKGROUND);
         System.out.println(answer);
         answer = removeCodeBlockMarkers(answer);
         return answer;
     }
 
     public String generateCodeReviewSuggestions(String gitDiffOutput, String query, List<String> images, List<Response> previousChatResponse) {
-
         String prompt = """
 Instructions:
 - Base your review strictly on the provided Git diff.
@@ -788,7 +827,8 @@ Expected YAML format:
 %s
 """.formatted(query, gitDiffOutput);
 
-        return generate(null, pm.getPrompts().get("codereview") + '\n' + prompt, images, previousChatResponse);
+        return generate(null, pm.getPrompts().get("codereview") + '\n' + prompt, images, previousChatResponse,
+                AIActionType.REVIEW, RequestPriority.BACKGROUND);
     }
 
     public String assistDbMetadata(String dbMetadata, String query, List<String> images, List<Response> previousChatResponse) {
@@ -879,9 +919,8 @@ Expected YAML format:
                     .append(methodContent)
                     .append("\n\nDo not return complete Java Class, return only Method");
         } else if (source != null) {
-            prompt.append("Source:\n")
-                    .append(source)
-                    .append("\n\n");
+            // sent ahead of the query, within the context window
+            addContext(ContextPacker.Kind.CURRENT_FILE, "Source", source);
         }
         prompt.append("User Query:\n")
                 .append(userQuery);
@@ -895,7 +934,7 @@ Expected YAML format:
             Project project, String source, String methodContent, List<String> images,
             List<Response> previousChatResponse, String userQuery) {
 
-        String projectMap = String.join("\n", getSourceFilesRelativePath(project));
+        String projectMap = ProjectContextService.getInstance().getProjectMap(project);
         String sessionRules = pm.getSessionRules();
         if (sessionRules != null && !sessionRules.isEmpty()) {
             sessionRules = "\n\n" + sessionRules + "\n\n";
@@ -24,43 +24,27 @@ import dev.langchain4j.data.message.TextContent;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import io.github.jeddict.ai.JeddictUpdateManager;
-import io.github.jeddict.ai.lang.impl.AnthropicBuilder;
-import io.github.jeddict.ai.lang.impl.AnthropicStreamingBuilder;
-import io.github.jeddict.ai.lang.impl.GoogleBuilder;
-import io.github.jeddict.ai.lang.impl.GoogleStreamingBuilder;
-import io.github.jeddict.ai.lang.impl.LMStudioBuilder;
-import io.github.jeddict.ai.lang.impl.LocalAiBuilder;
-import io.github.jeddict.ai.lang.impl.LocalAiStreamingBuilder;
-import io.github.jeddict.ai.lang.impl.MistralBuilder;
-import io.github.jeddict.ai.lang.impl.MistralStreamingBuilder;
-import io.github.jeddict.ai.lang.impl.OllamaBuilder;
-import io.github.jeddict.ai.lang.impl.OllamaStreamingBuilder;
-import io.github.jeddict.ai.lang.impl.OpenAiBuilder;
-import io.github.jeddict.ai.lang.impl.OpenAiStreamingBuilder;
 import io.github.jeddict.ai.response.Response;
 import io.github.jeddict.ai.response.TokenHandler;
-import io.github.jeddict.ai.scanner.ProjectMetadataInfo;
-import static io.github.jeddict.ai.settings.GenAIProvider.ANTHROPIC;
-import static io.github.jeddict.ai.settings.GenAIProvider.CUSTOM_OPEN_AI;
-import static io.github.jeddict.ai.settings.GenAIProvider.DEEPINFRA;
-import static io.github.jeddict.ai.settings.GenAIProvider.DEEPSEEK;
-import static io.github.jeddict.ai.settings.GenAIProvider.GOOGLE;
-import static io.github.jeddict.ai.settings.GenAIProvider.GPT4ALL;
-import static io.github.jeddict.ai.settings.GenAIProvider.GROQ;
-import static io.github.jeddict.ai.settings.GenAIProvider.LM_STUDIO;
-import static io.github.jeddict.ai.settings.GenAIProvider.MISTRAL;
-import static io.github.jeddict.ai.settings.GenAIProvider.OLLAMA;
-import static io.github.jeddict.ai.settings.GenAIProvider.OPEN_AI;
-import static io.github.jeddict.ai.settings.GenAIProvider.PERPLEXITY;
+import io.github.jeddict.ai.scanner.ProjectContextService;
+import io.github.jeddict.ai.scanner.ProjectContextSnapshot;
+import io.github.jeddict.ai.settings.AIActionType;
+import io.github.jeddict.ai.settings.GenAIModel;
+import io.github.jeddict.ai.settings.GenAIProvider;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.concurrent.Flow;
+import java.util.logging.Logger;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
@@ -78,10 +62,23 @@ import org.openide.util.NbBundle;
  */
 public class JeddictChatModelBuilder {
 
+    private static final Logger LOG = Logger.getLogger(JeddictChatModelBuilder.class.getName());
+
+    /**
+     * How long a stream may go without an event when no request timeout is
+     * configured.
+     */
+    private static final Duration STREAM_IDLE_TIMEOUT = Duration.ofMinutes(2);
+
     private ChatModel model;
+    private ChatModelConfig config;
     private StreamingChatModel streamModel;
     protected static PreferencesManager pm = PreferencesManager.getInstance();
     private JeddictStreamHandler handler;
+    private RequestPriority priority;
+    private AIActionType actionType;
+    private final List<ContextEntry> context = new ArrayList<>();
+    private ContextPacker.Result contextReport;
 
     public JeddictChatModelBuilder() {
         this(null);
@@ -93,114 +90,123 @@ public class JeddictChatModelBuilder {
 
     public JeddictChatModelBuilder(JeddictStreamHandler handler, String modelName) {
         this.handler = handler;
+        this.priority = handler != null ? RequestPriority.CHAT : RequestPriority.INTERACTIVE;
+        this.actionType = handler != null ? AIActionType.CHAT : AIActionType.COMPLETION;
 
         if (null != modelName) {
-            if (pm.isStreamEnabled() && handler != null) {
-                switch (pm.getProvider()) {
-
-                    case GOOGLE -> {
-                        streamModel = buildModel(new GoogleStreamingBuilder(), modelName);
-                    }
-                    case OPEN_AI, DEEPINFRA, DEEPSEEK, GROQ, CUSTOM_OPEN_AI, COPILOT_PROXY, PERPLEXITY -> {
-                        streamModel = buildModel(new OpenAiStreamingBuilder(), modelName);
-                    }
-                    case MISTRAL -> {
-                        streamModel = buildModel(new MistralStreamingBuilder(), modelName);
-                    }
-                    case ANTHROPIC -> {
-                        streamModel = buildModel(new AnthropicStreamingBuilder(), modelName);
-                    }
-                    case OLLAMA -> {
-                        streamModel = buildModel(new OllamaStreamingBuilder(), modelName);
-                    }
-                    case LM_STUDIO -> {
-                        model = buildModel(new LMStudioBuilder(), modelName);
-                    }
-                    case GPT4ALL -> {
-                        streamModel = buildModel(new LocalAiStreamingBuilder(), modelName);
-                    }
-                }
+            ChatModelRegistry registry = ChatModelRegistry.getInstance();
+            GenAIProvider provider = pm.getProvider();
+            if (pm.isStreamEnabled() && handler != null && registry.isStreamingSupported(provider)) {
+                config = registry.getConfig(provider, modelName, true);
+                streamModel = registry.getStreamingChatModel(config);
             } else {
-                switch (pm.getProvider()) {
-
-                    case GOOGLE -> {
-                        model = buildModel(new GoogleBuilder(), modelName);
-                    }
-                    case OPEN_AI, DEEPINFRA, DEEPSEEK, GROQ, CUSTOM_OPEN_AI, COPILOT_PROXY, PERPLEXITY -> {
-                        model = buildModel(new OpenAiBuilder(), modelName);
-                    }
-                    case MISTRAL -> {
-                        model = buildModel(new MistralBuilder(), modelName);
-                    }
-                    case ANTHROPIC -> {
-                        model = buildModel(new AnthropicBuilder(), modelName);
-                    }
-                    case OLLAMA -> {
-                        model = buildModel(new OllamaBuilder(), modelName);
-                    }
-                    case LM_STUDIO -> {
-                        model = buildModel(new LMStudioBuilder(), modelName);
-                    }
-                    case GPT4ALL -> {
-                        model = buildModel(new LocalAiBuilder(), modelName);
-                    }
-                }
+                config = registry.getConfig(provider, modelName, false);
+                model = registry.getChatModel(config);
             }
         }
     }
 
-    private <T> void setIfValid(final Consumer<T> setter, final T value, final T invalidValue) {
-        if (value != null && !value.equals(invalidValue)) {
-            setter.accept(value);
-        }
+    public RequestPriority getPriority() {
+        return priority;
     }
 
-    private <T> void setIfPredicate(final Consumer<T> setter, final T value, final Predicate<T> predicate) {
-        if (value != null && !predicate.test(value)) {
-            setter.accept(value);
-        }
+    /**
+     * Overrides the scheduling priority, which defaults to
+     * {@link RequestPriority#CHAT} for streamed chat and to
+     * {@link RequestPriority#INTERACTIVE} otherwise.
+     *
+     * @param priority the priority of the requests made by this model
+     */
+    public void setPriority(RequestPriority priority) {
+        this.priority = priority;
     }
 
-    private <T> ChatModelBaseBuilder<T> builderModel(final ChatModelBaseBuilder<T> builder, String modelName) {
-        setIfPredicate(builder::baseUrl, pm.getProviderLocation(), String::isEmpty);
-        setIfPredicate(builder::customHeaders, pm.getCustomHeaders(), Map::isEmpty);
-        boolean headless = pm.getProviderLocation() != null;
-        builder
-                .apiKey(pm.getApiKey(headless))
-                .modelName(modelName);
-
-        setIfValid(builder::temperature, pm.getTemperature(), Double.MIN_VALUE);
-        setIfValid(value -> builder.timeout(Duration.ofSeconds(value)), pm.getTimeout(), Integer.MIN_VALUE);
-        if (builder instanceof ChatModelBuilder) {
-            setIfValid(((ChatModelBuilder)builder)::maxRetries, pm.getMaxRetries(), Integer.MIN_VALUE);
-        }
-        setIfValid(builder::maxOutputTokens, pm.getMaxOutputTokens(), Integer.MIN_VALUE);
-        setIfValid(builder::repeatPenalty, pm.getRepeatPenalty(), Double.MIN_VALUE);
-        setIfValid(builder::seed, pm.getSeed(), Integer.MIN_VALUE);
-        setIfValid(builder::maxTokens, pm.getMaxTokens(), Integer.MIN_VALUE);
-        setIfValid(builder::maxCompletionTokens, pm.getMaxCompletionTokens(), Integer.MIN_VALUE);
-        setIfValid(builder::topK, pm.getTopK(), Integer.MIN_VALUE);
-        setIfValid(builder::presencePenalty, pm.getPresencePenalty(), Double.MIN_VALUE);
-        setIfValid(builder::frequencyPenalty, pm.getFrequencyPenalty(), Double.MIN_VALUE);
-        setIfPredicate(builder::organizationId, pm.getOrganizationId(), String::isEmpty);
-
-        builder.logRequestsResponses(pm.isLogRequestsEnabled(), pm.isLogResponsesEnabled())
-                .includeCodeExecutionOutput(pm.isIncludeCodeExecutionOutput())
-                .allowCodeExecution(pm.isAllowCodeExecution());
-
-        return builder;
+    public AIActionType getActionType() {
+        return actionType;
     }
 
-    private <T> T buildModel(final ChatModelBaseBuilder<T> builder, String modelName) {
-        return builderModel(builder, modelName).build();
+    /**
+     * Sets the kind of request, which selects the routing rule. Defaults to
+     * {@link AIActionType#CHAT} for streamed chat and to
+     * {@link AIActionType#COMPLETION} otherwise. Operations that are of
+     * another kind pass it with each call instead.
+     *
+     * @param actionType the kind of requests made by this model
+     */
+    public void setActionType(AIActionType actionType) {
+        this.actionType = actionType;
     }
 
     public String generate(final Project project, final String prompt) {
-        return generateInternal(project, prompt, null, null);
+        return generateInternal(project, prompt, null, null, actionType, priority);
     }
 
     public String generate(final Project project, final String prompt, List<String> images, List<Response> responseHistory) {
-        return generateInternal(project, prompt, images, responseHistory);
+        return generateInternal(project, prompt, images, responseHistory, actionType, priority);
+    }
+
+    /**
+     * Generates as a kind of request and with a priority of its own, e.g.
+     * {@link AIActionType#REVIEW} as {@link RequestPriority#BACKGROUND},
+     * leaving the defaults of later requests on this model unchanged.
+     */
+    protected String generate(final Project project, final String prompt, List<String> images, List<Response> responseHistory,
+            AIActionType actionType, RequestPriority priority) {
+        return generateInternal(project, prompt, images, responseHistory, actionType, priority);
+    }
+
+    /**
+     * Streams the answer to a prompt as it is generated. The request is sent
+     * when a subscriber subscribes; cancelling the subscription aborts it
+     * while it waits for a slot with the provider or for a non-streaming
+     * answer, and frees the slot of a stream already being received.
+     * Providers without streaming support publish the whole answer as a
+     * single item.
+     *
+     * @param project the project the prompt relates to, may be {@code null}
+     * @param prompt the prompt
+     * @param images base64 image urls to attach, may be {@code null}
+     * @param responseHistory the conversation so far, may be {@code null}
+     * @return a single-subscriber publisher of the partial answers
+     */
+    public Flow.Publisher<String> generateStream(Project project, String prompt, List<String> images, List<Response> responseHistory) {
+        PackedPrompt packed = buildMessages(project, prompt, images, responseHistory);
+        return new ChatResponsePublisher(publisher -> {
+            CancellableFuture<Void> request = CancellableFuture.submit(() -> {
+                stream(packed, publisher);
+                return null;
+            }, null);
+            request.whenComplete((result, error) -> {
+                if (error != null) {
+                    publisher.onError(error);
+                }
+            });
+            return request;
+        });
+    }
+
+    private void stream(PackedPrompt packed, ChatResponsePublisher handler) throws Exception {
+        if (config == null) {
+            throw new IllegalStateException("AI assistance model not intitalized.");
+        }
+        List<ChatMessage> messages = packed.messages();
+        int tokenCount = TokenHandler.saveInputToken(packed.tokens());
+        ModelRouter router = ModelRouter.getInstance();
+        ModelRouter.Target selected = new ModelRouter.Target(config.getProvider(), config.getModelName());
+        ModelRouter.Target target = selectStreamingTarget(router.rank(actionType, selected), selected);
+        if (ChatModelRegistry.getInstance().isStreamingSupported(target.getProvider())) {
+            RequestScheduler.Permit permit = acquire(target.getProvider(), priority, tokenCount);
+            // the stream goes on after this returns; a cancelled subscriber
+            // frees the slot and drops the rest through the closed permit
+            handler.onCancel(permit::close);
+            chat(target, messages, permit, router.track(target, handler));
+        } else {
+            String response = router.execute(actionType, selected, priority == RequestPriority.INTERACTIVE,
+                    t -> chat(t, messages, tokenCount, priority));
+            CompletableFuture.runAsync(() -> TokenHandler.saveOutputToken(response));
+            handler.onPartialResponse(response);
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(response)).build());
+        }
     }
 
     public UserMessage buildUserMessage(String prompt, List<String> imageBase64Urls) {
@@ -218,61 +224,202 @@ public class JeddictChatModelBuilder {
         return UserMessage.from(parts.toArray(new Content[0]));
     }
 
-    private String generateInternal(Project project, String prompt, List<String> images, List<Response> responseHistory) {
-        if (model == null && handler == null) {
-            JOptionPane.showMessageDialog(null,
-                    "AI assistance model not intitalized.",
-                    "Error in AI Assistance",
-                    JOptionPane.ERROR_MESSAGE);
+    /**
+     * Adds context to the next prompt, packed within the model's context
+     * window by priority instead of being sent unconditionally.
+     *
+     * @param kind the kind of context, which decides its priority
+     * @param label a heading for the content, e.g. "Source"
+     * @param text the content, ignored if empty
+     * @return this builder
+     */
+    public JeddictChatModelBuilder addContext(ContextPacker.Kind kind, String label, String text) {
+        if (text != null && !text.isBlank()) {
+            context.add(new ContextEntry(kind, label, text));
+        }
+        return this;
+    }
+
+    /**
+     * @return what the last prompt included of the context, history and
+     * project metadata, {@code null} before the first prompt
+     */
+    public ContextPacker.Result getContextReport() {
+        return contextReport;
+    }
+
+    /**
+     * Builds the messages sent for a prompt: the global and project rules as
+     * system message, the conversation history and the prompt itself,
+     * preceded by the added context and completed with the project metadata.
+     * Rules and prompt are always sent; context, history (newest turns
+     * first) and metadata fill what is left of the context window after
+     * reserving room for the answer. Without a known context window
+     * everything is sent.
+     */
+    private PackedPrompt buildMessages(Project project, String prompt, List<String> images, List<Response> responseHistory) {
+        ProjectContextSnapshot snapshot = project != null ? ProjectContextService.getInstance().get(project) : null;
+        String systemMessage;
+        int systemTokens;
+        if (snapshot != null) {
+            systemMessage = snapshot.getRules();
+            systemTokens = snapshot.getRulesTokens();
+        } else {
+            systemMessage = PreferencesManager.getInstance().getGlobalRules();
+            systemTokens = TokenHandler.countTokens(systemMessage);
         }
-        if (project != null) {
-            prompt = prompt + "\n" + ProjectMetadataInfo.get(project);
+        boolean hasSystemMessage = systemMessage != null && !systemMessage.trim().isEmpty();
+        int fixedTokens = TokenHandler.countTokens(prompt) + (hasSystemMessage ? systemTokens : 0);
+
+        int window = getContextWindow();
+        ContextPacker packer = new ContextPacker(window > 0
+                ? window - getAnswerReserve() - fixedTokens
+                : Integer.MAX_VALUE);
+        for (ContextEntry entry : context) {
+            packer.add(entry.kind(), entry.label(), entry.text());
         }
-        String systemMessage = null;
-        String globalRules = PreferencesManager.getInstance().getGlobalRules();
-        if (globalRules != null) {
-            systemMessage = globalRules;
+        context.clear();
+        Map<ContextPacker.Fragment, Response> turns = new IdentityHashMap<>();
+        if (responseHistory != null) {
+            for (int i = responseHistory.size() - 1; i >= 0; i--) {
+                Response res = responseHistory.get(i);
+                ContextPacker.Fragment turn = packer.add(ContextPacker.Kind.HISTORY, "Turn " + (i + 1),
+                        res.getQuery() + '\n' + res);
+                if (turn != null) {
+                    turns.put(turn, res);
+                }
+            }
+        }
+        ContextPacker.Fragment metadata = snapshot != null
+                ? packer.add(ContextPacker.Kind.PROJECT_MAP, "Project metadata", snapshot.getMetadata(), snapshot.getMetadataTokens())
+                : null;
+        ContextPacker.Result packed = packer.pack();
+        contextReport = packed;
+        if (packed.isComplete()) {
+            LOG.fine(packed::report);
+        } else {
+            LOG.info(packed::report);
         }
-        if (project != null) {
-            String projectRules = PreferencesManager.getInstance().getProjectRules(project);
-            if (projectRules != null) {
-                systemMessage = systemMessage + '\n' + projectRules;
+
+        StringBuilder userPrompt = new StringBuilder();
+        for (ContextPacker.Fragment fragment : packed.getIncluded()) {
+            ContextPacker.Kind kind = fragment.getKind();
+            if (kind != ContextPacker.Kind.HISTORY && kind != ContextPacker.Kind.PROJECT_MAP) {
+                userPrompt.append(fragment.getLabel()).append(":\n")
+                        .append(fragment.getText()).append("\n\n");
             }
         }
+        userPrompt.append(prompt);
+        if (metadata != null && packed.find(metadata) != null) {
+            userPrompt.append('\n').append(metadata.getText());
+        }
+
         List<ChatMessage> messages = new ArrayList<>();
-        if (systemMessage != null && !systemMessage.trim().isEmpty()) {
+        if (hasSystemMessage) {
             messages.add(SystemMessage.from(systemMessage));
         }
 
-        // add conversation history (multiple responses)
-        if (responseHistory != null && !responseHistory.isEmpty()) {
-            for (Response res : responseHistory) {
-                messages.add(UserMessage.from(res.getQuery()));
-                messages.add(AiMessage.from(res.toString()));
-            }
+        // add conversation history (multiple responses), oldest first
+        List<ContextPacker.Fragment> history = new ArrayList<>(packed.getIncluded(ContextPacker.Kind.HISTORY));
+        Collections.reverse(history);
+        for (ContextPacker.Fragment turn : history) {
+            Response res = turns.get(turn);
+            messages.add(UserMessage.from(res.getQuery()));
+            messages.add(AiMessage.from(res.toString()));
         }
 
         if (images != null && !images.isEmpty()) {
-            messages.add(buildUserMessage(prompt, images));
+            messages.add(buildUserMessage(userPrompt.toString(), images));
         } else {
-            messages.add(UserMessage.from(prompt));
+            messages.add(UserMessage.from(userPrompt.toString()));
+        }
+        return new PackedPrompt(messages, fixedTokens + packed.getTokens());
+    }
+
+    /**
+     * @return the configured context window, or the context length of the
+     * model, {@link GenAIModel#UNKNOWN_CONTEXT_LENGTH} if neither is known
+     */
+    private int getContextWindow() {
+        int window = pm.getContextWindow();
+        if (window > 0) {
+            return window;
+        }
+        return GenAIModel.getContextLength(config != null ? config.getModelName() : null);
+    }
+
+    /**
+     * @return the tokens kept free for the answer: the configured output
+     * limit, or a quarter of the window up to 4096
+     */
+    private int getAnswerReserve() {
+        Integer maxOutput = config != null ? config.getMaxOutputTokens() : null;
+        return maxOutput != null ? maxOutput : Math.min(4096, getContextWindow() / 4);
+    }
+
+    private String generateInternal(Project project, String prompt, List<String> images, List<Response> responseHistory,
+            AIActionType actionType, RequestPriority priority) {
+        if (model == null && handler == null) {
+            JOptionPane.showMessageDialog(null,
+                    "AI assistance model not intitalized.",
+                    "Error in AI Assistance",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+        PackedPrompt packed = buildMessages(project, prompt, images, responseHistory);
+        List<ChatMessage> messages = packed.messages();
+        String requestKey = config != null ? ResponseCache.key(config.fingerprint(), messages) : null;
+        boolean cacheable = streamModel == null && config != null && pm.isResponseCacheEnabled();
+        if (cacheable) {
+            // looked up for the target expected to answer, stored for the one that did
+            ModelRouter.Target selected = new ModelRouter.Target(config.getProvider(), config.getModelName());
+            String cacheKey = cacheKey(ModelRouter.getInstance().rank(actionType, selected).get(0), messages);
+            String cached = cacheKey != null ? ResponseCache.getInstance().get(cacheKey) : null;
+            if (cached != null) {
+                CompletableFuture.runAsync(() -> TokenHandler.saveCachedToken(packed.tokens(), cached));
+                return cached;
+            }
         }
-        int tokenCount = TokenHandler.saveInputToken(messages);
+
+        int tokenCount = TokenHandler.saveInputToken(packed.tokens());
         String handleMessage = NbBundle.getMessage(JeddictUpdateManager.class, "ProgressHandle", tokenCount);
         ProgressHandle handle = ProgressHandle.createHandle(handleMessage);
         handle.start();
 
         try {
+            ModelRouter router = ModelRouter.getInstance();
+            ModelRouter.Target selected = new ModelRouter.Target(config.getProvider(), config.getModelName());
             if (streamModel != null) {
                 handler.setHandle(handle);
-                streamModel.chat(messages, handler);
+                handler.setSubscription(RequestCoalescer.getInstance().stream(requestKey, handler, h -> {
+                    ModelRouter.Target target = selectStreamingTarget(router.rank(actionType, selected), selected);
+                    RequestScheduler.Permit permit = acquire(target.getProvider(), priority, tokenCount);
+                    chat(target, messages, permit, router.track(target, h));
+                    return permit::close;
+                }));
             } else {
-                String response = model.chat(messages).aiMessage().text();
+                // identical requests already in flight share one call
+                String response = RequestCoalescer.getInstance().execute(requestKey,
+                        () -> router.execute(actionType, selected, priority == RequestPriority.INTERACTIVE, target -> {
+                            String answer = chat(target, messages, tokenCount, priority);
+                            String cacheKey = cacheable ? cacheKey(target, messages) : null;
+                            if (cacheKey != null) {
+                                ResponseCache.getInstance().put(cacheKey, answer);
+                            }
+                            return answer;
+                        }));
                 CompletableFuture.runAsync(() -> TokenHandler.saveOutputToken(response));
                 handle.finish();
                 return response;
             }
+        } catch (CancellationException e) {
+            // the caller gave up, e.g. a newer inline hint request replaced it
+            handle.finish();
+            return null;
         } catch (Exception e) {
+            if (isCancellation(e)) {
+                handle.finish();
+                return null;
+            }
             String errorMessage = e.getMessage();
             if (e.getCause() != null && e.getCause().getMessage() != null) {
                 //
@@ -316,4 +463,115 @@ public class JeddictChatModelBuilder {
         return null;
     }
 
+    /**
+     * Whether a failure is the caller giving up, i.e. the thread was
+     * interrupted and the HTTP client reported it wrapped in its own
+     * exception.
+     */
+    private static boolean isCancellation(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof CancellationException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSelected(ModelRouter.Target target) {
+        return target.getProvider() == config.getProvider()
+                && target.getModelName().equals(config.getModelName());
+    }
+
+    /**
+     * Sends the messages to one routing target, within a scheduler slot.
+     */
+    private String chat(ModelRouter.Target target, List<ChatMessage> messages, int tokenCount, RequestPriority priority) {
+        ChatModelRegistry registry = ChatModelRegistry.getInstance();
+        ChatModel targetModel = isSelected(target) ? model
+                : registry.getChatModel(registry.getConfig(target.getProvider(), target.getModelName(), false));
+        try (RequestScheduler.Permit permit = acquire(target.getProvider(), priority, tokenCount)) {
+            String text = targetModel.chat(messages).aiMessage().text();
+            if (text != null) {
+                // rough estimate, the exact count is done off this thread
+                permit.consume(text.length() / 4);
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Streams the answer of one routing target within the given slot. The
+     * slot is freed when the stream ends, when the provider stays silent for
+     * too long or when the request cannot even be sent.
+     */
+    private void chat(ModelRouter.Target target, List<ChatMessage> messages,
+            RequestScheduler.Permit permit, StreamingChatResponseHandler handler) {
+        Integer timeout = config.getTimeout();
+        Duration idleTimeout = timeout != null && timeout > 0 ? Duration.ofSeconds(timeout) : STREAM_IDLE_TIMEOUT;
+        try {
+            streamingModelFor(target).chat(messages, permit.releaseOnCompletion(handler, idleTimeout));
+        } catch (RuntimeException | Error ex) {
+            permit.close();
+            throw ex;
+        }
+    }
+
+    private ModelRouter.Target selectStreamingTarget(List<ModelRouter.Target> ranked, ModelRouter.Target selected) {
+        ChatModelRegistry registry = ChatModelRegistry.getInstance();
+        return ranked.stream()
+                .filter(target -> registry.isStreamingSupported(target.getProvider()))
+                .findFirst()
+                .orElse(selected);
+    }
+
+    private StreamingChatModel streamingModelFor(ModelRouter.Target target) {
+        if (isSelected(target) && streamModel != null) {
+            return streamModel;
+        }
+        ChatModelRegistry registry = ChatModelRegistry.getInstance();
+        return registry.getStreamingChatModel(registry.getConfig(target.getProvider(), target.getModelName(), true));
+    }
+
+    /**
+     * Waits for a slot with the provider.
+     */
+    private RequestScheduler.Permit acquire(GenAIProvider provider, RequestPriority priority, int tokenCount) {
+        try {
+            return RequestScheduler.getInstance().acquire(provider, priority, tokenCount);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + provider);
+        }
+    }
+
+    /**
+     * Responses are only reused when the same request is expected to give
+     * the same answer, unless the user opted in to caching sampled answers.
+     *
+     * @return the cache key of the messages sent to the target, with the
+     * settings of that target, or {@code null} if its answers are not cached
+     */
+    private String cacheKey(ModelRouter.Target target, List<ChatMessage> messages) {
+        ChatModelConfig targetConfig = isSelected(target) ? config
+                : ChatModelRegistry.getInstance().getConfig(target.getProvider(), target.getModelName(), false);
+        if (!targetConfig.isDeterministic() && !pm.isResponseCacheNonDeterministic()) {
+            return null;
+        }
+        return ResponseCache.key(targetConfig.fingerprint(), messages);
+    }
+
+    private record ContextEntry(ContextPacker.Kind kind, String label, String text) {
+    }
+
+    /**
+     * The messages of a request and their token count.
+     */
+    private record PackedPrompt(List<ChatMessage> messages, int tokens) {
+    }
 }
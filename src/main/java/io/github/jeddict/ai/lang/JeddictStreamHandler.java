@@ -25,6 +25,7 @@ import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JTextArea;
@@ -42,6 +43,7 @@ public abstract class JeddictStreamHandler implements StreamingChatResponseHandl
     private JTextArea textArea;
     private ProgressHandle handle;
     private boolean complete;
+    private Future<?> subscription;
     private static final Logger LOGGER = Logger.getLogger(JeddictStreamHandler.class.getName());
 
 
@@ -57,6 +59,20 @@ public abstract class JeddictStreamHandler implements StreamingChatResponseHandl
         this.handle = handle;
     }
 
+    public void setSubscription(Future<?> subscription) {
+        this.subscription = subscription;
+    }
+
+    /**
+     * Stops listening to the stream; the stream itself is released once no
+     * other chat shares it.
+     */
+    public void cancel() {
+        if (subscription != null) {
+            subscription.cancel(true);
+        }
+    }
+
     @Override
     public void onPartialResponse(String partialResponse) {
         LOGGER.finest(() -> "partial response received: " + partialResponse);
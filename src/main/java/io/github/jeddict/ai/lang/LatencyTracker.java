@@ -0,0 +1,138 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling latency and error statistics per routing target, over the last
+ * {@value #WINDOW} requests.
+ *
+ * @author Gaurav Gupta
+ */
+public class LatencyTracker {
+
+    static final int WINDOW = 64;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Records the outcome of one request.
+     *
+     * @param target the target, see {@link ModelRouter.Target#toString()}
+     * @param millis how long the request took
+     * @param success whether an answer was received
+     */
+    public void record(String target, long millis, boolean success) {
+        windows.computeIfAbsent(target, k -> new Window()).add(millis, success);
+    }
+
+    /**
+     * @param target the target
+     * @return a snapshot of the statistics, empty if nothing was recorded
+     */
+    public Stats getStats(String target) {
+        Window window = windows.get(target);
+        return window != null ? window.stats() : Stats.EMPTY;
+    }
+
+    public static final class Stats {
+
+        static final Stats EMPTY = new Stats(0, 0, 0, 0);
+
+        private final int samples;
+        private final long p50;
+        private final long p95;
+        private final double errorRate;
+
+        Stats(int samples, long p50, long p95, double errorRate) {
+            this.samples = samples;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.errorRate = errorRate;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return the median latency of successful requests in milliseconds
+         */
+        public long getP50() {
+            return p50;
+        }
+
+        /**
+         * @return the 95th percentile latency of successful requests in
+         * milliseconds
+         */
+        public long getP95() {
+            return p95;
+        }
+
+        /**
+         * @return the share of failed requests, between 0 and 1
+         */
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        @Override
+        public String toString() {
+            return "p50=" + p50 + "ms p95=" + p95 + "ms errors=" + Math.round(errorRate * 100) + "% n=" + samples;
+        }
+    }
+
+    private static final class Window {
+
+        private final long[] latencies = new long[WINDOW];
+        private final boolean[] successes = new boolean[WINDOW];
+        private int next;
+        private int size;
+
+        synchronized void add(long millis, boolean success) {
+            latencies[next] = millis;
+            successes[next] = success;
+            next = (next + 1) % WINDOW;
+            size = Math.min(size + 1, WINDOW);
+        }
+
+        synchronized Stats stats() {
+            long[] ok = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (successes[i]) {
+                    ok[count++] = latencies[i];
+                }
+            }
+            double errorRate = size == 0 ? 0 : (double) (size - count) / size;
+            if (count == 0) {
+                return new Stats(size, 0, 0, errorRate);
+            }
+            long[] sorted = Arrays.copyOf(ok, count);
+            Arrays.sort(sorted);
+            return new Stats(size, percentile(sorted, 50), percentile(sorted, 95), errorRate);
+        }
+
+        private static long percentile(long[] sorted, int percent) {
+            int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.github.jeddict.ai.settings.AIActionType;
+import io.github.jeddict.ai.settings.GenAIProvider;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Chooses which provider and model answers a request.
+ *
+ * <p>
+ * Routing is configured per {@link AIActionType} as an ordered list of
+ * targets; without a rule every request goes to the selected provider and
+ * model, as before. With a rule, targets are ranked by their recent median
+ * latency, unhealthy targets (mostly failing) last. A failed attempt falls
+ * over to the next target. Interactive requests can additionally be hedged:
+ * if the first target has not answered after the configured delay, the next
+ * one is asked as well, the first answer wins and the other attempt is
+ * cancelled.
+ *
+ * @author Gaurav Gupta
+ */
+public class ModelRouter {
+
+    private static final Logger LOG = Logger.getLogger(ModelRouter.class.getName());
+
+    private static final RequestProcessor RP = new RequestProcessor(ModelRouter.class.getName(), 8, true);
+
+    /**
+     * Below this many samples a target is always considered healthy, so that
+     * it gets the chance to be measured.
+     */
+    private static final int MIN_SAMPLES = 5;
+    private static final double MAX_ERROR_RATE = 0.5;
+
+    private static ModelRouter instance;
+
+    private final PreferencesManager pm;
+    private final LatencyTracker tracker = new LatencyTracker();
+
+    private ModelRouter(PreferencesManager pm) {
+        this.pm = pm;
+    }
+
+    public static ModelRouter getInstance() {
+        if (instance == null) {
+            synchronized (ModelRouter.class) {
+                if (instance == null) {
+                    instance = new ModelRouter(PreferencesManager.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public LatencyTracker getLatencyTracker() {
+        return tracker;
+    }
+
+    /**
+     * Orders the configured targets for an action, best first.
+     *
+     * @param actionType the kind of request
+     * @param selected the provider and model selected in the settings, used
+     * when no routing rule exists
+     * @return at least one target
+     */
+    public List<Target> rank(AIActionType actionType, Target selected) {
+        List<Target> targets = new ArrayList<>();
+        for (String value : pm.getRoutingTargets(actionType)) {
+            Target target = Target.parse(value);
+            if (target != null && !targets.contains(target)) {
+                targets.add(target);
+            }
+        }
+        if (targets.isEmpty()) {
+            return List.of(selected);
+        }
+        // sorted on one reading per target, the stats change while requests complete
+        Map<Target, LatencyTracker.Stats> stats = new HashMap<>();
+        for (Target target : targets) {
+            stats.put(target, tracker.getStats(target.toString()));
+        }
+        // stable sort, ties keep the configured order
+        targets.sort(Comparator.<Target>comparingInt(t -> isHealthy(stats.get(t)) ? 0 : 1)
+                .thenComparingLong(t -> stats.get(t).getP50()));
+        return targets;
+    }
+
+    private static boolean isHealthy(LatencyTracker.Stats stats) {
+        return stats.getSamples() < MIN_SAMPLES || stats.getErrorRate() < MAX_ERROR_RATE;
+    }
+
+    /**
+     * Runs a blocking request against the best target, falling over and
+     * hedging as configured.
+     *
+     * @param actionType the kind of request
+     * @param selected the provider and model selected in the settings
+     * @param hedge whether the request may be hedged
+     * @param call sends the request to one target
+     * @return the first answer received
+     * @throws Exception the failure of the last target tried
+     */
+    public String execute(AIActionType actionType, Target selected, boolean hedge, TargetCall call) throws Exception {
+        List<Target> targets = rank(actionType, selected);
+        if (targets.size() == 1) {
+            return timed(targets.get(0), call);
+        }
+
+        long hedgeDelay = hedge ? pm.getRoutingHedgeDelay(actionType) : 0;
+        BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+        List<Attempt> running = new ArrayList<>();
+        int next = 0;
+        Exception failure = null;
+        running.add(new Attempt(targets.get(next++), call, completed));
+        long hedgeAt = hedgeDelay > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelay) : Long.MAX_VALUE;
+        try {
+            while (!running.isEmpty()) {
+                Attempt attempt;
+                if (hedgeAt == Long.MAX_VALUE) {
+                    attempt = completed.take();
+                } else {
+                    attempt = completed.poll(Math.max(0, hedgeAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+                if (attempt == null) {
+                    // no answer within the hedge delay, ask the next target too
+                    hedgeAt = Long.MAX_VALUE;
+                    if (next < targets.size()) {
+                        LOG.log(Level.FINE, "Hedging {0} request to {1}", new Object[]{actionType, targets.get(next)});
+                        running.add(new Attempt(targets.get(next++), call, completed));
+                    }
+                    continue;
+                }
+                running.remove(attempt);
+                if (attempt.error == null) {
+                    return attempt.result;
+                }
+                if (failure == null) {
+                    failure = attempt.error;
+                }
+                if (running.isEmpty() && next < targets.size()) {
+                    LOG.log(Level.FINE, "{0} failed, falling over to {1}", new Object[]{attempt.target, targets.get(next)});
+                    running.add(new Attempt(targets.get(next++), call, completed));
+                }
+            }
+            throw failure;
+        } finally {
+            // the losers, or everything if the caller was interrupted
+            running.forEach(Attempt::cancel);
+        }
+    }
+
+    private String timed(Target target, TargetCall call) throws Exception {
+        long start = System.nanoTime();
+        boolean success = false;
+        boolean cancelled = false;
+        try {
+            String result = call.call(target);
+            success = true;
+            return result;
+        } catch (CancellationException | InterruptedException ex) {
+            // not the target's fault, nothing to record
+            cancelled = true;
+            throw ex;
+        } finally {
+            if (!cancelled && !Thread.currentThread().isInterrupted()) {
+                tracker.record(target.toString(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), success);
+            }
+        }
+    }
+
+    /**
+     * Wraps a streaming handler so that the stream duration and outcome are
+     * recorded for the target.
+     *
+     * @param target the target streaming the answer
+     * @param delegate the handler receiving the stream
+     * @return the wrapping handler
+     */
+    public StreamingChatResponseHandler track(Target target, StreamingChatResponseHandler delegate) {
+        long start = System.nanoTime();
+        return new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                delegate.onPartialResponse(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                tracker.record(target.toString(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), true);
+                delegate.onCompleteResponse(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                tracker.record(target.toString(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), false);
+                delegate.onError(error);
+            }
+        };
+    }
+
+    /**
+     * Sends a request to one target.
+     */
+    @FunctionalInterface
+    public interface TargetCall {
+
+        String call(Target target) throws Exception;
+    }
+
+    /**
+     * A provider and model pair requests can be routed to.
+     */
+    public static final class Target {
+
+        private final GenAIProvider provider;
+        private final String modelName;
+
+        public Target(GenAIProvider provider, String modelName) {
+            this.provider = provider;
+            this.modelName = modelName;
+        }
+
+        /**
+         * @param value a {@code PROVIDER/model} string
+         * @return the target, or {@code null} if the value is malformed
+         */
+        public static Target parse(String value) {
+            int separator = value.indexOf('/');
+            if (separator <= 0 || separator == value.length() - 1) {
+                return null;
+            }
+            try {
+                return new Target(GenAIProvider.valueOf(value.substring(0, separator).trim()),
+                        value.substring(separator + 1).trim());
+            } catch (IllegalArgumentException ex) {
+                LOG.log(Level.WARNING, "Unknown provider in routing target {0}", value);
+                return null;
+            }
+        }
+
+        public GenAIProvider getProvider() {
+            return provider;
+        }
+
+        public String getModelName() {
+            return modelName;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Target)) {
+                return false;
+            }
+            Target other = (Target) obj;
+            return provider == other.provider && Objects.equals(modelName, other.modelName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(provider, modelName);
+        }
+
+        @Override
+        public String toString() {
+            return provider.name() + '/' + modelName;
+        }
+    }
+
+    private final class Attempt {
+
+        private final Target target;
+        private final RequestProcessor.Task task;
+        private String result;
+        private Exception error;
+
+        Attempt(Target target, TargetCall call, BlockingQueue<Attempt> completed) {
+            this.target = target;
+            this.task = RP.post(() -> {
+                try {
+                    result = timed(target, call);
+                } catch (Exception ex) {
+                    error = ex;
+                } catch (Error ex) {
+                    error = new ExecutionException(ex);
+                    throw ex;
+                } finally {
+                    // even an Error must not leave execute waiting forever
+                    completed.add(this);
+                }
+            });
+        }
+
+        void cancel() {
+            task.cancel();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Lets concurrent callers with the same request key share one upstream call.
+ *
+ * <p>
+ * The first caller for a key starts the call on a dedicated request
+ * processor; callers arriving while it is in flight just subscribe to its
+ * result. A subscriber that gives up (its thread is interrupted or its future
+ * cancelled) only leaves the flight; the upstream call is cancelled once the
+ * last subscriber is gone.
+ *
+ * <p>
+ * Streaming requests are fanned out the same way: later subscribers first get
+ * the partial responses received so far replayed, then follow the live
+ * stream, and the stream is released once its last subscriber has left.
+ *
+ * @author Gaurav Gupta
+ */
+public class RequestCoalescer {
+
+    private static final RequestProcessor RP = new RequestProcessor(RequestCoalescer.class.getName(), 8, true);
+
+    private static RequestCoalescer instance;
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Map<String, StreamFlight> streams = new ConcurrentHashMap<>();
+
+    RequestCoalescer() {
+    }
+
+    public static RequestCoalescer getInstance() {
+        if (instance == null) {
+            synchronized (RequestCoalescer.class) {
+                if (instance == null) {
+                    instance = new RequestCoalescer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribes to the call for {@code key}, starting it if none is in
+     * flight. Cancelling the returned future unsubscribes the caller.
+     *
+     * @param key the request key
+     * @param call the upstream call, run at most once per flight
+     * @return the caller's own view of the shared result
+     */
+    public CompletableFuture<String> submit(String key, Callable<String> call) {
+        Objects.requireNonNull(key, "key");
+        while (true) {
+            boolean[] created = {false};
+            Flight flight = flights.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return new Flight(k);
+            });
+            CompletableFuture<String> subscription = flight.subscribe();
+            if (created[0]) {
+                // started only once the flight is visible in the map, so its
+                // removal on completion cannot race with the insertion
+                flight.start(call);
+            }
+            if (subscription != null) {
+                return subscription;
+            }
+            // the flight was abandoned between lookup and subscribe
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Blocking variant of {@link #submit}. If the calling thread is
+     * interrupted while waiting, it unsubscribes and the interrupt is
+     * reported as a {@link CancellationException}.
+     *
+     * @param key the request key
+     * @param call the upstream call
+     * @return the shared result
+     * @throws Exception the failure of the upstream call
+     */
+    public String execute(String key, Callable<String> call) throws Exception {
+        CompletableFuture<String> subscription = submit(key, call);
+        try {
+            return subscription.get();
+        } catch (InterruptedException ex) {
+            subscription.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + key);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Subscribes {@code handler} to the stream for {@code key}, starting it
+     * through {@code start} if none is in flight. Cancelling the returned
+     * future unsubscribes the handler; once the last one has left, the
+     * upstream stream is released through the action returned by
+     * {@code start}.
+     *
+     * @param key the request key
+     * @param handler the subscriber
+     * @param start starts the upstream stream with the given fan-out handler
+     * and returns the action releasing it, e.g. closing its permit
+     * @return completed when the stream ends
+     */
+    public CompletableFuture<Void> stream(String key, StreamingChatResponseHandler handler,
+            Function<StreamingChatResponseHandler, Runnable> start) {
+        Objects.requireNonNull(key, "key");
+        boolean[] created = {false};
+        StreamFlight flight;
+        CompletableFuture<Void> subscription;
+        do {
+            created[0] = false;
+            flight = streams.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return new StreamFlight(k);
+            });
+            subscription = flight.subscribe(handler);
+            // a flight that finished between lookup and subscribe is already
+            // out of the map, so the next lookup starts a new one
+        } while (subscription == null);
+        if (created[0]) {
+            try {
+                flight.started(start.apply(flight));
+            } catch (RuntimeException ex) {
+                flight.onError(ex);
+                throw ex;
+            }
+        }
+        return subscription;
+    }
+
+    /**
+     * @return the number of distinct requests currently in flight
+     */
+    public int getInFlightCount() {
+        return flights.size() + streams.size();
+    }
+
+    private final class Flight {
+
+        private final String key;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private RequestProcessor.Task task;
+        private int subscribers;
+        private boolean abandoned;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        synchronized void start(Callable<String> call) {
+            task = RP.post(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                } finally {
+                    flights.remove(key, this);
+                }
+            });
+        }
+
+        synchronized CompletableFuture<String> subscribe() {
+            if (abandoned) {
+                return null;
+            }
+            subscribers++;
+            CompletableFuture<String> subscription = new CompletableFuture<>();
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    subscription.completeExceptionally(error);
+                } else {
+                    subscription.complete(value);
+                }
+            });
+            subscription.whenComplete((value, error) -> {
+                if (subscription.isCancelled()) {
+                    unsubscribe();
+                }
+            });
+            return subscription;
+        }
+
+        private synchronized void unsubscribe() {
+            if (--subscribers == 0 && !result.isDone()) {
+                abandoned = true;
+                flights.remove(key, this);
+                if (task != null) {
+                    task.cancel();
+                }
+                result.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Records the stream and forwards every event to all subscribers.
+     */
+    private final class StreamFlight implements StreamingChatResponseHandler {
+
+        private final String key;
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private final StringBuilder partial = new StringBuilder();
+        private Runnable release;
+        private boolean closed;
+        private boolean abandoned;
+
+        StreamFlight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return the subscription, or {@code null} if the flight has already
+         * finished and the handler would never hear its end
+         */
+        CompletableFuture<Void> subscribe(StreamingChatResponseHandler handler) {
+            Subscriber subscriber = new Subscriber(handler, new CompletableFuture<>());
+            synchronized (this) {
+                if (closed) {
+                    return null;
+                }
+                if (partial.length() > 0) {
+                    handler.onPartialResponse(partial.toString());
+                }
+                subscribers.add(subscriber);
+            }
+            subscriber.done().whenComplete((value, error) -> {
+                if (subscriber.done().isCancelled()) {
+                    unsubscribe(subscriber);
+                }
+            });
+            return subscriber.done();
+        }
+
+        /**
+         * Keeps the action releasing the upstream stream, or runs it at once
+         * if every subscriber left while the stream was starting.
+         */
+        void started(Runnable release) {
+            synchronized (this) {
+                if (!abandoned) {
+                    this.release = release;
+                    return;
+                }
+            }
+            if (release != null) {
+                release.run();
+            }
+        }
+
+        private void unsubscribe(Subscriber subscriber) {
+            Runnable action;
+            synchronized (this) {
+                if (!subscribers.remove(subscriber) || !subscribers.isEmpty() || closed) {
+                    return;
+                }
+                closed = true;
+                abandoned = true;
+                streams.remove(key, this);
+                action = release;
+            }
+            if (action != null) {
+                action.run();
+            }
+        }
+
+        @Override
+        public synchronized void onPartialResponse(String partialResponse) {
+            partial.append(partialResponse);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.handler().onPartialResponse(partialResponse);
+            }
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            for (Subscriber subscriber : finish()) {
+                subscriber.handler().onCompleteResponse(completeResponse);
+                subscriber.done().complete(null);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            for (Subscriber subscriber : finish()) {
+                subscriber.handler().onError(error);
+                subscriber.done().completeExceptionally(error);
+            }
+        }
+
+        /**
+         * Closes the flight to new subscribers; anyone asking for the same
+         * request from now on starts a new one.
+         */
+        private synchronized List<Subscriber> finish() {
+            closed = true;
+            streams.remove(key, this);
+            List<Subscriber> remaining = new ArrayList<>(subscribers);
+            subscribers.clear();
+            return remaining;
+        }
+    }
+
+    private record Subscriber(StreamingChatResponseHandler handler, CompletableFuture<Void> done) {
+    }
+}
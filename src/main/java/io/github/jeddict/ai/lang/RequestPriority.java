@@ -0,0 +1,55 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import java.time.Duration;
+
+/**
+ * Scheduling class of a model request, in decreasing order of priority.
+ *
+ * @author Gaurav Gupta
+ */
+public enum RequestPriority {
+    /**
+     * Editor completions, inline hints and quick fixes the user waits on.
+     * A completion still queued after a few seconds is no longer useful.
+     */
+    INTERACTIVE(Duration.ofSeconds(15)),
+    /**
+     * Chat turns.
+     */
+    CHAT(Duration.ZERO),
+    /**
+     * Longer jobs served after the others: commit messages and code reviews.
+     * They wait as long as it takes, since their callers expect an answer.
+     */
+    BACKGROUND(Duration.ZERO);
+
+    private final Duration maxQueueTime;
+
+    RequestPriority(Duration maxQueueTime) {
+        this.maxQueueTime = maxQueueTime;
+    }
+
+    /**
+     * @return how long a request may wait for a slot before it is dropped as
+     * stale; zero if it waits indefinitely
+     */
+    public Duration getMaxQueueTime() {
+        return maxQueueTime;
+    }
+
+}
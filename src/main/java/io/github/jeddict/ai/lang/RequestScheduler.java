@@ -0,0 +1,434 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.github.jeddict.ai.settings.GenAIProvider;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Admission control for model requests.
+ *
+ * <p>
+ * Every provider has its own lane with a maximum number of concurrent
+ * requests and two optional token buckets, one for requests per minute and
+ * one for tokens per minute. Waiting requests are served by
+ * {@link RequestPriority}, then in arrival order. A request that waits longer
+ * than its priority allows is dropped with a {@link CancellationException},
+ * so stale completions do not hold a slot the user no longer needs.
+ *
+ * <p>
+ * Limits are read from the {@link PreferencesManager} and picked up again
+ * after every settings change.
+ *
+ * @author Gaurav Gupta
+ */
+public class RequestScheduler {
+
+    private static final Logger LOG = Logger.getLogger(RequestScheduler.class.getName());
+
+    private static final RequestProcessor TIMER = new RequestProcessor(RequestScheduler.class.getName() + ".timeout", 1);
+
+    private static RequestScheduler instance;
+
+    private final Map<GenAIProvider, Lane> lanes = new EnumMap<>(GenAIProvider.class);
+    private final ToIntFunction<GenAIProvider> maxConcurrency;
+    private final ToIntFunction<GenAIProvider> requestsPerMinute;
+    private final ToIntFunction<GenAIProvider> tokensPerMinute;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * A scheduler of its own, apart from {@link #getInstance()}, e.g. to run
+     * requests against fixed limits.
+     *
+     * @param maxConcurrency the concurrent requests per provider
+     * @param requestsPerMinute the requests per minute per provider, 0 for
+     * no limit
+     * @param tokensPerMinute the tokens per minute per provider, 0 for no
+     * limit
+     */
+    public RequestScheduler(ToIntFunction<GenAIProvider> maxConcurrency,
+            ToIntFunction<GenAIProvider> requestsPerMinute,
+            ToIntFunction<GenAIProvider> tokensPerMinute) {
+        this.maxConcurrency = maxConcurrency;
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+    }
+
+    public static RequestScheduler getInstance() {
+        if (instance == null) {
+            synchronized (RequestScheduler.class) {
+                if (instance == null) {
+                    PreferencesManager pm = PreferencesManager.getInstance();
+                    RequestScheduler scheduler = new RequestScheduler(
+                            pm::getMaxConcurrency, pm::getRequestsPerMinute, pm::getTokensPerMinute);
+                    pm.addChangeListener(e -> scheduler.reconfigure());
+                    instance = scheduler;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Waits until the provider lane admits the request.
+     *
+     * @param provider the provider the request goes to
+     * @param priority the request priority
+     * @param tokens the estimated input tokens, charged to the token bucket
+     * @return the slot, to be closed once the response is complete
+     * @throws InterruptedException if the caller is interrupted while waiting
+     * @throws CancellationException if the request became stale in the queue
+     */
+    public Permit acquire(GenAIProvider provider, RequestPriority priority, int tokens) throws InterruptedException {
+        return lane(provider).acquire(new Ticket(priority, sequence.incrementAndGet(), Math.max(tokens, 0)));
+    }
+
+    /**
+     * @param provider the provider
+     * @return the number of requests waiting for a slot
+     */
+    public int getQueueDepth(GenAIProvider provider) {
+        return lane(provider).queueDepth();
+    }
+
+    /**
+     * @param provider the provider
+     * @param priority the priority class
+     * @return the number of requests of that class waiting for a slot
+     */
+    public int getQueueDepth(GenAIProvider provider, RequestPriority priority) {
+        return lane(provider).queueDepth(priority);
+    }
+
+    /**
+     * @param provider the provider
+     * @return the number of requests currently holding a slot
+     */
+    public int getActiveCount(GenAIProvider provider) {
+        return lane(provider).active();
+    }
+
+    private synchronized Lane lane(GenAIProvider provider) {
+        return lanes.computeIfAbsent(provider, Lane::new);
+    }
+
+    private synchronized void reconfigure() {
+        lanes.values().forEach(Lane::configure);
+    }
+
+    /**
+     * A granted slot. Closing it frees the slot for the next waiting request.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final Lane lane;
+        private boolean closed;
+        private RequestProcessor.Task timeout;
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        /**
+         * Charges tokens that only became known after the request, such as
+         * the response, to the token bucket.
+         *
+         * @param tokens the number of tokens
+         */
+        public void consume(int tokens) {
+            lane.consume(tokens);
+        }
+
+        /**
+         * Wraps a streaming handler so that the slot is freed when the
+         * stream completes or fails, or once the provider has been silent
+         * for longer than {@code idleTimeout}; the handler then gets a
+         * {@link TimeoutException} and nothing after it. Nothing is
+         * delivered either once the permit was closed by the caller, e.g.
+         * because the subscriber cancelled or starting the stream failed.
+         *
+         * @param delegate the handler receiving the stream
+         * @param idleTimeout the longest wait for the next event
+         * @return the wrapping handler
+         */
+        public StreamingChatResponseHandler releaseOnCompletion(StreamingChatResponseHandler delegate, Duration idleTimeout) {
+            int delay = (int) Math.min(Integer.MAX_VALUE, idleTimeout.toMillis());
+            RequestProcessor.Task timeout = TIMER.create(() -> {
+                if (release()) {
+                    delegate.onError(new TimeoutException("No response for " + idleTimeout.toSeconds() + " seconds"));
+                }
+            });
+            synchronized (this) {
+                this.timeout = timeout;
+            }
+            timeout.schedule(delay);
+            return new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(String partialResponse) {
+                    if (!isClosed()) {
+                        timeout.schedule(delay);
+                        delegate.onPartialResponse(partialResponse);
+                    }
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completeResponse) {
+                    timeout.cancel();
+                    if (release()) {
+                        delegate.onCompleteResponse(completeResponse);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    timeout.cancel();
+                    if (release()) {
+                        delegate.onError(error);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * @return {@code true} if this call freed the slot, {@code false} if
+         * it was already free
+         */
+        private boolean release() {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+            lane.release();
+            return true;
+        }
+    }
+
+    private static final class Ticket {
+
+        private final RequestPriority priority;
+        private final long sequence;
+        private final int tokens;
+        private final long enqueued = System.nanoTime();
+        private boolean expired;
+
+        Ticket(RequestPriority priority, long sequence, int tokens) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.tokens = tokens;
+        }
+
+        boolean isStale(long now) {
+            long maxWait = priority.getMaxQueueTime().toNanos();
+            return maxWait > 0 && now - enqueued >= maxWait;
+        }
+
+        /**
+         * @return nanoseconds until the ticket becomes stale, or
+         * {@code Long.MAX_VALUE} if it never does
+         */
+        long untilStale(long now) {
+            long maxWait = priority.getMaxQueueTime().toNanos();
+            return maxWait > 0 ? Math.max(enqueued + maxWait - now, 0) : Long.MAX_VALUE;
+        }
+    }
+
+    private final class Lane {
+
+        private final GenAIProvider provider;
+        private final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+                Comparator.<Ticket, RequestPriority>comparing(t -> t.priority)
+                        .thenComparingLong(t -> t.sequence));
+        private final TokenBucket requests = new TokenBucket();
+        private final TokenBucket tokens = new TokenBucket();
+        private int maxActive;
+        private int active;
+
+        Lane(GenAIProvider provider) {
+            this.provider = provider;
+            configure();
+        }
+
+        synchronized void configure() {
+            maxActive = Math.max(1, maxConcurrency.applyAsInt(provider));
+            requests.setRatePerMinute(requestsPerMinute.applyAsInt(provider));
+            tokens.setRatePerMinute(tokensPerMinute.applyAsInt(provider));
+            notifyAll();
+        }
+
+        synchronized Permit acquire(Ticket ticket) throws InterruptedException {
+            queue.add(ticket);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    expireStale(now);
+                    if (ticket.expired) {
+                        throw new CancellationException("Request to " + provider + " dropped after waiting "
+                                + TimeUnit.NANOSECONDS.toMillis(now - ticket.enqueued) + " ms");
+                    }
+                    long waitNanos = Long.MAX_VALUE;
+                    if (queue.peek() == ticket && active < maxActive) {
+                        long throttle = Math.max(requests.waitNanos(1, now), tokens.waitNanos(ticket.tokens, now));
+                        if (throttle == 0) {
+                            queue.remove(ticket);
+                            requests.take(1, now);
+                            tokens.take(ticket.tokens, now);
+                            active++;
+                            if (queue.size() > 0) {
+                                LOG.log(Level.FINE, "{0}: {1} active, {2} queued",
+                                        new Object[]{provider, active, queue.size()});
+                            }
+                            // the next ticket may also fit
+                            notifyAll();
+                            return new Permit(this);
+                        }
+                        waitNanos = throttle;
+                    }
+                    // wake up in time to drop whichever ticket goes stale first
+                    for (Ticket other : queue) {
+                        waitNanos = Math.min(waitNanos, other.untilStale(now));
+                    }
+                    if (waitNanos == Long.MAX_VALUE) {
+                        wait();
+                    } else {
+                        TimeUnit.NANOSECONDS.timedWait(this, Math.max(waitNanos, 1));
+                    }
+                }
+            } catch (InterruptedException | RuntimeException ex) {
+                if (queue.remove(ticket)) {
+                    notifyAll();
+                }
+                throw ex;
+            }
+        }
+
+        /**
+         * Drops requests that waited longer than their priority allows.
+         */
+        private void expireStale(long now) {
+            boolean removed = false;
+            for (Iterator<Ticket> it = queue.iterator(); it.hasNext();) {
+                Ticket other = it.next();
+                if (other.isStale(now)) {
+                    other.expired = true;
+                    it.remove();
+                    removed = true;
+                }
+            }
+            if (removed) {
+                notifyAll();
+            }
+        }
+
+        synchronized void consume(int amount) {
+            tokens.take(amount, System.nanoTime());
+        }
+
+        synchronized void release() {
+            active--;
+            notifyAll();
+        }
+
+        synchronized int queueDepth() {
+            return queue.size();
+        }
+
+        synchronized int queueDepth(RequestPriority priority) {
+            return (int) queue.stream().filter(t -> t.priority == priority).count();
+        }
+
+        synchronized int active() {
+            return active;
+        }
+    }
+
+    /**
+     * Token bucket refilled continuously at a per-minute rate, holding at
+     * most one minute worth of tokens. A rate of zero disables it.
+     */
+    private static final class TokenBucket {
+
+        private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+        private int ratePerMinute;
+        private double available;
+        private long refilled = System.nanoTime();
+
+        void setRatePerMinute(int ratePerMinute) {
+            if (this.ratePerMinute != ratePerMinute) {
+                this.ratePerMinute = ratePerMinute;
+                this.available = ratePerMinute;
+            }
+        }
+
+        private void refill(long now) {
+            if (ratePerMinute > 0) {
+                available = Math.min(ratePerMinute, available + (double) (now - refilled) * ratePerMinute / MINUTE);
+            }
+            refilled = now;
+        }
+
+        /**
+         * @return how long until {@code amount} can be taken, 0 if now. A
+         * request larger than the whole bucket waits for a full bucket.
+         */
+        long waitNanos(int amount, long now) {
+            if (ratePerMinute <= 0 || amount <= 0) {
+                return 0;
+            }
+            refill(now);
+            double needed = Math.min(amount, ratePerMinute) - available;
+            return needed <= 0 ? 0 : (long) Math.ceil(needed * MINUTE / ratePerMinute);
+        }
+
+        void take(int amount, long now) {
+            if (ratePerMinute > 0 && amount > 0) {
+                refill(now);
+                // may go negative for oversized requests, delaying the next ones
+                available -= amount;
+            }
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.data.message.ChatMessage;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.openide.modules.Places;
+
+/**
+ * Exact-match cache of model answers, keyed by a hash of the settings
+ * fingerprint of the model that answered and the full message list.
+ *
+ * <p>
+ * Answers are kept in a small in-memory LRU map and in a bounded directory
+ * under the IDE cache folder, one file per key. Both tiers honour the same
+ * time-to-live; the directory is trimmed least recently used first once it
+ * grows past its size limit.
+ *
+ * @author Gaurav Gupta
+ */
+public class ResponseCache {
+
+    private static final Logger LOG = Logger.getLogger(ResponseCache.class.getName());
+
+    private static final String CACHE_DIRECTORY = "jeddict/responses";
+    private static final String ENTRY_SUFFIX = ".bin";
+
+    private static ResponseCache instance;
+
+    private final Path directory;
+    private final Map<String, Entry> memory;
+    private final AtomicLong diskBytes = new AtomicLong(-1);
+    private volatile long ttlMillis;
+    private volatile int maxMemoryEntries;
+    private volatile long maxDiskBytes;
+
+    ResponseCache(Path directory, long ttlMillis, int maxMemoryEntries, long maxDiskBytes) {
+        this.directory = directory;
+        this.ttlMillis = ttlMillis;
+        this.maxMemoryEntries = maxMemoryEntries;
+        this.maxDiskBytes = maxDiskBytes;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxMemoryEntries;
+            }
+        };
+    }
+
+    public static ResponseCache getInstance() {
+        if (instance == null) {
+            synchronized (ResponseCache.class) {
+                if (instance == null) {
+                    PreferencesManager pm = PreferencesManager.getInstance();
+                    ResponseCache cache = new ResponseCache(
+                            Places.getCacheSubdirectory(CACHE_DIRECTORY).toPath(), 0, 0, 0);
+                    cache.configure(pm);
+                    pm.addChangeListener(e -> cache.configure(pm));
+                    instance = cache;
+                }
+            }
+        }
+        return instance;
+    }
+
+    private void configure(PreferencesManager pm) {
+        ttlMillis = TimeUnit.MINUTES.toMillis(pm.getResponseCacheTTL());
+        maxMemoryEntries = pm.getResponseCacheMemoryEntries();
+        maxDiskBytes = pm.getResponseCacheDiskSize() * 1024L * 1024L;
+    }
+
+    /**
+     * Computes the cache key for a request.
+     *
+     * @param fingerprint the model settings fingerprint, see
+     * {@link ChatModelConfig#fingerprint()}
+     * @param messages the messages sent to the model
+     * @return a hex encoded SHA-256 digest
+     */
+    public static String key(String fingerprint, List<ChatMessage> messages) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, fingerprint);
+            for (ChatMessage message : messages) {
+                update(digest, message.type().name());
+                update(digest, message.toString());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // length prefix, so that ("ab", "c") and ("a", "bc") differ
+        digest.update(new byte[]{
+            (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+            (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    /**
+     * Looks up a cached answer, checking memory first and then disk.
+     *
+     * @param key the request key
+     * @return the answer, or {@code null} if absent or expired
+     */
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(now, ttlMillis)) {
+                    return entry.response;
+                }
+                memory.remove(key);
+            }
+        }
+        Entry entry = readEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(now, ttlMillis)) {
+            deleteEntry(key);
+            return null;
+        }
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        return entry.response;
+    }
+
+    /**
+     * Stores an answer in both tiers.
+     *
+     * @param key the request key
+     * @param response the answer
+     */
+    public void put(String key, String response) {
+        if (response == null || response.isEmpty()) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), response);
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        writeEntry(key, entry);
+    }
+
+    /**
+     * Removes every cached answer from memory and disk.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        for (Path file : listEntries()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot delete " + file, ex);
+            }
+        }
+        diskBytes.set(0);
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_SUFFIX);
+    }
+
+    private Entry readEntry(String key) {
+        Path file = entryPath(key);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            long created = in.readLong();
+            byte[] bytes = in.readAllBytes();
+            // the modification time doubles as the last access time for LRU trimming
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(created, new String(bytes, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot read cached response " + file, ex);
+            return null;
+        }
+    }
+
+    private void writeEntry(String key, Entry entry) {
+        if (maxDiskBytes <= 0) {
+            return;
+        }
+        Path file = entryPath(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            // written aside and moved in place, so that a reader never sees a partial entry
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeLong(entry.created);
+                out.write(entry.response.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes() + Files.size(file) - previous > maxDiskBytes) {
+                trim();
+            } else {
+                diskBytes.addAndGet(Files.size(file) - previous);
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot write cached response " + file, ex);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOG.log(Level.FINE, "Cannot delete " + temp, e);
+                }
+            }
+        }
+    }
+
+    private void deleteEntry(String key) {
+        Path file = entryPath(key);
+        try {
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            if (Files.deleteIfExists(file)) {
+                diskBytes.addAndGet(-size);
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot delete " + file, ex);
+        }
+    }
+
+    private long diskBytes() {
+        long bytes = diskBytes.get();
+        if (bytes < 0) {
+            bytes = 0;
+            for (Path file : listEntries()) {
+                bytes += sizeOf(file);
+            }
+            diskBytes.set(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Deletes the least recently used files until the directory is back
+     * under 90% of its limit, leaving room for the next few writes.
+     */
+    private synchronized void trim() {
+        List<Path> files = listEntries();
+        files.sort(Comparator.comparingLong(ResponseCache::lastModified));
+        long total = 0;
+        for (Path file : files) {
+            total += sizeOf(file);
+        }
+        long target = maxDiskBytes * 9 / 10;
+        for (Path file : files) {
+            if (total <= target) {
+                break;
+            }
+            long size = sizeOf(file);
+            try {
+                if (Files.deleteIfExists(file)) {
+                    total -= size;
+                }
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot delete " + file, ex);
+            }
+        }
+        diskBytes.set(total);
+    }
+
+    private List<Path> listEntries() {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                    .toList());
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot list " + directory, ex);
+            return new ArrayList<>();
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static final class Entry {
+
+        private final long created;
+        private final String response;
+
+        Entry(long created, String response) {
+            this.created = created;
+            this.response = response;
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return ttlMillis > 0 && now - created > ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the conversation history sent with each chat turn under a token
+ * budget.
+ *
+ * <p>
+ * The newest turns are sent as they are, except for code blocks superseded
+ * by a later version of the same file, type or method, which are elided.
+ * Turns that no longer fit are folded into an extractive summary sent as the
+ * first turn. The summary is extended incrementally as turns fall out of
+ * the window, and token counts and code keys are computed once per turn, so
+ * the work per chat turn does not grow with the length of the session.
+ *
+ * <p>
+ * One compactor belongs to one chat session; it is not thread-safe.
+ *
+ * @author Gaurav Gupta
+ */
+public class ConversationCompactor {
+
+    static final String SUMMARY_QUERY = "Summary of the earlier conversation";
+
+    private static final int QUERY_CHARS = 200;
+    private static final int ANSWER_CHARS = 300;
+
+    private static final Pattern ACTION_PATH = Pattern.compile("(?m)^\\s*path\\s*=\\s*(\\S+)");
+    private static final Pattern TYPE_DECLARATION = Pattern.compile("\\b(?:class|interface|enum|record)\\s+(\\w+)");
+    private static final Pattern METHOD_DECLARATION = Pattern.compile(
+            "(?m)^\\s*(?:(?:public|protected|private|static|final|abstract|synchronized|default)\\s+)*"
+            + "[\\w<>\\[\\],.?]+\\s+(\\w+)\\s*\\([^;{]*\\)\\s*(?:throws [\\w.,\\s]+)?\\{");
+
+    private final int budget;
+    private final ToIntFunction<String> counter;
+
+    private final Map<Response, Integer> tokens = new WeakHashMap<>();
+    private final Map<Response, List<String>> codeKeys = new WeakHashMap<>();
+    private final Map<Response, Long> contentKeys = new WeakHashMap<>();
+
+    /**
+     * The turns folded into the summary so far, in order. The lines of the
+     * first {@link #firstLine} of them were dropped to keep the summary
+     * within its share of the budget.
+     */
+    private final List<Summarized> summarized = new ArrayList<>();
+    private int firstLine;
+    private int summaryTokens;
+
+    /**
+     * @param budget the tokens the history may use on a chat turn
+     */
+    public ConversationCompactor(int budget) {
+        this(budget, TokenHandler::countTokens);
+    }
+
+    ConversationCompactor(int budget, ToIntFunction<String> counter) {
+        this.budget = budget;
+        this.counter = counter;
+    }
+
+    /**
+     * @param history the conversation, oldest turn first
+     * @return the turns to send: possibly a summary turn, then the newest
+     * turns with superseded code elided
+     */
+    public List<Response> compact(List<Response> history) {
+        if (history.isEmpty()) {
+            reset();
+            return List.of();
+        }
+        // the summary gets at most a quarter of the budget
+        int windowBudget = budget - Math.min(summaryTokens, budget / 4);
+        Set<String> laterKeys = new HashSet<>();
+        List<Response> window = new ArrayList<>();
+        int used = 0;
+        int first = history.size();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Response turn = history.get(i);
+            Response elided = elide(turn, laterKeys);
+            int count = elided == turn ? countTokens(turn) : counter.applyAsInt(elided.toString());
+            // the newest turn is always sent
+            if (!window.isEmpty() && used + count > windowBudget) {
+                break;
+            }
+            window.add(elided);
+            used += count;
+            laterKeys.addAll(getCodeKeys(turn));
+            first = i;
+        }
+        Collections.reverse(window);
+
+        updateSummary(history.subList(0, first));
+        if (firstLine == summarized.size()) {
+            return window;
+        }
+        List<String> summaryLines = new ArrayList<>(summarized.size() - firstLine);
+        for (Summarized turn : summarized.subList(firstLine, summarized.size())) {
+            summaryLines.add(turn.line());
+        }
+        List<Response> compacted = new ArrayList<>(window.size() + 1);
+        compacted.add(new Response(SUMMARY_QUERY, String.join("\n", summaryLines), Set.of()));
+        compacted.addAll(window);
+        return compacted;
+    }
+
+    /**
+     * Forgets the summary, e.g. when a new chat is started.
+     */
+    public void reset() {
+        summarized.clear();
+        firstLine = 0;
+        summaryTokens = 0;
+    }
+
+    /**
+     * Extends the summary with the turns that left the window since the last
+     * call and drops the turns that left the history, as when only the last
+     * turns of the conversation are sent; it is rebuilt if earlier turns were
+     * edited away. Turns are matched by content, so that copies and views of
+     * the history match too.
+     */
+    private void updateSummary(List<Response> older) {
+        int start = alignment(older);
+        if (start < 0) {
+            reset();
+            start = 0;
+        }
+        for (int i = 0; i < start; i++) {
+            if (i >= firstLine) {
+                summaryTokens -= summarized.get(i).tokens();
+            }
+        }
+        summarized.subList(0, start).clear();
+        firstLine = Math.max(0, firstLine - start);
+        for (int i = summarized.size(); i < older.size(); i++) {
+            Response turn = older.get(i);
+            String line = summarize(turn);
+            int count = counter.applyAsInt(line);
+            summarized.add(new Summarized(contentKey(turn), line, count));
+            summaryTokens += count;
+        }
+        // the oldest summary lines go first when the summary outgrows its share
+        while (summaryTokens > budget / 4 && summarized.size() - firstLine > 1) {
+            summaryTokens -= summarized.get(firstLine++).tokens();
+        }
+    }
+
+    /**
+     * @return how many summarized turns precede the first of the older
+     * turns, if the rest of the summarized turns start the older ones;
+     * otherwise -1
+     */
+    private int alignment(List<Response> older) {
+        if (older.isEmpty()) {
+            return summarized.size();
+        }
+        long first = contentKey(older.get(0));
+        for (int start = Math.max(0, summarized.size() - older.size()); start < summarized.size(); start++) {
+            if (summarized.get(start).key() != first) {
+                continue;
+            }
+            boolean aligned = true;
+            for (int i = start + 1; aligned && i < summarized.size(); i++) {
+                aligned = summarized.get(i).key() == contentKey(older.get(i - start));
+            }
+            if (aligned) {
+                return start;
+            }
+        }
+        return summarized.isEmpty() ? 0 : -1;
+    }
+
+    private long contentKey(Response turn) {
+        return contentKeys.computeIfAbsent(turn, t -> {
+            long key = 0xcbf29ce484222325L;
+            for (String text : new String[]{t.getQuery(), t.toString()}) {
+                String content = text == null ? "" : text;
+                for (int i = 0; i < content.length(); i++) {
+                    key = (key ^ content.charAt(i)) * 0x100000001b3L;
+                }
+                key = (key ^ content.length()) * 0x100000001b3L;
+            }
+            return key;
+        });
+    }
+
+    /**
+     * A turn folded into the summary: its content key, line and tokens.
+     */
+    private record Summarized(long key, String line, int tokens) {
+    }
+
+    private String summarize(Response turn) {
+        StringBuilder line = new StringBuilder("- User: ").append(abbreviate(turn.getQuery(), QUERY_CHARS));
+        StringBuilder answer = new StringBuilder();
+        for (Block block : turn.getBlocks()) {
+            if ("text".equals(block.getType())) {
+                answer.append(block.getContent()).append(' ');
+            }
+        }
+        if (answer.length() > 0) {
+            line.append(" | Assistant: ").append(abbreviate(firstSentences(answer.toString()), ANSWER_CHARS));
+        }
+        List<String> keys = getCodeKeys(turn);
+        if (!keys.isEmpty()) {
+            line.append(" | Code: ").append(String.join(", ", new HashSet<>(keys)));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Replaces the code blocks whose file, type or method appears again in a
+     * later turn.
+     *
+     * @return the turn itself if nothing was superseded, otherwise a copy
+     */
+    private Response elide(Response turn, Set<String> laterKeys) {
+        if (laterKeys.isEmpty()) {
+            return turn;
+        }
+        List<Block> blocks = turn.getBlocks();
+        List<Block> elided = null;
+        String path = null;
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            String key = null;
+            if ("action".equals(block.getType())) {
+                path = actionPath(block);
+            } else if (!"text".equals(block.getType())) {
+                key = codeKey(block, path);
+                path = null;
+            }
+            if (key != null && laterKeys.contains(key)) {
+                if (elided == null) {
+                    elided = new ArrayList<>(blocks.subList(0, i));
+                }
+                elided.add(new Block("text", "[" + key + " omitted, superseded by a later version]"));
+            } else if (elided != null) {
+                elided.add(block);
+            }
+        }
+        if (elided == null) {
+            return turn;
+        }
+        Response copy = new Response(turn.getQuery(), "", turn.getMessageContext());
+        copy.setBlocks(elided);
+        return copy;
+    }
+
+    private int countTokens(Response turn) {
+        return tokens.computeIfAbsent(turn, t -> counter.applyAsInt(t.getQuery()) + counter.applyAsInt(t.toString()));
+    }
+
+    private List<String> getCodeKeys(Response turn) {
+        return codeKeys.computeIfAbsent(turn, t -> {
+            List<String> keys = new ArrayList<>();
+            String path = null;
+            for (Block block : t.getBlocks()) {
+                if ("action".equals(block.getType())) {
+                    path = actionPath(block);
+                } else if (!"text".equals(block.getType())) {
+                    String key = codeKey(block, path);
+                    if (key != null) {
+                        keys.add(key);
+                    }
+                    path = null;
+                }
+            }
+            return keys;
+        });
+    }
+
+    private static String actionPath(Block block) {
+        Matcher matcher = ACTION_PATH.matcher(block.getContent());
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Identifies what a code block defines: the file of the preceding action
+     * block, else the first declared type, else the first declared method.
+     */
+    static String codeKey(Block block, String path) {
+        if (path != null) {
+            return path;
+        }
+        String content = block.getContent();
+        Matcher type = TYPE_DECLARATION.matcher(content);
+        if (type.find()) {
+            return type.group(1);
+        }
+        Matcher method = METHOD_DECLARATION.matcher(content);
+        if (method.find()) {
+            return method.group(1) + "()";
+        }
+        return null;
+    }
+
+    private static String firstSentences(String text) {
+        String collapsed = text.replaceAll("\\s+", " ").trim();
+        int end = collapsed.indexOf(". ");
+        int second = end < 0 ? -1 : collapsed.indexOf(". ", end + 2);
+        return second < 0 ? collapsed : collapsed.substring(0, second + 1);
+    }
+
+    private static String abbreviate(String text, int max) {
+        if (text == null) {
+            return "";
+        }
+        String collapsed = text.replaceAll("\\s+", " ").trim();
+        return collapsed.length() <= max ? collapsed : collapsed.substring(0, max) + "...";
+    }
+}
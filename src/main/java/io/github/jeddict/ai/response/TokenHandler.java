@@ -16,11 +16,14 @@
 package io.github.jeddict.ai.response;
 
 import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
 import dev.langchain4j.data.message.ChatMessage;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import io.github.jeddict.ai.settings.ReportManager;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.json.JSONObject;
 
 /**
@@ -32,11 +35,73 @@ public class TokenHandler {
     private static final PreferencesManager preferencesManager = PreferencesManager.getInstance();
     private static final ReportManager reportManager = ReportManager.getInstance();
 
+    /**
+     * Building the encoding registry loads every vocabulary, so it is done
+     * once instead of on every count.
+     */
+    private static final Encoding ENCODING = Encodings.newDefaultEncodingRegistry()
+            .getEncoding("cl100k_base")
+            .orElse(null);
+
+    private static final int COUNT_CACHE_SIZE = 1024;
+    /**
+     * Prompt fragments such as context files and history turns are sent again
+     * on every chat turn; their counts are remembered instead of encoding them
+     * each time. Texts are keyed by length and hash only, so that the cache
+     * does not keep whole files and histories alive.
+     */
+    private static final Map<CountKey, Integer> COUNT_CACHE = new LinkedHashMap<>(COUNT_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CountKey, Integer> eldest) {
+            return size() > COUNT_CACHE_SIZE;
+        }
+    };
+
     public static int saveInputToken(List<ChatMessage> messages) {
         if (messages == null || messages.isEmpty()) {
             return -1;
         }
 
+        int tokenCount = countTokens(serialize(messages));
+        saveTokenUsage(reportManager.getDailyInputTokenStats(), tokenCount, true);
+        return tokenCount;
+    }
+
+    /**
+     * Records input tokens counted by the caller, e.g. while packing the
+     * prompt, without encoding the messages again.
+     *
+     * @param tokenCount the input tokens
+     * @return the same count
+     */
+    public static int saveInputToken(int tokenCount) {
+        if (tokenCount > 0) {
+            saveTokenUsage(reportManager.getDailyInputTokenStats(), tokenCount, true);
+        }
+        return tokenCount;
+    }
+
+    /**
+     * Records the tokens a cached response saved, i.e. the input and output
+     * tokens the request would have cost. They are kept apart from the input
+     * and output statistics, which only count what was actually sent.
+     *
+     * @param inputTokens the tokens of the request messages
+     * @param response the cached response
+     */
+    public static void saveCachedToken(int inputTokens, String response) {
+        if (response == null) {
+            return;
+        }
+
+        int tokenCount = Math.max(0, inputTokens) + countTokens(response);
+        JSONObject usage = reportManager.getDailyCachedTokenStats();
+        String key = String.valueOf(preferencesManager.getTokenGranularity().getCurrentBucketKey());
+        usage.put(key, usage.optInt(key, 0) + tokenCount);
+        reportManager.setDailyCachedTokenStats(usage);
+    }
+
+    private static String serialize(List<ChatMessage> messages) {
         StringBuilder serialized = new StringBuilder();
         for (ChatMessage msg : messages) {
             serialized.append(msg.type().name().toLowerCase())
@@ -44,11 +109,7 @@ public class TokenHandler {
                       .append(msg.toString())
                       .append("\n");
         }
-
-        String content = serialized.toString();
-        int tokenCount = countTokens(content);
-        saveTokenUsage(reportManager.getDailyInputTokenStats(), tokenCount, true);
-        return tokenCount;
+        return serialized.toString();
     }
 
     public static void saveOutputToken(String response) {
@@ -60,11 +121,45 @@ public class TokenHandler {
         saveTokenUsage(reportManager.getDailyOutputTokenStats(), tokenCount, false);
     }
 
-    private static int countTokens(String text) {
-        return Encodings.newDefaultEncodingRegistry()
-                .getEncoding("cl100k_base")
-                .map(enc -> enc.encode(text).size())
-                .orElse(0);
+    /**
+     * Counts the tokens of a text with the cl100k_base encoding, which is
+     * close enough for budgeting with other tokenizers.
+     *
+     * @param text the text to count
+     * @return the number of tokens, 0 for {@code null}
+     */
+    public static int countTokens(String text) {
+        if (text == null || text.isEmpty() || ENCODING == null) {
+            return 0;
+        }
+        CountKey key = CountKey.of(text);
+        synchronized (COUNT_CACHE) {
+            Integer cached = COUNT_CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        int count = ENCODING.countTokens(text);
+        synchronized (COUNT_CACHE) {
+            COUNT_CACHE.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * A text by its length and 64-bit FNV-1a hash; a collision would only
+     * misestimate a budget.
+     */
+    private record CountKey(int length, long hash) {
+
+        static CountKey of(String text) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < text.length(); i++) {
+                hash ^= text.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return new CountKey(text.length(), hash);
+        }
     }
 
     private static void saveTokenUsage(JSONObject usage, int tokens, boolean isInput) {
@@ -87,6 +182,10 @@ public class TokenHandler {
         return getLastNUsage(reportManager.getDailyOutputTokenStats(), n);
     }
 
+    public static int getLastNCachedUsage(int n) {
+        return getLastNUsage(reportManager.getDailyCachedTokenStats(), n);
+    }
+
     private static int getLastNUsage(JSONObject usage, int n) {
         TokenGranularity granularity = preferencesManager.getTokenGranularity();
         long now = System.currentTimeMillis() / granularity.intervalMillis;
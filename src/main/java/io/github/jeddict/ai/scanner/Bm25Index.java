@@ -0,0 +1,323 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * An inverted index over the class signatures of a project that ranks them
+ * with BM25 against the identifiers of a file and a query.
+ *
+ * <p>
+ * Identifiers are split on camel case and underscores into lower case terms;
+ * a compound identifier is a term as well, so an exact name ranks above its
+ * parts. Java keywords and the most common words carry no weight and are
+ * left out. Postings are int arrays of class number and term count. A
+ * removed class only leaves its number unused, skipped when scoring, until
+ * the unused numbers outweigh the used ones and the index is rebuilt. Not
+ * thread-safe.
+ *
+ * @author Gaurav Gupta
+ */
+final class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "abstract", "boolean", "break", "byte", "case", "catch", "char", "class", "continue", "default",
+            "do", "double", "else", "enum", "extends", "false", "final", "finally", "float", "for", "if",
+            "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "null",
+            "package", "private", "protected", "public", "record", "return", "short", "static", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "true", "try", "var", "void",
+            "volatile", "while", "java", "javax", "lang", "util", "string", "object", "get", "set", "is",
+            "to", "of", "override");
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<ClassData, Integer> numbers = new IdentityHashMap<>();
+    private ClassData[] classes = new ClassData[64];
+    private int[] lengths = new int[64];
+    private int used;
+    private long totalLength;
+
+    /**
+     * Brings the index in line with the classes of a project, adding and
+     * removing the classes that differ by identity.
+     *
+     * @param current the classes of the project
+     */
+    void update(Collection<ClassData> current) {
+        Set<ClassData> present = Collections.newSetFromMap(new IdentityHashMap<>(current.size() * 2));
+        present.addAll(current);
+        List<ClassData> removed = new ArrayList<>();
+        for (ClassData classData : numbers.keySet()) {
+            if (!present.contains(classData)) {
+                removed.add(classData);
+            }
+        }
+        removed.forEach(this::remove);
+        for (ClassData classData : current) {
+            if (!numbers.containsKey(classData)) {
+                add(classData);
+            }
+        }
+        if (used > 64 && numbers.size() < used / 2) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return the number of classes indexed
+     */
+    int size() {
+        return numbers.size();
+    }
+
+    /**
+     * @param terms the terms of the query, see {@link #terms(String, Consumer)}
+     * @param exclude a class left out, may be {@code null}
+     * @param limit the most classes to return
+     * @return the classes matching any term, best first
+     */
+    List<ClassData> search(Collection<String> terms, ClassData exclude, int limit) {
+        int count = numbers.size();
+        if (count == 0) {
+            return List.of();
+        }
+        double averageLength = (double) totalLength / count;
+        double[] scores = new double[used];
+        for (String term : new LinkedHashSet<>(terms)) {
+            Postings termPostings = postings.get(term);
+            if (termPostings == null || termPostings.frequency == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (count - termPostings.frequency + 0.5) / (termPostings.frequency + 0.5));
+            int[] entries = termPostings.entries;
+            for (int i = 0; i < termPostings.size; i += 2) {
+                int number = entries[i];
+                if (classes[number] == null) {
+                    continue;
+                }
+                int frequency = entries[i + 1];
+                double norm = K1 * (1 - B + B * lengths[number] / averageLength);
+                scores[number] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+        List<Integer> matches = new ArrayList<>();
+        for (int number = 0; number < used; number++) {
+            if (scores[number] > 0 && classes[number] != exclude) {
+                matches.add(number);
+            }
+        }
+        matches.sort(Comparator.<Integer>comparingDouble(number -> -scores[number])
+                .thenComparing(number -> classes[number].getQualifiedName()));
+        List<ClassData> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && result.size() < limit; i++) {
+            result.add(classes[matches.get(i)]);
+        }
+        return result;
+    }
+
+    private void add(ClassData classData) {
+        Map<String, Integer> frequencies = frequencies(classData);
+        if (used == classes.length) {
+            classes = Arrays.copyOf(classes, used * 2);
+            lengths = Arrays.copyOf(lengths, used * 2);
+        }
+        int number = used++;
+        classes[number] = classData;
+        numbers.put(classData, number);
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(number, entry.getValue());
+            length += entry.getValue();
+        }
+        lengths[number] = length;
+        totalLength += length;
+    }
+
+    private void remove(ClassData classData) {
+        int number = numbers.remove(classData);
+        for (String term : frequencies(classData).keySet()) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null && --termPostings.frequency == 0) {
+                postings.remove(term);
+            }
+        }
+        classes[number] = null;
+        totalLength -= lengths[number];
+    }
+
+    private void rebuild() {
+        List<ClassData> live = new ArrayList<>(numbers.keySet());
+        postings.clear();
+        numbers.clear();
+        classes = new ClassData[Math.max(64, live.size() * 2)];
+        lengths = new int[classes.length];
+        used = 0;
+        totalLength = 0;
+        live.forEach(this::add);
+    }
+
+    private static Map<String, Integer> frequencies(ClassData classData) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        terms(classData.getClassSignature(), term -> frequencies.merge(term, 1, Integer::sum));
+        return frequencies;
+    }
+
+    /**
+     * Splits the identifiers of a text into terms.
+     *
+     * @param text the text, may be {@code null}
+     * @param sink receives each term, as often as it occurs
+     */
+    static void terms(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean part = i < text.length() && Character.isJavaIdentifierPart(text.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                identifierTerms(text.substring(start, i), sink);
+                start = -1;
+            }
+        }
+    }
+
+    private static void identifierTerms(String identifier, Consumer<String> sink) {
+        int parts = 0;
+        int start = 0;
+        for (int i = 1; i <= identifier.length(); i++) {
+            if (i == identifier.length() || isBoundary(identifier, i)) {
+                parts += emit(identifier.substring(start, i), sink);
+                start = i;
+            }
+        }
+        if (parts > 1) {
+            emit(identifier, sink);
+        }
+    }
+
+    /**
+     * userId | HTTPServer | user_id | user2
+     */
+    private static boolean isBoundary(String identifier, int i) {
+        char previous = identifier.charAt(i - 1);
+        char current = identifier.charAt(i);
+        if (current == '_' || current == '$' || previous == '_' || previous == '$') {
+            return true;
+        }
+        if (Character.isUpperCase(current)) {
+            return Character.isLowerCase(previous) || Character.isDigit(previous)
+                    || (i + 1 < identifier.length() && Character.isLowerCase(identifier.charAt(i + 1)) && Character.isUpperCase(previous));
+        }
+        return Character.isDigit(current) != Character.isDigit(previous);
+    }
+
+    private static int emit(String part, Consumer<String> sink) {
+        String term = part.toLowerCase(Locale.ROOT);
+        if (term.length() < 2 || STOP_WORDS.contains(term) || term.charAt(0) == '_' || term.charAt(0) == '$'
+                || Character.isDigit(term.charAt(0))) {
+            return 0;
+        }
+        sink.accept(term);
+        return 1;
+    }
+
+    /**
+     * @param unit a parsed file
+     * @param query a question or message about the file, may be
+     * {@code null}
+     * @return the terms of the names declared and used in the file, and of
+     * the query
+     */
+    static Set<String> queryTerms(CompilationUnitTree unit, String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms(query, terms::add);
+        if (unit != null) {
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitClass(ClassTree node, Void p) {
+                    terms(node.getSimpleName().toString(), terms::add);
+                    return super.visitClass(node, p);
+                }
+
+                @Override
+                public Void visitMethod(MethodTree node, Void p) {
+                    terms(node.getName().toString(), terms::add);
+                    return super.visitMethod(node, p);
+                }
+
+                @Override
+                public Void visitVariable(VariableTree node, Void p) {
+                    terms(node.getName().toString(), terms::add);
+                    return super.visitVariable(node, p);
+                }
+
+                @Override
+                public Void visitIdentifier(IdentifierTree node, Void p) {
+                    terms(node.getName().toString(), terms::add);
+                    return null;
+                }
+
+                @Override
+                public Void visitMemberSelect(MemberSelectTree node, Void p) {
+                    terms(node.getIdentifier().toString(), terms::add);
+                    return super.visitMemberSelect(node, p);
+                }
+            }.scan(unit.getTypeDecls(), null);
+        }
+        return terms;
+    }
+
+    private static final class Postings {
+
+        private int[] entries = new int[4]; // class number, term count
+        private int size;
+        private int frequency; // classes indexed with the term
+
+        void add(int number, int count) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = number;
+            entries[size++] = count;
+            frequency++;
+        }
+    }
+}
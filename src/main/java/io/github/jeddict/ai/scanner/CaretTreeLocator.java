@@ -0,0 +1,123 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import com.sun.source.tree.*;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import java.util.Set;
+import javax.tools.Diagnostic;
+
+/**
+ * Finds the innermost tree enclosing the caret without visiting the whole
+ * compilation unit.
+ *
+ * <p>
+ * Only subtrees whose source range contains the caret are entered, so a
+ * lookup costs roughly the depth of the tree times the number of siblings
+ * along the way instead of the size of the tree. Subtrees without positions
+ * (synthetic trees) are entered, as their children may still have some.
+ * Positions are not kept across lookups: the IDE reparses method bodies
+ * in place, so the same compilation unit may have other positions on the
+ * next call.
+ *
+ * @author Gaurav Gupta
+ */
+public final class CaretTreeLocator {
+
+    private static final long NOPOS = Diagnostic.NOPOS;
+
+    /**
+     * The trees a caret can be reported in, by their kind's interface;
+     * others, such as switch expressions or patterns, resolve to the
+     * enclosing one.
+     */
+    private static final Set<Class<? extends Tree>> REPORTED = Set.of(
+        CompilationUnitTree.class, PackageTree.class, ImportTree.class, ClassTree.class,
+        MethodTree.class, VariableTree.class, ModifiersTree.class, AnnotationTree.class,
+        AnnotatedTypeTree.class, BlockTree.class, ExpressionStatementTree.class,
+        EmptyStatementTree.class, IfTree.class, ForLoopTree.class, EnhancedForLoopTree.class,
+        WhileLoopTree.class, DoWhileLoopTree.class, SwitchTree.class, CaseTree.class,
+        TryTree.class, CatchTree.class, SynchronizedTree.class, LabeledStatementTree.class,
+        BreakTree.class, ContinueTree.class, ReturnTree.class, ThrowTree.class, AssertTree.class,
+        MethodInvocationTree.class, NewClassTree.class, NewArrayTree.class,
+        LambdaExpressionTree.class, MemberReferenceTree.class, MemberSelectTree.class,
+        IdentifierTree.class, LiteralTree.class, AssignmentTree.class,
+        CompoundAssignmentTree.class, BinaryTree.class, UnaryTree.class,
+        ConditionalExpressionTree.class, ParenthesizedTree.class, TypeCastTree.class,
+        InstanceOfTree.class, ArrayAccessTree.class, ArrayTypeTree.class,
+        ParameterizedTypeTree.class, PrimitiveTypeTree.class, TypeParameterTree.class,
+        UnionTypeTree.class, IntersectionTypeTree.class, ErroneousTree.class, ModuleTree.class,
+        ExportsTree.class, RequiresTree.class, UsesTree.class, ProvidesTree.class
+    );
+
+    private CaretTreeLocator() {
+    }
+
+    /**
+     * @param compilationUnit the parsed source
+     * @param positions the source positions of the parse
+     * @param caretOffset the caret offset
+     * @return the path to the innermost tree whose range contains the caret,
+     * {@code null} if there is none
+     */
+    public static TreePath locate(CompilationUnitTree compilationUnit, SourcePositions positions, int caretOffset) {
+        Locator locator = new Locator(compilationUnit, positions, caretOffset);
+        locator.scan(compilationUnit, null);
+        return locator.target;
+    }
+
+    /**
+     * @return whether the caret is reported in {@code tree}
+     */
+    static boolean isReported(Tree tree) {
+        Class<? extends Tree> type = tree.getKind().asInterface();
+        return type != null && REPORTED.contains(type);
+    }
+
+    private static final class Locator extends TreePathScanner<Void, Void> {
+
+        private final CompilationUnitTree compilationUnit;
+        private final SourcePositions positions;
+        private final int caretOffset;
+        private TreePath target;
+
+        Locator(CompilationUnitTree compilationUnit, SourcePositions positions, int caretOffset) {
+            this.compilationUnit = compilationUnit;
+            this.positions = positions;
+            this.caretOffset = caretOffset;
+        }
+
+        @Override
+        public Void scan(Tree tree, Void p) {
+            if (tree == null) {
+                return null;
+            }
+            long start = positions.getStartPosition(compilationUnit, tree);
+            long end = positions.getEndPosition(compilationUnit, tree);
+            if (start != NOPOS && end != NOPOS && (caretOffset < start || caretOffset > end)) {
+                // nothing below can contain the caret
+                return null;
+            }
+            if (start <= caretOffset && caretOffset <= end && isReported(tree)) {
+                // entered after its parent, so the last one recorded is the innermost
+                target = getCurrentPath() == null ? new TreePath(compilationUnit) : new TreePath(getCurrentPath(), tree);
+            }
+            return super.scan(tree, p);
+        }
+    }
+}
@@ -15,31 +15,73 @@
  */
 package io.github.jeddict.ai.scanner;
 
-import java.util.HashSet;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
+ * The signature of a class, without method bodies, and the types it uses.
+ *
+ * <p>
+ * Kept compact as the index holds one per class of every open project: the
+ * names are pooled in {@link NamePool} and the types held as pool ids, the
+ * signature as UTF-8 bytes, deflated when longer than a few lines, and
+ * decoded only when read into a prompt.
  *
  * @author Gaurav Gupta
  */
 public class ClassData {
 
+    /**
+     * Shorter signatures do not deflate to less.
+     */
+    private static final int DEFLATE_THRESHOLD = 128;
+
     private final String _package;
     private final String className;
-    private final String classSignature;
-    private Set<String> subtree;
+    private final byte[] classSignature;
+    private final int signatureLength; // bytes decoded, -1 if not deflated
+    private int[] subtree;
+    private int[] references;
 
     public ClassData(String _package, String className, String classSignature) {
-        this._package = _package;
-        this.className = className;
-        this.classSignature = classSignature;
+        this._package = NamePool.intern(_package);
+        this.className = NamePool.intern(className);
+        if (classSignature == null) {
+            this.classSignature = null;
+            this.signatureLength = -1;
+        } else {
+            byte[] bytes = classSignature.getBytes(StandardCharsets.UTF_8);
+            byte[] deflated = bytes.length < DEFLATE_THRESHOLD ? null : deflate(bytes);
+            this.classSignature = deflated != null ? deflated : bytes;
+            this.signatureLength = deflated != null ? bytes.length : -1;
+        }
     }
 
-    public boolean addSubTree(String e) {
-        if (subtree == null) {
-            subtree = new HashSet<>();
-        }
-        return subtree.add(e);
+    public synchronized boolean addSubTree(String e) {
+        int[] added = add(subtree, NamePool.id(e));
+        boolean changed = added != subtree;
+        subtree = added;
+        return changed;
+    }
+
+    /**
+     * Adds a project or library type the class uses in its declaration, as
+     * super type, or as type of a field, parameter or return value.
+     *
+     * @param qualifiedName the fully qualified name of the type
+     * @return whether it was not added before
+     */
+    public synchronized boolean addReference(String qualifiedName) {
+        int[] added = add(references, NamePool.id(qualifiedName));
+        boolean changed = added != references;
+        references = added;
+        return changed;
     }
 
     public String getPackage() {
@@ -50,17 +92,89 @@ public class ClassData {
         return className;
     }
 
+    public String getQualifiedName() {
+        return _package == null || _package.isEmpty() ? className : _package + '.' + className;
+    }
+
     public String getClassSignature() {
-        return classSignature;
+        if (classSignature == null) {
+            return null;
+        }
+        byte[] bytes = signatureLength < 0 ? classSignature : inflate(classSignature, signatureLength);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
-    public Set<String> getSubtree() {
-        return subtree;
+    public synchronized Set<String> getSubtree() {
+        return subtree == null ? null : names(subtree);
+    }
+
+    public synchronized Set<String> getReferences() {
+        return references == null ? null : names(references);
     }
 
     @Override
     public String toString() {
-        return classSignature;
+        return getClassSignature();
     }
 
+    /**
+     * @return the ids with the id appended, the same array if it holds the
+     * id already
+     */
+    private static int[] add(int[] ids, int id) {
+        if (ids == null) {
+            return new int[]{id};
+        }
+        for (int each : ids) {
+            if (each == id) {
+                return ids;
+            }
+        }
+        int[] longer = Arrays.copyOf(ids, ids.length + 1);
+        longer[ids.length] = id;
+        return longer;
+    }
+
+    private static Set<String> names(int[] ids) {
+        Set<String> names = new LinkedHashSet<>(ids.length * 2);
+        for (int id : ids) {
+            names.add(NamePool.name(id));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] buffer = new byte[bytes.length];
+            int length = deflater.deflate(buffer);
+            return deflater.finished() && length < bytes.length ? Arrays.copyOf(buffer, length) : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] deflated, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(deflated);
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int inflated = inflater.inflate(bytes, read, length - read);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += inflated;
+            }
+            return bytes;
+        } catch (DataFormatException ex) {
+            // written by deflate above, cannot be corrupt
+            throw new IllegalStateException(ex);
+        } finally {
+            inflater.end();
+        }
+    }
 }
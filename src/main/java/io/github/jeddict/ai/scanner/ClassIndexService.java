@@ -0,0 +1,135 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.beans.PropertyChangeEvent;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Owns the class index of each project in use.
+ *
+ * <p>
+ * An index is opened on the first request for its project, from the copy
+ * saved on disk if any, and closed when the project is closed in the IDE:
+ * its listener is unregistered, its indexer cancelled and its classes saved
+ * and released.
+ *
+ * @author Gaurav Gupta
+ */
+final class ClassIndexService {
+
+    private static ClassIndexService instance;
+
+    private final Map<String, ProjectClassIndex> indexes = new ConcurrentHashMap<>(); // project is key
+
+    private ClassIndexService() {
+        OpenProjects.getDefault().addPropertyChangeListener(this::projectsChanged);
+    }
+
+    static ClassIndexService getInstance() {
+        if (instance == null) {
+            synchronized (ClassIndexService.class) {
+                if (instance == null) {
+                    instance = new ClassIndexService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param project the project
+     * @return the index of the project, opened if not yet; a cancelled scan
+     * is only resumed on request of the user
+     */
+    ProjectClassIndex get(Project project) {
+        String key = key(project);
+        ProjectClassIndex index = indexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = indexes.get(key);
+            if (index == null) {
+                // served as last saved, or empty at first; the indexer fills in the rest
+                index = new ProjectClassIndex(project, loadOrEmpty(project));
+                indexes.put(key, index);
+                index.open();
+            }
+            return index;
+        }
+    }
+
+    /**
+     * @param project the project
+     * @return the index of the project, {@code null} if not opened
+     */
+    ProjectClassIndex find(Project project) {
+        return indexes.get(key(project));
+    }
+
+    /**
+     * Closes the index of a project and forgets it.
+     *
+     * @param project the project
+     */
+    void close(Project project) {
+        ProjectClassIndex index = indexes.remove(key(project));
+        if (index != null) {
+            index.close();
+        }
+        ProjectVocabulary.remove(project);
+    }
+
+    /**
+     * Closes all indexes.
+     */
+    void clear() {
+        for (ProjectClassIndex index : indexes.values()) {
+            close(index.getProject());
+        }
+    }
+
+    private void projectsChanged(PropertyChangeEvent event) {
+        if (!OpenProjects.PROPERTY_OPEN_PROJECTS.equals(event.getPropertyName())) {
+            return;
+        }
+        Set<String> open = new HashSet<>();
+        for (Project project : OpenProjects.getDefault().getOpenProjects()) {
+            open.add(key(project));
+        }
+        for (ProjectClassIndex index : indexes.values()) {
+            if (!open.contains(key(index.getProject()))) {
+                close(index.getProject());
+            }
+        }
+    }
+
+    private static Map<FileObject, ClassData> loadOrEmpty(Project project) {
+        Map<FileObject, ClassData> saved = ClassIndexStore.getInstance().load(project);
+        return saved == null ? Map.of() : saved;
+    }
+
+    private static String key(Project project) {
+        return project.getProjectDirectory().toString();
+    }
+}
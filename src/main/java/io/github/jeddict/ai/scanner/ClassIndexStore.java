@@ -0,0 +1,360 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Keeps the class index of each project on disk, so that the first
+ * completion after a restart is served without scanning the project.
+ *
+ * <p>
+ * Each project has one compressed binary file under the IDE cache folder.
+ * An entry holds the path of a source file relative to the project, its
+ * last-modified time, a SHA-256 hash of its content and the
+ * {@link ClassData} read from it. A file is current if its time is
+ * unchanged, or if only its time changed and its hash did not.
+ *
+ * @author Gaurav Gupta
+ */
+public final class ClassIndexStore {
+
+    private static final Logger LOG = Logger.getLogger(ClassIndexStore.class.getName());
+
+    private static final String INDEX_DIRECTORY = "jeddict/index";
+    private static final String INDEX_SUFFIX = ".bin";
+    private static final int MAGIC = 0x4A434958;
+    private static final int VERSION = 2;
+    /**
+     * How long writes of an index are coalesced.
+     */
+    private static final int SAVE_DELAY = 5_000;
+
+    private static final RequestProcessor RP = new RequestProcessor(ClassIndexStore.class.getName(), 1);
+
+    private static ClassIndexStore instance;
+
+    private final Path directory;
+    private final Map<String, Map<FileObject, Stamp>> stamps = new ConcurrentHashMap<>(); // project is key
+    private final Map<String, RequestProcessor.Task> saves = new ConcurrentHashMap<>(); // project is key
+
+    ClassIndexStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public static ClassIndexStore getInstance() {
+        if (instance == null) {
+            synchronized (ClassIndexStore.class) {
+                if (instance == null) {
+                    instance = new ClassIndexStore(Places.getCacheSubdirectory(INDEX_DIRECTORY).toPath());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the index of a project as it was last saved; entries of deleted
+     * files are left out, changed files are not checked.
+     *
+     * @param project the project
+     * @return the classes by file, {@code null} if the project has no index
+     */
+    public Map<FileObject, ClassData> load(Project project) {
+        Path file = indexPath(project);
+        List<Entry> entries;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            entries = read(in);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            LOG.log(Level.INFO, "Cannot read the class index " + file + ", rescanning", ex);
+            return null;
+        }
+        FileObject projectDirectory = project.getProjectDirectory();
+        Map<FileObject, ClassData> classData = new ConcurrentHashMap<>();
+        Map<FileObject, Stamp> projectStamps = new ConcurrentHashMap<>();
+        for (Entry entry : entries) {
+            FileObject source = projectDirectory.getFileObject(entry.path());
+            if (source != null) {
+                classData.put(source, entry.classData());
+                projectStamps.put(source, new Stamp(entry.classData(), entry.lastModified(), entry.hash()));
+            }
+        }
+        stamps.put(key(project), projectStamps);
+        return classData;
+    }
+
+    /**
+     * @param project the project
+     * @param source a source file
+     * @param classData the class the index holds for the file
+     * @return whether the class was read from the file as it is now
+     */
+    public boolean isCurrent(Project project, FileObject source, ClassData classData) {
+        Stamp stamp = stamps.getOrDefault(key(project), Map.of()).get(source);
+        if (stamp == null || classData == null || stamp.classData != classData) {
+            return false;
+        }
+        long lastModified = source.lastModified().getTime();
+        if (stamp.lastModified == lastModified) {
+            return true;
+        }
+        byte[] hash = hash(source);
+        if (hash != null && Arrays.equals(stamp.hash, hash)) {
+            // touched, not changed
+            stamp.lastModified = lastModified;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the time and hash a file had when its class was read. They
+     * are taken before the file is read, so that an edit during the scan
+     * leaves the class stale rather than marked current.
+     *
+     * @param project the project
+     * @param source the source file
+     * @param classData the class read from the file
+     * @param lastModified the time of the file before it was read
+     * @param hash the hash of the file before it was read
+     */
+    void stamp(Project project, FileObject source, ClassData classData, long lastModified, byte[] hash) {
+        stamps.computeIfAbsent(key(project), key -> new ConcurrentHashMap<>())
+                .put(source, new Stamp(classData, lastModified, hash));
+    }
+
+    /**
+     * Writes the index of a project a few seconds from now, once for any
+     * number of calls meanwhile.
+     *
+     * @param project the project
+     * @param classData the classes by file, read when written
+     */
+    public void saveLater(Project project, Supplier<Map<FileObject, ClassData>> classData) {
+        RequestProcessor.Task previous = saves.put(key(project), RP.post(() -> save(project, classData.get()), SAVE_DELAY));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Writes the index of a project; a class without the stamp of its scan
+     * is left out, to be scanned again.
+     *
+     * @param project the project
+     * @param classData the classes by file
+     */
+    public void save(Project project, Map<FileObject, ClassData> classData) {
+        FileObject projectDirectory = project.getProjectDirectory();
+        Map<FileObject, Stamp> projectStamps = stamps.computeIfAbsent(key(project), key -> new ConcurrentHashMap<>());
+        projectStamps.keySet().retainAll(classData.keySet());
+        List<Entry> entries = new ArrayList<>(classData.size());
+        for (Map.Entry<FileObject, ClassData> entry : classData.entrySet()) {
+            FileObject source = entry.getKey();
+            String path = FileUtil.getRelativePath(projectDirectory, source);
+            if (path == null || !source.isValid()) {
+                continue;
+            }
+            Stamp stamp = projectStamps.get(source);
+            if (stamp == null || stamp.classData != entry.getValue()) {
+                continue;
+            }
+            entries.add(new Entry(path, stamp.lastModified, stamp.hash, stamp.classData));
+        }
+        Path file = indexPath(project);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, "index", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                write(out, entries);
+            }
+            // readers never see a partly written index
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOG.log(Level.INFO, "Cannot write the class index " + file, ex);
+            deleteQuietly(temp);
+        }
+    }
+
+    private Path indexPath(Project project) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key(project).getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest, 0, 16) + INDEX_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot delete " + file, ex);
+            }
+        }
+    }
+
+    private static String key(Project project) {
+        return project.getProjectDirectory().toString();
+    }
+
+    /**
+     * @return the SHA-256 hash of the content of the file, {@code null} if
+     * it cannot be read
+     */
+    static byte[] hash(FileObject source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.asBytes());
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot read " + source, ex);
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void write(DataOutput out, List<Entry> entries) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            writeString(out, entry.path());
+            out.writeLong(entry.lastModified());
+            out.writeByte(entry.hash().length);
+            out.write(entry.hash());
+            ClassData classData = entry.classData();
+            writeString(out, classData.getPackage());
+            writeString(out, classData.getClassName());
+            writeString(out, classData.getClassSignature());
+            writeStrings(out, classData.getSubtree());
+            writeStrings(out, classData.getReferences());
+        }
+    }
+
+    static List<Entry> read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a class index of this version");
+        }
+        int count = in.readInt();
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String path = readString(in);
+            long lastModified = in.readLong();
+            byte[] hash = new byte[in.readUnsignedByte()];
+            in.readFully(hash);
+            ClassData classData = new ClassData(readString(in), readString(in), readString(in));
+            int subtreeSize = in.readInt();
+            for (int j = 0; j < subtreeSize; j++) {
+                classData.addSubTree(readString(in));
+            }
+            int referenceCount = in.readInt();
+            for (int j = 0; j < referenceCount; j++) {
+                classData.addReference(readString(in));
+            }
+            entries.add(new Entry(path, lastModified, hash, classData));
+        }
+        return entries;
+    }
+
+    /**
+     * Unlike {@link DataOutput#writeUTF}, not limited to 64 KB.
+     */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutput out, Set<String> values) throws IOException {
+        out.writeInt(values == null ? -1 : values.size());
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    record Entry(String path, long lastModified, byte[] hash, ClassData classData) {
+
+    }
+
+    /**
+     * The time and hash of a file when its class was read.
+     */
+    private static final class Stamp {
+
+        private final ClassData classData;
+        private volatile long lastModified;
+        private final byte[] hash;
+
+        Stamp(ClassData classData, long lastModified, byte[] hash) {
+            this.classData = classData;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
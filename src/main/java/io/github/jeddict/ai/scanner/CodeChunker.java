@@ -0,0 +1,159 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Splits a source file into the chunks retrieved for a question: a Java
+ * file into its types and methods, any other file into runs of lines.
+ *
+ * <p>
+ * A type chunk runs from the declaration of the type to its first method,
+ * so it holds the annotations, fields and nested declarations that give the
+ * methods their meaning; each method or constructor is a chunk of its own,
+ * with its Javadoc. A Java file that does not parse is split into lines.
+ *
+ * @author Gaurav Gupta
+ */
+final class CodeChunker {
+
+    /**
+     * The most lines of a chunk that is not a method.
+     */
+    static final int MAX_LINES = 60;
+
+    private CodeChunker() {
+    }
+
+    /**
+     * @param name the name of the file
+     * @param text the content of the file
+     * @return the chunks of the file, in order
+     */
+    static List<Chunk> chunks(String name, String text) {
+        String[] lines = text.split("\r\n|\r|\n", -1);
+        if (name.endsWith(".java")) {
+            List<Chunk> chunks = javaChunks(text, lines);
+            if (chunks != null) {
+                return chunks;
+            }
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        for (int start = 1; start <= lines.length; start += MAX_LINES) {
+            int end = Math.min(lines.length, start + MAX_LINES - 1);
+            if (!isBlank(lines, start, end)) {
+                chunks.add(new Chunk(name, start, end, slice(lines, start, end)));
+            }
+        }
+        return chunks;
+    }
+
+    private static List<Chunk> javaChunks(String text, String[] lines) {
+        ParseResult<CompilationUnit> result = new JavaParser(new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21)).parse(text);
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+            return null;
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        for (TypeDeclaration<?> type : result.getResult().get().findAll(TypeDeclaration.class)) {
+            if (type.findAncestor(CallableDeclaration.class).isPresent()) {
+                // a local class is part of its method
+                continue;
+            }
+            Optional<Range> typeRange = range(type);
+            if (typeRange.isEmpty()) {
+                continue;
+            }
+            int start = typeRange.get().begin.line;
+            int end = typeRange.get().end.line;
+            for (BodyDeclaration<?> member : type.getMembers()) {
+                Optional<Range> memberRange = range(member);
+                if (member instanceof CallableDeclaration && memberRange.isPresent()) {
+                    end = Math.min(end, memberRange.get().begin.line - 1);
+                }
+            }
+            end = Math.min(end, start + MAX_LINES - 1);
+            chunks.add(new Chunk(type.getNameAsString(), start, end, slice(lines, start, end)));
+            for (BodyDeclaration<?> member : type.getMembers()) {
+                Optional<Range> memberRange = range(member);
+                if (member instanceof CallableDeclaration<?> callable && memberRange.isPresent()) {
+                    int memberStart = memberRange.get().begin.line;
+                    int memberEnd = memberRange.get().end.line;
+                    chunks.add(new Chunk(type.getNameAsString() + '.' + callable.getSignature().asString(),
+                            memberStart, memberEnd, slice(lines, memberStart, memberEnd)));
+                }
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the range of a node with its comment
+     */
+    private static Optional<Range> range(Node node) {
+        Optional<Range> range = node.getRange();
+        Optional<Range> comment = node.getComment().flatMap(Node::getRange);
+        if (range.isPresent() && comment.isPresent()) {
+            return Optional.of(new Range(comment.get().begin, range.get().end));
+        }
+        return range;
+    }
+
+    /**
+     * @param lines the lines of a file
+     * @param start the first line, from 1
+     * @param end the last line
+     * @return the lines joined
+     */
+    static String slice(String[] lines, int start, int end) {
+        StringBuilder sb = new StringBuilder();
+        for (int line = Math.max(1, start); line <= Math.min(end, lines.length); line++) {
+            sb.append(lines[line - 1]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static boolean isBlank(String[] lines, int start, int end) {
+        for (int line = start; line <= end; line++) {
+            if (!lines[line - 1].isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param title the type, the method or the file the chunk is of
+     * @param startLine the first line, from 1
+     * @param endLine the last line
+     * @param text the lines
+     */
+    record Chunk(String title, int startLine, int endLine, String text) {
+
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import org.openide.util.Lookup;
+
+/**
+ * Turns source chunks and questions into vectors for the chunk index of a
+ * project.
+ *
+ * <p>
+ * A module may register its own provider with
+ * {@code @ServiceProvider(service = EmbeddingProvider.class)}, for example
+ * one backed by a model with {@link #of(String, EmbeddingModel)}. Without
+ * one, {@link HashingEmbeddingProvider} is used, which needs no model and
+ * works offline.
+ *
+ * @author Gaurav Gupta
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * @return a name that changes whenever the vectors would, so that an
+     * index built by another provider is rebuilt
+     */
+    String getId();
+
+    /**
+     * @return the length of the vectors
+     */
+    int getDimension();
+
+    /**
+     * @param text a chunk of source or a question
+     * @return the vector of the text, of unit length
+     */
+    float[] embed(String text);
+
+    /**
+     * @return the registered provider, or the hashing one
+     */
+    static EmbeddingProvider getDefault() {
+        EmbeddingProvider provider = Lookup.getDefault().lookup(EmbeddingProvider.class);
+        return provider != null ? provider : HashingEmbeddingProvider.getInstance();
+    }
+
+    /**
+     * @param id the name of the model
+     * @param model an embedding model
+     * @return a provider embedding with the model
+     */
+    static EmbeddingProvider of(String id, EmbeddingModel model) {
+        int dimension = model.dimension();
+        return new EmbeddingProvider() {
+            @Override
+            public String getId() {
+                return id;
+            }
+
+            @Override
+            public int getDimension() {
+                return dimension;
+            }
+
+            @Override
+            public float[] embed(String text) {
+                return HashingEmbeddingProvider.normalize(model.embed(text).content().vector());
+            }
+        };
+    }
+}
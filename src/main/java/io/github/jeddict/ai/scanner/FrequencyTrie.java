@@ -0,0 +1,161 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A trie of words with occurrence counts that completes a prefix with the
+ * most frequent words.
+ *
+ * <p>
+ * Children are kept in sorted arrays rather than maps. Every node caches the
+ * most frequent words below it; a change clears the caches on the path of
+ * the word only, so a completion costs the length of the prefix plus a merge
+ * of small lists. Not thread-safe.
+ *
+ * @author Gaurav Gupta
+ */
+public final class FrequencyTrie {
+
+    /**
+     * The number of words cached per node, and the most a completion returns.
+     */
+    public static final int MAX_COMPLETIONS = 10;
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private static final Comparator<Node> BY_FREQUENCY = Comparator
+            .comparingInt((Node n) -> n.count).reversed()
+            .thenComparing(n -> n.word);
+
+    private final Node root = new Node();
+
+    /**
+     * Changes the count of a word; a word whose count drops to zero is no
+     * longer completed.
+     *
+     * @param word the word
+     * @param delta the change of its count
+     */
+    public void add(String word, int delta) {
+        if (word == null || word.isEmpty() || delta == 0) {
+            return;
+        }
+        Node node = root;
+        node.top = null;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.child(word.charAt(i), true);
+            node.top = null;
+        }
+        node.count = Math.max(0, node.count + delta);
+        node.word = word;
+    }
+
+    /**
+     * @param word the word
+     * @return its count, 0 if absent
+     */
+    public int count(String word) {
+        Node node = find(word);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * @param prefix the start of the words, may be empty
+     * @param limit the most words to return, at most
+     * {@link #MAX_COMPLETIONS}
+     * @return the most frequent words starting with the prefix, most frequent
+     * first
+     */
+    public List<String> complete(String prefix, int limit) {
+        Node node = find(prefix == null ? "" : prefix);
+        if (node == null) {
+            return List.of();
+        }
+        List<Node> top = node.top();
+        List<String> words = new ArrayList<>(Math.min(limit, top.size()));
+        for (int i = 0; i < top.size() && words.size() < limit; i++) {
+            words.add(top.get(i).word);
+        }
+        return words;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i), false);
+        }
+        return node;
+    }
+
+    private static final class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_NODES;
+        private int count;
+        private String word;
+        private List<Node> top;
+
+        Node child(char key, boolean create) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            if (!create) {
+                return null;
+            }
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = key;
+            Node child = new Node();
+            newChildren[insert] = child;
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        /**
+         * @return the most frequent words at or below this node, merged from
+         * the cached lists of the children
+         */
+        List<Node> top() {
+            if (top == null) {
+                List<Node> candidates = new ArrayList<>();
+                if (count > 0) {
+                    candidates.add(this);
+                }
+                for (Node child : children) {
+                    candidates.addAll(child.top());
+                }
+                candidates.sort(BY_FREQUENCY);
+                top = candidates.size() > MAX_COMPLETIONS
+                        ? new ArrayList<>(candidates.subList(0, MAX_COMPLETIONS))
+                        : candidates;
+            }
+            return top;
+        }
+    }
+}
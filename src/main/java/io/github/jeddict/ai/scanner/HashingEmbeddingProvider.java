@@ -0,0 +1,114 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Embeds a text by hashing its terms into a fixed number of dimensions.
+ *
+ * <p>
+ * The terms are those of {@link Bm25Index#terms}, camel case parts and
+ * compound identifiers, plus each pair of adjacent terms so that
+ * {@code order total} and {@code total order} differ. A term adds the log
+ * of its count to one dimension, with a sign taken from its hash so that
+ * collisions cancel out rather than add up. The same text always gives the
+ * same vector, with no model and no network.
+ *
+ * @author Gaurav Gupta
+ */
+final class HashingEmbeddingProvider implements EmbeddingProvider {
+
+    private static final int DIMENSION = 256;
+
+    private static HashingEmbeddingProvider instance;
+
+    private HashingEmbeddingProvider() {
+    }
+
+    static HashingEmbeddingProvider getInstance() {
+        if (instance == null) {
+            synchronized (HashingEmbeddingProvider.class) {
+                if (instance == null) {
+                    instance = new HashingEmbeddingProvider();
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public String getId() {
+        return "hashing-" + DIMENSION + "-1";
+    }
+
+    @Override
+    public int getDimension() {
+        return DIMENSION;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        String[] previous = new String[1];
+        Bm25Index.terms(text, term -> {
+            counts.merge(term, 1, Integer::sum);
+            if (previous[0] != null) {
+                counts.merge(previous[0] + ' ' + term, 1, Integer::sum);
+            }
+            previous[0] = term;
+        });
+        float[] vector = new float[DIMENSION];
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            int hash = mix(entry.getKey().hashCode());
+            float weight = (float) (1 + Math.log(entry.getValue()));
+            vector[(hash >>> 1) % DIMENSION] += (hash & 1) == 0 ? weight : -weight;
+        }
+        return normalize(vector);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreading the bits of
+     * {@link String#hashCode}.
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * @param vector a vector, scaled in place
+     * @return the vector, of unit length unless all zero
+     */
+    static float[] normalize(float[] vector) {
+        double sum = 0;
+        for (float value : vector) {
+            sum += value * value;
+        }
+        if (sum > 0) {
+            float scale = (float) (1 / Math.sqrt(sum));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,522 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * A hierarchical navigable small world graph over unit vectors, for the
+ * nearest neighbours of a question by cosine similarity.
+ *
+ * <p>
+ * The vectors and the links of the bottom layer, which hold nearly all of
+ * the index, are kept in a memory-mapped file with one fixed-size record per
+ * node, so a large project costs little heap and its index is paged in from
+ * the file as it is used. The few links of the upper layers are kept on the
+ * heap and written with {@link #writeLinks}. A record is
+ * <pre>
+ * level | deleted | vector[dimension] | link count | links[2 * M]
+ * </pre>
+ * A deleted node stays in the graph to route searches but is never
+ * returned. The header holds a generation, written by {@link #flush}, and a
+ * dirty flag set by the first change after it, so that a file changed
+ * after its links were last written is not trusted. Not thread-safe.
+ *
+ * @author Gaurav Gupta
+ */
+final class HnswIndex implements Closeable {
+
+    private static final int MAGIC = 0x4A484E57;
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+
+    private static final int M = 16;
+    private static final int M0 = 2 * M;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final double LEVEL_FACTOR = 1 / Math.log(M);
+
+    // header offsets
+    private static final int DIMENSION_AT = 8;
+    private static final int COUNT_AT = 12;
+    private static final int ENTRY_AT = 16;
+    private static final int MAX_LEVEL_AT = 20;
+    private static final int DELETED_AT = 24;
+    private static final int DIRTY_AT = 28;
+    private static final int GENERATION_AT = 32;
+
+    private final FileChannel channel;
+    private final int dimension;
+    private final int recordSize;
+    private MappedByteBuffer buffer;
+    private FloatBuffer floats;
+    private final float[] scratch;
+    private int capacity;
+    private int count;
+    private int entry = -1;
+    private int maxLevel = -1;
+    private int deleted;
+    private boolean dirty;
+    private final Map<Integer, int[][]> upperLinks = new HashMap<>();
+
+    private int[] visited = new int[0];
+    private int visitMark;
+
+    private HnswIndex(FileChannel channel, int dimension) {
+        this.channel = channel;
+        this.dimension = dimension;
+        this.recordSize = 4 * (3 + dimension + M0);
+        this.scratch = new float[dimension];
+    }
+
+    /**
+     * @param file the file, replaced
+     * @param dimension the length of the vectors
+     * @return an empty index
+     * @throws IOException if the file cannot be written
+     */
+    static HnswIndex create(Path file, int dimension) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        HnswIndex index = new HnswIndex(channel, dimension);
+        index.map(256);
+        index.buffer.putInt(0, MAGIC);
+        index.buffer.putInt(4, VERSION);
+        index.buffer.putInt(DIMENSION_AT, dimension);
+        index.writeHeader();
+        return index;
+    }
+
+    /**
+     * @param file the file of the index
+     * @param generation the generation the links were written with
+     * @param links the links of the upper layers
+     * @return the index, {@code null} if the file is not the one the links
+     * belong to
+     * @throws IOException if the file cannot be read
+     */
+    static HnswIndex open(Path file, long generation, DataInput links) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getInt(DIRTY_AT) != 0 || header.getLong(GENERATION_AT) != generation) {
+                channel.close();
+                return null;
+            }
+            HnswIndex index = new HnswIndex(channel, header.getInt(DIMENSION_AT));
+            index.count = header.getInt(COUNT_AT);
+            index.entry = header.getInt(ENTRY_AT);
+            index.maxLevel = header.getInt(MAX_LEVEL_AT);
+            index.deleted = header.getInt(DELETED_AT);
+            index.map(Math.max(256, index.count));
+            index.readLinks(links);
+            return index;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return the number of nodes, deleted or not
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return the number of deleted nodes
+     */
+    int deleted() {
+        return deleted;
+    }
+
+    /**
+     * @param vector a vector of unit length
+     * @return the node of the vector
+     * @throws IOException if the file cannot grow
+     */
+    int add(float[] vector) throws IOException {
+        markDirty();
+        if (count == capacity) {
+            map(capacity * 2);
+        }
+        int node = count++;
+        int level = (int) Math.min(16, -Math.log(1 - new SplittableRandom(node).nextDouble()) * LEVEL_FACTOR);
+        long at = offset(node);
+        buffer.putInt((int) at, level);
+        buffer.putInt((int) at + 4, 0);
+        floats.put(vectorAt(node), vector, 0, dimension);
+        buffer.putInt(linksAt(node), 0);
+        if (level > 0) {
+            int[][] layers = new int[level][];
+            Arrays.fill(layers, new int[0]);
+            upperLinks.put(node, layers);
+        }
+        if (entry < 0) {
+            entry = node;
+            maxLevel = level;
+            writeHeader();
+            return node;
+        }
+        int point = entry;
+        for (int layer = maxLevel; layer > level; layer--) {
+            point = greedy(vector, point, layer);
+        }
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            List<Candidate> candidates = searchLayer(vector, point, EF_CONSTRUCTION, layer);
+            int[] neighbours = select(candidates, layer == 0 ? M0 : M);
+            setLinks(node, layer, neighbours);
+            for (int neighbour : neighbours) {
+                connect(neighbour, node, layer);
+            }
+            point = candidates.get(0).node;
+        }
+        if (level > maxLevel) {
+            entry = node;
+            maxLevel = level;
+        }
+        writeHeader();
+        return node;
+    }
+
+    /**
+     * @param node a node, left in the graph but never returned again
+     */
+    void delete(int node) {
+        int at = (int) offset(node) + 4;
+        if (buffer.getInt(at) == 0) {
+            markDirty();
+            buffer.putInt(at, 1);
+            deleted++;
+            writeHeader();
+        }
+    }
+
+    boolean isDeleted(int node) {
+        return buffer.getInt((int) offset(node) + 4) != 0;
+    }
+
+    /**
+     * @param node a node
+     * @return a copy of its vector
+     */
+    float[] vector(int node) {
+        float[] vector = new float[dimension];
+        floats.get(vectorAt(node), vector);
+        return vector;
+    }
+
+    /**
+     * @param query a vector of unit length
+     * @param node a node
+     * @return the cosine similarity of the two
+     */
+    float similarity(float[] query, int node) {
+        floats.get(vectorAt(node), scratch);
+        float sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * scratch[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @param query a vector of unit length
+     * @param limit the most nodes to return
+     * @param ef the candidates kept while searching, at least the limit
+     * @param accept the nodes that may be returned
+     * @return the accepted nodes most similar to the query, best first
+     */
+    int[] search(float[] query, int limit, int ef, IntPredicate accept) {
+        if (entry < 0) {
+            return new int[0];
+        }
+        int point = entry;
+        for (int layer = maxLevel; layer > 0; layer--) {
+            point = greedy(query, point, layer);
+        }
+        List<Candidate> candidates = searchLayer(query, point, Math.max(ef, limit), 0);
+        return candidates.stream()
+                .filter(candidate -> !isDeleted(candidate.node) && accept.test(candidate.node))
+                .limit(limit)
+                .mapToInt(candidate -> candidate.node)
+                .toArray();
+    }
+
+    /**
+     * Writes the header with a new generation and forces the file to disk;
+     * the links of the upper layers are to be written with the same
+     * generation.
+     *
+     * @param generation the generation
+     */
+    void flush(long generation) {
+        buffer.putLong(GENERATION_AT, generation);
+        dirty = false;
+        writeHeader();
+        buffer.force();
+    }
+
+    void writeLinks(DataOutput out) throws IOException {
+        out.writeInt(upperLinks.size());
+        for (Map.Entry<Integer, int[][]> node : upperLinks.entrySet()) {
+            out.writeInt(node.getKey());
+            out.writeInt(node.getValue().length);
+            for (int[] links : node.getValue()) {
+                out.writeInt(links.length);
+                for (int link : links) {
+                    out.writeInt(link);
+                }
+            }
+        }
+    }
+
+    private void readLinks(DataInput in) throws IOException {
+        int nodes = in.readInt();
+        for (int i = 0; i < nodes; i++) {
+            int node = in.readInt();
+            int[][] layers = new int[in.readInt()][];
+            for (int layer = 0; layer < layers.length; layer++) {
+                layers[layer] = new int[in.readInt()];
+                for (int j = 0; j < layers[layer].length; j++) {
+                    layers[layer][j] = in.readInt();
+                }
+            }
+            upperLinks.put(node, layers);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        floats = null;
+        channel.close();
+    }
+
+    private int greedy(float[] query, int point, int layer) {
+        float best = similarity(query, point);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : links(point, layer)) {
+                float similarity = similarity(query, neighbour);
+                if (similarity > best) {
+                    best = similarity;
+                    point = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return point;
+    }
+
+    /**
+     * @return the nearest nodes found, best first
+     */
+    private List<Candidate> searchLayer(float[] query, int point, int ef, int layer) {
+        if (visited.length < count) {
+            visited = new int[Math.max(count, visited.length * 2)];
+        }
+        if (++visitMark == 0) {
+            Arrays.fill(visited, 0);
+            visitMark = 1;
+        }
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>((a, b) -> Float.compare(b.similarity, a.similarity));
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>((a, b) -> Float.compare(a.similarity, b.similarity));
+        Candidate start = new Candidate(point, similarity(query, point));
+        visited[point] = visitMark;
+        frontier.add(start);
+        nearest.add(start);
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (nearest.size() >= ef && current.similarity < nearest.peek().similarity) {
+                break;
+            }
+            for (int neighbour : links(current.node, layer)) {
+                if (visited[neighbour] == visitMark) {
+                    continue;
+                }
+                visited[neighbour] = visitMark;
+                float similarity = similarity(query, neighbour);
+                if (nearest.size() < ef || similarity > nearest.peek().similarity) {
+                    Candidate candidate = new Candidate(neighbour, similarity);
+                    frontier.add(candidate);
+                    nearest.add(candidate);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> result = new ArrayList<>(nearest);
+        result.sort((a, b) -> Float.compare(b.similarity, a.similarity));
+        return result;
+    }
+
+    /**
+     * Keeps a candidate only if it is nearer to the node than to any
+     * candidate kept before it, so the links point in different directions;
+     * the rest fill up what is left.
+     *
+     * @param candidates best first
+     */
+    private int[] select(List<Candidate> candidates, int max) {
+        List<Candidate> kept = new ArrayList<>(max);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (kept.size() == max) {
+                break;
+            }
+            float[] vector = vector(candidate.node);
+            boolean diverse = true;
+            for (Candidate other : kept) {
+                if (similarity(vector, other.node) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? kept : skipped).add(candidate);
+        }
+        for (int i = 0; i < skipped.size() && kept.size() < max; i++) {
+            kept.add(skipped.get(i));
+        }
+        return kept.stream().mapToInt(candidate -> candidate.node).toArray();
+    }
+
+    /**
+     * Links a node back to a new neighbour; a node with all its links
+     * replaces the least similar one, if the new neighbour is nearer.
+     */
+    private void connect(int node, int neighbour, int layer) {
+        int[] links = links(node, layer);
+        int max = layer == 0 ? M0 : M;
+        if (links.length < max) {
+            int[] grown = Arrays.copyOf(links, links.length + 1);
+            grown[links.length] = neighbour;
+            setLinks(node, layer, grown);
+            return;
+        }
+        float[] vector = vector(node);
+        int weakest = -1;
+        float weakestSimilarity = similarity(vector, neighbour);
+        for (int i = 0; i < links.length; i++) {
+            float similarity = similarity(vector, links[i]);
+            if (similarity < weakestSimilarity) {
+                weakest = i;
+                weakestSimilarity = similarity;
+            }
+        }
+        if (weakest >= 0) {
+            links[weakest] = neighbour;
+            setLinks(node, layer, links);
+        }
+    }
+
+    private int[] links(int node, int layer) {
+        if (layer > 0) {
+            int[][] layers = upperLinks.get(node);
+            return layers == null || layer > layers.length ? new int[0] : layers[layer - 1];
+        }
+        int at = linksAt(node);
+        int[] links = new int[buffer.getInt(at)];
+        for (int i = 0; i < links.length; i++) {
+            links[i] = buffer.getInt(at + 4 + 4 * i);
+        }
+        return links;
+    }
+
+    private void setLinks(int node, int layer, int[] links) {
+        if (layer > 0) {
+            upperLinks.get(node)[layer - 1] = links;
+            return;
+        }
+        int at = linksAt(node);
+        buffer.putInt(at, links.length);
+        for (int i = 0; i < links.length; i++) {
+            buffer.putInt(at + 4 + 4 * i, links[i]);
+        }
+    }
+
+    /**
+     * @return the index of the vector of a node in {@link #floats}
+     */
+    private int vectorAt(int node) {
+        return (int) ((offset(node) + 8) / 4);
+    }
+
+    private int linksAt(int node) {
+        return (int) offset(node) + 8 + 4 * dimension;
+    }
+
+    private long offset(int node) {
+        return HEADER + (long) node * recordSize;
+    }
+
+    private void map(int nodes) throws IOException {
+        long size = offset(nodes);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The vector index is full");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        // the order of the common processors, so floats are read without swapping
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        floats = buffer.asFloatBuffer();
+        capacity = nodes;
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            buffer.putInt(DIRTY_AT, 1);
+            buffer.force(0, HEADER);
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(COUNT_AT, count);
+        buffer.putInt(ENTRY_AT, entry);
+        buffer.putInt(MAX_LEVEL_AT, maxLevel);
+        buffer.putInt(DELETED_AT, deleted);
+        buffer.putInt(DIRTY_AT, dirty ? 1 : 0);
+    }
+
+    private record Candidate(int node, float similarity) {
+
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers the package, class and type names of all indexed classes, so
+ * that a name used by thousands of classes is held once and a class keeps
+ * ints instead of strings. Ids are never reused; the pool only grows, by
+ * the distinct names of the projects opened.
+ *
+ * @author Gaurav Gupta
+ */
+final class NamePool {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[1024];
+    private static int size;
+
+    private NamePool() {
+    }
+
+    /**
+     * @param name a name
+     * @return the id of the name, assigned on first use
+     */
+    static int id(String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (NamePool.class) {
+            id = IDS.get(name);
+            if (id == null) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                names[size] = name;
+                id = size++;
+                // published after the name is stored
+                IDS.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @param id an id returned by {@link #id(String)}
+     * @return the name
+     */
+    static String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * @param name a name, may be {@code null}
+     * @return the pooled instance of the name
+     */
+    static String intern(String name) {
+        return name == null ? null : name(id(name));
+    }
+}
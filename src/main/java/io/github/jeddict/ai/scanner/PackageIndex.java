@@ -0,0 +1,181 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import org.openide.filesystems.FileObject;
+
+/**
+ * The classes of an index snapshot partitioned by package folder, which
+ * tells both the source root and the package apart.
+ *
+ * <p>
+ * Each package keeps the signatures of its classes joined into one block,
+ * built on first use. A new snapshot takes over the package of the previous
+ * one while it holds the same classes, so a change rebuilds the block of
+ * its own package only and the project context is a join of ready blocks.
+ *
+ * @author Gaurav Gupta
+ */
+final class PackageIndex {
+
+    static final String SEPARATOR = "\n------------\n";
+
+    private final Map<FileObject, Partition> partitions; // folder is key, by path
+    private final Map<String, List<FileObject>> files = new HashMap<>(); // file name is key
+    private final Map<FileObject, ClassData> classes;
+
+    /**
+     * @param classes the classes by file of a snapshot
+     * @param previous the index of the previous snapshot, may be
+     * {@code null}
+     */
+    PackageIndex(Map<FileObject, ClassData> classes, PackageIndex previous) {
+        this.classes = classes;
+        Map<FileObject, Map<String, FileObject>> byFolder = new HashMap<>();
+        for (FileObject file : classes.keySet()) {
+            byFolder.computeIfAbsent(file.getParent(), folder -> new TreeMap<>()).put(file.getNameExt(), file);
+            files.computeIfAbsent(file.getName(), name -> new ArrayList<>(1)).add(file);
+        }
+        List<FileObject> folders = new ArrayList<>(byFolder.keySet());
+        folders.sort(Comparator.comparing(FileObject::getPath));
+        partitions = new LinkedHashMap<>();
+        for (FileObject folder : folders) {
+            Partition partition = new Partition(new ArrayList<>(byFolder.get(folder).values()), classes);
+            Partition old = previous == null ? null : previous.partitions.get(folder);
+            partitions.put(folder, old != null && old.classes.equals(partition.classes) ? old : partition);
+        }
+    }
+
+    /**
+     * @param folder a package folder
+     * @param exclude the file left out, may be {@code null}
+     * @return the classes of the package, by file name
+     */
+    List<ClassData> packageClasses(FileObject folder, FileObject exclude) {
+        Partition partition = partitions.get(folder);
+        if (partition == null) {
+            return List.of();
+        }
+        List<ClassData> result = new ArrayList<>(partition.classes.size());
+        for (int i = 0; i < partition.files.size(); i++) {
+            if (!partition.files.get(i).equals(exclude)) {
+                result.add(partition.classes.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param exclude the file left out, may be {@code null}
+     * @return the classes of all packages, package by package
+     */
+    List<ClassData> allClasses(FileObject exclude) {
+        List<ClassData> result = new ArrayList<>(classes.size());
+        for (FileObject folder : partitions.keySet()) {
+            result.addAll(packageClasses(folder, exclude));
+        }
+        return result;
+    }
+
+    /**
+     * @param names the simple names of the files
+     * @param exclude the file left out, may be {@code null}
+     * @return the classes of files with any of the names
+     */
+    List<ClassData> namedClasses(Collection<String> names, FileObject exclude) {
+        Set<ClassData> result = new LinkedHashSet<>();
+        for (String name : names) {
+            for (FileObject file : files.getOrDefault(name, List.of())) {
+                if (!file.equals(exclude)) {
+                    result.add(classes.get(file));
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * @param folder a package folder
+     * @return the signatures of the classes of the package, joined once
+     */
+    String packageContent(FileObject folder) {
+        Partition partition = partitions.get(folder);
+        return partition == null ? "" : partition.block();
+    }
+
+    /**
+     * @param exclude the file left out, may be {@code null}
+     * @return the signatures of all classes, package by package
+     */
+    String content(FileObject exclude) {
+        FileObject excludedFolder = exclude == null ? null : exclude.getParent();
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        joiner.setEmptyValue("");
+        for (Map.Entry<FileObject, Partition> entry : partitions.entrySet()) {
+            Partition partition = entry.getValue();
+            String block = entry.getKey().equals(excludedFolder) && partition.files.contains(exclude)
+                    ? join(packageClasses(entry.getKey(), exclude))
+                    : partition.block();
+            if (!block.isEmpty()) {
+                joiner.add(block);
+            }
+        }
+        return joiner.toString();
+    }
+
+    private static String join(List<ClassData> classes) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        for (ClassData classData : classes) {
+            joiner.add(classData.toString());
+        }
+        return joiner.toString();
+    }
+
+    private static final class Partition {
+
+        private final List<FileObject> files;
+        private final List<ClassData> classes;
+        private volatile String block;
+
+        Partition(List<FileObject> files, Map<FileObject, ClassData> index) {
+            this.files = files;
+            this.classes = new ArrayList<>(files.size());
+            for (FileObject file : files) {
+                classes.add(index.get(file));
+            }
+        }
+
+        String block() {
+            String current = block;
+            if (current == null) {
+                current = join(classes);
+                block = current;
+            }
+            return current;
+        }
+    }
+}
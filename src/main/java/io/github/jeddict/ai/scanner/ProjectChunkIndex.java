@@ -0,0 +1,682 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import io.github.jeddict.ai.settings.PreferencesManager;
+import static io.github.jeddict.ai.util.SourceUtil.removeJavadoc;
+import java.beans.PropertyChangeEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.netbeans.api.java.project.JavaProjectConstants;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.netbeans.api.project.SourceGroup;
+import org.netbeans.api.project.Sources;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+import org.openide.util.RequestProcessor;
+
+/**
+ * The source chunks of a project in a vector index, to send a question
+ * about the project the chunks nearest to it rather than every file.
+ *
+ * <p>
+ * Files are split by {@link CodeChunker} and embedded by the
+ * {@link EmbeddingProvider#getDefault() default provider} into an
+ * {@link HnswIndex} under the IDE cache folder, next to a small file with
+ * the chunk of each node and the time of each file. Before a search the
+ * files asked about are compared by time with the index and only the
+ * changed ones are embedded again; files already indexed under the Java
+ * and resource source roots are also updated in the background when they
+ * change. The chunks of a changed file are deleted from the graph and the
+ * graph is rebuilt once the deleted chunks outnumber the others.
+ *
+ * <p>
+ * Files and questions are embedded outside the lock of the index, which is
+ * held only to look up and store nodes; a file that cannot be embedded keeps
+ * its previous chunks. An index is closed when its project is closed.
+ *
+ * @author Gaurav Gupta
+ */
+public final class ProjectChunkIndex implements FileChangeListener {
+
+    private static final Logger LOG = Logger.getLogger(ProjectChunkIndex.class.getName());
+
+    private static final String INDEX_DIRECTORY = "jeddict/chunks";
+    private static final int MAGIC = 0x4A434E4B;
+    private static final int VERSION = 1;
+    /**
+     * Up to this many chunks in scope are compared one by one, exactly.
+     */
+    private static final int EXACT_SEARCH_LIMIT = 4_000;
+    private static final int SAVE_DELAY = 5_000;
+    private static final int BATCH_DELAY = 500;
+
+    private static final RequestProcessor RP = new RequestProcessor(ProjectChunkIndex.class.getName(), 1);
+
+    private static final Map<String, ProjectChunkIndex> indexes = new HashMap<>(); // project is key
+    private static boolean listening;
+
+    private final Project project;
+    private final FileObject projectDirectory;
+    private final EmbeddingProvider provider;
+    private final Path metaFile;
+    private final RequestProcessor.Task save = RP.create(this::save);
+    private final RequestProcessor.Task batch = RP.create(this::indexBatch);
+
+    private HnswIndex vectors;
+    private Path vectorFile;
+    private long generation;
+    /**
+     * The chunk of each node, {@code null} once deleted.
+     */
+    private Chunk[] chunks = new Chunk[256];
+    private final Map<String, IndexedFile> files = new HashMap<>(); // relative path is key
+    private final Set<FileObject> changed = ConcurrentHashMap.newKeySet();
+    private final List<FileObject> sourceRoots = new ArrayList<>();
+
+    private ProjectChunkIndex(Project project, EmbeddingProvider provider) {
+        this.project = project;
+        this.projectDirectory = project.getProjectDirectory();
+        this.provider = provider;
+        this.metaFile = Places.getCacheSubdirectory(INDEX_DIRECTORY).toPath().resolve(hash(key(project)) + ".chunks");
+    }
+
+    /**
+     * @param project the project
+     * @return the chunk index of the project, read from disk or empty
+     */
+    public static synchronized ProjectChunkIndex get(Project project) {
+        if (!listening) {
+            OpenProjects.getDefault().addPropertyChangeListener(ProjectChunkIndex::projectsChanged);
+            listening = true;
+        }
+        return indexes.computeIfAbsent(key(project), key -> {
+            ProjectChunkIndex index = new ProjectChunkIndex(project, EmbeddingProvider.getDefault());
+            index.open();
+            return index;
+        });
+    }
+
+    /**
+     * Closes all indexes.
+     */
+    public static synchronized void clear() {
+        for (ProjectChunkIndex index : indexes.values()) {
+            index.close();
+        }
+        indexes.clear();
+    }
+
+    private static void projectsChanged(PropertyChangeEvent event) {
+        if (!OpenProjects.PROPERTY_OPEN_PROJECTS.equals(event.getPropertyName())) {
+            return;
+        }
+        Set<String> open = new HashSet<>();
+        for (Project project : OpenProjects.getDefault().getOpenProjects()) {
+            open.add(key(project));
+        }
+        synchronized (ProjectChunkIndex.class) {
+            for (Iterator<Map.Entry<String, ProjectChunkIndex>> it = indexes.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, ProjectChunkIndex> entry = it.next();
+                if (!open.contains(entry.getKey())) {
+                    entry.getValue().close();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the given files up to date and returns their chunks nearest to
+     * a question, grouped by file.
+     *
+     * @param scope the files to search
+     * @param question the question
+     * @param limit the most chunks to return
+     * @return the chunks as text, each headed by its file and lines, or
+     * {@code null} if the index or the question cannot be used, to send the
+     * files whole instead
+     */
+    public String search(Set<FileObject> scope, String question, int limit) {
+        Map<String, FileObject> paths = new HashMap<>();
+        for (FileObject file : scope) {
+            String path = FileUtil.getRelativePath(projectDirectory, file);
+            if (path != null) {
+                paths.put(path, file);
+            }
+        }
+        List<Stale> stale = stale(paths);
+        if (stale == null) {
+            return null;
+        }
+        update(embed(stale));
+        float[] query;
+        try {
+            query = provider.embed(question);
+        } catch (RuntimeException ex) {
+            LOG.log(Level.INFO, "Cannot embed the question for the chunk index " + metaFile, ex);
+            return null;
+        }
+        List<Chunk> nearest = nearest(paths.keySet(), query, limit);
+        return nearest == null ? null : format(nearest);
+    }
+
+    /**
+     * @return the files of the scope to embed again, {@code null} if the
+     * index is not available
+     */
+    private synchronized List<Stale> stale(Map<String, FileObject> paths) {
+        if (vectors == null) {
+            return null;
+        }
+        List<Stale> stale = new ArrayList<>();
+        for (Map.Entry<String, FileObject> entry : paths.entrySet()) {
+            addIfStale(entry.getValue(), entry.getKey(), stale);
+        }
+        return stale;
+    }
+
+    private synchronized List<Chunk> nearest(Set<String> paths, float[] query, int limit) {
+        if (vectors == null) {
+            return null;
+        }
+        List<Integer> nodes = new ArrayList<>();
+        for (String path : paths) {
+            IndexedFile indexed = files.get(path);
+            if (indexed != null) {
+                for (int node : indexed.nodes()) {
+                    nodes.add(node);
+                }
+            }
+        }
+        int[] nearest;
+        if (nodes.size() <= EXACT_SEARCH_LIMIT) {
+            Map<Integer, Float> similarities = new HashMap<>();
+            for (int node : nodes) {
+                similarities.put(node, vectors.similarity(query, node));
+            }
+            nearest = nodes.stream()
+                    .sorted(Comparator.comparing(similarities::get, Comparator.reverseOrder()))
+                    .limit(limit)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        } else {
+            Set<Integer> allowed = new HashSet<>(nodes);
+            nearest = vectors.search(query, limit, Math.max(limit * 4, 100), allowed::contains);
+        }
+        List<Chunk> nearestChunks = new ArrayList<>(nearest.length);
+        for (int node : nearest) {
+            nearestChunks.add(chunks[node]);
+        }
+        return nearestChunks;
+    }
+
+    private String format(List<Chunk> nearest) {
+        Map<String, List<Chunk>> byFile = new TreeMap<>();
+        for (Chunk chunk : nearest) {
+            byFile.computeIfAbsent(chunk.path(), path -> new ArrayList<>()).add(chunk);
+        }
+        boolean excludeJavadoc = PreferencesManager.getInstance().isExcludeJavadocEnabled();
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Chunk>> entry : byFile.entrySet()) {
+            FileObject file = projectDirectory.getFileObject(entry.getKey());
+            String[] lines;
+            try {
+                lines = file == null ? null : file.asText().split("\r\n|\r|\n", -1);
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot read " + file, ex);
+                lines = null;
+            }
+            if (lines == null) {
+                continue;
+            }
+            entry.getValue().sort(Comparator.comparingInt(Chunk::startLine));
+            for (Chunk chunk : entry.getValue()) {
+                String text = CodeChunker.slice(lines, chunk.startLine(), chunk.endLine());
+                if (excludeJavadoc && entry.getKey().endsWith(".java")) {
+                    text = removeJavadoc(text);
+                }
+                sb.append("File: ").append(entry.getKey())
+                        .append(" (lines ").append(chunk.startLine()).append('-').append(chunk.endLine()).append(")\n")
+                        .append(text)
+                        .append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Drops the chunks of a deleted file, or adds the file to embed again if
+     * it changed since it was indexed.
+     */
+    private void addIfStale(FileObject file, String path, List<Stale> stale) {
+        IndexedFile indexed = files.get(path);
+        if (!file.isValid()) {
+            if (indexed != null) {
+                delete(path, indexed);
+            }
+            return;
+        }
+        long lastModified = file.lastModified().getTime();
+        if (indexed == null || indexed.lastModified() != lastModified) {
+            stale.add(new Stale(file, path, lastModified));
+        }
+    }
+
+    /**
+     * Chunks and embeds files without holding the lock of the index; a file
+     * that cannot be read or embedded is left out and keeps its previous
+     * chunks.
+     */
+    private List<Embedded> embed(List<Stale> stale) {
+        List<Embedded> embedded = new ArrayList<>();
+        for (Stale file : stale) {
+            try {
+                List<CodeChunker.Chunk> fileChunks = CodeChunker.chunks(file.file().getNameExt(), file.file().asText());
+                float[][] fileVectors = new float[fileChunks.size()][];
+                for (int i = 0; i < fileVectors.length; i++) {
+                    CodeChunker.Chunk chunk = fileChunks.get(i);
+                    fileVectors[i] = provider.embed(file.path() + '\n' + chunk.title() + '\n' + chunk.text());
+                }
+                embedded.add(new Embedded(file, fileChunks, fileVectors));
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.INFO, "Cannot index the chunks of " + file.file(), ex);
+            }
+        }
+        return embedded;
+    }
+
+    /**
+     * Replaces the chunks of the embedded files, unless the file changed
+     * again or was indexed by another search meanwhile.
+     */
+    private synchronized void update(List<Embedded> embedded) {
+        if (vectors == null) {
+            return;
+        }
+        for (Embedded file : embedded) {
+            Stale source = file.source();
+            IndexedFile indexed = files.get(source.path());
+            if (!source.file().isValid() || source.file().lastModified().getTime() != source.lastModified()
+                    || (indexed != null && indexed.lastModified() == source.lastModified())) {
+                continue;
+            }
+            int[] nodes = new int[file.vectors().length];
+            int added = 0;
+            try {
+                for (; added < nodes.length; added++) {
+                    nodes[added] = vectors.add(file.vectors()[added]);
+                    if (nodes[added] >= chunks.length) {
+                        chunks = Arrays.copyOf(chunks, Math.max(nodes[added] + 1, chunks.length * 2));
+                    }
+                    CodeChunker.Chunk chunk = file.chunks().get(added);
+                    chunks[nodes[added]] = new Chunk(source.path(), chunk.startLine(), chunk.endLine());
+                }
+            } catch (IOException ex) {
+                LOG.log(Level.INFO, "Cannot index the chunks of " + source.file(), ex);
+                for (int i = 0; i < added; i++) {
+                    vectors.delete(nodes[i]);
+                    chunks[nodes[i]] = null;
+                }
+                continue;
+            }
+            if (indexed != null) {
+                delete(source.path(), indexed);
+            }
+            files.put(source.path(), new IndexedFile(source.lastModified(), nodes));
+        }
+        if (vectors.size() > 256 && vectors.deleted() > vectors.size() / 2) {
+            rebuild();
+        }
+        save.schedule(SAVE_DELAY);
+    }
+
+    private void delete(String path, IndexedFile indexed) {
+        for (int node : indexed.nodes()) {
+            vectors.delete(node);
+            chunks[node] = null;
+        }
+        files.remove(path);
+    }
+
+    /**
+     * Copies the chunks left into a new graph, without the deleted ones.
+     */
+    private void rebuild() {
+        Path file = vectorFile(generation + 1);
+        try {
+            HnswIndex rebuilt = HnswIndex.create(file, provider.getDimension());
+            Chunk[] rebuiltChunks = new Chunk[Math.max(256, vectors.size() - vectors.deleted())];
+            Map<String, IndexedFile> rebuiltFiles = new HashMap<>();
+            for (Map.Entry<String, IndexedFile> entry : files.entrySet()) {
+                int[] nodes = entry.getValue().nodes().clone();
+                for (int i = 0; i < nodes.length; i++) {
+                    int node = rebuilt.add(vectors.vector(nodes[i]));
+                    rebuiltChunks[node] = chunks[nodes[i]];
+                    nodes[i] = node;
+                }
+                rebuiltFiles.put(entry.getKey(), new IndexedFile(entry.getValue().lastModified(), nodes));
+            }
+            HnswIndex previous = vectors;
+            Path previousFile = vectorFile;
+            vectors = rebuilt;
+            vectorFile = file;
+            chunks = rebuiltChunks;
+            files.clear();
+            files.putAll(rebuiltFiles);
+            generation++;
+            previous.close();
+            deleteQuietly(previousFile);
+        } catch (IOException ex) {
+            LOG.log(Level.INFO, "Cannot rebuild the chunk index " + file, ex);
+            deleteQuietly(file);
+        }
+    }
+
+    private void open() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(metaFile))))) {
+            if (read(in)) {
+                listen();
+                return;
+            }
+        } catch (NoSuchFileException ex) {
+            // indexed on the first search
+        } catch (IOException ex) {
+            LOG.log(Level.INFO, "Cannot read the chunk index " + metaFile + ", rebuilding", ex);
+        }
+        files.clear();
+        chunks = new Chunk[256];
+        try {
+            Files.createDirectories(metaFile.getParent());
+            String prefix = metaFile.getFileName().toString().replace(".chunks", "-");
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(metaFile.getParent(), prefix + "*.vectors")) {
+                stale.forEach(ProjectChunkIndex::deleteQuietly);
+            }
+            generation++;
+            vectorFile = vectorFile(generation);
+            vectors = HnswIndex.create(vectorFile, provider.getDimension());
+            listen();
+        } catch (IOException ex) {
+            LOG.log(Level.INFO, "Cannot create the chunk index " + metaFile, ex);
+        }
+    }
+
+    private boolean read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION
+                || !provider.getId().equals(in.readUTF()) || in.readInt() != provider.getDimension()) {
+            return false;
+        }
+        generation = in.readLong();
+        int fileCount = in.readInt();
+        String[] paths = new String[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            paths[i] = in.readUTF();
+            int[] nodes = new int[in.readInt()];
+            for (int j = 0; j < nodes.length; j++) {
+                nodes[j] = in.readInt();
+            }
+            files.put(paths[i], new IndexedFile(in.readLong(), nodes));
+        }
+        int nodeCount = in.readInt();
+        chunks = new Chunk[Math.max(256, nodeCount)];
+        for (int node = 0; node < nodeCount; node++) {
+            int path = in.readInt();
+            int startLine = in.readInt();
+            int endLine = in.readInt();
+            if (path >= 0) {
+                chunks[node] = new Chunk(paths[path], startLine, endLine);
+            }
+        }
+        vectorFile = vectorFile(generation);
+        vectors = HnswIndex.open(vectorFile, generation, in);
+        if (vectors != null && vectors.size() != nodeCount) {
+            vectors.close();
+            vectors = null;
+        }
+        return vectors != null;
+    }
+
+    private synchronized void save() {
+        if (vectors == null) {
+            return;
+        }
+        Path temp = null;
+        try {
+            vectors.flush(generation);
+            temp = Files.createTempFile(metaFile.getParent(), "chunks", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(provider.getId());
+                out.writeInt(provider.getDimension());
+                out.writeLong(generation);
+                Map<String, Integer> pathNumbers = new HashMap<>();
+                out.writeInt(files.size());
+                for (Map.Entry<String, IndexedFile> entry : files.entrySet()) {
+                    pathNumbers.put(entry.getKey(), pathNumbers.size());
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().nodes().length);
+                    for (int node : entry.getValue().nodes()) {
+                        out.writeInt(node);
+                    }
+                    out.writeLong(entry.getValue().lastModified());
+                }
+                out.writeInt(vectors.size());
+                for (int node = 0; node < vectors.size(); node++) {
+                    Chunk chunk = chunks[node];
+                    out.writeInt(chunk == null ? -1 : pathNumbers.get(chunk.path()));
+                    out.writeInt(chunk == null ? 0 : chunk.startLine());
+                    out.writeInt(chunk == null ? 0 : chunk.endLine());
+                }
+                vectors.writeLinks(out);
+            }
+            Files.move(temp, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOG.log(Level.INFO, "Cannot write the chunk index " + metaFile, ex);
+            deleteQuietly(temp);
+        }
+    }
+
+    private void listen() {
+        Sources sources = ProjectUtils.getSources(project);
+        for (String type : new String[]{JavaProjectConstants.SOURCES_TYPE_JAVA, JavaProjectConstants.SOURCES_TYPE_RESOURCES}) {
+            for (SourceGroup group : sources.getSourceGroups(type)) {
+                FileObject root = group.getRootFolder();
+                if (!sourceRoots.contains(root)) {
+                    root.addRecursiveListener(this);
+                    sourceRoots.add(root);
+                }
+            }
+        }
+    }
+
+    private synchronized void close() {
+        for (FileObject root : sourceRoots) {
+            root.removeRecursiveListener(this);
+        }
+        sourceRoots.clear();
+        batch.cancel();
+        save.cancel();
+        save();
+        if (vectors != null) {
+            try {
+                vectors.close();
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot close " + vectorFile, ex);
+            }
+            vectors = null;
+        }
+    }
+
+    @Override
+    public void fileChanged(FileEvent fe) {
+        changed(fe.getFile());
+    }
+
+    @Override
+    public void fileDeleted(FileEvent fe) {
+        changed(fe.getFile());
+    }
+
+    @Override
+    public void fileRenamed(FileRenameEvent fe) {
+        // the old path is dropped when its file is found invalid, the new one is indexed on the next search
+        changed(fe.getFile());
+    }
+
+    @Override
+    public void fileFolderCreated(FileEvent fe) {
+    }
+
+    @Override
+    public void fileDataCreated(FileEvent fe) {
+    }
+
+    @Override
+    public void fileAttributeChanged(FileAttributeEvent fe) {
+    }
+
+    /**
+     * Only files already indexed are followed; new files are indexed when
+     * first searched.
+     */
+    private void changed(FileObject file) {
+        changed.add(file);
+        batch.schedule(BATCH_DELAY);
+    }
+
+    private void indexBatch() {
+        List<FileObject> batchFiles = new ArrayList<>(changed);
+        changed.removeAll(batchFiles);
+        List<Stale> stale = staleIndexed(batchFiles);
+        if (stale != null) {
+            update(embed(stale));
+        }
+    }
+
+    /**
+     * @return the changed files already indexed, {@code null} if the index
+     * is not available
+     */
+    private synchronized List<Stale> staleIndexed(List<FileObject> batchFiles) {
+        if (vectors == null) {
+            return null;
+        }
+        List<Stale> stale = new ArrayList<>();
+        boolean removed = false;
+        for (FileObject file : batchFiles) {
+            String path = FileUtil.getRelativePath(projectDirectory, file);
+            if (!file.isValid()) {
+                removed = true;
+            } else if (file.isData() && path != null && files.containsKey(path)) {
+                addIfStale(file, path, stale);
+            }
+        }
+        if (removed) {
+            for (Map.Entry<String, IndexedFile> entry : new ArrayList<>(files.entrySet())) {
+                FileObject file = projectDirectory.getFileObject(entry.getKey());
+                if (file == null || !file.isValid()) {
+                    delete(entry.getKey(), entry.getValue());
+                }
+            }
+            save.schedule(SAVE_DELAY);
+        }
+        return stale;
+    }
+
+    private Path vectorFile(long generation) {
+        String name = metaFile.getFileName().toString();
+        return metaFile.resolveSibling(name.substring(0, name.length() - ".chunks".length()) + '-' + generation + ".vectors");
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot delete " + file, ex);
+            }
+        }
+    }
+
+    private static String key(Project project) {
+        return project.getProjectDirectory().toString();
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Chunk(String path, int startLine, int endLine) {
+
+    }
+
+    private record IndexedFile(long lastModified, int[] nodes) {
+
+    }
+
+    /**
+     * A file whose chunks are older than the file.
+     */
+    private record Stale(FileObject file, String path, long lastModified) {
+
+    }
+
+    private record Embedded(Stale source, List<CodeChunker.Chunk> chunks, float[][] vectors) {
+
+    }
+}
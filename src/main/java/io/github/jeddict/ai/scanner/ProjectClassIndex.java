@@ -0,0 +1,287 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+
+/**
+ * The classes of one project, by source file.
+ *
+ * <p>
+ * Writers, the indexer and the change listener, update a concurrent map and
+ * bump a version. Readers get an immutable snapshot: the last one while the
+ * version is unchanged, without locking, else a copy taken once for all
+ * readers of that version. A snapshot never changes under a reader, so the
+ * context built from it is consistent.
+ *
+ * @author Gaurav Gupta
+ */
+final class ProjectClassIndex {
+
+    private static final Logger LOG = Logger.getLogger(ProjectClassIndex.class.getName());
+
+    private final Project project;
+    private final Map<FileObject, ClassData> classes;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(-1, Map.of());
+
+    private volatile PackageIndex lastPackages;
+    private final Bm25Index ranking = new Bm25Index();
+    private long rankingVersion = -1;
+
+    private volatile ProjectIndexer indexer;
+    private boolean closed;
+    private volatile ProjectClassListener listener;
+
+    /**
+     * @param project the project
+     * @param classes the classes read from disk, may be empty
+     */
+    ProjectClassIndex(Project project, Map<FileObject, ClassData> classes) {
+        this.project = project;
+        this.classes = new ConcurrentHashMap<>(classes);
+    }
+
+    Project getProject() {
+        return project;
+    }
+
+    /**
+     * Starts indexing the project and listening to changes of its classes.
+     */
+    void open() {
+        listener = new ProjectClassListener(project, this);
+        listener.register();
+        indexer = new ProjectIndexer(project, this);
+        indexer.start();
+    }
+
+    /**
+     * @return whether the last scan was cancelled, e.g. from its progress
+     * bar, before it completed
+     */
+    boolean isIndexingCancelled() {
+        ProjectIndexer currentIndexer = indexer;
+        return currentIndexer != null && currentIndexer.isCancelled();
+    }
+
+    /**
+     * Starts indexing again if the last scan was cancelled, to index the
+     * files it left out.
+     */
+    synchronized void resumeIndexing() {
+        ProjectIndexer currentIndexer = indexer;
+        if (!closed && currentIndexer != null && currentIndexer.isCancelled()) {
+            indexer = new ProjectIndexer(project, this);
+            indexer.start();
+        }
+    }
+
+    /**
+     * Stops indexing and listening, and saves the index.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        ProjectIndexer currentIndexer = indexer;
+        if (currentIndexer != null) {
+            currentIndexer.cancel();
+        }
+        ProjectClassListener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.unregister();
+        }
+        ClassIndexStore.getInstance().saveLater(project, this::snapshot);
+    }
+
+    /**
+     * @return whether every file of the project is indexed
+     */
+    boolean isComplete() {
+        ProjectIndexer currentIndexer = indexer;
+        return currentIndexer == null || currentIndexer.isComplete();
+    }
+
+    /**
+     * @return the classes by file as of now; the map does not change
+     */
+    Map<FileObject, ClassData> snapshot() {
+        return current().classes;
+    }
+
+    /**
+     * @return the references between the classes of {@link #snapshot()}
+     */
+    TypeReferenceGraph graph() {
+        return current().graph();
+    }
+
+    /**
+     * @return the classes of {@link #snapshot()} by package
+     */
+    PackageIndex packages() {
+        Snapshot current = current();
+        PackageIndex packages = current.packages;
+        if (packages == null) {
+            synchronized (current) {
+                packages = current.packages;
+                if (packages == null) {
+                    // blocks of unchanged packages carry over from the last snapshot
+                    packages = new PackageIndex(current.classes, lastPackages);
+                    current.packages = packages;
+                    lastPackages = packages;
+                }
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Ranks the classes of {@link #snapshot()} against the terms of a query.
+     *
+     * @param terms the terms of the query
+     * @param exclude the file whose class is left out, may be {@code null}
+     * @param limit the most classes to return
+     * @return the classes matching the query, best first
+     */
+    List<ClassData> rank(Collection<String> terms, FileObject exclude, int limit) {
+        Snapshot current = current();
+        synchronized (ranking) {
+            if (rankingVersion != current.version) {
+                // only the classes changed since the last query are indexed again
+                ranking.update(current.classes.values());
+                rankingVersion = current.version;
+            }
+            return ranking.search(terms, exclude == null ? null : current.classes.get(exclude), limit);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current.version == version.get()) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            // read before copying: a write during the copy leaves it outdated, never lost
+            long copied = version.get();
+            if (current.version != copied) {
+                current = new Snapshot(copied, Map.copyOf(classes));
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    ClassData get(FileObject javaFile) {
+        return classes.get(javaFile);
+    }
+
+    /**
+     * @param lastModified the time of the file when it was scanned
+     * @param hash the hash of the file when it was scanned, {@code null} if
+     * it could not be read; the class is then not saved
+     */
+    void put(FileObject javaFile, ClassData classData, long lastModified, byte[] hash) {
+        classes.put(javaFile, classData);
+        version.incrementAndGet();
+        if (hash != null) {
+            ClassIndexStore.getInstance().stamp(project, javaFile, classData, lastModified, hash);
+        }
+    }
+
+    void remove(FileObject javaFile) {
+        if (classes.remove(javaFile) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    void retainAll(Collection<FileObject> javaFiles) {
+        if (classes.keySet().retainAll(javaFiles)) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops the classes of files deleted meanwhile.
+     */
+    void retainValid() {
+        if (classes.keySet().removeIf(javaFile -> !javaFile.isValid())) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Reads the class of a file again.
+     *
+     * @param javaFile a source file of the project
+     */
+    void scan(FileObject javaFile) {
+        Map<FileObject, ClassData> scanned = new HashMap<>(2);
+        // stamped before reading, an edit during the scan makes the class stale
+        long lastModified = javaFile.lastModified().getTime();
+        byte[] hash = ClassIndexStore.hash(javaFile);
+        try {
+            ProjectClassScanner.scanJavaFile(javaFile, scanned);
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot scan " + javaFile, ex);
+            return;
+        }
+        ClassData classData = scanned.get(javaFile);
+        if (classData != null) {
+            put(javaFile, classData, lastModified, hash);
+        } else {
+            remove(javaFile);
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final long version;
+        private final Map<FileObject, ClassData> classes;
+        private volatile TypeReferenceGraph graph;
+        private volatile PackageIndex packages;
+
+        Snapshot(long version, Map<FileObject, ClassData> classes) {
+            this.version = version;
+            this.classes = classes;
+        }
+
+        /**
+         * @return the graph of the snapshot, built on first use; racing
+         * readers may each build an equal one
+         */
+        TypeReferenceGraph graph() {
+            TypeReferenceGraph current = graph;
+            if (current == null) {
+                current = new TypeReferenceGraph(classes);
+                graph = current;
+            }
+            return current;
+        }
+    }
+}
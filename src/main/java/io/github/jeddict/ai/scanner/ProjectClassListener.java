@@ -15,72 +15,157 @@
  */
 package io.github.jeddict.ai.scanner;
 
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.netbeans.api.project.Project;
-import org.netbeans.api.project.ProjectUtils;
-import org.netbeans.api.project.SourceGroup;
-import org.netbeans.api.project.Sources;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
 import org.openide.filesystems.FileObject;
-import org.openide.filesystems.FileUtil;
-import org.openide.loaders.DataObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.util.RequestProcessor;
 
 /**
+ * Keeps the class index of a project in line with its Java sources.
+ *
+ * <p>
+ * Listens recursively to the 'src/main/java' folders of the project only,
+ * so it sees files saved in the editor as well as files changed on disk by
+ * a checkout, a build or the agent tools once the IDE refreshes them.
+ * Changes are collected and indexed in one batch in the background after
+ * the events have stopped for a moment; a pull touching hundreds of files
+ * scans just those files once.
  *
  * @author Gaurav Gupta
  */
-public class ProjectClassListener {
+public class ProjectClassListener implements FileChangeListener {
+
+    private static final Logger LOG = Logger.getLogger(ProjectClassListener.class.getName());
+
+    /**
+     * How long after the last change the batch is indexed.
+     */
+    private static final int BATCH_DELAY = 500;
+
+    private static final RequestProcessor RP = new RequestProcessor(ProjectClassListener.class.getName(), 1);
 
     private final Project project;
+    private final ProjectClassIndex classDatas;
+    private final List<FileObject> javaFolders = new ArrayList<>();
+    private final RequestProcessor.Task batch = RP.create(this::indexBatch);
 
-    private final Map<FileObject, ClassData> classDatas;
-    private final Set<DataObject> pendingDO = new HashSet<>();
+    private Set<FileObject> changed = new HashSet<>();
+    private boolean removed;
 
-    public ProjectClassListener(Project project, Map<FileObject, ClassData> classDatas) {
+    ProjectClassListener(Project project, ProjectClassIndex classDatas) {
         this.project = project;
         this.classDatas = classDatas;
     }
 
-    public Set<DataObject> getPendingDataObject() {
-        return pendingDO;
+    public void register() {
+        for (FileObject javaFolder : ProjectClassScanner.collectJavaFolders(project)) {
+            javaFolder.addRecursiveListener(this);
+            javaFolders.add(javaFolder);
+        }
     }
 
-    public void register() {
-        // Get source groups from the project (Java source folders)
-        Sources sources = ProjectUtils.getSources(project);
-        SourceGroup[] sourceGroups = sources.getSourceGroups(Sources.TYPE_GENERIC);
-
-        FileObject javaFolder = null;
-        for (SourceGroup group : sourceGroups) {
-            // Get the root folder of the source group
-            FileObject rootFolder = group.getRootFolder();
-
-            // Check if the root folder has a 'src/main/java' folder
-            FileObject srcFolder = rootFolder.getFileObject("src");
-            if (srcFolder != null) {
-                FileObject mainFolder = srcFolder.getFileObject("main");
-                if (mainFolder != null) {
-                    javaFolder = mainFolder.getFileObject("java");
-                }
-            }
+    public void unregister() {
+        for (FileObject javaFolder : javaFolders) {
+            javaFolder.removeRecursiveListener(this);
+        }
+        javaFolders.clear();
+        batch.cancel();
+        synchronized (this) {
+            changed.clear();
         }
+    }
+
+    @Override
+    public void fileFolderCreated(FileEvent fe) {
+        queueChildren(fe.getFile());
+    }
+
+    @Override
+    public void fileDataCreated(FileEvent fe) {
+        changed(fe.getFile());
+    }
 
-        FileObject javaFolder2 = javaFolder;
-        // Listen for changes in the DataObject Registry
-        DataObject.Registry registry = DataObject.getRegistry();
-        registry.addChangeListener((e) -> {
-            DataObject[] modifiedObjects = registry.getModified();
-            for (DataObject dataObj : modifiedObjects) {
-                if (FileUtil.isParentOf(javaFolder2, dataObj.getPrimaryFile())) {
-                    pendingDO.add(dataObj);
-                    classDatas.remove(dataObj.getPrimaryFile());
-                    System.out.println("Modified DataObject: " + dataObj.getName());
-                } else {
-                    System.out.println("");
-                }
+    @Override
+    public void fileChanged(FileEvent fe) {
+        changed(fe.getFile());
+    }
+
+    @Override
+    public void fileDeleted(FileEvent fe) {
+        if (fe.getFile().isFolder()) {
+            // its classes go with it
+            synchronized (this) {
+                removed = true;
+                batch.schedule(BATCH_DELAY);
             }
-        });
+        } else {
+            changed(fe.getFile());
+        }
     }
 
+    @Override
+    public void fileRenamed(FileRenameEvent fe) {
+        FileObject file = fe.getFile();
+        if (file.isFolder()) {
+            // the classes below are in another package now
+            queueChildren(file);
+        } else if ("java".equals(fe.getExt()) || "java".equals(file.getExt())) {
+            queue(file);
+        }
+    }
+
+    @Override
+    public void fileAttributeChanged(FileAttributeEvent fe) {
+    }
+
+    private void changed(FileObject file) {
+        if ("java".equals(file.getExt())) {
+            queue(file);
+        }
+    }
+
+    private void queueChildren(FileObject folder) {
+        Enumeration<? extends FileObject> children = folder.getChildren(true);
+        while (children.hasMoreElements()) {
+            changed(children.nextElement());
+        }
+    }
+
+    private synchronized void queue(FileObject file) {
+        changed.add(file);
+        batch.schedule(BATCH_DELAY);
+    }
+
+    private void indexBatch() {
+        Set<FileObject> files;
+        boolean dropInvalid;
+        synchronized (this) {
+            files = changed;
+            dropInvalid = removed;
+            changed = new HashSet<>();
+            removed = false;
+        }
+        if (dropInvalid) {
+            classDatas.retainValid();
+        }
+        for (FileObject file : files) {
+            if (file.isValid() && "java".equals(file.getExt())) {
+                classDatas.scan(file);
+            } else {
+                classDatas.remove(file);
+            }
+        }
+        LOG.log(Level.FINE, "Indexed {0} changed files", files.size());
+        ClassIndexStore.getInstance().saveLater(project, classDatas::snapshot);
+    }
 }
@@ -22,23 +22,32 @@ import com.sun.source.tree.ModifiersTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import io.github.jeddict.ai.lang.JeddictChatModel;
+import io.github.jeddict.ai.response.TokenHandler;
 import io.github.jeddict.ai.settings.AIClassContext;
+import io.github.jeddict.ai.settings.PreferencesManager;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
-import static java.util.stream.Collectors.toList;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.netbeans.api.editor.EditorRegistry;
@@ -51,12 +60,41 @@ import org.netbeans.api.project.SourceGroup;
 import org.netbeans.api.project.Sources;
 import org.openide.filesystems.FileObject;
 import org.openide.loaders.DataObject;
-import org.openide.util.Exceptions;
 
 public class ProjectClassScanner {
 
+    /**
+     * The most classes ranked for the entire project context, more than fit
+     * in a usual token budget.
+     */
+    private static final int RANKED_CLASSES = 200;
+
     public static Map<FileObject, ClassData> scanProjectClasses(Project project) throws IOException {
-        Map<FileObject, ClassData> classList = new HashMap<>();
+        Map<FileObject, ClassData> classList = new ConcurrentHashMap<>();
+        for (FileObject javaFile : collectJavaFiles(project)) {
+            scanJavaFile(javaFile, classList);
+        }
+        return classList;
+    }
+
+    /**
+     * @param project the project
+     * @return the .java files of the 'src/main/java' folders of the project
+     */
+    static List<FileObject> collectJavaFiles(Project project) {
+        List<FileObject> javaFiles = new ArrayList<>();
+        for (FileObject javaFolder : collectJavaFolders(project)) {
+            collectFolder(javaFolder, javaFiles); // Scan the 'src/main/java' folder
+        }
+        return javaFiles;
+    }
+
+    /**
+     * @param project the project
+     * @return the 'src/main/java' folders of the source groups of the project
+     */
+    static List<FileObject> collectJavaFolders(Project project) {
+        List<FileObject> javaFolders = new ArrayList<>();
 
         if (project != null) {
             // Get source groups from the project (Java source folders)
@@ -68,29 +106,23 @@ public class ProjectClassScanner {
                 FileObject rootFolder = group.getRootFolder();
 
                 // Check if the root folder has a 'src/main/java' folder
-                FileObject srcFolder = rootFolder.getFileObject("src");
-                if (srcFolder != null) {
-                    FileObject mainFolder = srcFolder.getFileObject("main");
-                    if (mainFolder != null) {
-                        FileObject javaFolder = mainFolder.getFileObject("java");
-                        if (javaFolder != null) {
-                            scanFolder(javaFolder, classList); // Scan the 'src/main/java' folder
-                        }
-                    }
+                FileObject javaFolder = rootFolder.getFileObject("src/main/java");
+                if (javaFolder != null && javaFolder.isFolder() && !javaFolders.contains(javaFolder)) {
+                    javaFolders.add(javaFolder);
                 }
             }
         }
 
-        return classList;
+        return javaFolders;
     }
 
-    // Recursively scan folders for .java files
-    private static void scanFolder(FileObject folder, Map<FileObject, ClassData> classList) throws IOException {
+    // Recursively collect .java files of folders
+    private static void collectFolder(FileObject folder, List<FileObject> javaFiles) {
         for (FileObject file : folder.getChildren()) {
             if (file.isFolder()) {
-                scanFolder(file, classList);
+                collectFolder(file, javaFiles);
             } else if (file.getExt().equals("java")) {
-                scanJavaFile(file, classList);
+                javaFiles.add(file);
             }
         }
     }
@@ -122,19 +154,30 @@ public class ProjectClassScanner {
 
                         String classWithoutMethodsBody = removeMethodBodies(cc, classTree, packageName);
                         ClassData classData1 = new ClassData(packageName, classElement.getSimpleName().toString(), classWithoutMethodsBody);
-                        classList.put(javaFile, classData1);
                         List<Map<String, String>> attributes = new ArrayList<>();
+                        addReferences(classData1, classElement.getSuperclass());
+                        for (TypeMirror iface : classElement.getInterfaces()) {
+                            addReferences(classData1, iface);
+                        }
                         for (Element element : classElement.getEnclosedElements()) {
                             if (element.getKind() == ElementKind.FIELD) {
                                 classData1.addSubTree(element.asType().toString());
+                                addReferences(classData1, element.asType());
                             } else if (element.getKind() == ElementKind.METHOD) {
                                 String type = element.asType().toString();
                                 if (type.startsWith("()")) {
                                     type = type.substring(2);
                                 }
                                 classData1.addSubTree(type);
+                                ExecutableElement method = (ExecutableElement) element;
+                                addReferences(classData1, method.getReturnType());
+                                for (VariableElement parameter : method.getParameters()) {
+                                    addReferences(classData1, parameter.asType());
+                                }
                             }
                         }
+                        // published complete, the index is read while it is filled
+                        classList.put(javaFile, classData1);
 
                     }
                 }
@@ -142,6 +185,36 @@ public class ProjectClassScanner {
         }
     }
 
+    // Adds the declared types of a type, its type arguments included
+    private static void addReferences(ClassData classData, TypeMirror type) {
+        switch (type.getKind()) {
+            case DECLARED -> {
+                DeclaredType declared = (DeclaredType) type;
+                String name = ((TypeElement) declared.asElement()).getQualifiedName().toString();
+                if (!name.startsWith("java.")) {
+                    classData.addReference(name);
+                }
+                for (TypeMirror argument : declared.getTypeArguments()) {
+                    addReferences(classData, argument);
+                }
+            }
+            case ARRAY ->
+                addReferences(classData, ((ArrayType) type).getComponentType());
+            case WILDCARD -> {
+                WildcardType wildcard = (WildcardType) type;
+                if (wildcard.getExtendsBound() != null) {
+                    addReferences(classData, wildcard.getExtendsBound());
+                }
+                if (wildcard.getSuperBound() != null) {
+                    addReferences(classData, wildcard.getSuperBound());
+                }
+            }
+            default -> {
+                // primitives, type variables and errors refer to no class
+            }
+        }
+    }
+
     private static String removeMethodBodies(CompilationController cc, ClassTree classTree, String packageName) {
         StringBuilder sb = new StringBuilder();
 
@@ -221,25 +294,61 @@ public class ProjectClassScanner {
                 .replace("\n\n", "\n");
     }
 
-    private static final Map<String, Map<FileObject, ClassData>> classData = new HashMap<>(); // project is key
-    private static final Map<String, ProjectClassListener> projectClassListeners = new HashMap<>(); // project is key
-    private static final Map<String, JeddictChatModel> models = new HashMap<>(); // class file is key
-
     public static void clear() {
-        classData.clear();
-        projectClassListeners.clear();
-        models.clear();
+        ClassIndexService.getInstance().clear();
+        ProjectVocabulary.clear();
+        ProjectChunkIndex.clear();
+    }
+
+    /**
+     * @param project the project
+     * @return the classes indexed so far, without scanning the project
+     */
+    public static List<ClassData> getIndexedClassData(Project project) {
+        ProjectClassIndex index = ClassIndexService.getInstance().find(project);
+        return index == null ? Collections.emptyList() : new ArrayList<>(index.snapshot().values());
+    }
+
+    /**
+     * @param project the project
+     * @return whether the class scan of the project was cancelled before it
+     * completed
+     */
+    public static boolean isIndexingCancelled(Project project) {
+        ProjectClassIndex index = ClassIndexService.getInstance().find(project);
+        return index != null && index.isIndexingCancelled();
+    }
+
+    /**
+     * Scans the files a cancelled class scan of the project left out.
+     *
+     * @param project the project
+     */
+    public static void resumeIndexing(Project project) {
+        ProjectClassIndex index = ClassIndexService.getInstance().find(project);
+        if (index != null) {
+            index.resumeIndexing();
+        }
     }
 
     public static JeddictChatModel getJeddictChatModel(FileObject fileObject) {
-//        String key = fileObject.toURL().toString();
-//        if (models.get(key) == null) {
-//            models.put(key, new JeddictChatModel());
-//        }
-//        return models.get(key);
         return new JeddictChatModel();
     }
 
+    /**
+     * Tells whether the class context of a file is built from the whole
+     * project, or from the part indexed so far while the project is being
+     * scanned.
+     *
+     * @param fileObject a file of the project
+     * @return {@code false} while the project index is incomplete
+     */
+    public static boolean isContextComplete(FileObject fileObject) {
+        Project project = fileObject == null ? null : FileOwnerQuery.getOwner(fileObject);
+        ProjectClassIndex index = project == null ? null : ClassIndexService.getInstance().find(project);
+        return index == null || index.isComplete();
+    }
+
     public static FileObject getFileObjectFromEditor(Document document) {
         if (document == null) {
             JTextComponent editor = EditorRegistry.lastFocusedComponent();
@@ -264,54 +373,19 @@ public class ProjectClassScanner {
         }
         Project project = FileOwnerQuery.getOwner(fileObject);
         if (project != null) {
-            try {
-                String key = project.getProjectDirectory().toString();
-                if (classData.get(key) == null) {
-                    Map<FileObject, ClassData> classDataList = scanProjectClasses(project);
-                    classData.put(key, classDataList);
-                    ProjectClassListener projectClassListener = new ProjectClassListener(project, classDataList);
-                    projectClassListener.register();
-                    projectClassListeners.put(key, projectClassListener);
-                }
-                if (projectClassListeners.get(key) != null) {
-                    Iterator<DataObject> iterator = projectClassListeners.get(key).getPendingDataObject().iterator();
-                    while (iterator.hasNext()) {
-                        DataObject javaFile = iterator.next();
-                        if (javaFile.getPrimaryFile().equals(fileObject)) {
-                            // Ignore current editor
-                            System.out.println("Ignoring " + fileObject.getName());
-                        } else {
-                            // Remove safely using the iterator
-                            iterator.remove();
-                            System.out.println("Rescanning " + javaFile.getName());
-                            scanJavaFile(javaFile, classData.get(key));
-                        }
-                    }
-                }
-
-                if (classAnalysisContext == AIClassContext.REFERENCED_CLASSES) {
-                    return classData.get(key).entrySet().stream()
-                            .filter(entry -> !entry.getKey().equals(fileObject))
-                            .filter(entry -> findReferencedClasses != null && findReferencedClasses.contains(entry.getKey().getName()))
-                            .map(entry -> entry.getValue())
-                            .collect(toList());
-                } else if (classAnalysisContext == AIClassContext.CURRENT_PACKAGE) {
-                    return classData.get(key).entrySet().stream()
-                            .filter(entry -> !entry.getKey().equals(fileObject))
-                            .filter(entry
-                                    -> (findReferencedClasses != null && findReferencedClasses.contains(entry.getKey().getName()))
-                            || (entry.getKey().getParent().equals(fileObject.getParent()))
-                            )
-                            .map(entry -> entry.getValue())
-                            .collect(toList());
-                } else if (classAnalysisContext == AIClassContext.ENTIRE_PROJECT) {
-                    return classData.get(key).entrySet().stream()
-                            .filter(entry -> !entry.getKey().equals(fileObject))
-                            .map(entry -> entry.getValue())
-                            .collect(toList());
-                }
-            } catch (IOException ex) {
-                Exceptions.printStackTrace(ex);
+            ProjectClassIndex index = ClassIndexService.getInstance().get(project);
+            // one snapshot per request, the index may change meanwhile
+            PackageIndex packages = index.packages();
+            Set<String> names = findReferencedClasses != null ? findReferencedClasses : Set.of();
+
+            if (classAnalysisContext == AIClassContext.REFERENCED_CLASSES) {
+                return packages.namedClasses(names, fileObject);
+            } else if (classAnalysisContext == AIClassContext.CURRENT_PACKAGE) {
+                Set<ClassData> classes = new LinkedHashSet<>(packages.packageClasses(fileObject.getParent(), fileObject));
+                classes.addAll(packages.namedClasses(names, fileObject));
+                return new ArrayList<>(classes);
+            } else if (classAnalysisContext == AIClassContext.ENTIRE_PROJECT) {
+                return packages.allClasses(fileObject);
             }
         }
         return Collections.emptyList();
@@ -348,11 +422,97 @@ public class ProjectClassScanner {
         return referencedClasses;
     }
 
+    /**
+     * Follows the type references of a file through the reference graph of
+     * its project.
+     *
+     * @param fileObject the file
+     * @param compilationUnit the parsed file
+     * @param depth the reference steps to follow, 1 for the classes the file
+     * uses directly
+     * @return the project classes reached, nearest first
+     */
+    public static List<ClassData> getReferencedClassData(FileObject fileObject, CompilationUnitTree compilationUnit, int depth) {
+        Project project = fileObject == null ? null : FileOwnerQuery.getOwner(fileObject);
+        if (project == null) {
+            return Collections.emptyList();
+        }
+        ProjectClassIndex index = ClassIndexService.getInstance().get(project);
+        TypeReferenceGraph graph = index.graph();
+        return graph.referenced(graph.roots(compilationUnit), depth, fileObject);
+    }
+
     public static String getClassDataContent(FileObject fileObject, CompilationUnitTree compilationUnit, AIClassContext activeClassContext) {
-        Set<String> findReferencedClasses = findReferencedClasses(compilationUnit);
-        List<ClassData> classDatas = getClassData(fileObject, findReferencedClasses, activeClassContext);
+        return getClassDataContent(fileObject, compilationUnit, activeClassContext, null);
+    }
+
+    /**
+     * @param fileObject the file
+     * @param compilationUnit the parsed file
+     * @param activeClassContext the classes to include
+     * @param query what the request is about, such as a compilation error;
+     * ranks the classes of a project too large for the entire project
+     * context, may be {@code null}
+     * @return the signatures of the classes
+     */
+    public static String getClassDataContent(FileObject fileObject, CompilationUnitTree compilationUnit, AIClassContext activeClassContext, String query) {
+        List<ClassData> classDatas;
+        if (activeClassContext == AIClassContext.ENTIRE_PROJECT) {
+            return getProjectContent(fileObject, compilationUnit, query);
+        } else if (activeClassContext == AIClassContext.REFERENCED_CLASSES) {
+            classDatas = getReferencedClassData(fileObject, compilationUnit,
+                    PreferencesManager.getInstance().getReferencedClassesDepth());
+        } else {
+            Set<String> findReferencedClasses = findReferencedClasses(compilationUnit);
+            classDatas = getClassData(fileObject, findReferencedClasses, activeClassContext);
+        }
         return classDatas.stream()
                 .map(cd -> cd.toString())
-                .collect(Collectors.joining("\n------------\n"));
+                .collect(Collectors.joining(PackageIndex.SEPARATOR));
+    }
+
+    /**
+     * @param fileObject the file, left out of the content
+     * @param compilationUnit the parsed file
+     * @param query what the request is about, may be {@code null}
+     * @return the signatures of the classes of the project, joined from the
+     * cached block of each package; if they exceed the token budget, the
+     * classes ranked best against the file and the query that fit in it
+     */
+    private static String getProjectContent(FileObject fileObject, CompilationUnitTree compilationUnit, String query) {
+        Project project = fileObject == null ? null : FileOwnerQuery.getOwner(fileObject);
+        if (project == null) {
+            return "";
+        }
+        ProjectClassIndex index = ClassIndexService.getInstance().get(project);
+        String content = index.packages().content(fileObject);
+        int budget = PreferencesManager.getInstance().getProjectContextTokenBudget();
+        // about four characters a token, exact counting of a whole project costs more than ranking it
+        if (budget <= 0 || content.length() / 4 <= budget) {
+            return content;
+        }
+        List<ClassData> ranked = index.rank(Bm25Index.queryTerms(compilationUnit, query), fileObject, RANKED_CLASSES);
+        return fit(ranked, budget, TokenHandler::countTokens);
+    }
+
+    /**
+     * @param classes the classes, best first
+     * @param budget the tokens the signatures may use
+     * @param counter counts the tokens of a text
+     * @return the signatures of the best classes that fit in the budget
+     */
+    static String fit(List<ClassData> classes, int budget, ToIntFunction<String> counter) {
+        int separator = counter.applyAsInt(PackageIndex.SEPARATOR);
+        StringJoiner joiner = new StringJoiner(PackageIndex.SEPARATOR);
+        int used = 0;
+        for (ClassData classData : classes) {
+            String signature = classData.toString();
+            int tokens = counter.applyAsInt(signature) + separator;
+            if (used + tokens <= budget) {
+                joiner.add(signature);
+                used += tokens;
+            }
+        }
+        return joiner.toString();
     }
 }
@@ -0,0 +1,386 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import io.github.jeddict.ai.response.TokenHandler;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import static io.github.jeddict.ai.util.ProjectUtil.getSourceFilesRelativePath;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.netbeans.modules.maven.api.NbMavenProject;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Keeps a {@link ProjectContextSnapshot} of each project, so that building a
+ * prompt reads it rather than the build file, the settings and the file
+ * tree.
+ *
+ * <p>
+ * The metadata and rules of a project are read on the first request; its
+ * file map is listed in the background, so that no request walks the
+ * project tree. The snapshot is then rebuilt in the background, after a
+ * short delay that gathers bursts of events, only for what changed: the
+ * metadata when a build file at the root of the project changes, the rules
+ * when a setting is written, the file map when a file or folder is created,
+ * deleted or renamed anywhere in the project outside its excluded folders.
+ * Until then the previous snapshot is served. A project closed in the IDE
+ * is forgotten.
+ *
+ * @author Gaurav Gupta
+ */
+public final class ProjectContextService {
+
+    private static final Logger LOG = Logger.getLogger(ProjectContextService.class.getName());
+
+    private static final int REBUILD_DELAY = 500;
+    private static final int METADATA = 1;
+    private static final int RULES = 2;
+    private static final int FILES = 4;
+
+    /**
+     * The files, at the root of a project, its metadata is read from.
+     */
+    private static final Set<String> BUILD_FILES = Set.of("pom.xml",
+            "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "gradle.properties");
+
+    private static final RequestProcessor RP = new RequestProcessor(ProjectContextService.class.getName(), 1);
+
+    private static ProjectContextService instance;
+
+    private final Map<String, ProjectContext> contexts = new ConcurrentHashMap<>(); // project is key
+
+    private ProjectContextService() {
+        OpenProjects.getDefault().addPropertyChangeListener(this::projectsChanged);
+        PreferencesManager.getInstance().addChangeListener(e -> {
+            for (ProjectContext context : contexts.values()) {
+                context.changed(RULES);
+            }
+        });
+    }
+
+    public static ProjectContextService getInstance() {
+        if (instance == null) {
+            synchronized (ProjectContextService.class) {
+                if (instance == null) {
+                    instance = new ProjectContextService();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param project the project
+     * @return the current snapshot of the project, built if not yet; its
+     * file map may still be being listed
+     */
+    public ProjectContextSnapshot get(Project project) {
+        String key = key(project);
+        ProjectContext context = contexts.get(key);
+        if (context == null) {
+            synchronized (this) {
+                context = contexts.get(key);
+                if (context == null) {
+                    context = new ProjectContext(project);
+                    context.open();
+                    contexts.put(key, context);
+                }
+            }
+        }
+        return context.snapshot();
+    }
+
+    /**
+     * @param project the project
+     * @return the paths of the source files of the project, one per line,
+     * listed on the calling thread if the snapshot has none yet
+     */
+    public String getProjectMap(Project project) {
+        String projectMap = get(project).getProjectMap();
+        return projectMap != null ? projectMap : String.join("\n", listFiles(project));
+    }
+
+    private void projectsChanged(PropertyChangeEvent event) {
+        if (!OpenProjects.PROPERTY_OPEN_PROJECTS.equals(event.getPropertyName())) {
+            return;
+        }
+        Set<String> open = new HashSet<>();
+        for (Project project : OpenProjects.getDefault().getOpenProjects()) {
+            open.add(key(project));
+        }
+        for (String key : new ArrayList<>(contexts.keySet())) {
+            if (!open.contains(key)) {
+                ProjectContext context = contexts.remove(key);
+                if (context != null) {
+                    context.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param project the project
+     * @param previous the snapshot to keep the unchanged parts of, or
+     * {@code null}
+     * @param changes the parts to read again
+     * @return the new snapshot
+     */
+    static ProjectContextSnapshot build(Project project, ProjectContextSnapshot previous, int changes) {
+        if (previous == null) {
+            changes |= METADATA | RULES;
+        }
+        PreferencesManager pm = PreferencesManager.getInstance();
+
+        String metadata;
+        int metadataTokens;
+        if ((changes & METADATA) != 0) {
+            metadata = ProjectMetadataInfo.get(project);
+            metadataTokens = TokenHandler.countTokens(metadata);
+        } else {
+            metadata = previous.getMetadata();
+            metadataTokens = previous.getMetadataTokens();
+        }
+
+        String rules;
+        int rulesTokens;
+        if ((changes & RULES) != 0) {
+            rules = joinRules(pm.getGlobalRules(), pm.getProjectRules(project));
+            rulesTokens = TokenHandler.countTokens(rules);
+        } else {
+            rules = previous.getRules();
+            rulesTokens = previous.getRulesTokens();
+        }
+
+        // the file list also depends on the extensions and folders set to include
+        String filesKey = pm.getFileExtensionListToInclude() + "|" + pm.getExcludeDirs();
+        List<String> files;
+        String projectMap;
+        if ((changes & FILES) != 0 || (previous != null && previous.getFilesKey() != null
+                && !filesKey.equals(previous.getFilesKey()))) {
+            files = listFiles(project);
+            projectMap = String.join("\n", files);
+        } else if (previous != null) {
+            files = previous.getFiles();
+            projectMap = previous.getProjectMap();
+            filesKey = previous.getFilesKey();
+        } else {
+            // listed in the background
+            files = List.of();
+            projectMap = null;
+            filesKey = null;
+        }
+        return new ProjectContextSnapshot(metadata, metadataTokens, rules, rulesTokens,
+                files, projectMap, filesKey);
+    }
+
+    private static List<String> listFiles(Project project) {
+        List<String> files = new ArrayList<>(getSourceFilesRelativePath(project));
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * @return the rules one after the other, {@code null} if both are blank
+     */
+    static String joinRules(String globalRules, String projectRules) {
+        boolean hasGlobal = globalRules != null && !globalRules.isBlank();
+        boolean hasProject = projectRules != null && !projectRules.isBlank();
+        if (hasGlobal && hasProject) {
+            return globalRules + '\n' + projectRules;
+        }
+        return hasGlobal ? globalRules : hasProject ? projectRules : null;
+    }
+
+    private static String key(Project project) {
+        return project.getProjectDirectory().toString();
+    }
+
+    /**
+     * The snapshot of one project and the listeners that keep it current.
+     */
+    private static final class ProjectContext implements FileChangeListener, PropertyChangeListener {
+
+        private final Project project;
+        private final FileObject projectDirectory;
+        private final File directory;
+        private final NbMavenProject mavenProject;
+        private final AtomicInteger changes = new AtomicInteger();
+        private final RequestProcessor.Task rebuild = RP.create(this::rebuild);
+        private volatile ProjectContextSnapshot snapshot;
+
+        ProjectContext(Project project) {
+            this.project = project;
+            this.projectDirectory = project.getProjectDirectory();
+            this.directory = FileUtil.toFile(projectDirectory);
+            this.mavenProject = project.getLookup().lookup(NbMavenProject.class);
+        }
+
+        void open() {
+            // the whole tree the project map is listed from, without
+            // descending into excluded folders such as the build output
+            if (directory != null) {
+                FileUtil.addRecursiveListener(this, directory, folder -> !isExcluded(relativePath(folder)), null);
+            } else {
+                projectDirectory.addRecursiveListener(this);
+            }
+            if (mavenProject != null) {
+                // the model is reloaded some time after pom.xml is saved
+                mavenProject.addPropertyChangeListener(this);
+            }
+            changed(FILES);
+        }
+
+        /**
+         * @return the snapshot, with the metadata and rules read on the
+         * first call if the background rebuild has not run yet
+         */
+        ProjectContextSnapshot snapshot() {
+            ProjectContextSnapshot current = snapshot;
+            if (current == null) {
+                synchronized (this) {
+                    if (snapshot == null) {
+                        snapshot = build(project, null, METADATA | RULES);
+                    }
+                    current = snapshot;
+                }
+            }
+            return current;
+        }
+
+        void close() {
+            if (directory != null) {
+                FileUtil.removeRecursiveListener(this, directory);
+            } else {
+                projectDirectory.removeRecursiveListener(this);
+            }
+            if (mavenProject != null) {
+                mavenProject.removePropertyChangeListener(this);
+            }
+            rebuild.cancel();
+        }
+
+        void changed(int change) {
+            changes.updateAndGet(pending -> pending | change);
+            rebuild.schedule(REBUILD_DELAY);
+        }
+
+        private void rebuild() {
+            int pending = changes.getAndSet(0);
+            if (pending == 0) {
+                return;
+            }
+            try {
+                ProjectContextSnapshot rebuilt = build(project, snapshot, pending);
+                synchronized (this) {
+                    snapshot = rebuilt;
+                }
+            } catch (RuntimeException ex) {
+                LOG.log(Level.INFO, "Cannot rebuild the prompt context of " + projectDirectory, ex);
+            }
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            if (NbMavenProject.PROP_PROJECT.equals(evt.getPropertyName())) {
+                changed(METADATA);
+            }
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            FileObject file = fe.getFile();
+            if (BUILD_FILES.contains(file.getNameExt()) && projectDirectory.equals(file.getParent())) {
+                changed(METADATA);
+            }
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            treeChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            treeChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            treeChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            treeChanged(fe.getFile());
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fe) {
+        }
+
+        /**
+         * Files the project map leaves out, such as build output, are
+         * ignored.
+         */
+        private void treeChanged(FileObject file) {
+            String path = FileUtil.getRelativePath(projectDirectory, file);
+            if (path == null || isExcluded(path)) {
+                return;
+            }
+            PreferencesManager pm = PreferencesManager.getInstance();
+            if (file.isFolder() || !file.isValid()
+                    || pm.getFileExtensionListToInclude().contains(file.getExt())) {
+                changed(FILES);
+            }
+            if (BUILD_FILES.contains(file.getNameExt()) && projectDirectory.equals(file.getParent())) {
+                changed(METADATA);
+            }
+        }
+
+        private String relativePath(File folder) {
+            return directory.toPath().relativize(folder.toPath()).toString().replace(File.separatorChar, '/');
+        }
+
+        /**
+         * @return whether the path, relative to the project directory, is
+         * under a folder excluded from the project map
+         */
+        private static boolean isExcluded(String path) {
+            return PreferencesManager.getInstance().getExcludeDirs().stream()
+                    .filter(dir -> !dir.trim().isEmpty())
+                    .anyMatch(path::startsWith);
+        }
+    }
+}
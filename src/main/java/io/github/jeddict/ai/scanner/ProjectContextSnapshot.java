@@ -0,0 +1,97 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.List;
+
+/**
+ * What every prompt about a project repeats: its metadata and the global
+ * and project rules, each with its token count, and the map of its source
+ * files.
+ *
+ * <p>
+ * A snapshot never changes; {@link ProjectContextService} replaces it with
+ * a new one when the build file, the settings or the file tree change.
+ *
+ * @author Gaurav Gupta
+ */
+public final class ProjectContextSnapshot {
+
+    private final String metadata;
+    private final int metadataTokens;
+    private final String rules;
+    private final int rulesTokens;
+    private final List<String> files;
+    private final String projectMap;
+    /**
+     * The extensions and excluded folders the files were listed with.
+     */
+    private final String filesKey;
+
+    ProjectContextSnapshot(String metadata, int metadataTokens, String rules, int rulesTokens,
+            List<String> files, String projectMap, String filesKey) {
+        this.metadata = metadata;
+        this.metadataTokens = metadataTokens;
+        this.rules = rules;
+        this.rulesTokens = rulesTokens;
+        this.files = List.copyOf(files);
+        this.projectMap = projectMap;
+        this.filesKey = filesKey;
+    }
+
+    /**
+     * @return the EE and Java version of the project, as sent with a prompt
+     */
+    public String getMetadata() {
+        return metadata;
+    }
+
+    public int getMetadataTokens() {
+        return metadataTokens;
+    }
+
+    /**
+     * @return the global rules followed by the project rules, {@code null}
+     * if there are none
+     */
+    public String getRules() {
+        return rules;
+    }
+
+    public int getRulesTokens() {
+        return rulesTokens;
+    }
+
+    /**
+     * @return the paths of the source files relative to the project
+     * directory, sorted; empty until the files are listed
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return the paths of the source files, one per line, {@code null}
+     * until the files are listed
+     */
+    public String getProjectMap() {
+        return projectMap;
+    }
+
+    String getFilesKey() {
+        return filesKey;
+    }
+}
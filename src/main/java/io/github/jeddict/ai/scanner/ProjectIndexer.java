@@ -0,0 +1,137 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Cancellable;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Fills the class index of a project in the background, so that no
+ * completion waits for a scan.
+ *
+ * <p>
+ * The files not current in the index, all of them on the first use of a
+ * project and only the changed ones after a warm start, are scanned by a
+ * small pool of workers while a progress bar shows how far the scan got.
+ * Completions meanwhile get the classes indexed so far. Cancelling the scan
+ * from the progress bar keeps the classes scanned until then; a new scan
+ * goes on with the rest when the user resumes indexing or reopens the
+ * project. A file that cannot be scanned is logged and skipped.
+ *
+ * @author Gaurav Gupta
+ */
+final class ProjectIndexer implements Cancellable {
+
+    private static final Logger LOG = Logger.getLogger(ProjectIndexer.class.getName());
+
+    /**
+     * The Java infrastructure parses one file at a time, more workers only
+     * overlap their file reads and signature extraction.
+     */
+    private static final int WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final RequestProcessor RP = new RequestProcessor(ProjectIndexer.class.getName(), 1, true);
+    private static final RequestProcessor WORKER_RP = new RequestProcessor(ProjectIndexer.class.getName() + ".worker", WORKERS, true);
+
+    private final Project project;
+    private final ProjectClassIndex classList;
+    private volatile boolean cancelled;
+    private volatile boolean complete;
+
+    ProjectIndexer(Project project, ProjectClassIndex classList) {
+        this.project = project;
+        this.classList = classList;
+    }
+
+    void start() {
+        RP.post(this::run);
+    }
+
+    /**
+     * @return whether every file of the project is indexed
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return whether the scan was cancelled before it completed
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean cancel() {
+        cancelled = true;
+        return true;
+    }
+
+    private void run() {
+        String name = ProjectUtils.getInformation(project).getDisplayName();
+        ProgressHandle handle = ProgressHandle.createHandle("Indexing classes of " + name, this);
+        handle.start();
+        try {
+            ClassIndexStore store = ClassIndexStore.getInstance();
+            List<FileObject> javaFiles = ProjectClassScanner.collectJavaFiles(project);
+            classList.retainAll(new HashSet<>(javaFiles));
+            Queue<FileObject> pending = new ConcurrentLinkedQueue<>();
+            for (FileObject javaFile : javaFiles) {
+                if (!store.isCurrent(project, javaFile, classList.get(javaFile))) {
+                    pending.add(javaFile);
+                }
+            }
+            int total = pending.size();
+            handle.switchToDeterminate(total);
+            AtomicInteger scanned = new AtomicInteger();
+            List<RequestProcessor.Task> workers = new ArrayList<>();
+            for (int i = 0; i < Math.min(WORKERS, total); i++) {
+                workers.add(WORKER_RP.post(() -> {
+                    FileObject javaFile;
+                    while (!cancelled && (javaFile = pending.poll()) != null) {
+                        try {
+                            classList.scan(javaFile);
+                        } catch (RuntimeException ex) {
+                            // one broken file does not stop the others
+                            LOG.log(Level.INFO, "Cannot index " + javaFile, ex);
+                        }
+                        handle.progress(javaFile.getNameExt(), scanned.incrementAndGet());
+                    }
+                }));
+            }
+            for (RequestProcessor.Task worker : workers) {
+                worker.waitFinished();
+            }
+            complete = !cancelled;
+            LOG.log(Level.FINE, "Indexed {0} of {1} changed files of {2}", new Object[]{scanned.get(), total, name});
+            store.save(project, classList.snapshot());
+        } finally {
+            handle.finish();
+        }
+    }
+}
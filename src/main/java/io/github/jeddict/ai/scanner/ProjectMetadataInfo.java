@@ -16,13 +16,17 @@
 package io.github.jeddict.ai.scanner;
 
 import java.io.File;
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.netbeans.api.project.Project;
 import org.netbeans.modules.maven.api.NbMavenProject;
+import org.openide.filesystems.FileObject;
 
 /**
  *
@@ -30,7 +34,17 @@ import org.netbeans.modules.maven.api.NbMavenProject;
  */
 public class ProjectMetadataInfo {
 
-    private static final Map<Project, CachedResult> cache = new HashMap<>();
+    private static final Map<String, CachedResult> cache = new ConcurrentHashMap<>(); // project is key
+
+    /**
+     * The build scripts of a Gradle project, Groovy first.
+     */
+    private static final String[] GRADLE_BUILD_FILES = {"build.gradle", "build.gradle.kts"};
+
+    private static final Pattern GRADLE_TOOLCHAIN = Pattern.compile("(?:JavaLanguageVersion\\.of|jvmToolchain)\\(\\s*['\"]?(\\d+)");
+    private static final Pattern GRADLE_COMPATIBILITY = Pattern.compile(
+            "(source|target)Compatibility\\s*=\\s*(?:JavaVersion\\.(?:VERSION_|toVersion\\()\\s*)?['\"]?([\\d._]+)");
+    private static final Pattern GRADLE_DEPENDENCY = Pattern.compile("['\"]([\\w.\\-]+):([\\w.\\-]+)(?::([^'\":@]+))?[^'\"]*['\"]");
 
     public static String get(Project project) {
         CachedResult cachedResult = getCachedResult(project);
@@ -66,12 +80,12 @@ public class ProjectMetadataInfo {
     public static CachedResult getCachedResult(Project project) {
         try {
             // Check if the project is cached
-            CachedResult cachedResult = cache.get(project);
+            CachedResult cachedResult = cache.get(key(project));
 
             // Get project modification timestamp
             NbMavenProject nbMavenProject = project.getLookup().lookup(NbMavenProject.class);
             if (nbMavenProject == null) {
-                return null; // Not a Maven project
+                return getGradleResult(project, cachedResult);
             }
 
             // Get the pom.xml FileObject
@@ -89,23 +103,9 @@ public class ProjectMetadataInfo {
                 // Determine JDK version
                 String jdkVersion = getJdkVersionFromPom(mavenProject);
 
-                // Determine the import prefix
-                String importPrefix = null;
-                if (eeVersion != null) {
-                    if (eeVersion.startsWith("jakarta")) {
-                        if (eeVersion.equals("jakarta-8.0.0")) {
-                            importPrefix = "javax"; // Special case for Jakarta EE 8
-                        } else {
-                            importPrefix = "jakarta";
-                        }
-                    } else if (eeVersion.startsWith("javax")) {
-                        importPrefix = "javax";
-                    }
-                }
-
                 // Cache the result
-                CachedResult result = new CachedResult(importPrefix, eeVersion, jdkVersion, lastModified);
-                cache.put(project, result);
+                CachedResult result = new CachedResult(getImportPrefix(eeVersion), eeVersion, jdkVersion, lastModified);
+                cache.put(key(project), result);
 
                 return result;
             }
@@ -119,23 +119,100 @@ public class ProjectMetadataInfo {
         }
     }
 
+    /**
+     * Reads the metadata of a Gradle project from the text of its build
+     * script, as Gradle itself is not run.
+     */
+    private static CachedResult getGradleResult(Project project, CachedResult cachedResult) throws IOException {
+        for (String name : GRADLE_BUILD_FILES) {
+            FileObject buildFile = project.getProjectDirectory().getFileObject(name);
+            if (buildFile != null && buildFile.isData()) {
+                long lastModified = buildFile.lastModified().getTime();
+                if (cachedResult != null && cachedResult.timestamp >= lastModified) {
+                    return cachedResult;
+                }
+                CachedResult result = fromGradleScript(buildFile.asText(), lastModified);
+                cache.put(key(project), result);
+                return result;
+            }
+        }
+        return null; // Neither a Maven nor a Gradle project
+    }
+
+    /**
+     * @param script the text of a build.gradle or build.gradle.kts
+     * @param timestamp the time the script was last modified
+     * @return the EE and Java version the script declares
+     */
+    static CachedResult fromGradleScript(String script, long timestamp) {
+        String eeVersion = null;
+        Matcher dependency = GRADLE_DEPENDENCY.matcher(script);
+        while (eeVersion == null && dependency.find()) {
+            eeVersion = getEEVersion(dependency.group(1), dependency.group(3));
+        }
+
+        String jdkVersion = null;
+        Matcher toolchain = GRADLE_TOOLCHAIN.matcher(script);
+        if (toolchain.find()) {
+            jdkVersion = toolchain.group(1);
+        } else {
+            // source before target, as for Maven
+            Matcher compatibility = GRADLE_COMPATIBILITY.matcher(script);
+            while (compatibility.find()) {
+                if (jdkVersion == null || "source".equals(compatibility.group(1))) {
+                    jdkVersion = compatibility.group(2).replace('_', '.');
+                }
+                if ("source".equals(compatibility.group(1))) {
+                    break;
+                }
+            }
+        }
+        return new CachedResult(getImportPrefix(eeVersion), eeVersion, jdkVersion, timestamp);
+    }
+
     private static String getEEVersionFromDependencies(MavenProject mavenProject) {
         // Look for Jakarta EE or Java EE dependencies in the pom.xml
         for (org.apache.maven.model.Dependency dependency : mavenProject.getDependencies()) {
-            if (dependency.getGroupId().equals("jakarta.platform")) {
-                if (dependency.getVersion().startsWith("8.0")) {
-                    return "jakarta-8.0.0"; // Special case for Jakarta EE 8
-                }
-                return "jakarta"; // Other versions of Jakarta EE
-            }
-            if (dependency.getGroupId().equals("javax.enterprise")
-                    || dependency.getGroupId().startsWith("javax.")) {
-                return "javax"; // Java EE dependencies
+            String eeVersion = getEEVersion(dependency.getGroupId(), dependency.getVersion());
+            if (eeVersion != null) {
+                return eeVersion;
             }
         }
         return null; // Return null if no matching dependencies are found
     }
 
+    private static String getEEVersion(String groupId, String version) {
+        if (groupId.equals("jakarta.platform")) {
+            if (version != null && version.startsWith("8.0")) {
+                return "jakarta-8.0.0"; // Special case for Jakarta EE 8
+            }
+            return "jakarta"; // Other versions of Jakarta EE
+        }
+        if (groupId.equals("javax.enterprise")
+                || groupId.startsWith("javax.")) {
+            return "javax"; // Java EE dependencies
+        }
+        return null;
+    }
+
+    private static String getImportPrefix(String eeVersion) {
+        if (eeVersion != null) {
+            if (eeVersion.startsWith("jakarta")) {
+                if (eeVersion.equals("jakarta-8.0.0")) {
+                    return "javax"; // Special case for Jakarta EE 8
+                }
+                return "jakarta";
+            } else if (eeVersion.startsWith("javax")) {
+                return "javax";
+            }
+        }
+        return null;
+    }
+
+    private static String key(Project project) {
+        return project.getProjectDirectory().toString();
+    }
+
     private static String getJdkVersionFromPom(MavenProject mavenProject) {
         // Check for JDK version in Maven properties
         String source = mavenProject.getProperties().getProperty("maven.compiler.source");
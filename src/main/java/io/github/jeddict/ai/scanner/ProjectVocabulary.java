@@ -0,0 +1,500 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.lang.model.SourceVersion;
+import org.netbeans.api.project.Project;
+
+/**
+ * The identifiers and string literals used in a project, ranked by
+ * frequency, to answer variable name, method name and string literal
+ * completions without a model.
+ *
+ * <p>
+ * The vocabulary is read from the class signatures of the project index and
+ * from the parse trees of the documents being edited. Updates are incremental:
+ * only classes added to or replaced in the index since the last update are
+ * read, and the words of removed classes are subtracted again.
+ *
+ * @author Gaurav Gupta
+ */
+public final class ProjectVocabulary {
+
+    private static final Map<String, ProjectVocabulary> vocabularies = new HashMap<>(); // project is key
+
+    private static final String TYPE_ARGUMENTS = "(?:<[\\w.,?<>\\[\\] ]*>)?";
+
+    private static final String TYPE = "(?:\\b[A-Z][\\w.]*" + TYPE_ARGUMENTS + "|\\b[a-z][\\w.]*\\.[A-Z]\\w*" + TYPE_ARGUMENTS
+            + "|\\b(?:boolean|byte|char|short|int|long|float|double|void))(?:\\[\\])*";
+
+    /**
+     * A type followed by a name, and by what tells a variable from a method.
+     */
+    private static final Pattern DECLARATION = Pattern.compile("(" + TYPE + ")\\s+([a-zA-Z_$][\\w$]*)\\s*([;=,):(])");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"((?:[^\"\\\\\\n]|\\\\.){1,80})\"");
+
+    private static final Pattern LETTER = Pattern.compile("\\p{L}");
+
+    private static final Pattern QUALIFIER = Pattern.compile("\\b(?:[a-z_]\\w*\\.)+(?=[A-Z])");
+
+    private static final Set<String> COLLECTIONS = Set.of("List", "Set", "Collection", "Iterable", "Stream",
+            "Queue", "Deque", "ArrayList", "LinkedList", "HashSet", "LinkedHashSet", "TreeSet", "SortedSet");
+
+    private static final Set<String> MAPS = Set.of("Map", "HashMap", "LinkedHashMap", "TreeMap", "SortedMap", "ConcurrentMap", "ConcurrentHashMap");
+
+    private final FrequencyTrie variableNames = new FrequencyTrie();
+    private final FrequencyTrie methodNames = new FrequencyTrie();
+    private final FrequencyTrie stringLiterals = new FrequencyTrie();
+    private final Map<String, Map<String, Integer>> variableNamesByType = new HashMap<>();
+    private final Map<String, Map<String, Integer>> methodNamesByType = new HashMap<>();
+
+    private final Map<ClassData, Words> classes = new IdentityHashMap<>();
+    private final Map<Object, Words> documents = new HashMap<>();
+
+    ProjectVocabulary() {
+    }
+
+    public static synchronized ProjectVocabulary forProject(Project project) {
+        return vocabularies.computeIfAbsent(project.getProjectDirectory().toString(), key -> new ProjectVocabulary());
+    }
+
+    public static synchronized void remove(Project project) {
+        vocabularies.remove(project.getProjectDirectory().toString());
+    }
+
+    public static synchronized void clear() {
+        vocabularies.clear();
+    }
+
+    /**
+     * Brings the vocabulary in line with the classes of the project index.
+     *
+     * @param indexed the classes in the index
+     */
+    public synchronized void update(Collection<ClassData> indexed) {
+        Set<ClassData> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.addAll(indexed);
+        for (Iterator<Map.Entry<ClassData, Words>> it = classes.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<ClassData, Words> entry = it.next();
+            if (!current.contains(entry.getKey())) {
+                apply(entry.getValue(), -1);
+                it.remove();
+            }
+        }
+        for (ClassData classData : current) {
+            if (!classes.containsKey(classData) && classData.getClassSignature() != null) {
+                Words words = Words.of(classData.getClassSignature());
+                apply(words, 1);
+                classes.put(classData, words);
+            }
+        }
+    }
+
+    /**
+     * Replaces the words of a document being edited; nothing is read if its
+     * text did not change since the last update. The text, not the tree, is
+     * compared, as the IDE reparses a tree in place.
+     *
+     * @param key the document, or its file
+     * @param source the text the document was parsed from
+     * @param unit the parse of the document
+     */
+    public synchronized void updateDocument(Object key, String source, CompilationUnitTree unit) {
+        Words previous = documents.get(key);
+        if (previous != null && previous.source.equals(source)) {
+            return;
+        }
+        Words words = Words.of(source, unit);
+        if (previous == null) {
+            apply(words, 1);
+        } else {
+            // an edit changes few words, only those touch the tries
+            difference(previous.variables, words.variables).forEach(this::addVariable);
+            difference(previous.methods, words.methods).forEach(this::addMethod);
+            difference(previous.literals, words.literals).forEach(stringLiterals::add);
+        }
+        documents.put(key, words);
+    }
+
+    /**
+     * @param type the declared type, may be {@code null}
+     * @param prefix the typed start of the name
+     * @param limit the most names to return
+     * @return the names given to variables of the type in the project, the
+     * names conventional for the type, and then the most frequent variable
+     * names, all continuing the prefix
+     */
+    public synchronized List<String> suggestVariableNames(String type, String prefix, int limit) {
+        Set<String> names = new LinkedHashSet<>();
+        if (type != null && !type.isBlank()) {
+            String key = normalizeType(type);
+            addMatching(names, byFrequency(variableNamesByType.get(key)), prefix, limit);
+            addMatching(names, conventionalNames(key), prefix, limit);
+        }
+        addMatching(names, variableNames.complete(prefix, FrequencyTrie.MAX_COMPLETIONS), prefix, limit);
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * @param returnType the declared return type, may be {@code null}
+     * @param prefix the typed start of the name
+     * @param limit the most names to return
+     * @return the names of methods returning the type in the project, the
+     * names conventional for the type, and then the most frequent method
+     * names, all continuing the prefix
+     */
+    public synchronized List<String> suggestMethodNames(String returnType, String prefix, int limit) {
+        Set<String> names = new LinkedHashSet<>();
+        if (returnType != null && !returnType.isBlank()) {
+            String key = normalizeType(returnType);
+            addMatching(names, byFrequency(methodNamesByType.get(key)), prefix, limit);
+            addMatching(names, conventionalMethodNames(key), prefix, limit);
+        }
+        addMatching(names, methodNames.complete(prefix, FrequencyTrie.MAX_COMPLETIONS), prefix, limit);
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * @param prefix the typed start of the literal, without the quote
+     * @param limit the most literals to return
+     * @return the most frequent string literals continuing the prefix,
+     * without quotes
+     */
+    public synchronized List<String> suggestStringLiterals(String prefix, int limit) {
+        Set<String> literals = new LinkedHashSet<>();
+        addMatching(literals, stringLiterals.complete(prefix, FrequencyTrie.MAX_COMPLETIONS), prefix, limit);
+        return new ArrayList<>(literals);
+    }
+
+    private void apply(Words words, int delta) {
+        for (TypedName variable : words.variables) {
+            addVariable(variable, delta);
+        }
+        for (TypedName method : words.methods) {
+            addMethod(method, delta);
+        }
+        for (String literal : words.literals) {
+            stringLiterals.add(literal, delta);
+        }
+    }
+
+    private void addVariable(TypedName variable, int delta) {
+        variableNames.add(variable.name(), delta);
+        if (variable.type() != null) {
+            count(variableNamesByType, variable.type(), variable.name(), delta);
+        }
+    }
+
+    private void addMethod(TypedName method, int delta) {
+        methodNames.add(method.name(), delta);
+        if (method.type() != null) {
+            count(methodNamesByType, method.type(), method.name(), delta);
+        }
+    }
+
+    /**
+     * @return the change of the count of each word that differs
+     */
+    private static <T> Map<T, Integer> difference(List<T> before, List<T> after) {
+        Map<T, Integer> difference = new HashMap<>();
+        for (T word : after) {
+            difference.merge(word, 1, Integer::sum);
+        }
+        for (T word : before) {
+            difference.merge(word, -1, Integer::sum);
+        }
+        difference.values().removeIf(delta -> delta == 0);
+        return difference;
+    }
+
+    private static void count(Map<String, Map<String, Integer>> namesByType, String type, String name, int delta) {
+        Map<String, Integer> names = namesByType.computeIfAbsent(type, t -> new HashMap<>());
+        int count = names.getOrDefault(name, 0) + delta;
+        if (count > 0) {
+            names.put(name, count);
+        } else {
+            names.remove(name);
+        }
+        if (names.isEmpty()) {
+            namesByType.remove(type);
+        }
+    }
+
+    private static List<String> byFrequency(Map<String, Integer> names) {
+        if (names == null) {
+            return List.of();
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(names.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<String> result = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Integer> entry : entries) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    private static void addMatching(Set<String> names, List<String> candidates, String prefix, int limit) {
+        for (String candidate : candidates) {
+            if (names.size() >= limit) {
+                return;
+            }
+            // what is typed is in the document, and no suggestion
+            if (prefix == null || candidate.startsWith(prefix) && !candidate.equals(prefix)) {
+                names.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * @return the type without package qualifiers and whitespace
+     */
+    static String normalizeType(String type) {
+        if (type.indexOf('.') < 0 && type.indexOf(' ') < 0) {
+            return type;
+        }
+        return QUALIFIER.matcher(type).replaceAll("").replaceAll("\\s+", "");
+    }
+
+    /**
+     * Derives variable names from a type: {@code UserRepository} gives
+     * {@code userRepository} and {@code repository}, {@code List<User>} and
+     * {@code User[]} give {@code users}.
+     *
+     * @param type a normalized type
+     * @return the conventional names
+     */
+    static List<String> conventionalNames(String type) {
+        Set<String> names = new LinkedHashSet<>();
+        String base = type;
+        boolean array = false;
+        while (base.endsWith("[]")) {
+            base = base.substring(0, base.length() - 2);
+            array = true;
+        }
+        String raw = rawType(base);
+        String element = lastTypeArgument(base);
+        if (array) {
+            names.add(plural(lowerCamel(raw)));
+        } else if (element != null && COLLECTIONS.contains(raw)) {
+            names.add(plural(lowerCamel(element)));
+            names.add(lowerCamel(element) + raw);
+        } else if (element != null && MAPS.contains(raw)) {
+            names.add(lowerCamel(element) + "Map");
+            names.add(plural(lowerCamel(element)));
+        } else if (element != null && raw.equals("Optional")) {
+            names.add(lowerCamel(element));
+        } else if (!raw.isEmpty() && Character.isUpperCase(raw.charAt(0))) {
+            names.add(lowerCamel(raw));
+            String lastWord = lastWord(raw);
+            if (!lastWord.equals(raw)) {
+                names.add(lowerCamel(lastWord));
+            }
+        }
+        names.removeIf(name -> name.isEmpty() || !SourceVersion.isName(name));
+        return new ArrayList<>(names);
+    }
+
+    private static List<String> conventionalMethodNames(String type) {
+        if (type.equals("void") || type.equals("boolean") || type.equals("Boolean")) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : conventionalNames(type)) {
+            names.add("get" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+        }
+        return names;
+    }
+
+    private static String rawType(String type) {
+        int lt = type.indexOf('<');
+        return lt < 0 ? type : type.substring(0, lt);
+    }
+
+    /**
+     * @return the raw last type argument, without wildcard bounds, or
+     * {@code null}
+     */
+    private static String lastTypeArgument(String type) {
+        int lt = type.indexOf('<');
+        int gt = type.lastIndexOf('>');
+        if (lt < 0 || gt < lt) {
+            return null;
+        }
+        String arguments = type.substring(lt + 1, gt);
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < arguments.length(); i++) {
+            char c = arguments.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                start = i + 1;
+            }
+        }
+        String argument = arguments.substring(start).replaceFirst("^\\?(extends|super)?", "");
+        argument = rawType(argument);
+        return argument.isEmpty() || argument.equals("?") ? null : argument;
+    }
+
+    private static String lowerCamel(String name) {
+        int upper = 0;
+        while (upper < name.length() && Character.isUpperCase(name.charAt(upper))) {
+            upper++;
+        }
+        if (upper == 0) {
+            return name;
+        }
+        // URLParser gives urlParser, URL gives url
+        int keep = upper == name.length() || upper == 1 ? upper : upper - 1;
+        return name.substring(0, keep).toLowerCase() + name.substring(keep);
+    }
+
+    private static String lastWord(String name) {
+        for (int i = name.length() - 1; i > 0; i--) {
+            if (Character.isUpperCase(name.charAt(i)) && Character.isLowerCase(name.charAt(i - 1))) {
+                return name.substring(i);
+            }
+        }
+        return name;
+    }
+
+    private static String plural(String name) {
+        if (name.isEmpty() || name.endsWith("s")) {
+            return name;
+        }
+        if (name.endsWith("y") && name.length() > 1 && "aeiou".indexOf(name.charAt(name.length() - 2)) < 0) {
+            return name.substring(0, name.length() - 1) + "ies";
+        }
+        if (name.endsWith("x") || name.endsWith("ch") || name.endsWith("sh")) {
+            return name + "es";
+        }
+        return name + "s";
+    }
+
+    /**
+     * A declared name and its type, {@code null} if unknown.
+     */
+    private record TypedName(String type, String name) {
+
+    }
+
+    /**
+     * The words read from one source, kept to subtract them again.
+     */
+    private static final class Words {
+
+        private final String source;
+        private final List<TypedName> variables = new ArrayList<>();
+        private final List<TypedName> methods = new ArrayList<>();
+        private final List<String> literals = new ArrayList<>();
+
+        private Words(String source) {
+            this.source = source;
+        }
+
+        /**
+         * Reads a class signature of the index, which is text.
+         */
+        static Words of(String text) {
+            Words words = new Words(text);
+            Matcher declaration = DECLARATION.matcher(text);
+            while (declaration.find()) {
+                String name = declaration.group(2);
+                if (SourceVersion.isKeyword(name)) {
+                    continue;
+                }
+                TypedName typedName = new TypedName(normalizeType(declaration.group(1)), name);
+                if ("(".equals(declaration.group(3))) {
+                    words.methods.add(typedName);
+                } else {
+                    words.variables.add(typedName);
+                }
+            }
+            Matcher literal = STRING_LITERAL.matcher(text);
+            while (literal.find()) {
+                words.addLiteral(literal.group(1));
+            }
+            return words;
+        }
+
+        /**
+         * Reads a parsed document, which is quicker than matching its text.
+         */
+        static Words of(String source, CompilationUnitTree unit) {
+            Words words = new Words(source);
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitVariable(VariableTree node, Void p) {
+                    words.add(words.variables, node.getType(), node.getName().toString());
+                    return super.visitVariable(node, p);
+                }
+
+                @Override
+                public Void visitMethod(MethodTree node, Void p) {
+                    if (node.getReturnType() != null) {
+                        // not a constructor
+                        words.add(words.methods, node.getReturnType(), node.getName().toString());
+                    }
+                    return super.visitMethod(node, p);
+                }
+
+                @Override
+                public Void visitLiteral(LiteralTree node, Void p) {
+                    if (node.getValue() instanceof String literal && literal.length() <= 80
+                            && literal.chars().noneMatch(c -> c < ' ' || c == '"' || c == '\\')) {
+                        words.addLiteral(literal);
+                    }
+                    return null;
+                }
+            }.scan(unit, null);
+            return words;
+        }
+
+        private void add(List<TypedName> typedNames, Tree type, String name) {
+            if (SourceVersion.isIdentifier(name) && !SourceVersion.isKeyword(name)) {
+                String key = type == null || type.getKind() == Tree.Kind.ERRONEOUS ? null : normalizeType(type.toString());
+                typedNames.add(new TypedName(key, name));
+            }
+        }
+
+        private void addLiteral(String literal) {
+            if (LETTER.matcher(literal).find()) {
+                literals.add(literal);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.openide.filesystems.FileObject;
+
+/**
+ * The types each class of a project uses in its declaration: super types
+ * and the types of fields, parameters and return values, generic arguments
+ * and array components included, by fully qualified name.
+ *
+ * <p>
+ * Built once per index snapshot, in one pass over its classes; the edges are
+ * the references read with each class. Finding the classes a class uses
+ * then costs the number of its references, not the size of the project.
+ * Types nested in a project class resolve to the class, which holds them.
+ *
+ * @author Gaurav Gupta
+ */
+final class TypeReferenceGraph {
+
+    private final Map<String, FileObject> files = new HashMap<>(); // qualified name is key
+    private final Map<String, ClassData> classes = new HashMap<>(); // qualified name is key
+
+    TypeReferenceGraph(Map<FileObject, ClassData> index) {
+        for (Map.Entry<FileObject, ClassData> entry : index.entrySet()) {
+            String name = entry.getValue().getQualifiedName();
+            files.put(name, entry.getKey());
+            classes.put(name, entry.getValue());
+        }
+    }
+
+    /**
+     * @param qualifiedName the name of a type
+     * @return the name of the project class that is or holds the type,
+     * {@code null} for a type of a library
+     */
+    String resolve(String qualifiedName) {
+        String name = qualifiedName;
+        while (!classes.containsKey(name)) {
+            int dot = name.lastIndexOf('.');
+            // only a type, by convention capitalized, is nested in a class
+            if (dot < 0 || !Character.isUpperCase(name.charAt(dot + 1))) {
+                return null;
+            }
+            name = name.substring(0, dot);
+        }
+        return name;
+    }
+
+    /**
+     * @param roots the qualified names of the types to start from
+     * @param depth the reference steps to follow, 1 for the roots only
+     * @param exclude the file whose class is left out, may be {@code null}
+     * @return the project classes reached, nearest first
+     */
+    List<ClassData> referenced(Collection<String> roots, int depth, FileObject exclude) {
+        Set<String> reached = new LinkedHashSet<>();
+        List<String> level = new ArrayList<>();
+        for (String root : roots) {
+            String name = resolve(root);
+            if (name != null && reached.add(name)) {
+                level.add(name);
+            }
+        }
+        for (int step = 1; step < depth && !level.isEmpty(); step++) {
+            List<String> next = new ArrayList<>();
+            for (String name : level) {
+                Set<String> references = classes.get(name).getReferences();
+                if (references == null) {
+                    continue;
+                }
+                for (String reference : references) {
+                    String target = resolve(reference);
+                    if (target != null && reached.add(target)) {
+                        next.add(target);
+                    }
+                }
+            }
+            level = next;
+        }
+        List<ClassData> result = new ArrayList<>(reached.size());
+        for (String name : reached) {
+            if (exclude == null || !exclude.equals(files.get(name))) {
+                result.add(classes.get(name));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the types a source file uses in its declarations and resolves
+     * them to project classes through its package and imports.
+     *
+     * @param unit the parsed file, need not be attributed
+     * @return the qualified names of the project classes used
+     */
+    Set<String> roots(CompilationUnitTree unit) {
+        String packageName = unit.getPackageName() == null ? "" : unit.getPackageName().toString();
+        List<String> imports = new ArrayList<>();
+        for (ImportTree importTree : unit.getImports()) {
+            if (!importTree.isStatic()) {
+                imports.add(importTree.getQualifiedIdentifier().toString());
+            }
+        }
+        Set<String> roots = new LinkedHashSet<>();
+        for (String typeName : typeNames(unit)) {
+            String name = resolve(typeName, packageName, imports);
+            if (name != null) {
+                roots.add(name);
+            }
+        }
+        return roots;
+    }
+
+    private String resolve(String typeName, String packageName, List<String> imports) {
+        int dot = typeName.indexOf('.');
+        if (dot > 0) {
+            String qualified = resolve(typeName);
+            if (qualified != null) {
+                return qualified;
+            }
+            // Outer.Inner with Outer imported or in the package
+            return resolve(typeName.substring(0, dot), packageName, imports);
+        }
+        for (String imported : imports) {
+            if (imported.endsWith('.' + typeName)) {
+                return resolve(imported);
+            }
+        }
+        String name = resolve(packageName.isEmpty() ? typeName : packageName + '.' + typeName);
+        if (name != null) {
+            return name;
+        }
+        for (String imported : imports) {
+            if (imported.endsWith(".*")) {
+                name = resolve(imported.substring(0, imported.length() - 1) + typeName);
+                if (name != null) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the type names, simple or qualified as written, of the super
+     * types, fields, parameters and return values of the classes of a file
+     */
+    static Set<String> typeNames(CompilationUnitTree unit) {
+        Set<String> names = new LinkedHashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitClass(ClassTree node, Void p) {
+                scan(node.getTypeParameters(), p);
+                scan(node.getExtendsClause(), p);
+                scan(node.getImplementsClause(), p);
+                return scan(node.getMembers(), p);
+            }
+
+            @Override
+            public Void visitVariable(VariableTree node, Void p) {
+                return scan(node.getType(), p);
+            }
+
+            @Override
+            public Void visitMethod(MethodTree node, Void p) {
+                scan(node.getReturnType(), p);
+                return scan(node.getParameters(), p);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree node, Void p) {
+                names.add(node.getName().toString());
+                return null;
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree node, Void p) {
+                names.add(node.toString());
+                return null;
+            }
+        }.scan(unit.getTypeDecls(), null);
+        return names;
+    }
+}
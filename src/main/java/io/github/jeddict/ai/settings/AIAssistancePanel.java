@@ -38,6 +38,7 @@ import java.awt.Desktop;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -79,8 +80,28 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         CONTEXT_OPTIONS.put("Include entire conversation", -1);
     }
 
+    private final javax.swing.JPanel performancePane = new javax.swing.JPanel();
+    private javax.swing.JCheckBox responseCache;
+    private javax.swing.JCheckBox responseCacheNonDeterministic;
+    private javax.swing.JTextField responseCacheTTL;
+    private javax.swing.JTextField responseCacheMemoryEntries;
+    private javax.swing.JTextField responseCacheDiskSize;
+    private DefaultTableModel providerLimitsTableModel;
+    private DefaultTableModel routingTableModel;
+    private javax.swing.JTextField contextWindow;
+    private javax.swing.JTextField projectContextChunks;
+    private javax.swing.JTextField projectContextTokenBudget;
+    private javax.swing.JTextField referencedClassesDepth;
+    private JComboBox<LocalSuggestionMode> localSuggestionMode;
+    private javax.swing.JTextField completionWindowMembers;
+    private javax.swing.JTextField completionTokenBudget;
+    private javax.swing.JCheckBox inlineHintStreaming;
+    private javax.swing.JTextField inlineHintDelay;
+    private javax.swing.JTextField conversationTokenBudget;
+
     AIAssistancePanel() {
         initComponents();
+        initPerformancePane();
         populateContextCombo(conversationContext, "Last 3 replies");
         int index = jTabbedPane1.indexOfComponent(backupPane);
         if (index != -1) {
@@ -88,6 +109,130 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Builds the Performance tab by hand, outside the Form Editor: one titled
+     * section per feature, each a row of labelled fields.
+     */
+    private void initPerformancePane() {
+        performancePane.setLayout(new javax.swing.BoxLayout(performancePane, javax.swing.BoxLayout.PAGE_AXIS));
+
+        javax.swing.JPanel cacheSection = addPerformanceSection("responseCacheSection");
+        responseCache = addCheckBox(cacheSection, "responseCache");
+        responseCacheNonDeterministic = addCheckBox(cacheSection, "responseCacheNonDeterministic");
+        responseCacheTTL = addField(cacheSection, "responseCacheTTL");
+        responseCacheMemoryEntries = addField(cacheSection, "responseCacheMemoryEntries");
+        responseCacheDiskSize = addField(cacheSection, "responseCacheDiskSize");
+
+        javax.swing.JPanel editorSection = addPerformanceSection("editorSection");
+        inlineHintDelay = addField(editorSection, "inlineHintDelay");
+        inlineHintStreaming = addCheckBox(editorSection, "inlineHintStreaming");
+        completionTokenBudget = addField(editorSection, "completionTokenBudget");
+        completionWindowMembers = addField(editorSection, "completionWindowMembers");
+        localSuggestionMode = addComboBox(editorSection, "localSuggestionMode", LocalSuggestionMode.values());
+
+        javax.swing.JPanel contextSection = addPerformanceSection("contextSection");
+        contextWindow = addField(contextSection, "contextWindow");
+        conversationTokenBudget = addField(contextSection, "conversationTokenBudget");
+        referencedClassesDepth = addField(contextSection, "referencedClassesDepth");
+        projectContextTokenBudget = addField(contextSection, "projectContextTokenBudget");
+        projectContextChunks = addField(contextSection, "projectContextChunks");
+
+        javax.swing.JPanel limitsSection = addPerformanceSection("providerLimitsSection");
+        providerLimitsTableModel = new DefaultTableModel(new Object[0][], new String[]{
+            NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.providerLimitsProvider.text"),
+            NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.providerLimitsConcurrency.text"),
+            NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.providerLimitsRequests.text"),
+            NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.providerLimitsTokens.text")
+        }) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column > 0;
+            }
+        };
+        addTable(limitsSection, providerLimitsTableModel, "providerLimitsTable");
+
+        javax.swing.JPanel routingSection = addPerformanceSection("routingSection");
+        routingTableModel = new DefaultTableModel(new Object[0][], new String[]{
+            NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.routingAction.text"),
+            NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.routingTargets.text"),
+            NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.routingHedgeDelay.text")
+        }) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column > 0;
+            }
+        };
+        addTable(routingSection, routingTableModel, "routingTable");
+
+        performancePane.add(javax.swing.Box.createVerticalGlue());
+        javax.swing.JScrollPane performanceScrollPane = new javax.swing.JScrollPane(performancePane);
+        performanceScrollPane.setBorder(null);
+        jTabbedPane1.addTab(NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.performancePane.TabConstraints.tabTitle"), performanceScrollPane); // NOI18N
+    }
+
+    private javax.swing.JPanel addPerformanceSection(String name) {
+        javax.swing.JPanel section = new javax.swing.JPanel();
+        section.setLayout(new javax.swing.BoxLayout(section, javax.swing.BoxLayout.LINE_AXIS));
+        section.setBorder(javax.swing.BorderFactory.createTitledBorder(
+                NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel." + name + ".title"))); // NOI18N
+        section.setAlignmentX(LEFT_ALIGNMENT);
+        performancePane.add(section);
+        return section;
+    }
+
+    private javax.swing.JTextField addField(javax.swing.JPanel section, String name) {
+        return addLabelled(section, name, new javax.swing.JTextField());
+    }
+
+    private <T> JComboBox<T> addComboBox(javax.swing.JPanel section, String name, T[] values) {
+        return addLabelled(section, name, new JComboBox<>(values));
+    }
+
+    private <C extends JComponent> C addLabelled(javax.swing.JPanel section, String name, C component) {
+        javax.swing.JPanel pane = new javax.swing.JPanel(new java.awt.GridLayout(0, 1));
+        javax.swing.JLabel label = new javax.swing.JLabel();
+        org.openide.awt.Mnemonics.setLocalizedText(label, NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel." + name + "Label.text")); // NOI18N
+        String toolTip = NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel." + name + ".toolTipText"); // NOI18N
+        label.setToolTipText(toolTip);
+        pane.add(label);
+        component.setToolTipText(toolTip);
+        pane.add(component);
+        section.add(pane);
+        return component;
+    }
+
+    private JTable addTable(javax.swing.JPanel section, DefaultTableModel model, String name) {
+        JTable table = new JTable(model);
+        table.setDefaultRenderer(Object.class, new CustomTableCellRenderer());
+        table.setToolTipText(NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel." + name + ".toolTipText")); // NOI18N
+        table.setPreferredScrollableViewportSize(new java.awt.Dimension(450, 150));
+        section.add(new javax.swing.JScrollPane(table));
+        return table;
+    }
+
+    private javax.swing.JCheckBox addCheckBox(javax.swing.JPanel section, String name) {
+        javax.swing.JCheckBox checkBox = new javax.swing.JCheckBox();
+        org.openide.awt.Mnemonics.setLocalizedText(checkBox, NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel." + name + ".text")); // NOI18N
+        checkBox.setToolTipText(NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel." + name + ".toolTipText")); // NOI18N
+        section.add(checkBox);
+        return checkBox;
+    }
+
+    /**
+     * @return the number in the field, or {@code current} if it holds none
+     */
+    private static int parseInt(javax.swing.JTextField field, int current) {
+        return parseInt(field.getText(), current);
+    }
+
+    private static int parseInt(Object value, int current) {
+        try {
+            return Integer.parseInt(String.valueOf(value).trim());
+        } catch (NumberFormatException ex) {
+            return current;
+        }
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -1485,6 +1630,39 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         logResponses.setSelected(preferencesManager.isLogResponsesEnabled());
         stream.setSelected(preferencesManager.isStreamEnabled());
 
+        responseCache.setSelected(preferencesManager.isResponseCacheEnabled());
+        responseCacheNonDeterministic.setSelected(preferencesManager.isResponseCacheNonDeterministic());
+        responseCacheTTL.setText(String.valueOf(preferencesManager.getResponseCacheTTL()));
+        responseCacheMemoryEntries.setText(String.valueOf(preferencesManager.getResponseCacheMemoryEntries()));
+        responseCacheDiskSize.setText(String.valueOf(preferencesManager.getResponseCacheDiskSize()));
+        providerLimitsTableModel.setRowCount(0);
+        for (GenAIProvider provider : GenAIProvider.values()) {
+            providerLimitsTableModel.addRow(new Object[]{
+                provider,
+                preferencesManager.getMaxConcurrency(provider),
+                preferencesManager.getRequestsPerMinute(provider),
+                preferencesManager.getTokensPerMinute(provider)
+            });
+        }
+        contextWindow.setText(String.valueOf(preferencesManager.getContextWindow()));
+        projectContextChunks.setText(String.valueOf(preferencesManager.getProjectContextChunks()));
+        projectContextTokenBudget.setText(String.valueOf(preferencesManager.getProjectContextTokenBudget()));
+        referencedClassesDepth.setText(String.valueOf(preferencesManager.getReferencedClassesDepth()));
+        localSuggestionMode.setSelectedItem(preferencesManager.getLocalSuggestionMode());
+        completionTokenBudget.setText(String.valueOf(preferencesManager.getCompletionTokenBudget()));
+        completionWindowMembers.setText(String.valueOf(preferencesManager.getCompletionWindowMembers()));
+        inlineHintStreaming.setSelected(preferencesManager.isInlineHintStreamingEnabled());
+        inlineHintDelay.setText(String.valueOf(preferencesManager.getInlineHintDelay()));
+        conversationTokenBudget.setText(String.valueOf(preferencesManager.getConversationTokenBudget()));
+        routingTableModel.setRowCount(0);
+        for (AIActionType actionType : AIActionType.values()) {
+            routingTableModel.addRow(new Object[]{
+                actionType,
+                String.join(", ", preferencesManager.getRoutingTargets(actionType)),
+                preferencesManager.getRoutingHedgeDelay(actionType)
+            });
+        }
+
         if (!aiAssistantActivationCheckBox.isSelected()) {
             enableInlineHintCheckBox.setEnabled(false);
             enableInlinePromptHintCheckBox.setEnabled(false);
@@ -1629,6 +1807,40 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         preferencesManager.setLogResponsesEnabled(logResponses.isSelected());
         preferencesManager.setStreamEnabled(stream.isSelected());
 
+        preferencesManager.setResponseCacheEnabled(responseCache.isSelected());
+        preferencesManager.setResponseCacheNonDeterministic(responseCacheNonDeterministic.isSelected());
+        preferencesManager.setResponseCacheTTL(parseInt(responseCacheTTL, preferencesManager.getResponseCacheTTL()));
+        preferencesManager.setResponseCacheMemoryEntries(parseInt(responseCacheMemoryEntries, preferencesManager.getResponseCacheMemoryEntries()));
+        preferencesManager.setResponseCacheDiskSize(parseInt(responseCacheDiskSize, preferencesManager.getResponseCacheDiskSize()));
+        for (int row = 0; row < providerLimitsTableModel.getRowCount(); row++) {
+            GenAIProvider provider = (GenAIProvider) providerLimitsTableModel.getValueAt(row, 0);
+            preferencesManager.setMaxConcurrency(provider,
+                    Math.max(1, parseInt(providerLimitsTableModel.getValueAt(row, 1), preferencesManager.getMaxConcurrency(provider))));
+            preferencesManager.setRequestsPerMinute(provider,
+                    parseInt(providerLimitsTableModel.getValueAt(row, 2), preferencesManager.getRequestsPerMinute(provider)));
+            preferencesManager.setTokensPerMinute(provider,
+                    parseInt(providerLimitsTableModel.getValueAt(row, 3), preferencesManager.getTokensPerMinute(provider)));
+        }
+        preferencesManager.setContextWindow(parseInt(contextWindow, preferencesManager.getContextWindow()));
+        preferencesManager.setProjectContextChunks(parseInt(projectContextChunks, preferencesManager.getProjectContextChunks()));
+        preferencesManager.setProjectContextTokenBudget(parseInt(projectContextTokenBudget, preferencesManager.getProjectContextTokenBudget()));
+        preferencesManager.setReferencedClassesDepth(Math.max(1, parseInt(referencedClassesDepth, preferencesManager.getReferencedClassesDepth())));
+        preferencesManager.setLocalSuggestionMode((LocalSuggestionMode) localSuggestionMode.getSelectedItem());
+        preferencesManager.setCompletionTokenBudget(parseInt(completionTokenBudget, preferencesManager.getCompletionTokenBudget()));
+        preferencesManager.setCompletionWindowMembers(parseInt(completionWindowMembers, preferencesManager.getCompletionWindowMembers()));
+        preferencesManager.setInlineHintStreamingEnabled(inlineHintStreaming.isSelected());
+        preferencesManager.setInlineHintDelay(parseInt(inlineHintDelay, preferencesManager.getInlineHintDelay()));
+        preferencesManager.setConversationTokenBudget(parseInt(conversationTokenBudget, preferencesManager.getConversationTokenBudget()));
+        for (int row = 0; row < routingTableModel.getRowCount(); row++) {
+            AIActionType actionType = (AIActionType) routingTableModel.getValueAt(row, 0);
+            List<String> targets = Arrays.stream(String.valueOf(routingTableModel.getValueAt(row, 1)).split(","))
+                    .map(String::trim)
+                    .filter(target -> !target.isEmpty())
+                    .collect(Collectors.toList());
+            preferencesManager.setRoutingRule(actionType, targets,
+                    parseInt(routingTableModel.getValueAt(row, 2), preferencesManager.getRoutingHedgeDelay(actionType)));
+        }
+
         GenAIProvider selectedProvider = (GenAIProvider) providerComboBox.getSelectedItem();
         if (selectedProvider == GenAIProvider.CUSTOM_OPEN_AI
                 || selectedProvider == GenAIProvider.DEEPINFRA
@@ -21,8 +21,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import javax.swing.event.ChangeListener;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.openide.util.ChangeSupport;
 
 /**
  *
@@ -33,6 +35,7 @@ public class FilePreferences {
     private static final Path PREFS_PATH = Paths.get(System.getProperty("user.home"), "jeddict.json");
 
     private JSONObject data;
+    private final ChangeSupport changeSupport = new ChangeSupport(this);
 
     public FilePreferences() {
         load();
@@ -58,6 +61,20 @@ public class FilePreferences {
         } catch (IOException e) {
             throw new RuntimeException("Failed to save preferences", e);
         }
+        changeSupport.fireChange();
+    }
+
+    /**
+     * Registers a listener notified after every successful save.
+     *
+     * @param listener the listener to add
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeSupport.addChangeListener(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeSupport.removeChangeListener(listener);
     }
 
     public void remove(String key) {
@@ -23,7 +23,12 @@ import static io.github.jeddict.ai.settings.GenAIProvider.MISTRAL;
 import static io.github.jeddict.ai.settings.GenAIProvider.OPEN_AI;
 import static io.github.jeddict.ai.settings.GenAIProvider.PERPLEXITY;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Class representing GenAI models used in AI analysis.
@@ -42,6 +47,71 @@ public class GenAIModel {
     public static String DEFAULT_MODEL = "gpt-4.1-mini";
     public static Map<String, GenAIModel> MODELS = new HashMap<>();
 
+    private static final Logger LOG = Logger.getLogger(GenAIModel.class.getName());
+
+    /**
+     * Returned for models not listed below; the prompt is then sent without
+     * packing, unless the context window preference is set.
+     */
+    public static final int UNKNOWN_CONTEXT_LENGTH = 0;
+
+    private static final Set<String> UNKNOWN_MODELS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Context window in tokens by model name prefix; the longest matching
+     * prefix wins.
+     */
+    private static final Map<String, Integer> CONTEXT_LENGTHS = new LinkedHashMap<>();
+
+    static {
+        CONTEXT_LENGTHS.put("gemini-1.5-pro", 2_097_152);
+        CONTEXT_LENGTHS.put("gemini-", 1_048_576);
+        CONTEXT_LENGTHS.put("gpt-5", 400_000);
+        CONTEXT_LENGTHS.put("gpt-4.1", 1_047_576);
+        CONTEXT_LENGTHS.put("gpt-4o", 128_000);
+        CONTEXT_LENGTHS.put("gpt-4-turbo", 128_000);
+        CONTEXT_LENGTHS.put("o3", 200_000);
+        CONTEXT_LENGTHS.put("o4", 200_000);
+        CONTEXT_LENGTHS.put("claude-", 200_000);
+        CONTEXT_LENGTHS.put("codestral", 256_000);
+        CONTEXT_LENGTHS.put("open-codestral-mamba", 256_000);
+        CONTEXT_LENGTHS.put("mistral-", 128_000);
+        CONTEXT_LENGTHS.put("ministral-", 128_000);
+        CONTEXT_LENGTHS.put("pixtral-", 128_000);
+        CONTEXT_LENGTHS.put("open-mistral-nemo", 128_000);
+        CONTEXT_LENGTHS.put("mistral-saba", 32_768);
+        CONTEXT_LENGTHS.put("meta-llama/llama-3", 128_000);
+        CONTEXT_LENGTHS.put("qwen/qwen2.5", 32_768);
+        CONTEXT_LENGTHS.put("google/gemma-2", 8_192);
+        CONTEXT_LENGTHS.put("microsoft/wizardlm-2", 65_536);
+        CONTEXT_LENGTHS.put("mistralai/mistral-7b", 32_768);
+        CONTEXT_LENGTHS.put("deepseek-", 64_000);
+        CONTEXT_LENGTHS.put("sonar", 127_072);
+        CONTEXT_LENGTHS.put("llama-3", 128_000);
+        // local models by their Ollama and LM Studio names; the server may
+        // load them with a smaller window, set by the context window preference
+        CONTEXT_LENGTHS.put("llama3", 8_192);
+        CONTEXT_LENGTHS.put("llama3.1", 131_072);
+        CONTEXT_LENGTHS.put("llama3.2", 131_072);
+        CONTEXT_LENGTHS.put("llama3.3", 131_072);
+        CONTEXT_LENGTHS.put("meta-llama-3", 8_192);
+        CONTEXT_LENGTHS.put("meta-llama-3.1", 131_072);
+        CONTEXT_LENGTHS.put("codellama", 16_384);
+        CONTEXT_LENGTHS.put("qwen2.5", 32_768);
+        CONTEXT_LENGTHS.put("qwen3", 40_960);
+        CONTEXT_LENGTHS.put("deepseek-coder", 16_384);
+        CONTEXT_LENGTHS.put("deepseek-coder-v2", 163_840);
+        CONTEXT_LENGTHS.put("deepseek-r1", 131_072);
+        CONTEXT_LENGTHS.put("mistral:", 32_768);
+        CONTEXT_LENGTHS.put("mistral-nemo", 128_000);
+        CONTEXT_LENGTHS.put("devstral", 131_072);
+        CONTEXT_LENGTHS.put("gemma2", 8_192);
+        CONTEXT_LENGTHS.put("gemma3", 131_072);
+        CONTEXT_LENGTHS.put("phi4", 16_384);
+        CONTEXT_LENGTHS.put("starcoder2", 16_384);
+        CONTEXT_LENGTHS.put("gpt-oss", 131_072);
+    }
+
     static {
         // -----------------------------
         // Google Gemini (Vertex/AI Studio)
@@ -274,6 +344,42 @@ public class GenAIModel {
         return outputPrice;
     }
 
+    /**
+     * @return the context window of this model in tokens
+     */
+    public int getContextLength() {
+        return getContextLength(name);
+    }
+
+    /**
+     * Looks up the context window of a model, including models fetched from
+     * a provider that are not listed in {@link #MODELS}.
+     *
+     * @param modelName the model name
+     * @return the context window in tokens, {@link #UNKNOWN_CONTEXT_LENGTH}
+     * if unknown
+     */
+    public static int getContextLength(String modelName) {
+        if (modelName == null) {
+            return UNKNOWN_CONTEXT_LENGTH;
+        }
+        String name = modelName.toLowerCase();
+        String longest = null;
+        for (String prefix : CONTEXT_LENGTHS.keySet()) {
+            if (name.startsWith(prefix) && (longest == null || prefix.length() > longest.length())) {
+                longest = prefix;
+            }
+        }
+        if (longest != null) {
+            return CONTEXT_LENGTHS.get(longest);
+        }
+        if (UNKNOWN_MODELS.add(name)) {
+            LOG.log(Level.INFO, "Context length of model {0} is unknown, prompts are sent without packing; "
+                    + "set the context window preference to fit them to the model", modelName);
+        }
+        return UNKNOWN_CONTEXT_LENGTH;
+    }
+
     public String getFormattedInfo() {
         return String.format("%s: %s", name, description);
     }
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+/**
+ * How variable name, method name and string literal completions answered
+ * from the vocabulary of the project are combined with those of the model.
+ *
+ * @author Gaurav Gupta
+ */
+public enum LocalSuggestionMode {
+    OFF("Off", "Always asks the model."),
+    MERGE("Merge", "Lists the project suggestions first, followed by those of the model."),
+    REPLACE("Replace", "Asks the model only when the project has no suggestion.");
+
+    private final String displayName;
+    private final String description;
+
+    LocalSuggestionMode(String displayName, String description) {
+        this.displayName = displayName;
+        this.description = description;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+}
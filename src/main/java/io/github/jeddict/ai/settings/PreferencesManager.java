@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.prefs.Preferences;
 import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
+import javax.swing.event.ChangeListener;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.netbeans.api.editor.mimelookup.MimeLookup;
@@ -76,6 +77,28 @@ public class PreferencesManager {
     private static final String INCLUDE_CODE_EXECUTION_OUTPUT_PREFERENCE = "includeCodeExecutionOutput";
     private static final String MAX_RETRIES_PREFERENCE = "maxRetries";
     private static final String TOKEN_GRANULARITY_KEY = "tokenGranularity";
+    private static final String RESPONSE_CACHE_PREFERENCE = "responseCache";
+    private static final String RESPONSE_CACHE_TTL_PREFERENCE = "responseCacheTTL";
+    private static final String RESPONSE_CACHE_MEMORY_ENTRIES_PREFERENCE = "responseCacheMemoryEntries";
+    private static final String RESPONSE_CACHE_DISK_SIZE_PREFERENCE = "responseCacheDiskSize";
+    private static final String RESPONSE_CACHE_NON_DETERMINISTIC_PREFERENCE = "responseCacheNonDeterministic";
+    private static final String CONTEXT_WINDOW_PREFERENCE = "contextWindow";
+    private static final String CONVERSATION_TOKEN_BUDGET_PREFERENCE = "conversationTokenBudget";
+    private static final String INLINE_HINT_DELAY_PREFERENCE = "inlineHintDelay";
+    private static final String INLINE_HINT_STREAMING_PREFERENCE = "inlineHintStreaming";
+    private static final String COMPLETION_WINDOW_MEMBERS_PREFERENCE = "completionWindowMembers";
+    private static final String COMPLETION_TOKEN_BUDGET_PREFERENCE = "completionTokenBudget";
+    private static final String LOCAL_SUGGESTION_MODE_PREFERENCE = "localSuggestionMode";
+    private static final String REFERENCED_CLASSES_DEPTH_PREFERENCE = "referencedClassesDepth";
+    private static final String PROJECT_CONTEXT_TOKEN_BUDGET_PREFERENCE = "projectContextTokenBudget";
+    private static final String PROJECT_CONTEXT_CHUNKS_PREFERENCE = "projectContextChunks";
+    private static final String RATE_LIMITS_PREFERENCE = "_rate_limits";
+    private static final String MAX_CONCURRENCY_KEY = "maxConcurrency";
+    private static final String REQUESTS_PER_MINUTE_KEY = "requestsPerMinute";
+    private static final String TOKENS_PER_MINUTE_KEY = "tokensPerMinute";
+    private static final String ROUTING_PREFERENCE = "routing";
+    private static final String ROUTING_TARGETS_KEY = "targets";
+    private static final String ROUTING_HEDGE_DELAY_KEY = "hedgeDelay";
     private static final String LAST_BROWSE_DIRECTORY_PREFERENCE = "lastBrowseDirectory";
 
     private final List<String> DEFAULT_ACCEPTED_EXTENSIONS = Arrays.asList(
@@ -177,6 +200,19 @@ public class PreferencesManager {
         return instance;
     }
 
+    /**
+     * Registers a listener notified whenever a setting is written.
+     *
+     * @param listener the listener to add
+     */
+    public void addChangeListener(ChangeListener listener) {
+        preferences.addChangeListener(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        preferences.removeChangeListener(listener);
+    }
+
     public void exportPreferences(String filePath) throws IOException {
             preferences.exportPreferences(filePath);
     }
@@ -197,7 +233,11 @@ public class PreferencesManager {
         return getApiKey(false);
     }
 
-    String getApiKey(GenAIProvider provider) {
+    /**
+     * @return the key stored for the given provider, without prompting and
+     * without looking at the environment
+     */
+    public String getApiKey(GenAIProvider provider) {
         return preferences.get(provider.name() + API_KEY_PREFERENCES, null);
     }
 
@@ -378,6 +418,108 @@ public class PreferencesManager {
         setInlineHintsEnabled(isInlineHintEnabled() || isInlinePromptHintEnabled());
     }
 
+    /**
+     * @return the milliseconds an inline hint waits for typing to pause
+     * before asking the model
+     */
+    public int getInlineHintDelay() {
+        return preferences.getInt(INLINE_HINT_DELAY_PREFERENCE, 300);
+    }
+
+    public void setInlineHintDelay(int millis) {
+        preferences.putInt(INLINE_HINT_DELAY_PREFERENCE, millis);
+    }
+
+    /**
+     * @return whether inline hints are shown while the model generates them,
+     * using the streaming model of the provider
+     */
+    public boolean isInlineHintStreamingEnabled() {
+        return preferences.getBoolean(INLINE_HINT_STREAMING_PREFERENCE, false);
+    }
+
+    public void setInlineHintStreamingEnabled(boolean enabled) {
+        preferences.putBoolean(INLINE_HINT_STREAMING_PREFERENCE, enabled);
+    }
+
+    /**
+     * @return the members on either side of the caret sent in full with a
+     * completion request when the file exceeds the completion token budget;
+     * negative to always send the whole file
+     */
+    public int getCompletionWindowMembers() {
+        return preferences.getInt(COMPLETION_WINDOW_MEMBERS_PREFERENCE, 2);
+    }
+
+    public void setCompletionWindowMembers(int members) {
+        preferences.putInt(COMPLETION_WINDOW_MEMBERS_PREFERENCE, members);
+    }
+
+    /**
+     * @return the tokens the source sent with a completion request may use
+     */
+    public int getCompletionTokenBudget() {
+        return preferences.getInt(COMPLETION_TOKEN_BUDGET_PREFERENCE, 2_000);
+    }
+
+    public void setCompletionTokenBudget(int tokens) {
+        preferences.putInt(COMPLETION_TOKEN_BUDGET_PREFERENCE, tokens);
+    }
+
+    public LocalSuggestionMode getLocalSuggestionMode() {
+        String mode = preferences.get(LOCAL_SUGGESTION_MODE_PREFERENCE, null);
+        if (mode != null) {
+            try {
+                return LocalSuggestionMode.valueOf(mode);
+            } catch (IllegalArgumentException iae) {
+                // .. skip
+            }
+        }
+        // completion items show once the query finishes, so merged local answers wait for the model
+        return LocalSuggestionMode.REPLACE;
+    }
+
+    public void setLocalSuggestionMode(LocalSuggestionMode mode) {
+        preferences.put(LOCAL_SUGGESTION_MODE_PREFERENCE, mode != null ? mode.name() : null);
+    }
+
+    /**
+     * @return how many reference steps away from the current class the
+     * referenced classes context reaches; 1 for the classes it uses directly
+     */
+    public int getReferencedClassesDepth() {
+        return preferences.getInt(REFERENCED_CLASSES_DEPTH_PREFERENCE, 1);
+    }
+
+    public void setReferencedClassesDepth(int depth) {
+        preferences.putInt(REFERENCED_CLASSES_DEPTH_PREFERENCE, depth);
+    }
+
+    /**
+     * @return the tokens the entire project context may use; a larger
+     * project sends its classes most relevant to the request only, zero or
+     * negative to always send every class
+     */
+    public int getProjectContextTokenBudget() {
+        return preferences.getInt(PROJECT_CONTEXT_TOKEN_BUDGET_PREFERENCE, 8_000);
+    }
+
+    public void setProjectContextTokenBudget(int tokens) {
+        preferences.putInt(PROJECT_CONTEXT_TOKEN_BUDGET_PREFERENCE, tokens);
+    }
+
+    /**
+     * @return the most source chunks sent with a question about a project
+     * over its token budget
+     */
+    public int getProjectContextChunks() {
+        return preferences.getInt(PROJECT_CONTEXT_CHUNKS_PREFERENCE, 40);
+    }
+
+    public void setProjectContextChunks(int chunks) {
+        preferences.putInt(PROJECT_CONTEXT_CHUNKS_PREFERENCE, chunks);
+    }
+
     private static final String JAVA_INLINE_HINTS_KEY = "enable.inline.hints";
 
     public static boolean isInlineHintsEnabled() {
@@ -448,6 +590,31 @@ public class PreferencesManager {
         preferences.put("submitShortcut", shortcut);
     }
 
+    /**
+     * @return the number of tokens a prompt may use including the answer; 0
+     * or less uses the context length of the selected model, or sends the
+     * whole prompt if that length is unknown
+     */
+    public int getContextWindow() {
+        return preferences.getInt(CONTEXT_WINDOW_PREFERENCE, 0);
+    }
+
+    public void setContextWindow(int tokens) {
+        preferences.putInt(CONTEXT_WINDOW_PREFERENCE, tokens);
+    }
+
+    /**
+     * @return the tokens the conversation history may use on a chat turn;
+     * older turns are summarized beyond it
+     */
+    public int getConversationTokenBudget() {
+        return preferences.getInt(CONVERSATION_TOKEN_BUDGET_PREFERENCE, 8_000);
+    }
+
+    public void setConversationTokenBudget(int tokens) {
+        preferences.putInt(CONVERSATION_TOKEN_BUDGET_PREFERENCE, tokens);
+    }
+
     public int getConversationContext() {
         // Default = 3 (Last 3 replies)
         return preferences.getInt("conversationContext", 3);
@@ -780,6 +947,132 @@ public class PreferencesManager {
         preferences.putInt(MAX_RETRIES_PREFERENCE, maxRetries);
     }
 
+    public boolean isResponseCacheEnabled() {
+        return preferences.getBoolean(RESPONSE_CACHE_PREFERENCE, true);
+    }
+
+    public void setResponseCacheEnabled(boolean enabled) {
+        preferences.putBoolean(RESPONSE_CACHE_PREFERENCE, enabled);
+    }
+
+    /**
+     * @return how long a cached response stays valid, in minutes; 0 or less
+     * keeps responses until they are evicted for space
+     */
+    public int getResponseCacheTTL() {
+        return preferences.getInt(RESPONSE_CACHE_TTL_PREFERENCE, 24 * 60);
+    }
+
+    public void setResponseCacheTTL(int minutes) {
+        preferences.putInt(RESPONSE_CACHE_TTL_PREFERENCE, minutes);
+    }
+
+    public int getResponseCacheMemoryEntries() {
+        return preferences.getInt(RESPONSE_CACHE_MEMORY_ENTRIES_PREFERENCE, 256);
+    }
+
+    public void setResponseCacheMemoryEntries(int entries) {
+        preferences.putInt(RESPONSE_CACHE_MEMORY_ENTRIES_PREFERENCE, entries);
+    }
+
+    /**
+     * @return the on-disk cache limit in megabytes; 0 keeps the cache in
+     * memory only
+     */
+    public int getResponseCacheDiskSize() {
+        return preferences.getInt(RESPONSE_CACHE_DISK_SIZE_PREFERENCE, 50);
+    }
+
+    public void setResponseCacheDiskSize(int megabytes) {
+        preferences.putInt(RESPONSE_CACHE_DISK_SIZE_PREFERENCE, megabytes);
+    }
+
+    /**
+     * @return whether responses are cached even when a temperature above
+     * zero is configured
+     */
+    public boolean isResponseCacheNonDeterministic() {
+        return preferences.getBoolean(RESPONSE_CACHE_NON_DETERMINISTIC_PREFERENCE, false);
+    }
+
+    public void setResponseCacheNonDeterministic(boolean enabled) {
+        preferences.putBoolean(RESPONSE_CACHE_NON_DETERMINISTIC_PREFERENCE, enabled);
+    }
+
+    /**
+     * @return how many requests may run against the provider at the same
+     * time; local servers default to one
+     */
+    public int getMaxConcurrency(GenAIProvider provider) {
+        int def = switch (provider) {
+            case OLLAMA, LM_STUDIO, GPT4ALL -> 1;
+            default -> 4;
+        };
+        return preferences.getChildInt(provider.name() + RATE_LIMITS_PREFERENCE, MAX_CONCURRENCY_KEY, def);
+    }
+
+    public void setMaxConcurrency(GenAIProvider provider, int maxConcurrency) {
+        preferences.putChildInt(provider.name() + RATE_LIMITS_PREFERENCE, MAX_CONCURRENCY_KEY, maxConcurrency);
+    }
+
+    /**
+     * @return the provider request rate limit, 0 if unlimited
+     */
+    public int getRequestsPerMinute(GenAIProvider provider) {
+        return preferences.getChildInt(provider.name() + RATE_LIMITS_PREFERENCE, REQUESTS_PER_MINUTE_KEY, 0);
+    }
+
+    public void setRequestsPerMinute(GenAIProvider provider, int requestsPerMinute) {
+        preferences.putChildInt(provider.name() + RATE_LIMITS_PREFERENCE, REQUESTS_PER_MINUTE_KEY, requestsPerMinute);
+    }
+
+    /**
+     * @return the provider token rate limit, 0 if unlimited
+     */
+    public int getTokensPerMinute(GenAIProvider provider) {
+        return preferences.getChildInt(provider.name() + RATE_LIMITS_PREFERENCE, TOKENS_PER_MINUTE_KEY, 0);
+    }
+
+    public void setTokensPerMinute(GenAIProvider provider, int tokensPerMinute) {
+        preferences.putChildInt(provider.name() + RATE_LIMITS_PREFERENCE, TOKENS_PER_MINUTE_KEY, tokensPerMinute);
+    }
+
+    /**
+     * Returns the models requests of the given type may be routed to, as
+     * {@code PROVIDER/model} strings. An empty list, the default, sends every
+     * request to the selected provider and model.
+     */
+    public List<String> getRoutingTargets(AIActionType actionType) {
+        JSONObject rule = preferences.getChild(ROUTING_PREFERENCE).optJSONObject(actionType.name());
+        if (rule == null || !rule.has(ROUTING_TARGETS_KEY)) {
+            return Collections.emptyList();
+        }
+        JSONArray targets = rule.getJSONArray(ROUTING_TARGETS_KEY);
+        return targets.toList().stream().map(String::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the delay in milliseconds after which an unanswered request is
+     * also sent to the next routing target, 0 if hedging is off
+     */
+    public int getRoutingHedgeDelay(AIActionType actionType) {
+        JSONObject rule = preferences.getChild(ROUTING_PREFERENCE).optJSONObject(actionType.name());
+        return rule == null ? 0 : rule.optInt(ROUTING_HEDGE_DELAY_KEY, 0);
+    }
+
+    public void setRoutingRule(AIActionType actionType, List<String> targets, int hedgeDelay) {
+        JSONObject routing = preferences.getChild(ROUTING_PREFERENCE);
+        if (targets == null || targets.isEmpty()) {
+            routing.remove(actionType.name());
+        } else {
+            JSONObject rule = new JSONObject();
+            rule.put(ROUTING_TARGETS_KEY, new JSONArray(targets));
+            rule.put(ROUTING_HEDGE_DELAY_KEY, hedgeDelay);
+            routing.put(actionType.name(), rule);
+        }
+        preferences.setChild(ROUTING_PREFERENCE, routing);
+    }
+
     public TokenGranularity getTokenGranularity() {
         if (tokenGranularity != null) {
             return tokenGranularity;
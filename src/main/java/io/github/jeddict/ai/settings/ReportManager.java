@@ -27,8 +27,10 @@ public class ReportManager {
     private final FilePreferences preferences;
     private static final String DAILY_INPUT_TOKEN_STATS_KEY = "dailyInputTokenStats";
     private static final String DAILY_OUTPUT_TOKEN_STATS_KEY = "dailyOutputTokenStats";
+    private static final String DAILY_CACHED_TOKEN_STATS_KEY = "dailyCachedTokenStats";
     private JSONObject dailyInputTokenStats;
     private JSONObject dailyOutputTokenStats;
+    private JSONObject dailyCachedTokenStats;
 
     private ReportManager() {
         preferences = new FilePreferences();
@@ -68,4 +70,16 @@ public class ReportManager {
         this.dailyOutputTokenStats = usage;
         preferences.setChild(DAILY_OUTPUT_TOKEN_STATS_KEY, usage);
     }
+
+    public JSONObject getDailyCachedTokenStats() {
+        if (dailyCachedTokenStats == null) {
+            dailyCachedTokenStats = preferences.getChild(DAILY_CACHED_TOKEN_STATS_KEY);
+        }
+        return dailyCachedTokenStats;
+    }
+
+    public void setDailyCachedTokenStats(JSONObject usage) {
+        this.dailyCachedTokenStats = usage;
+        preferences.setChild(DAILY_CACHED_TOKEN_STATS_KEY, usage);
+    }
 }
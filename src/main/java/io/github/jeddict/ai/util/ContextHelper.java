@@ -15,6 +15,7 @@
  */
 package io.github.jeddict.ai.util;
 
+import io.github.jeddict.ai.scanner.ProjectChunkIndex;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import static io.github.jeddict.ai.util.FileUtil.getLatestContent;
 import static io.github.jeddict.ai.util.SourceUtil.removeJavadoc;
@@ -25,6 +26,7 @@ import java.util.Base64;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.netbeans.api.project.Project;
 import org.openide.filesystems.FileObject;
 import org.openide.util.Exceptions;
 
@@ -57,6 +59,64 @@ public class ContextHelper {
         return inputForAI.toString();
     }
     
+    /**
+     * Like {@link #getProjectContext(Set)}, but once the files exceed the
+     * project context token budget only their chunks nearest to the question
+     * are sent. The files are sent whole if the chunk index cannot be used.
+     *
+     * @param project the project of the files
+     * @param projectContext the files
+     * @param question the question about the files
+     * @return the content of the files, or of their chunks
+     */
+    public static String getProjectContext(Project project, Set<FileObject> projectContext, String question) {
+        if (exceedsBudget(projectContext, question)) {
+            String chunks = ProjectChunkIndex.get(project).search(projectContext, question, pm.getProjectContextChunks());
+            if (chunks != null) {
+                return chunks;
+            }
+        }
+        return getProjectContext(projectContext);
+    }
+
+    /**
+     * Like {@link #getTextFilesContext(Set)}, but once the files exceed the
+     * project context token budget only their chunks nearest to the question
+     * are sent. The files are sent whole if the chunk index cannot be used.
+     *
+     * @param project the project of the files
+     * @param scope the files and folders
+     * @param question the question about the files
+     * @return the content of the text files, or of their chunks
+     */
+    public static String getTextFilesContext(Project project, Set<FileObject> scope, String question) {
+        Set<FileObject> textFiles = getFilesContextList(scope).stream()
+                .filter(file -> !file.getMIMEType().startsWith("image"))
+                .collect(Collectors.toSet());
+        if (project != null && exceedsBudget(textFiles, question)) {
+            String chunks = ProjectChunkIndex.get(project).search(textFiles, question, pm.getProjectContextChunks());
+            if (chunks != null) {
+                return chunks;
+            }
+        }
+        return getTextFilesContext(scope);
+    }
+
+    /**
+     * About four characters make a token.
+     */
+    private static boolean exceedsBudget(Set<FileObject> files, String question) {
+        int budget = pm.getProjectContextTokenBudget();
+        if (budget <= 0 || question == null || question.isBlank()) {
+            return false;
+        }
+        long size = 0;
+        for (FileObject file : files) {
+            size += file.getSize();
+        }
+        return size / 4 > budget;
+    }
+
     public static String getTextFilesContext(Set<FileObject> scope) {
         StringBuilder inputForAI = new StringBuilder();
         for (FileObject file : getFilesContextList(scope)) {
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Trees;
+import io.github.jeddict.ai.scanner.CaretTreeLocator;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class CaretWindowTest {
+
+    private static final String PLACEHOLDER = "${SUGGEST_CODE}";
+
+    @Test
+    public void a_file_within_the_budget_is_sent_whole() throws Exception {
+        String source = service(3);
+        int caret = source.indexOf("return total1;");
+
+        String window = window(source, caret, 2, 100_000);
+
+        then(window).isEqualTo(source.substring(0, caret) + PLACEHOLDER + source.substring(caret));
+    }
+
+    @Test
+    public void a_large_file_keeps_the_caret_member_and_its_neighbours() throws Exception {
+        String source = service(50);
+        int caret = source.indexOf("return total20;");
+
+        String window = window(source, caret, 1, 4_000);
+
+        then(window.length()).isLessThanOrEqualTo(4_000);
+        then(window).contains("package demo;", "import java.util.List;", "public class Service {",
+                "private final List<String> names;",
+                PLACEHOLDER + "return total20;",
+                "total19 += i;", "total21 += i;",
+                "public int sum5(int[] values);");
+        then(window).doesNotContain("total5 += i;", "total22 += i;");
+    }
+
+    @Test
+    public void neighbours_are_dropped_before_the_caret_member() throws Exception {
+        String source = service(50);
+        int caret = source.indexOf("return total20;");
+
+        String window = window(source, caret, 3, 2_200);
+
+        then(window.length()).isLessThanOrEqualTo(2_200);
+        then(window).contains(PLACEHOLDER + "return total20;");
+        then(window).doesNotContain("total19 += i;");
+    }
+
+    @Test
+    public void a_caret_between_members_is_placed_among_them() throws Exception {
+        String source = service(50);
+        int caret = source.indexOf("    public int sum30(");
+
+        String window = window(source, caret, 1, 4_000);
+
+        then(window).contains(PLACEHOLDER + "\n    public int sum30(", "total29 += i;");
+    }
+
+    @Test
+    public void the_text_around_the_caret_is_clipped_as_a_last_resort() throws Exception {
+        String source = service(50);
+        int caret = source.indexOf("return total20;");
+
+        String window = window(source, caret, 0, 200);
+
+        then(window.length()).isLessThanOrEqualTo(300);
+        then(window).contains(PLACEHOLDER + "return total20;");
+    }
+
+    @Test
+    public void a_text_other_than_the_parsed_one_is_sent_whole() throws Exception {
+        String parsed = service(50);
+        String edited = parsed.substring(0, parsed.indexOf("public class Service"));
+        int caret = edited.length();
+
+        String window = window(parsed, edited, caret, 1, 10);
+
+        then(window).isEqualTo(edited + PLACEHOLDER);
+    }
+
+    private static String window(String source, int caret, int members, int budget) throws Exception {
+        return window(source, source, caret, members, budget);
+    }
+
+    /**
+     * @param parsed the text the tree is parsed from
+     * @param source the text the window is cut from
+     */
+    private static String window(String parsed, String source, int caret, int members, int budget) throws Exception {
+        JavaFileObject fileObject = new SimpleJavaFileObject(URI.create("string:///Service.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return parsed;
+            }
+        };
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        PrintWriter nullWriter = new PrintWriter(OutputStream.nullOutputStream());
+        JavacTask task = (JavacTask) compiler.getTask(nullWriter, null, d -> {}, null, null, List.of(fileObject));
+        CompilationUnitTree unit = task.parse().iterator().next();
+        Trees trees = Trees.instance(task);
+        return CaretWindow.of(source, unit, trees.getSourcePositions(),
+                CaretTreeLocator.locate(unit, trees.getSourcePositions(), caret),
+                caret, PLACEHOLDER, members, budget, String::length);
+    }
+
+    private static String service(int methods) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package demo;\n\n");
+        sb.append("import java.util.List;\n\n");
+        sb.append("public class Service {\n\n");
+        sb.append("    private final List<String> names;\n\n");
+        for (int i = 0; i < methods; i++) {
+            sb.append("    public int sum").append(i).append("(int[] values) {\n");
+            sb.append("        int total").append(i).append(" = 0;\n");
+            sb.append("        for (int i : values) {\n");
+            sb.append("            total").append(i).append(" += i;\n");
+            sb.append("        }\n");
+            sb.append("        return total").append(i).append(";\n");
+            sb.append("    }\n\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class CompletionCacheTest {
+
+    @Test
+    public void same_caret_context_hits_the_cache() {
+        CompletionCache cache = new CompletionCache(10);
+        String member = "void m() {\n    int x = \n}";
+
+        cache.put(CompletionCache.key("A.java", member, 21, "    int x = "), List.of("1;"));
+
+        then(cache.<String>get(CompletionCache.key("A.java", member, 21, "    int x = "))).containsExactly("1;");
+    }
+
+    @Test
+    public void an_edited_member_misses() {
+        CompletionCache cache = new CompletionCache(10);
+        cache.put(CompletionCache.key("A.java", "void m() { a(); }", 11), List.of("b();"));
+
+        then(cache.<String>get(CompletionCache.key("A.java", "void m() { a();  }", 11))).isNull();
+    }
+
+    @Test
+    public void key_parts_do_not_run_into_each_other() {
+        then(CompletionCache.key("ab", "c")).isNotEqualTo(CompletionCache.key("a", "bc"));
+        then(CompletionCache.key("a", null)).isNotEqualTo(CompletionCache.key("a"));
+    }
+
+    @Test
+    public void least_recently_used_entries_are_evicted_and_empty_results_skipped() {
+        CompletionCache cache = new CompletionCache(2);
+        cache.put("a", List.of("1"));
+        cache.put("b", List.of("2"));
+        cache.get("a");
+        cache.put("c", List.of("3"));
+        cache.put("d", List.of());
+
+        then(cache.<String>get("a")).containsExactly("1");
+        then(cache.<String>get("b")).isNull();
+        then(cache.<String>get("c")).containsExactly("3");
+        then(cache.<String>get("d")).isNull();
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.completion;
+
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.github.jeddict.ai.lang.CancellableFuture;
+import io.github.jeddict.ai.lang.ChatResponsePublisher;
+import io.github.jeddict.ai.lang.RequestPriority;
+import io.github.jeddict.ai.lang.RequestScheduler;
+import static io.github.jeddict.ai.settings.GenAIProvider.OLLAMA;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class InlineHintPipelineTest {
+
+    @Test
+    public void only_the_last_of_rapid_requests_runs() throws Exception {
+        InlineHintPipeline pipeline = new InlineHintPipeline();
+        List<Long> ran = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        InlineHintPipeline.Request last = null;
+        for (int i = 0; i < 20; i++) {
+            last = pipeline.submit(request -> {
+                ran.add(request.getGeneration());
+                done.countDown();
+            }, 200);
+        }
+
+        then(done.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(300);
+        then(ran).containsExactly(last.getGeneration());
+        then(last.isCurrent()).isTrue();
+    }
+
+    @Test
+    public void a_superseded_request_is_interrupted_and_stale() throws Exception {
+        InlineHintPipeline pipeline = new InlineHintPipeline();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch secondRan = new CountDownLatch(1);
+
+        InlineHintPipeline.Request first = pipeline.submit(request -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+        }, 0);
+        then(started.await(5, TimeUnit.SECONDS)).isTrue();
+        InlineHintPipeline.Request second = pipeline.submit(request -> secondRan.countDown(), 0);
+
+        then(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        then(secondRan.await(5, TimeUnit.SECONDS)).isTrue();
+        then(first.isCurrent()).isFalse();
+        then(second.isCurrent()).isTrue();
+    }
+
+    @Test
+    public void cancel_makes_the_running_request_stale() throws Exception {
+        InlineHintPipeline pipeline = new InlineHintPipeline();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        InlineHintPipeline.Request request = pipeline.submit(r -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+        }, 0);
+        then(started.await(5, TimeUnit.SECONDS)).isTrue();
+        pipeline.cancel();
+
+        then(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        then(request.isCurrent()).isFalse();
+    }
+
+    @Test
+    public void a_superseded_streaming_hint_frees_its_slot_for_the_next() throws Exception {
+        // one stream at a time, as for a local provider
+        RequestScheduler scheduler = new RequestScheduler(p -> 1, p -> 0, p -> 0);
+        InlineHintPipeline pipeline = new InlineHintPipeline();
+        List<StreamingChatResponseHandler> streams = new CopyOnWriteArrayList<>();
+        CountDownLatch firstStreaming = new CountDownLatch(1);
+        CountDownLatch secondStreaming = new CountDownLatch(1);
+
+        pipeline.submit(request -> streamHint(scheduler, streams, firstStreaming), 0);
+        then(firstStreaming.await(5, TimeUnit.SECONDS)).isTrue();
+        pipeline.submit(request -> streamHint(scheduler, streams, secondStreaming), 0);
+
+        then(secondStreaming.await(5, TimeUnit.SECONDS)).isTrue();
+        then(scheduler.getActiveCount(OLLAMA)).isEqualTo(1);
+    }
+
+    /**
+     * Streams a hint the way the completion provider does: the stream keeps
+     * its slot until it ends or the hint is cancelled, and the job waits for
+     * the hint, which an interrupt cancels.
+     */
+    private static void streamHint(RequestScheduler scheduler, List<StreamingChatResponseHandler> streams,
+            CountDownLatch streaming) {
+        ChatResponsePublisher publisher = new ChatResponsePublisher(handler -> CancellableFuture.submit(() -> {
+            RequestScheduler.Permit permit = scheduler.acquire(OLLAMA, RequestPriority.INTERACTIVE, 0);
+            handler.onCancel(permit::close);
+            streams.add(permit.releaseOnCompletion(handler, Duration.ofMinutes(2)));
+            streaming.countDown();
+            return null;
+        }, null));
+        CountDownLatch done = new CountDownLatch(1);
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        publisher.subscribe(new Flow.Subscriber<String>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(String item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+        try {
+            done.await();
+        } catch (InterruptedException ex) {
+            subscription[0].cancel();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
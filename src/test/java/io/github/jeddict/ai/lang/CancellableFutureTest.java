@@ -0,0 +1,75 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.junit.jupiter.api.Test;
+
+public class CancellableFutureTest {
+
+    @Test
+    public void completes_with_the_result_of_the_call() throws Exception {
+        CancellableFuture<String> future = CancellableFuture.submit(() -> "answer", null);
+
+        then(future.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+    }
+
+    @Test
+    public void cancel_interrupts_the_running_call() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CancellableFuture<String> future = CancellableFuture.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return "late";
+        }, null);
+        then(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        then(future.cancel(true)).isTrue();
+
+        then(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        thenThrownBy(() -> future.get()).isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    public void timeout_fails_the_future_and_interrupts_the_call() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CancellableFuture<String> future = CancellableFuture.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return "late";
+        }, Duration.ofMillis(100));
+
+        thenThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        then(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import static io.github.jeddict.ai.settings.GenAIProvider.OLLAMA;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class ChatResponsePublisherTest {
+
+    @Test
+    public void partial_responses_are_delivered_on_demand() {
+        List<ChatResponsePublisher> handlers = new ArrayList<>();
+        ChatResponsePublisher publisher = new ChatResponsePublisher(handler -> {
+            handlers.add(handler);
+            return new CompletableFuture<>();
+        });
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        handlers.get(0).onPartialResponse("a");
+        handlers.get(0).onPartialResponse("b");
+        handlers.get(0).onCompleteResponse(null);
+
+        then(recorder.items).isEmpty();
+        recorder.subscription.request(1);
+        then(recorder.items).containsExactly("a");
+        then(recorder.complete).isFalse();
+        recorder.subscription.request(1);
+        then(recorder.items).containsExactly("a", "b");
+        then(recorder.complete).isTrue();
+    }
+
+    @Test
+    public void cancelling_the_subscription_cancels_the_request() {
+        CompletableFuture<Void> request = new CompletableFuture<>();
+        List<ChatResponsePublisher> handlers = new ArrayList<>();
+        ChatResponsePublisher publisher = new ChatResponsePublisher(handler -> {
+            handlers.add(handler);
+            return request;
+        });
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+
+        recorder.subscription.cancel();
+        handlers.get(0).onPartialResponse("dropped");
+
+        then(request.isCancelled()).isTrue();
+        then(recorder.items).isEmpty();
+    }
+
+    @Test
+    public void cancelling_a_stream_being_received_frees_its_slot() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(p -> 1, p -> 0, p -> 0);
+        List<StreamingChatResponseHandler> streams = new ArrayList<>();
+        ChatResponsePublisher publisher = new ChatResponsePublisher(handler -> {
+            RequestScheduler.Permit permit = acquire(scheduler);
+            handler.onCancel(permit::close);
+            streams.add(permit.releaseOnCompletion(handler, Duration.ofMinutes(2)));
+            // the stream was started; the future of the request is done
+            return CompletableFuture.completedFuture(null);
+        });
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        streams.get(0).onPartialResponse("a");
+        then(scheduler.getActiveCount(OLLAMA)).isEqualTo(1);
+
+        recorder.subscription.cancel();
+        streams.get(0).onPartialResponse("dropped");
+        streams.get(0).onCompleteResponse(null);
+
+        then(scheduler.getActiveCount(OLLAMA)).isZero();
+        then(recorder.items).containsExactly("a");
+        then(recorder.complete).isFalse();
+    }
+
+    private static RequestScheduler.Permit acquire(RequestScheduler scheduler) {
+        try {
+            return scheduler.acquire(OLLAMA, RequestPriority.INTERACTIVE, 0);
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void concurrent_producer_and_consumer_lose_no_signal() throws Exception {
+        int items = 5;
+        for (int round = 0; round < 2_000; round++) {
+            List<ChatResponsePublisher> handlers = new ArrayList<>();
+            ChatResponsePublisher publisher = new ChatResponsePublisher(handler -> {
+                handlers.add(handler);
+                return new CompletableFuture<>();
+            });
+            AtomicInteger received = new AtomicInteger();
+            CountDownLatch complete = new CountDownLatch(1);
+            Flow.Subscription[] subscription = new Flow.Subscription[1];
+            publisher.subscribe(new Flow.Subscriber<String>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription[0] = s;
+                }
+
+                @Override
+                public void onNext(String item) {
+                    received.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                    complete.countDown();
+                }
+            });
+            CyclicBarrier start = new CyclicBarrier(2);
+            Thread producer = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < items; i++) {
+                    handlers.get(0).onPartialResponse("item");
+                }
+                handlers.get(0).onCompleteResponse(null);
+            });
+            Thread consumer = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < items; i++) {
+                    subscription[0].request(1);
+                }
+            });
+            producer.start();
+            consumer.start();
+            producer.join();
+            consumer.join();
+
+            then(complete.await(5, TimeUnit.SECONDS)).isTrue();
+            then(received.get()).isEqualTo(items);
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException | BrokenBarrierException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Recorder implements Flow.Subscriber<String> {
+
+        private final List<String> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean complete;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(String item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+}
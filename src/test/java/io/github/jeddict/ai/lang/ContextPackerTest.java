@@ -0,0 +1,98 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import static io.github.jeddict.ai.lang.ContextPacker.Kind.CURRENT_FILE;
+import static io.github.jeddict.ai.lang.ContextPacker.Kind.HISTORY;
+import static io.github.jeddict.ai.lang.ContextPacker.Kind.PROJECT_MAP;
+import static io.github.jeddict.ai.lang.ContextPacker.Kind.REFERENCED_CLASSES;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class ContextPackerTest {
+
+    /**
+     * One token per character keeps the arithmetic readable.
+     */
+    private static ContextPacker packer(int budget) {
+        return new ContextPacker(budget, String::length);
+    }
+
+    @Test
+    public void everything_is_included_when_it_fits() {
+        ContextPacker packer = packer(100);
+        packer.add(CURRENT_FILE, "Source", "x".repeat(40));
+        packer.add(HISTORY, "Turn 1", "y".repeat(40));
+
+        ContextPacker.Result result = packer.pack();
+
+        then(result.isComplete()).isTrue();
+        then(result.getTokens()).isEqualTo(80);
+        then(result.getIncluded()).hasSize(2);
+    }
+
+    @Test
+    public void fragments_are_packed_by_priority_not_insertion_order() {
+        ContextPacker packer = packer(100);
+        ContextPacker.Fragment map = packer.add(PROJECT_MAP, "Project metadata", "m".repeat(60));
+        ContextPacker.Fragment source = packer.add(CURRENT_FILE, "Source", "s".repeat(60));
+
+        ContextPacker.Result result = packer.pack();
+
+        then(result.find(source)).isSameAs(source);
+        then(result.find(map)).isNull();
+        then(result.getDropped()).containsExactly(map);
+    }
+
+    @Test
+    public void truncatable_fragment_is_cut_to_the_remaining_room() {
+        ContextPacker packer = packer(200);
+        packer.add(CURRENT_FILE, "Source", "s".repeat(100));
+        ContextPacker.Fragment files = packer.add(REFERENCED_CLASSES, "Files", "f".repeat(500));
+
+        ContextPacker.Result result = packer.pack();
+
+        ContextPacker.Fragment included = result.find(files);
+        then(included.isTruncated()).isTrue();
+        then(included.getTokens()).isLessThanOrEqualTo(100);
+        then(included.getText()).endsWith("[truncated]");
+        then(result.getTokens()).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    public void history_turns_are_dropped_whole() {
+        ContextPacker packer = packer(150);
+        ContextPacker.Fragment newest = packer.add(HISTORY, "Turn 2", "n".repeat(100));
+        ContextPacker.Fragment oldest = packer.add(HISTORY, "Turn 1", "o".repeat(100));
+
+        ContextPacker.Result result = packer.pack();
+
+        then(result.find(newest)).isSameAs(newest);
+        then(result.getDropped()).containsExactly(oldest);
+    }
+
+    @Test
+    public void report_lists_included_and_dropped_fragments() {
+        ContextPacker packer = packer(10);
+        packer.add(CURRENT_FILE, "Source", "s".repeat(5));
+        packer.add(HISTORY, "Turn 1", "h".repeat(50));
+
+        String report = packer.pack().report();
+
+        then(report).contains("+ CURRENT_FILE Source (5 tokens)");
+        then(report).contains("- HISTORY Turn 1 (50 tokens)");
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void percentiles_ignore_failed_requests() {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 1; i <= 100; i++) {
+            tracker.record("OLLAMA/qwen", i * 10, true);
+        }
+        // only the last 64 samples count: 370..1000 ms
+        LatencyTracker.Stats stats = tracker.getStats("OLLAMA/qwen");
+        then(stats.getSamples()).isEqualTo(LatencyTracker.WINDOW);
+        then(stats.getP50()).isEqualTo(680);
+        then(stats.getP95()).isEqualTo(970);
+        then(stats.getErrorRate()).isEqualTo(0.0);
+
+        tracker.record("OPEN_AI/gpt", 100, true);
+        tracker.record("OPEN_AI/gpt", 5000, false);
+        then(tracker.getStats("OPEN_AI/gpt").getP95()).isEqualTo(100);
+        then(tracker.getStats("OPEN_AI/gpt").getErrorRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void unknown_target_has_empty_stats() {
+        LatencyTracker.Stats stats = new LatencyTracker().getStats("GROQ/llama");
+
+        then(stats.getSamples()).isZero();
+        then(stats.getP50()).isZero();
+        then(stats.getErrorRate()).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class RequestCoalescerTest {
+
+    @Test
+    public void concurrent_identical_requests_share_one_call() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = coalescer.submit("key", () -> {
+            calls.incrementAndGet();
+            release.await();
+            return "answer";
+        });
+        CompletableFuture<String> second = coalescer.submit("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        });
+        release.countDown();
+
+        then(first.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+        then(second.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+        then(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void cancelling_one_subscriber_keeps_the_shared_call() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = coalescer.submit("key", () -> {
+            release.await();
+            return "answer";
+        });
+        CompletableFuture<String> second = coalescer.submit("key", () -> "other");
+        first.cancel(true);
+        release.countDown();
+
+        then(second.get(5, TimeUnit.SECONDS)).isEqualTo("answer");
+    }
+
+    @Test
+    public void cancelling_all_subscribers_interrupts_the_call() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<String> only = coalescer.submit("key", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+        then(started.await(5, TimeUnit.SECONDS)).isTrue();
+        only.cancel(true);
+
+        then(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        then(coalescer.getInFlightCount()).isZero();
+    }
+
+    @Test
+    public void a_stream_joining_a_finishing_flight_still_completes() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        int rounds = 20_000;
+        CountDownLatch completed = new CountDownLatch(4 * rounds);
+        StreamingChatResponseHandler handler = new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < rounds; i++) {
+                String key = "key" + i;
+                for (int j = 0; j < 4; j++) {
+                    // every flight finishes as soon as it starts
+                    executor.execute(() -> coalescer.stream(key, handler, flight -> {
+                        flight.onCompleteResponse(null);
+                        return () -> {
+                        };
+                    }));
+                }
+            }
+            then(completed.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void a_stream_is_released_once_its_last_subscriber_leaves() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger releases = new AtomicInteger();
+        List<String> received = new ArrayList<>();
+        StreamingChatResponseHandler[] upstream = new StreamingChatResponseHandler[1];
+        StreamingChatResponseHandler handler = new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                received.add(partialResponse);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        };
+
+        CompletableFuture<Void> first = coalescer.stream("key", handler, flight -> {
+            upstream[0] = flight;
+            return releases::incrementAndGet;
+        });
+        CompletableFuture<Void> second = coalescer.stream("key", handler, flight -> {
+            throw new AssertionError("the stream should be shared");
+        });
+        first.cancel(true);
+        upstream[0].onPartialResponse("a");
+
+        then(releases.get()).isZero();
+        then(received).containsExactly("a");
+
+        second.cancel(true);
+        upstream[0].onPartialResponse("b");
+
+        then(releases.get()).isEqualTo(1);
+        then(received).containsExactly("a");
+        then(coalescer.getInFlightCount()).isZero();
+    }
+}
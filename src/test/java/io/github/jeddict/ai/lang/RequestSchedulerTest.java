@@ -0,0 +1,137 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import static io.github.jeddict.ai.settings.GenAIProvider.OPEN_AI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class RequestSchedulerTest {
+
+    @Test
+    public void waiting_requests_are_served_by_priority() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(p -> 1, p -> 0, p -> 0);
+        List<RequestPriority> served = new CopyOnWriteArrayList<>();
+
+        RequestScheduler.Permit running = scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 10);
+        Thread background = waiter(scheduler, RequestPriority.BACKGROUND, served);
+        awaitQueueDepth(scheduler, 1);
+        Thread interactive = waiter(scheduler, RequestPriority.INTERACTIVE, served);
+        awaitQueueDepth(scheduler, 2);
+
+        running.close();
+        background.join(5000);
+        interactive.join(5000);
+
+        then(served).containsExactly(RequestPriority.INTERACTIVE, RequestPriority.BACKGROUND);
+        then(scheduler.getActiveCount(OPEN_AI)).isZero();
+    }
+
+    @Test
+    public void concurrency_limit_is_applied_per_provider() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(p -> 2, p -> 0, p -> 0);
+
+        RequestScheduler.Permit first = scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 0);
+        RequestScheduler.Permit second = scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 0);
+        then(scheduler.getActiveCount(OPEN_AI)).isEqualTo(2);
+
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread third = new Thread(() -> {
+            try (RequestScheduler.Permit permit = scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 0)) {
+                admitted.countDown();
+            } catch (InterruptedException ex) {
+            }
+        });
+        third.start();
+        then(admitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        first.close();
+        then(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        second.close();
+    }
+
+    @Test
+    public void request_rate_limit_delays_admission() throws Exception {
+        // one request per second
+        RequestScheduler scheduler = new RequestScheduler(p -> 4, p -> 60, p -> 0);
+        scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 0).close();
+        // the first bucket holds a full minute, drain it
+        for (int i = 1; i < 60; i++) {
+            scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 0).close();
+        }
+
+        long start = System.nanoTime();
+        scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 0).close();
+
+        then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThan(500);
+    }
+
+    private static Thread waiter(RequestScheduler scheduler, RequestPriority priority, List<RequestPriority> served) {
+        Thread thread = new Thread(() -> {
+            try (RequestScheduler.Permit permit = scheduler.acquire(OPEN_AI, priority, 0)) {
+                served.add(priority);
+            } catch (InterruptedException ex) {
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void a_silent_stream_frees_its_slot_after_the_idle_timeout() throws Exception {
+        RequestScheduler scheduler = new RequestScheduler(p -> 1, p -> 0, p -> 0);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        CountDownLatch failed = new CountDownLatch(1);
+
+        RequestScheduler.Permit permit = scheduler.acquire(OPEN_AI, RequestPriority.CHAT, 10);
+        StreamingChatResponseHandler handler = permit.releaseOnCompletion(new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                errors.add(error);
+                failed.countDown();
+            }
+        }, Duration.ofMillis(100));
+
+        then(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        then(errors.get(0)).isInstanceOf(TimeoutException.class);
+        then(scheduler.getActiveCount(OPEN_AI)).isZero();
+        // a late answer is not delivered after the timeout
+        handler.onError(new IllegalStateException());
+        then(errors).hasSize(1);
+    }
+
+    private static void awaitQueueDepth(RequestScheduler scheduler, int depth) throws InterruptedException {
+        for (int i = 0; i < 500 && scheduler.getQueueDepth(OPEN_AI) < depth; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ResponseCacheTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void key_depends_on_fingerprint_and_messages() {
+        List<ChatMessage> messages = List.of(SystemMessage.from("rules"), UserMessage.from("hello"));
+
+        then(ResponseCache.key("openai|gpt", messages))
+                .isEqualTo(ResponseCache.key("openai|gpt", List.of(SystemMessage.from("rules"), UserMessage.from("hello"))))
+                .isNotEqualTo(ResponseCache.key("openai|gpt-mini", messages))
+                .isNotEqualTo(ResponseCache.key("openai|gpt", List.of(UserMessage.from("hello"))))
+                .isNotEqualTo(ResponseCache.key("openai|gpt", List.of(SystemMessage.from("rules"), UserMessage.from("hello!"))));
+    }
+
+    @Test
+    public void get_returns_stored_response_from_memory_and_disk() {
+        ResponseCache cache = new ResponseCache(directory, DAY, 10, 1024 * 1024);
+        then(cache.get("k1")).isNull();
+
+        cache.put("k1", "answer");
+        then(cache.get("k1")).isEqualTo("answer");
+
+        // a fresh instance only has the disk tier
+        then(new ResponseCache(directory, DAY, 10, 1024 * 1024).get("k1")).isEqualTo("answer");
+    }
+
+    @Test
+    public void expired_responses_are_not_returned() throws Exception {
+        ResponseCache cache = new ResponseCache(directory, 1, 10, 1024 * 1024);
+        cache.put("k1", "answer");
+        Thread.sleep(10);
+
+        then(cache.get("k1")).isNull();
+        then(Files.exists(directory.resolve("k1.bin"))).isFalse();
+    }
+
+    @Test
+    public void memory_only_cache_does_not_write_files() throws Exception {
+        ResponseCache cache = new ResponseCache(directory, DAY, 1, 0);
+        cache.put("k1", "first");
+        cache.put("k2", "second");
+
+        then(cache.get("k1")).isNull();
+        then(cache.get("k2")).isEqualTo("second");
+        try (Stream<Path> files = Files.list(directory)) {
+            then(files).isEmpty();
+        }
+    }
+
+    @Test
+    public void disk_tier_is_trimmed_least_recently_used_first() throws Exception {
+        String response = "x".repeat(400);
+        ResponseCache cache = new ResponseCache(directory, DAY, 1, 1000);
+        cache.put("k1", response);
+        Files.setLastModifiedTime(directory.resolve("k1.bin"),
+                FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        cache.put("k2", response);
+        cache.put("k3", response);
+
+        then(Files.exists(directory.resolve("k1.bin"))).isFalse();
+        then(Files.exists(directory.resolve("k3.bin"))).isTrue();
+    }
+
+    @Test
+    public void clear_removes_both_tiers() {
+        ResponseCache cache = new ResponseCache(directory, DAY, 10, 1024 * 1024);
+        cache.put("k1", "answer");
+        cache.clear();
+
+        then(cache.get("k1")).isNull();
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class ConversationCompactorTest {
+
+    private static Response turn(String query, String answer) {
+        return new Response(query, answer, Set.of());
+    }
+
+    /**
+     * One token per character keeps the arithmetic readable.
+     */
+    private static ConversationCompactor compactor(int budget) {
+        return new ConversationCompactor(budget, String::length);
+    }
+
+    /**
+     * A turn of about 500 tokens, mostly code that is left out of summaries.
+     */
+    private static Response longTurn(int i) {
+        return turn("question " + i, "answer " + i + ".\n```\n" + "x".repeat(480) + "\n```");
+    }
+
+    @Test
+    public void short_conversation_is_sent_unchanged() {
+        List<Response> history = List.of(turn("q1", "a1"), turn("q2", "a2"));
+
+        List<Response> compacted = compactor(1_000).compact(history);
+
+        then(compacted).containsExactlyElementsOf(history);
+    }
+
+    @Test
+    public void older_turns_are_folded_into_a_summary() {
+        List<Response> history = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            history.add(longTurn(i));
+        }
+
+        List<Response> compacted = compactor(2_000).compact(history);
+
+        then(compacted.get(0).getQuery()).isEqualTo(ConversationCompactor.SUMMARY_QUERY);
+        then(compacted.get(0).toString()).contains("question 1");
+        then(compacted.get(compacted.size() - 1)).isSameAs(history.get(9));
+        then(compacted.size()).isLessThan(history.size());
+    }
+
+    @Test
+    public void summary_is_extended_incrementally() {
+        ConversationCompactor compactor = compactor(2_000);
+        List<Response> history = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            history.add(longTurn(i));
+        }
+        compactor.compact(history);
+        history.add(longTurn(11));
+
+        String summary = compactor.compact(history).get(0).toString();
+
+        then(summary).contains("question 1 ");
+        then(summary).contains("question 8");
+    }
+
+    @Test
+    public void summary_follows_a_sliding_history() {
+        List<String> counted = new ArrayList<>();
+        ConversationCompactor compactor = new ConversationCompactor(2_000, text -> {
+            counted.add(text);
+            return text.length();
+        });
+        List<Response> history = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            history.add(longTurn(i));
+        }
+        compactor.compact(new ArrayList<>(history.subList(0, 8)));
+        counted.clear();
+
+        String summary = compactor.compact(new ArrayList<>(history.subList(2, 10))).get(0).toString();
+
+        then(summary).doesNotContain("question 1 ");
+        then(summary).doesNotContain("question 2 ");
+        then(summary).contains("question 3 ");
+        then(counted.stream().filter(text -> text.startsWith("- User: question 3 "))).isEmpty();
+    }
+
+    @Test
+    public void superseded_code_is_elided() {
+        Response first = turn("write it", "Here:\n```java\nclass Foo {\n int a;\n}\n```");
+        Response second = turn("change it", "Updated:\n```java\nclass Foo {\n int b;\n}\n```");
+
+        List<Response> compacted = compactor(1_000).compact(List.of(first, second));
+
+        then(compacted.get(0).toString()).doesNotContain("int a;");
+        then(compacted.get(0).toString()).contains("Foo omitted");
+        then(compacted.get(1)).isSameAs(second);
+        then(first.toString()).contains("int a;");
+    }
+
+    @Test
+    public void code_key_prefers_the_action_path() {
+        Block code = new Block("java", "public class Foo {}");
+
+        then(ConversationCompactor.codeKey(code, "src/Foo.java")).isEqualTo("src/Foo.java");
+        then(ConversationCompactor.codeKey(code, null)).isEqualTo("Foo");
+        then(ConversationCompactor.codeKey(new Block("java", "public void bar(int x) {\n}"), null)).isEqualTo("bar()");
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class Bm25IndexTest {
+
+    private static final ClassData USER_REPOSITORY = new ClassData("demo.user", "UserRepository",
+            "package demo.user;\npublic interface UserRepository {\npublic User findByEmail(String email);\npublic void save(User user);\n}\n");
+    private static final ClassData ORDER_SERVICE = new ClassData("demo.order", "OrderService",
+            "package demo.order;\npublic class OrderService {\npublic Order placeOrder(Cart cart);\npublic void cancelOrder(long orderId);\n}\n");
+    private static final ClassData INVOICE = new ClassData("demo.billing", "Invoice",
+            "package demo.billing;\npublic class Invoice {\npublic BigDecimal total();\npublic Order order();\n}\n");
+
+    @Test
+    public void identifiers_split_into_terms() {
+        List<String> terms = new ArrayList<>();
+        Bm25Index.terms("public HTTPServerConfig user_id getUser2()", terms::add);
+
+        then(terms).containsExactly("http", "server", "config", "httpserverconfig", "user", "id", "user_id", "user");
+    }
+
+    @Test
+    public void classes_rank_by_the_terms_they_share() {
+        Bm25Index index = new Bm25Index();
+        index.update(List.of(USER_REPOSITORY, ORDER_SERVICE, INVOICE));
+
+        then(index.search(List.of("order", "cancel"), null, 10)).containsExactly(ORDER_SERVICE, INVOICE);
+        then(index.search(List.of("order", "cancel"), ORDER_SERVICE, 10)).containsExactly(INVOICE);
+        then(index.search(List.of("email"), null, 10)).containsExactly(USER_REPOSITORY);
+        then(index.search(List.of("unknown"), null, 10)).isEmpty();
+    }
+
+    @Test
+    public void changed_classes_are_indexed_again() {
+        Bm25Index index = new Bm25Index();
+        index.update(List.of(USER_REPOSITORY, ORDER_SERVICE));
+        ClassData renamed = new ClassData("demo.order", "OrderService",
+                "package demo.order;\npublic class OrderService {\npublic Shipment ship(Order order);\n}\n");
+
+        index.update(List.of(USER_REPOSITORY, renamed));
+
+        then(index.size()).isEqualTo(2);
+        then(index.search(List.of("cancel"), null, 10)).isEmpty();
+        then(index.search(List.of("shipment"), null, 10)).containsExactly(renamed);
+    }
+}
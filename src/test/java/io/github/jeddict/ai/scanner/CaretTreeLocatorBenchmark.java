@@ -0,0 +1,73 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import java.util.Random;
+
+/**
+ * Compares the caret lookup of {@link CaretTreeLocator} with a scan of every
+ * tree on generated sources of growing size. Not part of the test run; start
+ * it with {@code main}.
+ */
+public class CaretTreeLocatorBenchmark {
+
+    private static final int WARMUP = 200;
+    private static final int LOOKUPS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        for (int members : new int[]{10, 100, 1_000}) {
+            CaretTreeLocatorTest.Parse parse = CaretTreeLocatorTest.Parse.of(CaretTreeLocatorTest.generateSource(members));
+            int[] offsets = new Random(members).ints(LOOKUPS, 0, parse.source.length()).toArray();
+
+            run(parse, offsets, WARMUP);
+            long scan = time(() -> {
+                for (int offset : offsets) {
+                    consume(parse.scan(offset));
+                }
+            });
+            long locate = time(() -> {
+                for (int offset : offsets) {
+                    consume(CaretTreeLocator.locate(parse.unit, parse.trees.getSourcePositions(), offset));
+                }
+            });
+            System.out.printf("%,9d chars: full scan %8.1f us/lookup, locator %6.1f us/lookup%n",
+                    parse.source.length(), scan / 1_000.0 / LOOKUPS, locate / 1_000.0 / LOOKUPS);
+        }
+        System.out.println(sink);
+    }
+
+    private static void run(CaretTreeLocatorTest.Parse parse, int[] offsets, int count) {
+        for (int i = 0; i < count; i++) {
+            consume(parse.scan(offsets[i % offsets.length]));
+            consume(CaretTreeLocator.locate(parse.unit, parse.trees.getSourcePositions(), offsets[i % offsets.length]));
+        }
+    }
+
+    private static long time(Runnable lookups) {
+        long start = System.nanoTime();
+        lookups.run();
+        return System.nanoTime() - start;
+    }
+
+    private static int sink;
+
+    private static void consume(TreePath path) {
+        Tree leaf = path == null ? null : path.getLeaf();
+        sink += leaf == null ? 0 : leaf.getKind().ordinal();
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class CaretTreeLocatorTest {
+
+    @Test
+    public void finds_the_same_path_as_the_full_scan_at_every_offset() throws Exception {
+        Parse parse = Parse.of(generateSource(3));
+
+        for (int offset = 0; offset <= parse.source.length(); offset++) {
+            then(leaf(CaretTreeLocator.locate(parse.unit, parse.trees.getSourcePositions(), offset)))
+                    .as("offset %d", offset)
+                    .isSameAs(leaf(parse.scan(offset)));
+        }
+    }
+
+    @Test
+    public void finds_the_same_path_in_incomplete_code() throws Exception {
+        String source = "package p;\nclass A {\n  void m() {\n    String s = foo.\n  }\n  int f = ;\n}\n";
+        Parse parse = Parse.of(source);
+
+        for (int offset = 0; offset <= source.length(); offset++) {
+            then(leaf(CaretTreeLocator.locate(parse.unit, parse.trees.getSourcePositions(), offset)))
+                    .as("offset %d", offset)
+                    .isSameAs(leaf(parse.scan(offset)));
+        }
+    }
+
+    @Test
+    public void repeated_lookups_in_the_same_parse_are_stable() throws Exception {
+        Parse parse = Parse.of(generateSource(1));
+        int offset = parse.source.indexOf("+= b[j]");
+
+        TreePath first = CaretTreeLocator.locate(parse.unit, parse.trees.getSourcePositions(), offset);
+        TreePath second = CaretTreeLocator.locate(parse.unit, parse.trees.getSourcePositions(), offset);
+
+        then(second.getLeaf()).isSameAs(first.getLeaf());
+        then(first.getLeaf().getKind()).isEqualTo(Tree.Kind.PLUS_ASSIGNMENT);
+    }
+
+    private static Tree leaf(TreePath path) {
+        return path == null ? null : path.getLeaf();
+    }
+
+    /**
+     * A class with the given number of members of each shape, covering the
+     * common statement and expression kinds.
+     */
+    static String generateSource(int members) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package demo.generated;\n\n");
+        sb.append("import java.util.*;\n");
+        sb.append("import java.util.function.Function;\n\n");
+        sb.append("/**\n * Generated.\n */\n");
+        sb.append("public class Generated<T extends Comparable<T>> {\n\n");
+        for (int i = 0; i < members; i++) {
+            sb.append("    private final List<String> names").append(i).append(" = new ArrayList<>();\n");
+            sb.append("    private int counter").append(i).append(";\n\n");
+            sb.append("    /**\n     * Method ").append(i).append(".\n     */\n");
+            sb.append("    @SuppressWarnings(\"unchecked\")\n");
+            sb.append("    public int compute").append(i).append("(int a, String[] b) throws Exception {\n");
+            sb.append("        int counter = a * 2 + (a - 1) / 3;\n");
+            sb.append("        for (int j = 0; j < b.length; j++) {\n");
+            sb.append("            if (b[j] != null && !b[j].isEmpty()) {\n");
+            sb.append("                counter += b[j].length();\n");
+            sb.append("            } else {\n");
+            sb.append("                counter--;\n");
+            sb.append("            }\n");
+            sb.append("        }\n");
+            sb.append("        for (String name : names").append(i).append(") {\n");
+            sb.append("            counter = counter > 10 ? counter : name.hashCode();\n");
+            sb.append("        }\n");
+            sb.append("        Function<String, Integer> f = s -> s.length();\n");
+            sb.append("        Object o = (Object) f.apply(\"x\");\n");
+            sb.append("        if (o instanceof Integer) {\n");
+            sb.append("            switch (a) {\n");
+            sb.append("                case 1:\n");
+            sb.append("                    return 1;\n");
+            sb.append("                default:\n");
+            sb.append("                    break;\n");
+            sb.append("            }\n");
+            sb.append("        }\n");
+            sb.append("        try {\n");
+            sb.append("            synchronized (this) {\n");
+            sb.append("                counter").append(i).append(" = new int[]{1, 2}[0];\n");
+            sb.append("            }\n");
+            sb.append("        } catch (IllegalStateException | IllegalArgumentException e) {\n");
+            sb.append("            throw new RuntimeException(e);\n");
+            sb.append("        }\n");
+            sb.append("        names").append(i).append(".forEach(System.out::println);\n");
+            sb.append("        while (counter > 100) {\n");
+            sb.append("            counter >>= 1;\n");
+            sb.append("        }\n");
+            sb.append("        assert counter >= 0 : \"negative\";\n");
+            sb.append("        return counter;\n");
+            sb.append("    }\n\n");
+        }
+        sb.append("    enum Mode {\n        ON, OFF\n    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * A javac parse, as the completion provider does for documents the IDE
+     * does not parse.
+     */
+    static final class Parse {
+
+        final String source;
+        final CompilationUnitTree unit;
+        final DocTrees trees;
+
+        private Parse(String source, CompilationUnitTree unit, DocTrees trees) {
+            this.source = source;
+            this.unit = unit;
+            this.trees = trees;
+        }
+
+        static Parse of(String source) throws Exception {
+            JavaFileObject fileObject = new SimpleJavaFileObject(URI.create("string:///Generated.java"), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            PrintWriter nullWriter = new PrintWriter(OutputStream.nullOutputStream());
+            JavacTask task = (JavacTask) compiler.getTask(nullWriter, null, d -> {}, null, null, List.of(fileObject));
+            CompilationUnitTree unit = task.parse().iterator().next();
+            return new Parse(source, unit, DocTrees.instance(task));
+        }
+
+        /**
+         * The innermost reported tree enclosing the caret, found by visiting
+         * every tree.
+         */
+        TreePath scan(int offset) {
+            SourcePositions positions = trees.getSourcePositions();
+            TreePath[] target = new TreePath[1];
+            new TreePathScanner<Void, Void>() {
+                @Override
+                public Void scan(Tree tree, Void p) {
+                    if (tree != null && CaretTreeLocator.isReported(tree)
+                            && positions.getStartPosition(unit, tree) <= offset
+                            && offset <= positions.getEndPosition(unit, tree)) {
+                        target[0] = getCurrentPath() == null ? new TreePath(unit) : new TreePath(getCurrentPath(), tree);
+                    }
+                    return super.scan(tree, p);
+                }
+            }.scan(unit, null);
+            return target[0];
+        }
+    }
+}
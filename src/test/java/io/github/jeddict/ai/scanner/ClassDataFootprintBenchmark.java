@@ -0,0 +1,122 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap held by {@link ClassData} with the plain strings and
+ * hash sets it used to hold, for generated projects of growing size. Not
+ * part of the test run; start it with {@code main}.
+ */
+public class ClassDataFootprintBenchmark {
+
+    private static final int MEMBERS = 20;
+    private static final String[] TYPES = {
+        "java.lang.String", "java.lang.Long", "java.math.BigDecimal", "java.time.LocalDate",
+        "java.util.List<java.lang.String>", "java.util.Optional<com.example.shop.Order>",
+        "java.util.Map<java.lang.String,java.util.List<com.example.shop.Order>>",
+        "com.example.shop.Customer", "com.example.shop.Order", "com.example.shop.OrderLine"
+    };
+
+    public static void main(String[] args) throws Exception {
+        for (int classes : new int[]{1_000, 10_000, 50_000}) {
+            long plain = footprint(() -> plain(classes));
+            long compact = footprint(() -> compact(classes));
+            System.out.printf("%,7d classes: plain %,8d KB, compact %,8d KB, %.1fx smaller%n",
+                    classes, plain / 1024, compact / 1024, (double) plain / compact);
+        }
+    }
+
+    private static List<Object> plain(int classes) {
+        List<Object> index = new ArrayList<>(classes);
+        Random random = new Random(classes);
+        for (int i = 0; i < classes; i++) {
+            // every scan creates its own strings
+            PlainClassData classData = new PlainClassData(new String("com.example.shop.p" + i % 100),
+                    "Type" + i, signature(i, random));
+            for (int m = 0; m < MEMBERS; m++) {
+                classData.subtree.add(new String(TYPES[random.nextInt(TYPES.length)].toCharArray()));
+            }
+            index.add(classData);
+        }
+        return index;
+    }
+
+    private static List<Object> compact(int classes) {
+        List<Object> index = new ArrayList<>(classes);
+        Random random = new Random(classes);
+        for (int i = 0; i < classes; i++) {
+            ClassData classData = new ClassData(new String("com.example.shop.p" + i % 100),
+                    "Type" + i, signature(i, random));
+            for (int m = 0; m < MEMBERS; m++) {
+                classData.addSubTree(new String(TYPES[random.nextInt(TYPES.length)].toCharArray()));
+            }
+            index.add(classData);
+        }
+        return index;
+    }
+
+    private static String signature(int i, Random random) {
+        StringBuilder sb = new StringBuilder()
+                .append("package com.example.shop.p").append(i % 100).append(";\n")
+                .append("@Service\npublic class Type").append(i).append(" {\n");
+        for (int m = 0; m < MEMBERS; m++) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            sb.append("public ").append(type.substring(type.lastIndexOf('.') + 1))
+                    .append(" find").append(m).append("(Long id, String name);\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static long footprint(Supplier<List<Object>> build) throws InterruptedException {
+        long before = usedHeap();
+        List<Object> index = build.get();
+        long after = usedHeap();
+        if (index.isEmpty()) {
+            throw new AssertionError();
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class PlainClassData {
+
+        private final String _package;
+        private final String className;
+        private final String classSignature;
+        private final Set<String> subtree = new HashSet<>();
+
+        PlainClassData(String _package, String className, String classSignature) {
+            this._package = _package;
+            this.className = className;
+            this.classSignature = classSignature;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.junit.jupiter.api.Test;
+
+public class ClassIndexStoreTest {
+
+    @Test
+    public void entries_survive_a_round_trip() throws IOException {
+        ClassData service = new ClassData("demo", "Service", "public class Service {\npublic void run();\n}\n");
+        service.addSubTree("java.util.List<java.lang.String>");
+        service.addReference("demo.Repository");
+        ClassData large = new ClassData("", "Large", "x".repeat(100_000));
+        byte[] hash = new byte[32];
+        hash[0] = 42;
+
+        List<ClassIndexStore.Entry> entries = roundTrip(List.of(
+                new ClassIndexStore.Entry("src/main/java/demo/Service.java", 1_700_000_000_000L, hash, service),
+                new ClassIndexStore.Entry("src/main/java/Large.java", 5L, new byte[32], large)));
+
+        then(entries).hasSize(2);
+        ClassIndexStore.Entry first = entries.get(0);
+        then(first.path()).isEqualTo("src/main/java/demo/Service.java");
+        then(first.lastModified()).isEqualTo(1_700_000_000_000L);
+        then(first.hash()).isEqualTo(hash);
+        then(first.classData().getPackage()).isEqualTo("demo");
+        then(first.classData().getClassName()).isEqualTo("Service");
+        then(first.classData().getClassSignature()).isEqualTo(service.getClassSignature());
+        then(first.classData().getSubtree()).containsExactly("java.util.List<java.lang.String>");
+        then(entries.get(1).classData().getClassSignature()).hasSize(100_000);
+        then(first.classData().getReferences()).containsExactly("demo.Repository");
+        then(entries.get(1).classData().getSubtree()).isNull();
+        then(entries.get(1).classData().getReferences()).isNull();
+    }
+
+    @Test
+    public void a_foreign_file_is_rejected() {
+        thenThrownBy(() -> ClassIndexStore.read(new DataInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}))))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static List<ClassIndexStore.Entry> roundTrip(List<ClassIndexStore.Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ClassIndexStore.write(new DataOutputStream(bytes), entries);
+        return ClassIndexStore.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
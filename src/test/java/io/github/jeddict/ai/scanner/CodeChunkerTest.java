@@ -0,0 +1,64 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class CodeChunkerTest {
+
+    @Test
+    public void a_java_file_is_split_into_its_types_and_methods() {
+        String source = """
+                package demo;
+
+                /** Orders. */
+                public class OrderService {
+                    private int total;
+
+                    /** Finds an order. */
+                    public Order find(Long id) {
+                        class Local {}
+                        return null;
+                    }
+
+                    static class Line {
+                        void add() {}
+                    }
+                }
+                """;
+
+        List<CodeChunker.Chunk> chunks = CodeChunker.chunks("OrderService.java", source);
+
+        then(chunks).extracting(CodeChunker.Chunk::title)
+                .containsExactly("OrderService", "OrderService.find(Long)", "Line", "Line.add()");
+        then(chunks.get(0).startLine()).isEqualTo(3);
+        then(chunks.get(0).text()).contains("private int total;").doesNotContain("find");
+        then(chunks.get(1).text()).startsWith("    /** Finds an order. */").contains("class Local");
+    }
+
+    @Test
+    public void other_files_are_split_into_runs_of_lines() {
+        String xml = "<a>\n".repeat(CodeChunker.MAX_LINES + 10);
+
+        List<CodeChunker.Chunk> chunks = CodeChunker.chunks("pom.xml", xml);
+
+        then(chunks).hasSize(2);
+        then(chunks.get(1).startLine()).isEqualTo(CodeChunker.MAX_LINES + 1);
+        then(chunks.get(1).endLine()).isEqualTo(CodeChunker.MAX_LINES + 11);
+    }
+}
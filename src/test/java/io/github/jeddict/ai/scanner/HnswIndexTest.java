@@ -0,0 +1,117 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HnswIndexTest {
+
+    private static final String[] WORDS = {"order", "customer", "invoice", "payment", "total", "tax", "user",
+        "login", "session", "token", "cache", "chunk", "vector", "graph", "search", "parse"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void the_nearest_chunks_are_found_and_deleted_ones_are_not() throws IOException {
+        EmbeddingProvider provider = HashingEmbeddingProvider.getInstance();
+        List<float[]> vectors = new ArrayList<>();
+        Random random = new Random(7);
+        try (HnswIndex index = HnswIndex.create(directory.resolve("a.vectors"), provider.getDimension())) {
+            for (int i = 0; i < 1_000; i++) {
+                float[] vector = provider.embed(text(random, 6));
+                vectors.add(vector);
+                then(index.add(vector)).isEqualTo(i);
+            }
+            for (int i = 0; i < 1_000; i += 2) {
+                index.delete(i);
+            }
+
+            int found = 0;
+            for (int q = 0; q < 20; q++) {
+                float[] query = provider.embed(text(random, 3));
+                List<Integer> exact = IntStream.range(0, 1_000).filter(i -> i % 2 == 1).boxed()
+                        .sorted(Comparator.comparingDouble(i -> -dot(query, vectors.get(i))))
+                        .limit(5)
+                        .toList();
+                float fifth = dot(query, vectors.get(exact.get(4)));
+                for (int node : index.search(query, 5, 50, node -> true)) {
+                    then(node % 2).isEqualTo(1);
+                    if (dot(query, vectors.get(node)) >= fifth - 1e-6) {
+                        found++;
+                    }
+                }
+            }
+            then(found).isGreaterThanOrEqualTo(95);
+        }
+    }
+
+    @Test
+    public void an_index_is_reopened_only_with_the_links_it_was_flushed_with() throws IOException {
+        Path file = directory.resolve("b.vectors");
+        EmbeddingProvider provider = HashingEmbeddingProvider.getInstance();
+        float[] vector = provider.embed("find order total");
+        ByteArrayOutputStream links = new ByteArrayOutputStream();
+        try (HnswIndex index = HnswIndex.create(file, provider.getDimension())) {
+            index.add(vector);
+            index.add(provider.embed("render login page"));
+            index.flush(3);
+            index.writeLinks(new DataOutputStream(links));
+        }
+
+        then(HnswIndex.open(file, 2, links(links))).isNull();
+        try (HnswIndex index = HnswIndex.open(file, 3, links(links))) {
+            then(index.size()).isEqualTo(2);
+            then(index.vector(0)).isEqualTo(vector);
+            // changed after the flush
+            index.add(vector);
+        }
+        then(HnswIndex.open(file, 3, links(links))).isNull();
+    }
+
+    private static DataInputStream links(ByteArrayOutputStream links) {
+        return new DataInputStream(new ByteArrayInputStream(links.toByteArray()));
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(20)).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
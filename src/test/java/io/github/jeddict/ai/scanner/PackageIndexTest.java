@@ -0,0 +1,71 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+public class PackageIndexTest {
+
+    @Test
+    public void packages_are_looked_up_and_joined_in_order() throws IOException {
+        FileObject root = FileUtil.createMemoryFileSystem().getRoot();
+        FileObject a = root.createFolder("a");
+        FileObject b = root.createFolder("b");
+        FileObject first = a.createData("First", "java");
+        FileObject second = a.createData("Second", "java");
+        FileObject third = b.createData("Third", "java");
+        Map<FileObject, ClassData> classes = new HashMap<>();
+        classes.put(third, new ClassData("b", "Third", "class Third"));
+        classes.put(second, new ClassData("a", "Second", "class Second"));
+        classes.put(first, new ClassData("a", "First", "class First"));
+
+        PackageIndex packages = new PackageIndex(classes, null);
+
+        then(packages.packageClasses(a, second)).containsExactly(classes.get(first));
+        then(packages.namedClasses(List.of("Third", "Missing"), null)).containsExactly(classes.get(third));
+        then(packages.content(null)).isEqualTo(String.join(PackageIndex.SEPARATOR, "class First", "class Second", "class Third"));
+        then(packages.content(second)).isEqualTo(String.join(PackageIndex.SEPARATOR, "class First", "class Third"));
+    }
+
+    @Test
+    public void only_the_changed_package_is_joined_again() throws IOException {
+        FileObject root = FileUtil.createMemoryFileSystem().getRoot();
+        FileObject a = root.createFolder("a");
+        FileObject b = root.createFolder("b");
+        FileObject first = a.createData("First", "java");
+        FileObject second = b.createData("Second", "java");
+        Map<FileObject, ClassData> classes = new HashMap<>();
+        classes.put(first, new ClassData("a", "First", "class First"));
+        classes.put(second, new ClassData("b", "Second", "class Second"));
+        PackageIndex previous = new PackageIndex(classes, null);
+        String unchanged = previous.packageContent(a);
+        String changed = previous.packageContent(b);
+
+        classes.put(second, new ClassData("b", "Second", "class Second {}"));
+        PackageIndex packages = new PackageIndex(classes, previous);
+
+        then(packages.content(null)).isEqualTo("class First" + PackageIndex.SEPARATOR + "class Second {}");
+        then(packages.packageContent(a)).isSameAs(unchanged);
+        then(packages.packageContent(b)).isNotEqualTo(changed);
+    }
+}
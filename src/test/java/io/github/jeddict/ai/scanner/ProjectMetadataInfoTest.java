@@ -0,0 +1,78 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class ProjectMetadataInfoTest {
+
+    @Test
+    public void a_groovy_build_script_gives_ee_and_java_version() {
+        String script = """
+                plugins {
+                    id 'war'
+                }
+
+                java {
+                    sourceCompatibility = JavaVersion.VERSION_1_8
+                    targetCompatibility = '11'
+                }
+
+                dependencies {
+                    implementation 'org.slf4j:slf4j-api:2.0.9'
+                    compileOnly 'jakarta.platform:jakarta.jakartaee-api:8.0.0'
+                }
+                """;
+
+        ProjectMetadataInfo.CachedResult result = ProjectMetadataInfo.fromGradleScript(script, 0);
+
+        then(result.getEeVersion()).isEqualTo("jakarta-8.0.0");
+        then(result.getImportPrefix()).isEqualTo("javax");
+        then(result.getJdkVersion()).isEqualTo("1.8");
+    }
+
+    @Test
+    public void a_kotlin_build_script_prefers_the_toolchain() {
+        String script = """
+                java {
+                    toolchain {
+                        languageVersion.set(JavaLanguageVersion.of(21))
+                    }
+                    targetCompatibility = JavaVersion.VERSION_17
+                }
+
+                dependencies {
+                    compileOnly(platform("jakarta.platform:jakarta.jakartaee-bom:10.0.0"))
+                }
+                """;
+
+        ProjectMetadataInfo.CachedResult result = ProjectMetadataInfo.fromGradleScript(script, 0);
+
+        then(result.getEeVersion()).isEqualTo("jakarta");
+        then(result.getImportPrefix()).isEqualTo("jakarta");
+        then(result.getJdkVersion()).isEqualTo("21");
+    }
+
+    @Test
+    public void a_script_without_java_or_ee_gives_nothing() {
+        ProjectMetadataInfo.CachedResult result = ProjectMetadataInfo.fromGradleScript("apply plugin: 'base'", 0);
+
+        then(result.getEeVersion()).isNull();
+        then(result.getImportPrefix()).isNull();
+        then(result.getJdkVersion()).isNull();
+    }
+}
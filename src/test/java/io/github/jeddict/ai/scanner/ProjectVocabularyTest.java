@@ -0,0 +1,91 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+public class ProjectVocabularyTest {
+
+    private static final String USER_SERVICE = """
+            package demo;
+            public class UserService {
+            public static final String DEFAULT_ROLE = "ROLE_USER";
+            public UserService(UserRepository userRepository, AuditLog auditLog);
+            public List<User> findActiveUsers(Status status);
+            public User findUserById(long id);
+            public void register(User user, String password);
+            }
+            """;
+
+    @Test
+    public void the_trie_completes_a_prefix_by_frequency() {
+        FrequencyTrie trie = new FrequencyTrie();
+        trie.add("userName", 1);
+        trie.add("user", 3);
+        trie.add("userId", 2);
+        trie.add("other", 5);
+
+        then(trie.complete("us", 10)).containsExactly("user", "userId", "userName");
+        then(trie.complete("", 2)).containsExactly("other", "user");
+
+        trie.add("user", -3);
+
+        then(trie.complete("us", 10)).containsExactly("userId", "userName");
+        then(trie.complete("x", 10)).isEmpty();
+    }
+
+    @Test
+    public void variable_names_come_from_the_type_first() {
+        ProjectVocabulary vocabulary = new ProjectVocabulary();
+        vocabulary.update(List.of(new ClassData("demo", "UserService", USER_SERVICE)));
+
+        then(vocabulary.suggestVariableNames("UserRepository", "", 8)).startsWith("userRepository", "repository");
+        then(vocabulary.suggestVariableNames("java.util.List<demo.User>", "", 8)).startsWith("users", "userList");
+        then(vocabulary.suggestVariableNames("User", "us", 8)).containsExactly("user", "userRepository");
+        then(vocabulary.suggestVariableNames("Status", "st", 8)).containsExactly("status");
+    }
+
+    @Test
+    public void method_names_and_literals_are_completed() {
+        ProjectVocabulary vocabulary = new ProjectVocabulary();
+        vocabulary.update(List.of(new ClassData("demo", "UserService", USER_SERVICE)));
+
+        then(vocabulary.suggestMethodNames("User", "find", 8)).startsWith("findUserById").contains("findActiveUsers");
+        then(vocabulary.suggestMethodNames(null, "reg", 8)).containsExactly("register");
+        then(vocabulary.suggestStringLiterals("ROLE", 8)).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    public void replaced_classes_and_edited_documents_are_updated_incrementally() throws Exception {
+        ProjectVocabulary vocabulary = new ProjectVocabulary();
+        vocabulary.update(List.of(new ClassData("demo", "UserService", USER_SERVICE)));
+        vocabulary.update(List.of(new ClassData("demo", "UserService", USER_SERVICE.replace("register", "signUp"))));
+
+        then(vocabulary.suggestMethodNames(null, "reg", 8)).isEmpty();
+        then(vocabulary.suggestMethodNames(null, "sign", 8)).containsExactly("signUp");
+
+        String title = "class Editor { String title = \"Untitled\"; }";
+        String caption = "class Editor { String caption = \"Untitled\"; }";
+        vocabulary.updateDocument("Editor.java", title, CaretTreeLocatorTest.Parse.of(title).unit);
+        vocabulary.updateDocument("Editor.java", caption, CaretTreeLocatorTest.Parse.of(caption).unit);
+
+        then(vocabulary.suggestVariableNames(null, "ti", 8)).isEmpty();
+        then(vocabulary.suggestVariableNames(null, "cap", 8)).containsExactly("caption");
+        then(vocabulary.suggestStringLiterals("Un", 8)).containsExactly("Untitled");
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.scanner;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+public class TypeReferenceGraphTest {
+
+    private static final String CONTROLLER = """
+            package demo;
+            import other.*;
+            import java.util.List;
+            public class Controller {
+                private final UserService service;
+                public List<User.Role> roles(Audit audit) { return null; }
+            }
+            """;
+
+    @Test
+    public void the_roots_resolve_through_package_imports_and_nesting() throws Exception {
+        TypeReferenceGraph graph = new TypeReferenceGraph(index());
+
+        then(graph.roots(CaretTreeLocatorTest.Parse.of(CONTROLLER).unit))
+                .containsExactlyInAnyOrder("demo.UserService", "demo.User", "other.Audit");
+        then(graph.resolve("demo.User.Role")).isEqualTo("demo.User");
+        then(graph.resolve("java.util.List")).isNull();
+    }
+
+    @Test
+    public void references_are_followed_to_the_given_depth() throws IOException {
+        Map<FileObject, ClassData> index = index();
+        TypeReferenceGraph graph = new TypeReferenceGraph(index);
+
+        then(names(graph.referenced(List.of("demo.UserService"), 1, null)))
+                .containsExactly("demo.UserService");
+        then(names(graph.referenced(List.of("demo.UserService"), 2, null)))
+                .containsExactlyInAnyOrder("demo.UserService", "demo.UserRepository", "demo.User");
+        then(names(graph.referenced(List.of("demo.UserService"), 3, null)))
+                .containsExactlyInAnyOrder("demo.UserService", "demo.UserRepository", "demo.User", "other.Audit");
+
+        FileObject service = index.entrySet().stream()
+                .filter(entry -> entry.getValue().getClassName().equals("UserService"))
+                .findFirst().get().getKey();
+        then(names(graph.referenced(List.of("demo.UserService"), 2, service)))
+                .containsExactlyInAnyOrder("demo.UserRepository", "demo.User");
+    }
+
+    private static Map<FileObject, ClassData> index() throws IOException {
+        FileObject root = FileUtil.createMemoryFileSystem().getRoot();
+        ClassData service = new ClassData("demo", "UserService", "");
+        service.addReference("demo.UserRepository");
+        service.addReference("demo.User");
+        ClassData repository = new ClassData("demo", "UserRepository", "");
+        repository.addReference("demo.User");
+        repository.addReference("other.Audit");
+        ClassData user = new ClassData("demo", "User", "");
+        user.addReference("demo.User.Role");
+        ClassData audit = new ClassData("other", "Audit", "");
+
+        Map<FileObject, ClassData> index = new HashMap<>();
+        for (ClassData classData : List.of(service, repository, user, audit)) {
+            index.put(root.createData(classData.getClassName(), "java"), classData);
+        }
+        return index;
+    }
+
+    private static List<String> names(List<ClassData> classes) {
+        return classes.stream().map(ClassData::getQualifiedName).toList();
+    }
+}